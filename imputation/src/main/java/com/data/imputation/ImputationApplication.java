@@ -1,28 +1,60 @@
 package com.data.imputation;
 
+import com.data.imputation.cli.HeadlessRunner;
+import com.data.imputation.server.ImputationServer;
 import com.data.imputation.ui.DesktopUi;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Lazy;
+
+import java.io.IOException;
 
 @SpringBootApplication
-public class ImputationApplication implements CommandLineRunner {
+public class ImputationApplication implements CommandLineRunner, ExitCodeGenerator {
 
     private final DesktopUi desktopUi;
+    private final HeadlessRunner headlessRunner;
+    private final ImputationServer server;
+    private int exitCode;
 
-    public ImputationApplication(DesktopUi desktopUi) {
+    public ImputationApplication(DesktopUi desktopUi,
+                                 @Lazy HeadlessRunner headlessRunner,
+                                 @Lazy ImputationServer server) {
         this.desktopUi = desktopUi;
+        this.headlessRunner = headlessRunner;
+        this.server = server;
     }
 
     public static void main(String[] args) {
+        boolean headless = HeadlessRunner.isRequested(args) || ImputationServer.isRequested(args);
+
         // headless(false) is required so Swing windows can open
-        new SpringApplicationBuilder(ImputationApplication.class)
-                .headless(false)
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ImputationApplication.class)
+                .headless(headless)
                 .run(args);
+
+        if (HeadlessRunner.isRequested(args)) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    @Override
+    public void run(String... args) throws IOException {
+        if (HeadlessRunner.isRequested(args)) {
+            exitCode = headlessRunner.run(args);
+        } else if (ImputationServer.isRequested(args)) {
+            server.start();
+        } else {
+            desktopUi.show();
+        }
     }
 
     @Override
-    public void run(String... args) {
-        desktopUi.show();
+    public int getExitCode() {
+        return exitCode;
     }
 }
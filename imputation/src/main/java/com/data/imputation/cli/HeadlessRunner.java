@@ -0,0 +1,187 @@
+package com.data.imputation.cli;
+
+import com.data.imputation.metrics.JobMetrics;
+import com.data.imputation.model.ProcessingOptions;
+import com.data.imputation.service.GapProfile;
+import com.data.imputation.service.LongFormatService;
+import com.data.imputation.service.S3Service;
+import com.data.imputation.service.TimeSeriesInterpolationService;
+import org.springframework.stereotype.Component;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command-line mode without the Swing window:
+ *
+ * <pre>
+ *   --headless --input=data.csv [--suffix=tag] [--resample=PT15M]
+ *   [--aggregate=column:MAX,...] [--precision=column:2,...] [--checkpoint] [--columns=temp*,pressure [--pass-through]] [--delta] [--off-heap|--compressed] [--snapshot] [--upload] [--timings]
+ *   [--window=2025-01-01T00:00:00Z/2025-01-01T06:00:00Z]
+ *   --headless --input=data.csv --apply=data_tag.delta.csv
+ *   --headless --input=data.csv --profile
+ * </pre>
+ *
+ * {@code --apply} rebuilds the full output from the original input and a delta patch.
+ * Repeating {@code --input} joins the files on timestamp into one {@code <first>_merged_<hash>} output.
+ * An input whose header starts with {@code series_id} is read as long format.
+ * {@code --off-heap} keeps the table in memory-mapped temp files, for inputs larger than the heap;
+ * {@code --compressed} keeps it on the heap, delta/XOR-encoded.
+ * {@code --snapshot} keeps the parsed table in a sidecar next to the input and maps it on later runs.
+ * {@code --columns} repairs only the named or matching columns and drops the rest,
+ * or with {@code --pass-through} copies them through untouched.
+ * {@code --window} repairs only the rows in that time range, seeking to them
+ * through a timestamp index kept next to the input.
+ * {@code --profile} only scans the timestamp column and prints the step, gaps,
+ * duplicates and expected output rows a run would see.
+ */
+@Component
+public class HeadlessRunner {
+
+    public static final String HEADLESS_FLAG = "--headless";
+
+    private final TimeSeriesInterpolationService interpolationService;
+    private final LongFormatService longFormatService;
+    private final S3Service s3Service;
+
+    public HeadlessRunner(TimeSeriesInterpolationService interpolationService,
+                          LongFormatService longFormatService,
+                          S3Service s3Service) {
+        this.interpolationService = interpolationService;
+        this.longFormatService = longFormatService;
+        this.s3Service = s3Service;
+    }
+
+    public static boolean isRequested(String... args) {
+        for (String arg : args) {
+            if (HEADLESS_FLAG.equals(arg)) return true;
+        }
+        return false;
+    }
+
+    /** Runs one job and returns the process exit code. */
+    public int run(String... args) {
+        return run(System.out, System.err, args);
+    }
+
+    int run(PrintStream out, PrintStream err, String... args) {
+        Arguments arguments;
+        try {
+            arguments = Arguments.parse(args);
+        } catch (RuntimeException e) {
+            err.println("Invalid arguments: " + e.getMessage());
+            return 2;
+        }
+        List<Path> inputs = arguments.inputs;
+        Path patch = arguments.patch;
+        ProcessingOptions options = arguments.options;
+
+        if (inputs.isEmpty()) {
+            err.println("Missing --input=<file.csv>");
+            return 2;
+        }
+        if (patch != null && inputs.size() > 1) {
+            err.println("--apply takes a single --input");
+            return 2;
+        }
+
+        if (arguments.profile) {
+            try {
+                for (Path input : inputs) {
+                    if (inputs.size() > 1) out.println(input.getFileName() + ":");
+                    out.print(GapProfile.of(input).summary());
+                }
+            } catch (Exception e) {
+                err.println("Error: " + e.getMessage());
+                return 1;
+            }
+            return 0;
+        }
+
+        JobMetrics metrics = interpolationService.newJobMetrics(inputs);
+        try {
+            Path output;
+            if (patch != null) {
+                output = interpolationService.applyDelta(inputs.get(0), patch);
+            } else if (inputs.size() == 1 && LongFormatService.isLongFormat(inputs.get(0))) {
+                output = longFormatService.processFile(inputs.get(0), options, metrics);
+            } else {
+                output = interpolationService.processFiles(inputs, options, metrics);
+            }
+            out.println("Output: " + output);
+
+            if (arguments.upload) {
+                out.println("Uploaded: " + s3Service.uploadFile(output, metrics));
+            }
+        } catch (Exception e) {
+            err.println("Error: " + e.getMessage());
+            return 1;
+        } finally {
+            if (arguments.timings) {
+                out.print(metrics.summary());
+            }
+        }
+        return 0;
+    }
+
+    /** The command line, parsed; unknown flags are ignored. */
+    static final class Arguments {
+        final List<Path> inputs = new ArrayList<>();
+        final ProcessingOptions options = new ProcessingOptions();
+        Path patch;
+        boolean upload;
+        boolean timings;
+        boolean profile;
+
+        /** Throws on a value that does not parse, e.g. a bad interval or window. */
+        static Arguments parse(String... args) {
+            Arguments parsed = new Arguments();
+            ProcessingOptions options = parsed.options;
+            for (String arg : args) {
+                if (arg.startsWith("--input=")) {
+                    parsed.inputs.add(Path.of(value(arg)).toAbsolutePath());
+                } else if (arg.startsWith("--suffix=")) {
+                    options.suffix(value(arg));
+                } else if (arg.startsWith("--resample=")) {
+                    options.resampleInterval(Duration.parse(value(arg)));
+                } else if (arg.startsWith("--aggregate=")) {
+                    options.aggregations(value(arg));
+                } else if (arg.startsWith("--precision=")) {
+                    options.precisions(value(arg));
+                } else if (arg.startsWith("--apply=")) {
+                    parsed.patch = Path.of(value(arg)).toAbsolutePath();
+                } else if (arg.equals("--delta")) {
+                    options.delta(true);
+                } else if (arg.startsWith("--columns=")) {
+                    options.columns(value(arg));
+                } else if (arg.equals("--pass-through")) {
+                    options.passThrough(true);
+                } else if (arg.startsWith("--window=")) {
+                    options.window(value(arg));
+                } else if (arg.equals("--off-heap")) {
+                    options.offHeap(true);
+                } else if (arg.equals("--compressed")) {
+                    options.compressed(true);
+                } else if (arg.equals("--snapshot")) {
+                    options.snapshot(true);
+                } else if (arg.equals("--checkpoint")) {
+                    options.checkpoint(true);
+                } else if (arg.equals("--upload")) {
+                    parsed.upload = true;
+                } else if (arg.equals("--timings")) {
+                    parsed.timings = true;
+                } else if (arg.equals("--profile")) {
+                    parsed.profile = true;
+                }
+            }
+            return parsed;
+        }
+
+        private static String value(String arg) {
+            return arg.substring(arg.indexOf('=') + 1).trim();
+        }
+    }
+}
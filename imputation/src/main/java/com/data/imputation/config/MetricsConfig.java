@@ -0,0 +1,29 @@
+package com.data.imputation.config;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.jmx.JmxConfig;
+import io.micrometer.jmx.JmxMeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterRegistry meterRegistry() {
+        // pipeline meters show up in JConsole / VisualVM under the "imputation" domain
+        JmxConfig config = new JmxConfig() {
+            @Override
+            public String get(String key) {
+                return null;
+            }
+
+            @Override
+            public String domain() {
+                return "imputation";
+            }
+        };
+        return new JmxMeterRegistry(config, Clock.SYSTEM);
+    }
+}
@@ -3,21 +3,33 @@ package com.data.imputation.config;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+
+import java.net.URI;
 
 @Configuration
 public class S3Config {
 
+    // Building the client resolves the credential chain, which is slow; it is only
+    // created on the first upload or by the background warm-up once the window is up.
     @Bean
-    public S3Client s3Client(@Value("${app.s3.region}") String region) {
-        return S3Client.builder()
+    @Lazy
+    public S3Client s3Client(@Value("${app.s3.region}") String region,
+                             @Value("${app.s3.endpoint:}") String endpoint) {
+        S3ClientBuilder builder = S3Client.builder()
                 .region(Region.of(region))
                 // Use the default credential chain (env vars, ~/.aws/credentials, etc.)
                 .credentialsProvider(
                         DefaultCredentialsProvider.builder().build()
-                )
-                .build();
+                );
+        // An S3-compatible server instead of AWS, addressed as host/bucket/key.
+        if (endpoint != null && !endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint.trim())).forcePathStyle(true);
+        }
+        return builder.build();
     }
 }
@@ -0,0 +1,35 @@
+package com.data.imputation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Interpolation of a consecutive batch of columns. */
+@Name("com.data.imputation.ColumnBatch")
+@Label("Column Batch Interpolated")
+@Category("Imputation")
+@Description("Interpolation of a batch of consecutive columns")
+@StackTrace(false)
+public class ColumnBatchEvent extends Event {
+
+    @Label("File Name")
+    public String fileName;
+
+    @Label("First Column")
+    public String firstColumn;
+
+    @Label("First Column Index")
+    public int firstColumnIndex;
+
+    @Label("Columns")
+    public int columns;
+
+    @Label("Rows")
+    public long rows;
+
+    @Label("Cells Imputed")
+    public long cellsImputed;
+}
@@ -0,0 +1,41 @@
+package com.data.imputation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Spans one processFile call, from reading the input to writing the output. */
+@Name("com.data.imputation.Job")
+@Label("Imputation Job")
+@Category("Imputation")
+@Description("One input file processed end to end")
+@StackTrace(false)
+public class JobEvent extends Event {
+
+    @Label("File Name")
+    public String fileName;
+
+    @Label("Rows In")
+    public long rowsIn;
+
+    @Label("Rows Out")
+    public long rowsOut;
+
+    @Label("Columns")
+    public int columns;
+
+    @Label("Bytes Read")
+    @DataAmount
+    public long bytesRead;
+
+    @Label("Bytes Written")
+    @DataAmount
+    public long bytesWritten;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
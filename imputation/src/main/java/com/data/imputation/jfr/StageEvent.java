@@ -0,0 +1,34 @@
+package com.data.imputation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** One pipeline stage (parse, sort, gap fill, ...) of a job. */
+@Name("com.data.imputation.Stage")
+@Label("Imputation Stage")
+@Category("Imputation")
+@Description("One pipeline stage of a job")
+@StackTrace(false)
+public class StageEvent extends Event {
+
+    @Label("File Name")
+    public String fileName;
+
+    @Label("Stage")
+    public String stage;
+
+    @Label("Rows")
+    public long rows;
+
+    @Label("Columns")
+    public int columns;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,31 @@
+package com.data.imputation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** One request that sends file bytes to S3. */
+@Name("com.data.imputation.UploadPart")
+@Label("Upload Part")
+@Category("Imputation")
+@Description("One part (or whole object) sent to S3")
+@StackTrace(false)
+public class UploadPartEvent extends Event {
+
+    @Label("File Name")
+    public String fileName;
+
+    @Label("Key")
+    public String key;
+
+    @Label("Part Number")
+    public int partNumber;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,229 @@
+package com.data.imputation.metrics;
+
+import com.data.imputation.jfr.StageEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stage timings and row/byte counts for one processing job.
+ *
+ * Everything recorded here is kept for the per-job summary and, when a
+ * registry is given, also added to the shared "imputation.*" meters.
+ */
+public class JobMetrics {
+
+    private final String fileName;
+    private final MeterRegistry registry;
+
+    private final long[] stageNanos = new long[PipelineStage.values().length];
+    private int columns;
+    private long rowsIn;
+    private long rowsOut;
+    private long cellsImputed;
+    private long bytesRead;
+    private long bytesWritten;
+    private long uploadBytes;
+    private long uploadNanos;
+    private String storage;
+
+    // read from other threads for progress reporting
+    private volatile PipelineStage currentStage;
+
+    public JobMetrics(String fileName, MeterRegistry registry) {
+        this.fileName = fileName;
+        this.registry = registry;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    /** Starts timing a stage; also emits a JFR {@link StageEvent} when recording is on. */
+    public StageTimer startStage(PipelineStage stage) {
+        return new StageTimer(stage);
+    }
+
+    /** The stage most recently started, or null before the job begins. */
+    public PipelineStage getCurrentStage() {
+        return currentStage;
+    }
+
+    public void addStageNanos(PipelineStage stage, long nanos) {
+        stageNanos[stage.ordinal()] += nanos;
+        if (registry != null) {
+            Timer.builder("imputation.stage")
+                    .description("Time spent in one pipeline stage")
+                    .tag("stage", stage.label())
+                    .register(registry)
+                    .record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void rowsIn(long n) {
+        rowsIn += n;
+        count("imputation.rows.in", "Data rows read", n);
+    }
+
+    public void rowsOut(long n) {
+        rowsOut += n;
+        count("imputation.rows.out", "Data rows written", n);
+    }
+
+    public void cellsImputed(long n) {
+        cellsImputed += n;
+        count("imputation.cells.imputed", "Blank cells filled by interpolation", n);
+    }
+
+    public void bytesRead(long n) {
+        bytesRead += n;
+        count("imputation.bytes.read", "Input bytes read", n);
+    }
+
+    public void bytesWritten(long n) {
+        bytesWritten += n;
+        count("imputation.bytes.written", "Output bytes written", n);
+    }
+
+    public void uploaded(long bytes, long nanos) {
+        uploadBytes += bytes;
+        uploadNanos += nanos;
+        addStageNanos(PipelineStage.UPLOAD, nanos);
+        count("imputation.upload.bytes", "Bytes uploaded to S3", bytes);
+        if (registry != null && nanos > 0) {
+            DistributionSummary.builder("imputation.upload.throughput")
+                    .description("Upload throughput per file")
+                    .baseUnit("bytes/s")
+                    .register(registry)
+                    .record(bytes * 1e9 / nanos);
+        }
+    }
+
+    public void columns(int n) {
+        columns = n;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    /** Where the table was kept, when admission picked it, e.g. "compressed (needs ~900 MB of 1500 MB free)". */
+    public void storage(String description) {
+        storage = description;
+    }
+
+    public String getStorage() {
+        return storage;
+    }
+
+    public long getStageNanos(PipelineStage stage) {
+        return stageNanos[stage.ordinal()];
+    }
+
+    public long getRowsIn() {
+        return rowsIn;
+    }
+
+    public long getRowsOut() {
+        return rowsOut;
+    }
+
+    public long getCellsImputed() {
+        return cellsImputed;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /** One line per stage that ran, followed by the counters. */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        long total = 0;
+        for (PipelineStage stage : PipelineStage.values()) {
+            long nanos = stageNanos[stage.ordinal()];
+            if (nanos == 0) continue;
+            total += nanos;
+            sb.append(String.format("%-15s %8.1f ms%n", stage.label(), nanos / 1e6));
+        }
+        sb.append(String.format("%-15s %8.1f ms%n", "total", total / 1e6));
+        sb.append(String.format("rows in/out     %d / %d%n", rowsIn, rowsOut));
+        sb.append(String.format("cells imputed   %d%n", cellsImputed));
+        sb.append(String.format("bytes in/out    %d / %d%n", bytesRead, bytesWritten));
+        if (storage != null) {
+            sb.append(String.format("storage         %s%n", storage));
+        }
+        if (uploadNanos > 0) {
+            sb.append(String.format("upload          %.1f MB/s%n", uploadBytes / 1e6 / (uploadNanos / 1e9)));
+        }
+        return sb.toString();
+    }
+
+    /** Stage times on a single line, e.g. for a status bar. */
+    public String compactSummary() {
+        StringBuilder sb = new StringBuilder();
+        long total = 0;
+        for (PipelineStage stage : PipelineStage.values()) {
+            long nanos = stageNanos[stage.ordinal()];
+            if (nanos == 0) continue;
+            total += nanos;
+            sb.append(stage.label()).append(' ').append(nanos / 1_000_000).append(" ms, ");
+        }
+        sb.append("total ").append(total / 1_000_000).append(" ms");
+        if (storage != null) sb.append(", ").append(storage);
+        return sb.toString();
+    }
+
+    /** A running stage; {@link #stop} records it. */
+    public class StageTimer {
+        private final PipelineStage stage;
+        private final long startNanos = System.nanoTime();
+        private final StageEvent event = new StageEvent();
+        private long excludedNanos;
+
+        private StageTimer(PipelineStage stage) {
+            this.stage = stage;
+            currentStage = stage;
+            event.begin();
+        }
+
+        /** Time inside this stage that belongs to another one (e.g. run spills during parse). */
+        public void exclude(long nanos) {
+            excludedNanos += nanos;
+        }
+
+        public void stop() {
+            stop(0, 0);
+        }
+
+        public void stop(long rows, long bytes) {
+            addStageNanos(stage, System.nanoTime() - startNanos - excludedNanos);
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.fileName = fileName;
+                event.stage = stage.label();
+                event.rows = rows;
+                event.columns = columns;
+                event.bytes = bytes;
+                event.commit();
+            }
+        }
+    }
+
+    private void count(String name, String description, long n) {
+        if (registry != null) {
+            Counter.builder(name)
+                    .description(description)
+                    .register(registry)
+                    .increment(n);
+        }
+    }
+}
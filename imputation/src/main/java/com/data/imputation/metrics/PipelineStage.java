@@ -0,0 +1,25 @@
+package com.data.imputation.metrics;
+
+/** Timed stages of one processing job, in pipeline order. */
+public enum PipelineStage {
+    INDEX("index"),
+    PARSE("parse"),
+    SORT("sort"),
+    STEP_DETECTION("step-detection"),
+    GAP_FILL("gap-fill"),
+    INTERPOLATE("interpolate"),
+    RESAMPLE("resample"),
+    STATS("stats"),
+    WRITE("write"),
+    UPLOAD("upload");
+
+    private final String label;
+
+    PipelineStage(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+}
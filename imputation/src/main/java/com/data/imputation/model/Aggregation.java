@@ -0,0 +1,11 @@
+package com.data.imputation.model;
+
+/** How the cells of one column are combined into a single resampled cell. */
+public enum Aggregation {
+    MEAN,
+    MIN,
+    MAX,
+    LAST,
+    /** Most frequent non-blank value, e.g. the dominant status keyword. */
+    MODE
+}
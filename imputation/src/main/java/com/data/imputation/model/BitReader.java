@@ -0,0 +1,30 @@
+package com.data.imputation.model;
+
+/** Reads what a {@link BitWriter} wrote, in the same order. */
+final class BitReader {
+
+    private final long[] words;
+    private int position;
+
+    BitReader(long[] words) {
+        this.words = words;
+    }
+
+    /** The next {@code n} bits as an unsigned value, 0 &lt;= n &lt;= 64. */
+    long read(int n) {
+        if (n == 0) return 0;
+        int word = position >>> 6;
+        int used = position & 63;
+        long v = (words[word] << used) >>> (64 - n);
+        int rest = n - (64 - used);
+        if (rest > 0) {
+            v |= words[word + 1] >>> (64 - rest);
+        }
+        position += n;
+        return v;
+    }
+
+    boolean readBit() {
+        return read(1) != 0;
+    }
+}
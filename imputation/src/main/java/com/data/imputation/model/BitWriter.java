@@ -0,0 +1,36 @@
+package com.data.imputation.model;
+
+import java.util.Arrays;
+
+/** Append-only bit stream, most significant bit first. */
+final class BitWriter {
+
+    private long[] words = new long[8];
+    private int bits;
+
+    /** Writes the low {@code n} bits of {@code value}, 0 &lt;= n &lt;= 64. */
+    void write(long value, int n) {
+        if (n == 0) return;
+        if (bits + n > words.length * 64L) {
+            words = Arrays.copyOf(words, words.length * 2);
+        }
+        long v = n == 64 ? value : value & ((1L << n) - 1);
+        int word = bits >>> 6;
+        int free = 64 - (bits & 63);
+        if (n <= free) {
+            words[word] |= v << (free - n);
+        } else {
+            words[word] |= v >>> (n - free);
+            words[word + 1] |= v << (64 - (n - free));
+        }
+        bits += n;
+    }
+
+    void writeBit(boolean bit) {
+        write(bit ? 1 : 0, 1);
+    }
+
+    long[] toArray() {
+        return Arrays.copyOf(words, (bits + 63) >>> 6);
+    }
+}
@@ -0,0 +1,36 @@
+package com.data.imputation.model;
+
+/** Text forms a number column can rebuild from the value alone instead of storing. */
+final class CellText {
+
+    private CellText() {
+    }
+
+    /**
+     * The value of a plain integer that a double holds exactly and that prints back
+     * the same (no sign, zero padding or {@code -0}); {@code Long.MIN_VALUE} otherwise.
+     */
+    static long parseInteger(String text) {
+        int n = text.length();
+        int start = text.charAt(0) == '-' ? 1 : 0;
+        if (n - start == 0 || n - start > 15) return Long.MIN_VALUE;
+        if (text.charAt(start) == '0' && n - start > 1) return Long.MIN_VALUE;
+
+        long value = 0;
+        for (int i = start; i < n; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return Long.MIN_VALUE;
+            value = value * 10 + (c - '0');
+        }
+        if (start == 1) {
+            if (value == 0) return Long.MIN_VALUE;
+            value = -value;
+        }
+        return value;
+    }
+
+    /** True if {@link DoubleFormat} of the parsed value gives back {@code text}. */
+    static boolean isCanonicalDouble(String text, double value) {
+        return text.equals(DoubleFormat.toString(value));
+    }
+}
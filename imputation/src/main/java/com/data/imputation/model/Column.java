@@ -0,0 +1,62 @@
+package com.data.imputation.model;
+
+/**
+ * One non-timestamp column of a {@link CsvTable}.
+ * Cells are kept column-wise so each column can pick its own storage.
+ */
+public abstract class Column {
+
+    public abstract int size();
+
+    /** Cell text, never null (blank cells are ""). */
+    public abstract String get(int row);
+
+    public abstract void set(int row, String value);
+
+    public abstract void add(String value);
+
+    /** Stores a computed value; numeric columns keep the double and print it on demand. */
+    public void setDouble(int row, double value) {
+        set(row, DoubleFormat.toString(value));
+    }
+
+    /**
+     * The value of a cell whose text is {@link DoubleFormat} of it, or NaN for any
+     * other cell; lets a writer print the value instead of building its text.
+     */
+    public double formattedDouble(int row) {
+        return Double.NaN;
+    }
+
+    /**
+     * Returns a new column of the same kind with the cells at the given rows.
+     * An index of -1 produces a blank cell.
+     */
+    public abstract Column select(int[] rowIndexes);
+
+    public boolean isBlank(int row) {
+        return get(row).isBlank();
+    }
+
+    public boolean isNumeric(int row) {
+        String s = get(row);
+        if (s.isBlank()) return false;
+        try {
+            Double.parseDouble(s);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /** Numeric value of the cell, or NaN when the cell is blank or not a number. */
+    public double getDouble(int row) {
+        String s = get(row);
+        if (s.isBlank()) return Double.NaN;
+        try {
+            return Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
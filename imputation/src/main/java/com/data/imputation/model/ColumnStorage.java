@@ -0,0 +1,28 @@
+package com.data.imputation.model;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Where a table keeps its timestamps and mostly-numeric columns when not in plain
+ * heap lists; keyword columns are dictionary-encoded whatever the storage.
+ */
+public interface ColumnStorage {
+
+    /** Delta-of-delta timestamps and XOR-encoded doubles on the heap, decoded block by block. */
+    ColumnStorage COMPRESSED = new ColumnStorage() {
+        @Override
+        public List<Instant> newTimeline() {
+            return new CompressedTimeline();
+        }
+
+        @Override
+        public Column newColumn() {
+            return new CompressedColumn();
+        }
+    };
+
+    List<Instant> newTimeline();
+
+    Column newColumn();
+}
@@ -0,0 +1,237 @@
+package com.data.imputation.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Mostly-numeric column compressed in blocks of {@link #BLOCK_ROWS} rows.
+ *
+ * A block is one bit stream: a 2-bit tag per row (blank, {@link DoubleFormat}
+ * text, plain integer text, or verbatim) and, for the numeric tags, the value
+ * XOR-encoded against the previous one. Verbatim cells (keywords, "1.50") keep their
+ * text beside the stream. One block at a time is kept decoded, so reading or writing
+ * in row order, as interpolation and the writer do, decodes each block once.
+ */
+public class CompressedColumn extends Column {
+
+    static final int BLOCK_ROWS = 1024;
+
+    private static final int BLANK = 0;
+    private static final int DOUBLE_TEXT = 1;
+    private static final int INTEGER_TEXT = 2;
+    private static final int VERBATIM = 3;
+    // decoded form only: a verbatim cell that is not a number
+    private static final int KEYWORD = 4;
+
+    private record Block(long[] bits, String[] verbatim) {
+    }
+
+    // encoded blocks; the last may be partly filled
+    private final List<Block> blocks = new ArrayList<>();
+    private int size;
+
+    // decoded rows of block `loaded`
+    private final byte[] tags = new byte[BLOCK_ROWS];
+    private final double[] values = new double[BLOCK_ROWS];
+    private final String[] texts = new String[BLOCK_ROWS];
+    private int loaded = -1;
+    private boolean dirty;
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String get(int row) {
+        int r = locate(row);
+        return switch (tags[r]) {
+            case BLANK -> "";
+            case DOUBLE_TEXT -> DoubleFormat.toString(values[r]);
+            case INTEGER_TEXT -> Long.toString((long) values[r]);
+            default -> texts[r];
+        };
+    }
+
+    @Override
+    public void set(int row, String value) {
+        put(locate(row), value == null ? "" : value);
+        dirty = true;
+    }
+
+    @Override
+    public void add(String value) {
+        put(append(), value == null ? "" : value);
+    }
+
+    @Override
+    public void setDouble(int row, double value) {
+        int r = locate(row);
+        tags[r] = DOUBLE_TEXT;
+        values[r] = value;
+        texts[r] = null;
+        dirty = true;
+    }
+
+    @Override
+    public double formattedDouble(int row) {
+        int r = locate(row);
+        return tags[r] == DOUBLE_TEXT ? values[r] : Double.NaN;
+    }
+
+    @Override
+    public Column select(int[] rowIndexes) {
+        CompressedColumn out = new CompressedColumn();
+        for (int idx : rowIndexes) {
+            if (idx < 0) {
+                out.put(out.append(), "");
+                continue;
+            }
+            int from = locate(idx);
+            int to = out.append();
+            out.tags[to] = tags[from];
+            out.values[to] = values[from];
+            out.texts[to] = texts[from];
+        }
+        return out;
+    }
+
+    @Override
+    public boolean isBlank(int row) {
+        int r = locate(row);
+        return tags[r] == BLANK || (tags[r] >= VERBATIM && texts[r].isBlank());
+    }
+
+    @Override
+    public boolean isNumeric(int row) {
+        int r = locate(row);
+        return tags[r] != BLANK && tags[r] != KEYWORD;
+    }
+
+    @Override
+    public double getDouble(int row) {
+        int r = locate(row);
+        return tags[r] != BLANK && tags[r] != KEYWORD ? values[r] : Double.NaN;
+    }
+
+    /** Encoded size in bytes, without the one decoded block. */
+    public long compressedBytes() {
+        flush();
+        long bytes = 0;
+        for (Block block : blocks) {
+            bytes += block.bits().length * (long) Long.BYTES;
+        }
+        return bytes;
+    }
+
+    private void put(int r, String text) {
+        texts[r] = null;
+        if (text.isEmpty()) {
+            tags[r] = BLANK;
+            return;
+        }
+
+        long integer = CellText.parseInteger(text);
+        if (integer != Long.MIN_VALUE) {
+            tags[r] = INTEGER_TEXT;
+            values[r] = integer;
+            return;
+        }
+
+        try {
+            double v = Double.parseDouble(text);
+            values[r] = v;
+            if (CellText.isCanonicalDouble(text, v)) {
+                tags[r] = DOUBLE_TEXT;
+            } else {
+                tags[r] = VERBATIM;
+                texts[r] = text;
+            }
+        } catch (NumberFormatException e) {
+            tags[r] = KEYWORD;
+            texts[r] = text;
+        }
+    }
+
+    // ---------- blocks ----------
+
+    /** Loads the block holding {@code row} and returns the row's slot in it. */
+    private int locate(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + size);
+        }
+        load(row / BLOCK_ROWS);
+        return row % BLOCK_ROWS;
+    }
+
+    /** Adds a row to the last block and returns its slot; the caller fills it in. */
+    private int append() {
+        int block = size / BLOCK_ROWS;
+        if (block == blocks.size()) {
+            flush();
+            blocks.add(null);
+            loaded = block;
+        } else {
+            load(block);
+        }
+        dirty = true;
+        return size++ % BLOCK_ROWS;
+    }
+
+    private void load(int block) {
+        if (block == loaded) return;
+        flush();
+        decode(blocks.get(block), rowsIn(block));
+        loaded = block;
+    }
+
+    private void flush() {
+        if (dirty) {
+            blocks.set(loaded, encode(rowsIn(loaded)));
+            dirty = false;
+        }
+    }
+
+    private int rowsIn(int block) {
+        return Math.min(BLOCK_ROWS, size - block * BLOCK_ROWS);
+    }
+
+    private Block encode(int rows) {
+        BitWriter out = new BitWriter();
+        GorillaCodec.XorEncoder encoder = new GorillaCodec.XorEncoder(out);
+        String[] verbatim = new String[rows];
+        int verbatimCount = 0;
+
+        for (int r = 0; r < rows; r++) {
+            int tag = Math.min(tags[r], VERBATIM);
+            out.write(tag, 2);
+            if (tag == DOUBLE_TEXT || tag == INTEGER_TEXT) {
+                encoder.write(values[r]);
+            } else if (tag == VERBATIM) {
+                verbatim[verbatimCount++] = texts[r];
+            }
+        }
+        return new Block(out.toArray(), verbatimCount == 0 ? null : Arrays.copyOf(verbatim, verbatimCount));
+    }
+
+    private void decode(Block block, int rows) {
+        BitReader in = new BitReader(block.bits());
+        GorillaCodec.XorDecoder decoder = new GorillaCodec.XorDecoder(in);
+        int verbatimCount = 0;
+
+        for (int r = 0; r < rows; r++) {
+            int tag = (int) in.read(2);
+            texts[r] = null;
+            if (tag == DOUBLE_TEXT || tag == INTEGER_TEXT) {
+                tags[r] = (byte) tag;
+                values[r] = decoder.read();
+            } else if (tag == VERBATIM) {
+                // numeric verbatim cells are rare, so parsing them again is cheap
+                put(r, block.verbatim()[verbatimCount++]);
+            } else {
+                tags[r] = BLANK;
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.data.imputation.model;
+
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Timestamp column compressed in blocks of {@link CompressedColumn#BLOCK_ROWS} rows:
+ * each block holds its first instant in full and then the delta-of-delta of epoch
+ * nanos, so a regular timeline costs about one bit a row. One block at a time is
+ * kept decoded; reads and writes in row order decode each block once.
+ */
+public class CompressedTimeline extends AbstractList<Instant> implements RandomAccess, EpochTimeline {
+
+    private static final int BLOCK_ROWS = CompressedColumn.BLOCK_ROWS;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    // encoded blocks; the last may be partly filled
+    private final List<long[]> blocks = new ArrayList<>();
+    private int size;
+
+    // decoded rows of block `loaded`
+    private final long[] seconds = new long[BLOCK_ROWS];
+    private final int[] nanos = new int[BLOCK_ROWS];
+    private int loaded = -1;
+    private boolean dirty;
+
+    @Override
+    public Instant get(int index) {
+        checkIndex(index);
+        load(index / BLOCK_ROWS);
+        int r = index % BLOCK_ROWS;
+        return Instant.ofEpochSecond(seconds[r], nanos[r]);
+    }
+
+    @Override
+    public long epochSecond(int index) {
+        checkIndex(index);
+        load(index / BLOCK_ROWS);
+        return seconds[index % BLOCK_ROWS];
+    }
+
+    @Override
+    public int nano(int index) {
+        checkIndex(index);
+        load(index / BLOCK_ROWS);
+        return nanos[index % BLOCK_ROWS];
+    }
+
+    @Override
+    public Instant set(int index, Instant timestamp) {
+        Instant old = get(index);
+        int r = index % BLOCK_ROWS;
+        seconds[r] = timestamp.getEpochSecond();
+        nanos[r] = timestamp.getNano();
+        dirty = true;
+        return old;
+    }
+
+    @Override
+    public boolean add(Instant timestamp) {
+        int block = size / BLOCK_ROWS;
+        if (block == blocks.size()) {
+            flush();
+            blocks.add(null);
+            loaded = block;
+        } else {
+            load(block);
+        }
+        int r = size % BLOCK_ROWS;
+        seconds[r] = timestamp.getEpochSecond();
+        nanos[r] = timestamp.getNano();
+        dirty = true;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void load(int block) {
+        if (block == loaded) return;
+        flush();
+        decode(blocks.get(block), rowsIn(block));
+        loaded = block;
+    }
+
+    private void flush() {
+        if (dirty) {
+            blocks.set(loaded, encode(rowsIn(loaded)));
+            dirty = false;
+        }
+    }
+
+    private int rowsIn(int block) {
+        return Math.min(BLOCK_ROWS, size - block * BLOCK_ROWS);
+    }
+
+    // ---------- encoding ----------
+
+    private long[] encode(int rows) {
+        BitWriter out = new BitWriter();
+        long[] epochNanos = toEpochNanos(rows);
+        if (epochNanos == null) {
+            // outside the years 1677..2262: instants are stored in full
+            out.writeBit(true);
+            for (int r = 0; r < rows; r++) {
+                out.write(seconds[r], 64);
+                out.write(nanos[r], 30);
+            }
+            return out.toArray();
+        }
+
+        out.writeBit(false);
+        out.write(epochNanos[0], 64);
+        // deltas may wrap around; decoding wraps the same way and gets the values back
+        long previousDelta = 0;
+        for (int r = 1; r < rows; r++) {
+            long delta = epochNanos[r] - epochNanos[r - 1];
+            GorillaCodec.writeDeltaOfDelta(out, delta - previousDelta);
+            previousDelta = delta;
+        }
+        return out.toArray();
+    }
+
+    private void decode(long[] block, int rows) {
+        BitReader in = new BitReader(block);
+        if (in.readBit()) {
+            for (int r = 0; r < rows; r++) {
+                seconds[r] = in.read(64);
+                nanos[r] = (int) in.read(30);
+            }
+            return;
+        }
+
+        long value = in.read(64);
+        long delta = 0;
+        for (int r = 0; r < rows; r++) {
+            if (r > 0) {
+                delta += GorillaCodec.readDeltaOfDelta(in);
+                value += delta;
+            }
+            seconds[r] = Math.floorDiv(value, NANOS_PER_SECOND);
+            nanos[r] = (int) Math.floorMod(value, NANOS_PER_SECOND);
+        }
+    }
+
+    /** The block's instants as epoch nanos, or null if one does not fit in a long. */
+    private long[] toEpochNanos(int rows) {
+        long[] out = new long[rows];
+        try {
+            for (int r = 0; r < rows; r++) {
+                out[r] = Math.addExact(Math.multiplyExact(seconds[r], NANOS_PER_SECOND), nanos[r]);
+            }
+        } catch (ArithmeticException e) {
+            return null;
+        }
+        return out;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Row " + index + " out of bounds for size " + size);
+        }
+    }
+}
@@ -1,21 +1,97 @@
 package com.data.imputation.model;
 
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Timestamp column plus the value columns, stored column-wise.
+ * {@link #getRows()} offers a row view over the same storage.
+ */
 public class CsvTable {
     private final List<String> headers;
-    private final List<DataRow> rows;
+    private final List<Instant> timestamps;
+    private final List<Column> columns;
+
+    public CsvTable(List<String> headers, List<Instant> timestamps, List<Column> columns) {
+        this.headers = headers;
+        this.timestamps = timestamps;
+        this.columns = columns;
+    }
 
     public CsvTable(List<String> headers, List<DataRow> rows) {
         this.headers = headers;
-        this.rows = rows;
+        this.timestamps = new ArrayList<>(rows.size());
+        this.columns = new ArrayList<>();
+
+        int columnCount = headers.size() - 1;
+        for (int c = 0; c < columnCount; c++) {
+            columns.add(new TextColumn(rows.size()));
+        }
+        for (DataRow row : rows) {
+            timestamps.add(row.getTimestamp());
+            for (int c = 0; c < columnCount; c++) {
+                columns.get(c).add(c < row.getValues().size() ? row.getValues().get(c) : "");
+            }
+        }
     }
 
     public List<String> getHeaders() {
         return headers;
     }
 
+    public List<Instant> getTimestamps() {
+        return timestamps;
+    }
+
+    /** Value columns, i.e. header columns 1..N. */
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    public int getRowCount() {
+        return timestamps.size();
+    }
+
+    /** Row view; values written through a row land in the underlying columns. */
     public List<DataRow> getRows() {
-        return rows;
+        return new AbstractList<>() {
+            @Override
+            public DataRow get(int index) {
+                return new DataRow(timestamps.get(index), new RowValues(index));
+            }
+
+            @Override
+            public int size() {
+                return timestamps.size();
+            }
+        };
+    }
+
+    private class RowValues extends AbstractList<String> {
+        private final int row;
+
+        RowValues(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public String get(int index) {
+            return columns.get(index).get(row);
+        }
+
+        @Override
+        public String set(int index, String value) {
+            Column column = columns.get(index);
+            String old = column.get(row);
+            column.set(row, value);
+            return old;
+        }
+
+        @Override
+        public int size() {
+            return columns.size();
+        }
     }
 }
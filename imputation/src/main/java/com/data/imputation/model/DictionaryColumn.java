@@ -0,0 +1,168 @@
+package com.data.imputation.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Column for low-cardinality text (status keywords such as OK / MAINT / BLOCK).
+ * Each cell is a one-byte code into a shared dictionary; the codes widen to
+ * ints if the column ever grows past 256 distinct values.
+ */
+public class DictionaryColumn extends Column {
+
+    private static final int BYTE_CODE_LIMIT = 256;
+
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> codesByValue = new HashMap<>();
+    private double[] numericByCode = new double[8];
+    private boolean[] isNumericByCode = new boolean[8];
+
+    private byte[] byteCodes;
+    private int[] intCodes;   // non-null once widened
+    private int size;
+
+    public DictionaryColumn() {
+        this(16);
+    }
+
+    public DictionaryColumn(int initialCapacity) {
+        this.byteCodes = new byte[Math.max(initialCapacity, 1)];
+        codeOf(""); // code 0 is always the blank cell
+    }
+
+    /** {@code rows} cells by code into {@code dictionary}, laid out as {@link #getDictionary()} gave it. */
+    DictionaryColumn(List<String> dictionary, IntUnaryOperator codes, int rows) {
+        this(rows);
+        for (int code = 1; code < dictionary.size(); code++) {
+            codeOf(dictionary.get(code));
+        }
+        for (int r = 0; r < rows; r++) {
+            putCode(r, codes.applyAsInt(r));
+        }
+        size = rows;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String get(int row) {
+        return dictionary.get(code(row));
+    }
+
+    @Override
+    public void set(int row, String value) {
+        checkIndex(row);
+        putCode(row, codeOf(value));
+    }
+
+    @Override
+    public void add(String value) {
+        int code = codeOf(value);
+        ensureCapacity(size + 1);
+        putCode(size++, code);
+    }
+
+    @Override
+    public Column select(int[] rowIndexes) {
+        DictionaryColumn out = new DictionaryColumn(rowIndexes.length);
+        for (int idx : rowIndexes) {
+            out.add(idx < 0 ? "" : get(idx));
+        }
+        return out;
+    }
+
+    @Override
+    public boolean isBlank(int row) {
+        int code = code(row);
+        return code == 0 || dictionary.get(code).isBlank();
+    }
+
+    @Override
+    public boolean isNumeric(int row) {
+        return isNumericByCode[code(row)];
+    }
+
+    @Override
+    public double getDouble(int row) {
+        return numericByCode[code(row)];
+    }
+
+    /** Dictionary code of a cell; codes index {@link #getDictionary()}. */
+    public int code(int row) {
+        checkIndex(row);
+        return intCodes != null ? intCodes[row] : byteCodes[row] & 0xFF;
+    }
+
+    public List<String> getDictionary() {
+        return Collections.unmodifiableList(dictionary);
+    }
+
+    private int codeOf(String value) {
+        String v = value == null ? "" : value;
+        Integer existing = codesByValue.get(v);
+        if (existing != null) return existing;
+
+        int code = dictionary.size();
+        dictionary.add(v);
+        codesByValue.put(v, code);
+
+        if (code == numericByCode.length) {
+            numericByCode = Arrays.copyOf(numericByCode, code * 2);
+            isNumericByCode = Arrays.copyOf(isNumericByCode, code * 2);
+        }
+        numericByCode[code] = Double.NaN;
+        if (!v.isBlank()) {
+            try {
+                numericByCode[code] = Double.parseDouble(v);
+                isNumericByCode[code] = true;
+            } catch (NumberFormatException ignored) {
+                // keyword
+            }
+        }
+
+        if (code == BYTE_CODE_LIMIT && intCodes == null) {
+            widen();
+        }
+        return code;
+    }
+
+    private void putCode(int row, int code) {
+        if (intCodes != null) {
+            intCodes[row] = code;
+        } else {
+            byteCodes[row] = (byte) code;
+        }
+    }
+
+    private void ensureCapacity(int needed) {
+        if (intCodes != null) {
+            if (needed > intCodes.length) {
+                intCodes = Arrays.copyOf(intCodes, Math.max(needed, intCodes.length * 2));
+            }
+        } else if (needed > byteCodes.length) {
+            byteCodes = Arrays.copyOf(byteCodes, Math.max(needed, byteCodes.length * 2));
+        }
+    }
+
+    private void widen() {
+        intCodes = new int[Math.max(byteCodes.length, 1)];
+        for (int i = 0; i < size; i++) {
+            intCodes[i] = byteCodes[i] & 0xFF;
+        }
+        byteCodes = null;
+    }
+
+    private void checkIndex(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + size);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.data.imputation.model;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Shortest round-trip text of a double, in the layout of {@code Double.toString}
+ * ("12.5", "1.0E7", "1.0E-4"), written as ASCII into a caller's byte array
+ * without allocating.
+ *
+ * Digits come from Giulietti's Schubfach algorithm: the shortest decimal in the
+ * rounding interval of the value, the closest one on ties. This is what
+ * {@code Double.toString} prints from JDK 19 on; older JDKs occasionally print a
+ * longer or even non-round-tripping form ("2.0E-3" as "0.0020").
+ */
+public final class DoubleFormat {
+
+    /** Enough room for any value, e.g. "-2.2250738585072014E-308". */
+    public static final int MAX_LENGTH = 24;
+
+    private static final int P = 53;
+    private static final int Q_MIN = -1074;
+    private static final long C_MIN = 1L << (P - 1);
+    private static final int BQ_MASK = 0x7FF;
+    private static final long T_MASK = C_MIN - 1;
+    private static final long C_TINY = 3;
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+    private static final int H = 17;
+
+    private static final long MASK_63 = (1L << 63) - 1;
+    private static final int MASK_28 = (1 << 28) - 1;
+
+    private static final long[] POW10 = new long[H + 1];
+    // for each k in [K_MIN, K_MAX], 10^-k scaled to 126 bits and split in two 63-bit halves
+    private static final long[] G = new long[2 * (K_MAX - K_MIN + 1)];
+
+    private static final byte[] NAN = "NaN".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] POSITIVE_INFINITY = "Infinity".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NEGATIVE_INFINITY = "-Infinity".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] POSITIVE_ZERO = "0.0".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NEGATIVE_ZERO = "-0.0".getBytes(StandardCharsets.US_ASCII);
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i <= H; i++) POW10[i] = POW10[i - 1] * 10;
+
+        BigInteger mask63 = BigInteger.ONE.shiftLeft(63).subtract(BigInteger.ONE);
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            // g = floor(10^-k 2^-r) + 1 with r chosen so that 2^125 <= 10^-k 2^-r < 2^126
+            int shift = 125 - flog2pow10(-k);
+            BigInteger g;
+            if (k <= 0) {
+                BigInteger pow = BigInteger.TEN.pow(-k);
+                g = shift >= 0 ? pow.shiftLeft(shift) : pow.shiftRight(-shift);
+            } else {
+                g = BigInteger.ONE.shiftLeft(shift).divide(BigInteger.TEN.pow(k));
+            }
+            g = g.add(BigInteger.ONE);
+            G[2 * (k - K_MIN)] = g.shiftRight(63).longValueExact();
+            G[2 * (k - K_MIN) + 1] = g.and(mask63).longValue();
+        }
+    }
+
+    private DoubleFormat() {
+    }
+
+    /** The text {@link #format} writes, as a String. */
+    public static String toString(double v) {
+        byte[] b = new byte[MAX_LENGTH];
+        int n = format(v, b, 0);
+        return new String(b, 0, n, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Writes {@code v} at {@code at}, which needs {@link #MAX_LENGTH} bytes of room,
+     * and returns the position after the last byte written.
+     */
+    public static int format(double v, byte[] b, int at) {
+        long bits = Double.doubleToRawLongBits(v);
+        long t = bits & T_MASK;
+        int bq = (int) (bits >>> (P - 1)) & BQ_MASK;
+        if (bq < BQ_MASK) {
+            int i = at;
+            if (bits < 0) b[i++] = '-';
+            if (bq != 0) {
+                // normal value, v = c 2^-mq
+                int mq = -Q_MIN + 1 - bq;
+                long c = C_MIN | t;
+                // integers below 2^53 need no search
+                if (0 < mq && mq < P) {
+                    long f = c >> mq;
+                    if (f << mq == c) return toChars(f, 0, b, i);
+                }
+                return toDecimal(-mq, c, 0, b, i);
+            }
+            if (t != 0) {
+                // subnormal value
+                return t < C_TINY ? toDecimal(Q_MIN, 10 * t, -1, b, i) : toDecimal(Q_MIN, t, 0, b, i);
+            }
+            return copy(bits == 0 ? POSITIVE_ZERO : NEGATIVE_ZERO, b, at);
+        }
+        if (t != 0) return copy(NAN, b, at);
+        return copy(bits > 0 ? POSITIVE_INFINITY : NEGATIVE_INFINITY, b, at);
+    }
+
+    /**
+     * {@code v} rounded half up to {@code decimals} places, so that {@link #format}
+     * prints at most that many; values too large to round that finely are returned as is.
+     */
+    public static double round(double v, int decimals) {
+        if (decimals < 0 || decimals >= POW10.length) return v;
+        double scale = POW10[decimals];
+        double scaled = v * scale;
+        if (!(Math.abs(scaled) < 0x1p52)) return v;
+        return Math.floor(scaled + 0.5) / scale;
+    }
+
+    private static int copy(byte[] text, byte[] b, int at) {
+        System.arraycopy(text, 0, b, at, text.length);
+        return at + text.length;
+    }
+
+    // ---------- Schubfach ----------
+
+    private static int toDecimal(int q, long c, int dk, byte[] b, int at) {
+        int out = (int) c & 0x1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        // the rounding interval is asymmetric at powers of two
+        if (c != C_MIN || q == Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+
+        long g1 = G[2 * (k - K_MIN)];
+        long g0 = G[2 * (k - K_MIN) + 1];
+
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            // one digit less, if a multiple of ten fits in the interval
+            long sp10 = 10 * Math.multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) return toChars(upin ? sp10 : tp10, k, b, at);
+        }
+
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) return toChars(uin ? s : t, k + dk, b, at);
+
+        long cmp = vb - ((s + t) << 1);
+        return toChars(cmp < 0 || (cmp == 0 && (s & 0x1) == 0) ? s : t, k + dk, b, at);
+    }
+
+    // rounded-to-odd product of g and cp, scaled down by 2^127
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = Math.multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = Math.multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | ((z & MASK_63) + MASK_63) >>> 63;
+    }
+
+    private static int flog10pow2(int e) {
+        return (int) (e * 661_971_961_083L >> 41);
+    }
+
+    private static int flog10threeQuartersPow2(int e) {
+        return (int) (e * 661_971_961_083L + -274_743_187_321L >> 41);
+    }
+
+    private static int flog2pow10(int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+
+    // ---------- digits ----------
+
+    /** Writes f 10^e with f's trailing zeros dropped, plain or in scientific notation. */
+    private static int toChars(long f, int e, byte[] b, int at) {
+        int len = flog10pow2(Long.SIZE - Long.numberOfLeadingZeros(f));
+        if (f >= POW10[len]) len++;
+
+        // f becomes 17 digits with f 10^e = 0.f 10^(e + len)
+        f *= POW10[H - len];
+        e += len;
+
+        // split into the leading digit h, the next 8 digits m and the last 8 digits l
+        long hm = Math.multiplyHigh(f, 193_428_131_138_340_668L) >>> 20;
+        int l = (int) (f - 100_000_000L * hm);
+        int h = (int) (hm * 1_441_151_881L >>> 57);
+        int m = (int) (hm - 100_000_000 * h);
+
+        if (0 < e && e <= 7) return plain(h, m, l, e, b, at);
+        if (-3 < e && e <= 0) return leadingZeros(h, m, l, e, b, at);
+        return scientific(h, m, l, e, b, at);
+    }
+
+    private static int plain(int h, int m, int l, int e, byte[] b, int i) {
+        b[i++] = (byte) ('0' + h);
+        int y = y(m);
+        int j = 1;
+        for (; j < e; j++) {
+            int t = 10 * y;
+            b[i++] = (byte) ('0' + (t >>> 28));
+            y = t & MASK_28;
+        }
+        b[i++] = '.';
+        for (; j <= 8; j++) {
+            int t = 10 * y;
+            b[i++] = (byte) ('0' + (t >>> 28));
+            y = t & MASK_28;
+        }
+        return lowDigits(l, b, i);
+    }
+
+    private static int leadingZeros(int h, int m, int l, int e, byte[] b, int i) {
+        b[i++] = '0';
+        b[i++] = '.';
+        for (; e < 0; e++) b[i++] = '0';
+        b[i++] = (byte) ('0' + h);
+        i = eightDigits(m, b, i);
+        return lowDigits(l, b, i);
+    }
+
+    private static int scientific(int h, int m, int l, int e, byte[] b, int i) {
+        b[i++] = (byte) ('0' + h);
+        b[i++] = '.';
+        i = eightDigits(m, b, i);
+        i = lowDigits(l, b, i);
+        return exponent(e - 1, b, i);
+    }
+
+    private static int lowDigits(int l, byte[] b, int i) {
+        if (l != 0) i = eightDigits(l, b, i);
+        // drop trailing zeros, but keep the one right after the point
+        while (b[i - 1] == '0') i--;
+        if (b[i - 1] == '.') i++;
+        return i;
+    }
+
+    private static int eightDigits(int m, byte[] b, int i) {
+        int y = y(m);
+        for (int j = 0; j < 8; j++) {
+            int t = 10 * y;
+            b[i++] = (byte) ('0' + (t >>> 28));
+            y = t & MASK_28;
+        }
+        return i;
+    }
+
+    // m / 10^8 as a 28-bit fraction, so digits come out left to right by multiplying by ten
+    private static int y(int a) {
+        return (int) (Math.multiplyHigh((long) (a + 1) << 28, 193_428_131_138_340_668L) >>> 20) - 1;
+    }
+
+    private static int exponent(int e, byte[] b, int i) {
+        b[i++] = 'E';
+        if (e < 0) {
+            b[i++] = '-';
+            e = -e;
+        }
+        if (e < 10) {
+            b[i++] = (byte) ('0' + e);
+            return i;
+        }
+        if (e >= 100) {
+            int d = e * 1_311 >>> 17;
+            b[i++] = (byte) ('0' + d);
+            e -= 100 * d;
+        }
+        int d = e * 103 >>> 10;
+        b[i++] = (byte) ('0' + d);
+        b[i++] = (byte) ('0' + e - 10 * d);
+        return i;
+    }
+}
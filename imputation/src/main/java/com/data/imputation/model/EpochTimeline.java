@@ -0,0 +1,26 @@
+package com.data.imputation.model;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A timestamp list that hands out a row's epoch second and nano without building
+ * its {@link Instant}, for timelines that store them apart and create instants on read.
+ */
+public interface EpochTimeline {
+
+    long epochSecond(int index);
+
+    int nano(int index);
+
+    /** Row {@code index}'s epoch second, without an Instant when {@code timeline} can give it. */
+    static long epochSecond(List<Instant> timeline, int index) {
+        return timeline instanceof EpochTimeline epoch
+                ? epoch.epochSecond(index) : timeline.get(index).getEpochSecond();
+    }
+
+    /** Row {@code index}'s nano of second, without an Instant when {@code timeline} can give it. */
+    static int nano(List<Instant> timeline, int index) {
+        return timeline instanceof EpochTimeline epoch ? epoch.nano(index) : timeline.get(index).getNano();
+    }
+}
@@ -0,0 +1,122 @@
+package com.data.imputation.model;
+
+/**
+ * The two encodings of Facebook's Gorilla paper, as used by the compressed columns:
+ * delta-of-delta for integers that grow at a near-constant rate (timestamps), and
+ * XOR against the previous value for slowly changing doubles.
+ */
+final class GorillaCodec {
+
+    private GorillaCodec() {
+    }
+
+    // ---------- delta-of-delta ----------
+
+    /** Writes a delta-of-delta: 1 bit when it is 0, as for a regular timeline. */
+    static void writeDeltaOfDelta(BitWriter out, long dod) {
+        if (dod == 0) {
+            out.write(0b0, 1);
+        } else if (dod >= -63 && dod <= 64) {
+            out.write(0b10, 2);
+            out.write(dod, 7);
+        } else if (dod >= -255 && dod <= 256) {
+            out.write(0b110, 3);
+            out.write(dod, 9);
+        } else if (dod >= -2047 && dod <= 2048) {
+            out.write(0b1110, 4);
+            out.write(dod, 12);
+        } else {
+            out.write(0b1111, 4);
+            out.write(dod, 64);
+        }
+    }
+
+    static long readDeltaOfDelta(BitReader in) {
+        if (!in.readBit()) return 0;
+        if (!in.readBit()) return signed(in.read(7), 7);
+        if (!in.readBit()) return signed(in.read(9), 9);
+        if (!in.readBit()) return signed(in.read(12), 12);
+        return in.read(64);
+    }
+
+    // ranges are (-2^(n-1), 2^(n-1)], so values above 2^(n-1) wrapped around
+    private static long signed(long value, int n) {
+        return value > (1L << (n - 1)) ? value - (1L << n) : value;
+    }
+
+    // ---------- XOR doubles ----------
+
+    /** Writes each value as its XOR with the previous one, reusing the previous bit window. */
+    static final class XorEncoder {
+        private final BitWriter out;
+        private long previous;
+        private int leading = -1;
+        private int trailing;
+        private boolean first = true;
+
+        XorEncoder(BitWriter out) {
+            this.out = out;
+        }
+
+        void write(double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            if (first) {
+                out.write(bits, 64);
+                first = false;
+                previous = bits;
+                return;
+            }
+
+            long xor = bits ^ previous;
+            previous = bits;
+            if (xor == 0) {
+                out.write(0b0, 1);
+                return;
+            }
+            out.write(0b1, 1);
+
+            int lead = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int trail = Long.numberOfTrailingZeros(xor);
+            if (leading >= 0 && lead >= leading && trail >= trailing) {
+                // meaningful bits fit in the previous window
+                out.write(0b0, 1);
+                out.write(xor >>> trailing, 64 - leading - trailing);
+            } else {
+                int meaningful = 64 - lead - trail;
+                out.write(0b1, 1);
+                out.write(lead, 5);
+                out.write(meaningful - 1, 6);
+                out.write(xor >>> trail, meaningful);
+                leading = lead;
+                trailing = trail;
+            }
+        }
+    }
+
+    static final class XorDecoder {
+        private final BitReader in;
+        private long previous;
+        private int leading;
+        private int trailing;
+        private boolean first = true;
+
+        XorDecoder(BitReader in) {
+            this.in = in;
+        }
+
+        double read() {
+            if (first) {
+                first = false;
+                previous = in.read(64);
+            } else if (in.readBit()) {
+                if (in.readBit()) {
+                    leading = (int) in.read(5);
+                    int meaningful = (int) in.read(6) + 1;
+                    trailing = 64 - leading - meaningful;
+                }
+                previous ^= in.read(64 - leading - trailing) << trailing;
+            }
+            return Double.longBitsToDouble(previous);
+        }
+    }
+}
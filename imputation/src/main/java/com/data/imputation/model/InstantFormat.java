@@ -0,0 +1,87 @@
+package com.data.imputation.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Text of an instant in the layout of {@code Instant.toString}
+ * ("2025-01-01T00:01:00Z", "2025-01-01T00:01:00.250Z"), written as ASCII into a
+ * caller's byte array without allocating. Fractions come in groups of three
+ * digits, as many as the nanos need.
+ */
+public final class InstantFormat {
+
+    /** Enough room for any instant of the years 0000 to 9999, e.g. "2025-01-01T00:00:00.123456789Z". */
+    public static final int MAX_LENGTH = 30;
+
+    private static final long SECONDS_PER_DAY = 86_400;
+    // 0000-01-01T00:00:00Z and 9999-12-31T23:59:59Z; years outside get a sign
+    private static final long MIN_SECOND = -62_167_219_200L;
+    private static final long MAX_SECOND = 253_402_300_799L;
+
+    private InstantFormat() {
+    }
+
+    /**
+     * Writes the instant at {@code offset} and returns the offset after it, or -1
+     * without writing when its year is outside 0000 to 9999.
+     */
+    public static int format(long epochSecond, int nano, byte[] out, int offset) {
+        if (epochSecond < MIN_SECOND || epochSecond > MAX_SECOND) return -1;
+
+        long days = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+        int secondOfDay = (int) Math.floorMod(epochSecond, SECONDS_PER_DAY);
+
+        // civil date from days since 1970-01-01, in 400-year eras starting on March 1st
+        long z = days + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        int dayOfEra = (int) (z - era * 146_097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        int year = (int) (yearOfEra + era * 400) + (month <= 2 ? 1 : 0);
+
+        int p = digits(year, 4, out, offset);
+        out[p++] = '-';
+        p = digits(month, 2, out, p);
+        out[p++] = '-';
+        p = digits(day, 2, out, p);
+        out[p++] = 'T';
+        p = digits(secondOfDay / 3600, 2, out, p);
+        out[p++] = ':';
+        p = digits(secondOfDay / 60 % 60, 2, out, p);
+        out[p++] = ':';
+        p = digits(secondOfDay % 60, 2, out, p);
+        if (nano > 0) {
+            out[p++] = '.';
+            if (nano % 1_000_000 == 0) {
+                p = digits(nano / 1_000_000, 3, out, p);
+            } else if (nano % 1000 == 0) {
+                p = digits(nano / 1000, 6, out, p);
+            } else {
+                p = digits(nano, 9, out, p);
+            }
+        }
+        out[p++] = 'Z';
+        return p;
+    }
+
+    /** Same text as {@code Instant.toString}. */
+    public static String toString(long epochSecond, int nano) {
+        byte[] out = new byte[MAX_LENGTH];
+        int end = format(epochSecond, nano, out, 0);
+        return end < 0 ? Instant.ofEpochSecond(epochSecond, nano).toString()
+                : new String(out, 0, end, StandardCharsets.US_ASCII);
+    }
+
+    // zero-padded to width
+    private static int digits(int value, int width, byte[] out, int offset) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            out[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return offset + width;
+    }
+}
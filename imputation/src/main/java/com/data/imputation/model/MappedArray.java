@@ -0,0 +1,142 @@
+package com.data.imputation.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Fixed-width elements in a memory-mapped file, mapped one segment at a time as
+ * the array grows. Unwritten elements read as zero. The channel is closed right
+ * after each mapping; the mapping itself stays valid until it is collected.
+ *
+ * An array can also view a fixed-length region of an existing file, mapped
+ * copy-on-write: writes change only this process's pages, never the file.
+ */
+final class MappedArray {
+
+    static final int SEGMENT_SHIFT = 20;
+    static final int SEGMENT_ELEMENTS = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_ELEMENTS - 1;
+
+    private final Path file;
+    private final int elementBytes;
+    private final long base;
+    private final int length;   // -1 while the array grows with its file
+    private MappedByteBuffer[] segments = new MappedByteBuffer[4];
+
+    MappedArray(Path file, int elementBytes) {
+        this(file, elementBytes, 0, -1);
+    }
+
+    /** {@code length} elements of an existing file, starting {@code base} bytes in. */
+    MappedArray(Path file, int elementBytes, long base, int length) {
+        this.file = file;
+        this.elementBytes = elementBytes;
+        this.base = base;
+        this.length = length;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    double getDouble(int index) {
+        return segment(index).getDouble(offset(index));
+    }
+
+    void putDouble(int index, double value) {
+        segment(index).putDouble(offset(index), value);
+    }
+
+    long getLong(int index) {
+        return segment(index).getLong(offset(index));
+    }
+
+    void putLong(int index, long value) {
+        segment(index).putLong(offset(index), value);
+    }
+
+    int getInt(int index) {
+        return segment(index).getInt(offset(index));
+    }
+
+    void putInt(int index, int value) {
+        segment(index).putInt(offset(index), value);
+    }
+
+    byte getByte(int index) {
+        return segment(index).get(offset(index));
+    }
+
+    void putByte(int index, byte value) {
+        segment(index).put(offset(index), value);
+    }
+
+    /** Writes the first {@code count} elements to {@code out} as they are laid out in memory. */
+    void writeTo(WritableByteChannel out, int count) throws IOException {
+        for (int start = 0; start < count; start += SEGMENT_ELEMENTS) {
+            ByteBuffer bytes = segment(start).duplicate();
+            bytes.position(0).limit(Math.min(count - start, SEGMENT_ELEMENTS) * elementBytes);
+            while (bytes.hasRemaining()) out.write(bytes);
+        }
+    }
+
+    private int offset(int index) {
+        return (index & SEGMENT_MASK) * elementBytes;
+    }
+
+    private MappedByteBuffer segment(int index) {
+        int s = index >>> SEGMENT_SHIFT;
+        if (s < segments.length && segments[s] != null) {
+            return segments[s];
+        }
+        return map(s);
+    }
+
+    private synchronized MappedByteBuffer map(int s) {
+        if (s >= segments.length) {
+            segments = Arrays.copyOf(segments, Math.max(s + 1, segments.length * 2));
+        }
+        if (segments[s] == null) {
+            segments[s] = length < 0 ? mapGrowing(s) : mapRegion(s);
+        }
+        return segments[s];
+    }
+
+    private MappedByteBuffer mapGrowing(int s) {
+        long size = (long) SEGMENT_ELEMENTS * elementBytes;
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, s * size, size);
+            buffer.order(ByteOrder.nativeOrder());
+            return buffer;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map " + file, e);
+        }
+    }
+
+    private MappedByteBuffer mapRegion(int s) {
+        // the last segment stops at the region's end, so the file is never extended
+        int elements = Math.min(SEGMENT_ELEMENTS, length - s * SEGMENT_ELEMENTS);
+        if (elements <= 0) {
+            throw new IndexOutOfBoundsException("Element " + ((long) s << SEGMENT_SHIFT)
+                    + " out of bounds for length " + length);
+        }
+        long position = base + (long) s * SEGMENT_ELEMENTS * elementBytes;
+        // a private mapping needs a writable channel, though nothing is written through it
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.PRIVATE, position, (long) elements * elementBytes);
+            buffer.order(ByteOrder.nativeOrder());
+            return buffer;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map " + file, e);
+        }
+    }
+}
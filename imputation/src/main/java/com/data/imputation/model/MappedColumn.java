@@ -0,0 +1,189 @@
+package com.data.imputation.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Mostly-numeric column in mapped memory: a double and a one-byte tag per cell.
+ *
+ * The tag records how the cell's text relates to its value, so {@link #get} gives
+ * back exactly what was stored: {@link DoubleFormat} form ("12.5"), plain
+ * integer form ("10"), blank, or neither. Cells in the last group (keywords,
+ * "1.50", "1e3") keep their text in a small on-heap map, which is fine for the
+ * odd keyword in a sensor column; keyword-heavy columns use a {@link DictionaryColumn}.
+ */
+public class MappedColumn extends Column {
+
+    private static final byte BLANK = 0;          // unwritten cells read as 0, so as blank
+    private static final byte DOUBLE_TEXT = 1;
+    private static final byte INTEGER_TEXT = 2;
+    private static final byte OTHER_NUMERIC = 3;
+    private static final byte KEYWORD = 4;
+
+    private final OffHeapStore store;
+    private final MappedArray values;
+    private final MappedArray tags;
+    private final Map<Integer, String> texts;
+    private int size;
+
+    MappedColumn(OffHeapStore store) {
+        this(store, store.newArray(Double.BYTES), store.newArray(1), new HashMap<>(), 0);
+    }
+
+    /** A column of {@code size} cells already in {@code values} and {@code tags}. */
+    MappedColumn(OffHeapStore store, MappedArray values, MappedArray tags, Map<Integer, String> texts, int size) {
+        this.store = store;
+        this.values = values;
+        this.tags = tags;
+        this.texts = texts;
+        this.size = size;
+    }
+
+    MappedArray values() {
+        return values;
+    }
+
+    MappedArray tags() {
+        return tags;
+    }
+
+    /** Texts of the cells that cannot be rebuilt from their value, by row. */
+    Map<Integer, String> texts() {
+        return texts;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String get(int row) {
+        checkIndex(row);
+        return switch (tags.getByte(row)) {
+            case BLANK -> "";
+            case DOUBLE_TEXT -> DoubleFormat.toString(values.getDouble(row));
+            case INTEGER_TEXT -> Long.toString((long) values.getDouble(row));
+            default -> texts.get(row);
+        };
+    }
+
+    @Override
+    public void set(int row, String value) {
+        checkIndex(row);
+        put(row, value == null ? "" : value);
+    }
+
+    @Override
+    public void add(String value) {
+        put(size++, value == null ? "" : value);
+    }
+
+    @Override
+    public void setDouble(int row, double value) {
+        checkIndex(row);
+        if (tags.getByte(row) >= OTHER_NUMERIC) texts.remove(row);
+        tags.putByte(row, DOUBLE_TEXT);
+        values.putDouble(row, value);
+    }
+
+    @Override
+    public double formattedDouble(int row) {
+        checkIndex(row);
+        return tags.getByte(row) == DOUBLE_TEXT ? values.getDouble(row) : Double.NaN;
+    }
+
+    @Override
+    public Column select(int[] rowIndexes) {
+        MappedColumn out = new MappedColumn(store);
+        for (int idx : rowIndexes) {
+            int row = out.size++;
+            if (idx < 0) continue; // already blank
+            checkIndex(idx);
+            byte tag = tags.getByte(idx);
+            out.tags.putByte(row, tag);
+            out.values.putDouble(row, values.getDouble(idx));
+            if (tag >= OTHER_NUMERIC) out.texts.put(row, texts.get(idx));
+        }
+        return out;
+    }
+
+    @Override
+    public boolean isBlank(int row) {
+        checkIndex(row);
+        byte tag = tags.getByte(row);
+        return tag == BLANK || (tag >= OTHER_NUMERIC && texts.get(row).isBlank());
+    }
+
+    @Override
+    public boolean isNumeric(int row) {
+        checkIndex(row);
+        byte tag = tags.getByte(row);
+        return tag == DOUBLE_TEXT || tag == INTEGER_TEXT || tag == OTHER_NUMERIC;
+    }
+
+    @Override
+    public double getDouble(int row) {
+        return isNumeric(row) ? values.getDouble(row) : Double.NaN;
+    }
+
+    /** Numeric cells in row order, copied into the same store. */
+    public MappedDoubles numericValues() {
+        MappedDoubles out = store.newDoubles();
+        for (int r = 0; r < size; r++) {
+            byte tag = tags.getByte(r);
+            if (tag == DOUBLE_TEXT || tag == INTEGER_TEXT || tag == OTHER_NUMERIC) {
+                out.add(values.getDouble(r));
+            }
+        }
+        return out;
+    }
+
+    /** True if any cell is neither blank nor a number. */
+    public boolean hasNonNumeric() {
+        for (int r = 0; r < size; r++) {
+            if (tags.getByte(r) == KEYWORD && !texts.get(r).isBlank()) return true;
+        }
+        return false;
+    }
+
+    private void put(int row, String text) {
+        if (tags.getByte(row) >= OTHER_NUMERIC) {
+            texts.remove(row);
+        }
+
+        if (text.isEmpty()) {
+            tags.putByte(row, BLANK);
+            values.putDouble(row, 0);
+            return;
+        }
+
+        long integer = CellText.parseInteger(text);
+        if (integer != Long.MIN_VALUE) {
+            tags.putByte(row, INTEGER_TEXT);
+            values.putDouble(row, integer);
+            return;
+        }
+
+        try {
+            double v = Double.parseDouble(text);
+            values.putDouble(row, v);
+            if (CellText.isCanonicalDouble(text, v)) {
+                tags.putByte(row, DOUBLE_TEXT);
+            } else {
+                tags.putByte(row, OTHER_NUMERIC);
+                texts.put(row, text);
+            }
+        } catch (NumberFormatException e) {
+            tags.putByte(row, KEYWORD);
+            values.putDouble(row, Double.NaN);
+            texts.put(row, text);
+        }
+    }
+
+    private void checkIndex(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + size);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.data.imputation.model;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/** Growable array of doubles in mapped memory. */
+public class MappedDoubles {
+
+    // sorted in heap chunks of this many values, then merged
+    private static final int SORT_CHUNK = MappedArray.SEGMENT_ELEMENTS;
+
+    private final OffHeapStore store;
+    private final MappedArray values;
+    private int size;
+
+    MappedDoubles(OffHeapStore store) {
+        this.store = store;
+        this.values = store.newArray(Double.BYTES);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return values.getDouble(index);
+    }
+
+    public void add(double value) {
+        values.putDouble(size++, value);
+    }
+
+    /**
+     * A sorted copy, in {@link Double#compare} order like {@link Arrays#sort(double[])}.
+     * Only one chunk of values is on the heap at a time.
+     */
+    public MappedDoubles sorted() {
+        int chunks = (size + SORT_CHUNK - 1) / SORT_CHUNK;
+        MappedDoubles runs = chunks > 1 ? store.newDoubles() : null;
+        MappedDoubles out = store.newDoubles();
+
+        double[] chunk = new double[Math.min(size, SORT_CHUNK)];
+        for (int c = 0; c < chunks; c++) {
+            int from = c * SORT_CHUNK;
+            int n = Math.min(SORT_CHUNK, size - from);
+            for (int i = 0; i < n; i++) chunk[i] = values.getDouble(from + i);
+            Arrays.sort(chunk, 0, n);
+            MappedDoubles target = runs != null ? runs : out;
+            for (int i = 0; i < n; i++) target.add(chunk[i]);
+        }
+        if (runs == null) {
+            return out;
+        }
+
+        // k-way merge of the sorted chunks
+        PriorityQueue<int[]> heap = new PriorityQueue<>(chunks,
+                (a, b) -> Double.compare(runs.values.getDouble(a[0]), runs.values.getDouble(b[0])));
+        for (int c = 0; c < chunks; c++) {
+            heap.add(new int[]{c * SORT_CHUNK, Math.min(size, (c + 1) * SORT_CHUNK)});
+        }
+        while (!heap.isEmpty()) {
+            int[] run = heap.poll();
+            out.add(runs.values.getDouble(run[0]));
+            if (++run[0] < run[1]) heap.add(run);
+        }
+        return out;
+    }
+}
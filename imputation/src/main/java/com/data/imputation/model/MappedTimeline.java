@@ -0,0 +1,88 @@
+package com.data.imputation.model;
+
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Timestamp column in mapped memory: epoch seconds and nanos, 12 bytes a row.
+ * Instants are created on read and never retained.
+ */
+public class MappedTimeline extends AbstractList<Instant> implements RandomAccess, EpochTimeline {
+
+    private final OffHeapStore store;
+    private final MappedArray seconds;
+    private final MappedArray nanos;
+    private int size;
+
+    MappedTimeline(OffHeapStore store) {
+        this(store, store.newArray(Long.BYTES), store.newArray(Integer.BYTES), 0);
+    }
+
+    /** A timeline of {@code size} rows already in {@code seconds} and {@code nanos}. */
+    MappedTimeline(OffHeapStore store, MappedArray seconds, MappedArray nanos, int size) {
+        this.store = store;
+        this.seconds = seconds;
+        this.nanos = nanos;
+        this.size = size;
+    }
+
+    /** An empty timeline in the same store. */
+    public MappedTimeline newTimeline() {
+        return store.newTimeline();
+    }
+
+    MappedArray seconds() {
+        return seconds;
+    }
+
+    MappedArray nanos() {
+        return nanos;
+    }
+
+    @Override
+    public Instant get(int index) {
+        checkIndex(index);
+        return Instant.ofEpochSecond(seconds.getLong(index), nanos.getInt(index));
+    }
+
+    @Override
+    public long epochSecond(int index) {
+        checkIndex(index);
+        return seconds.getLong(index);
+    }
+
+    @Override
+    public int nano(int index) {
+        checkIndex(index);
+        return nanos.getInt(index);
+    }
+
+    @Override
+    public Instant set(int index, Instant timestamp) {
+        Instant old = get(index);
+        seconds.putLong(index, timestamp.getEpochSecond());
+        nanos.putInt(index, timestamp.getNano());
+        return old;
+    }
+
+    @Override
+    public boolean add(Instant timestamp) {
+        seconds.putLong(size, timestamp.getEpochSecond());
+        nanos.putInt(size, timestamp.getNano());
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Row " + index + " out of bounds for size " + size);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.data.imputation.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Owner of the memory-mapped files behind {@link MappedTimeline}, {@link MappedColumn},
+ * {@link MappedDoubles} and {@link RawLines}. Everything it creates lives in one temp directory, and
+ * the OS pages it in and out, so the heap only holds small per-column objects.
+ * Closing the store deletes the files; the tables built on it must not be used after.
+ */
+public class OffHeapStore implements ColumnStorage, Closeable {
+
+    private final Path dir;
+    private final AtomicInteger nextFile = new AtomicInteger();
+
+    private OffHeapStore(Path dir) {
+        this.dir = dir;
+    }
+
+    public static OffHeapStore create() throws IOException {
+        return new OffHeapStore(Files.createTempDirectory("imputation-offheap-"));
+    }
+
+    @Override
+    public MappedTimeline newTimeline() {
+        return new MappedTimeline(this);
+    }
+
+    @Override
+    public MappedColumn newColumn() {
+        return new MappedColumn(this);
+    }
+
+    public MappedDoubles newDoubles() {
+        return new MappedDoubles(this);
+    }
+
+    MappedArray newArray(int elementBytes) {
+        return new MappedArray(dir.resolve("a" + nextFile.getAndIncrement()), elementBytes);
+    }
+
+    /** A zeroed region of {@code bytes} in a file of its own, for {@link RawLines}. */
+    ByteBuffer newPage(int bytes) {
+        Path file = dir.resolve("p" + nextFile.getAndIncrement());
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map " + file, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (var paths = Files.walk(dir)) {
+            for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException e) {
+                    // still mapped on a platform that refuses to delete mapped files
+                    p.toFile().deleteOnExit();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.data.imputation.model;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Column a job does not repair: its cells are sliced from the row's raw input line
+ * when read, never trimmed or parsed while loading, and can be written as the
+ * input bytes with {@link #writeTo}. Rows added by gap filling have no line and
+ * read as blank. Read-only.
+ */
+public class PassThroughColumn extends Column {
+
+    /** Receives a cell's bytes as they were in the input line. */
+    @FunctionalInterface
+    public interface ByteSink {
+        void write(byte[] bytes, int offset, int length) throws IOException;
+    }
+
+    /** The raw input lines behind a table's pass-through columns, shared between them. */
+    public static final class Lines {
+        private final RawLines lines;
+
+        // bytes and field offsets of the last row read; the writer reads a row's
+        // cells in turn, so each line is copied and split once per row
+        private int cachedRow = -1;
+        private byte[] line = new byte[256];
+        private int length;
+        private int[] starts = new int[16];
+        private int fieldCount;
+
+        // every column selects the same rows during gap filling; they share the result
+        private int[] lastRowIndexes;
+        private Lines lastSelected;
+
+        public Lines(RawLines lines) {
+            this.lines = lines;
+        }
+
+        int size() {
+            return lines.size();
+        }
+
+        String field(int row, int field) {
+            load(row);
+            if (field >= fieldCount) return "";
+            return new String(line, starts[field], end(field) - starts[field], StandardCharsets.UTF_8);
+        }
+
+        void writeField(int row, int field, ByteSink out) throws IOException {
+            load(row);
+            if (field < fieldCount) out.write(line, starts[field], end(field) - starts[field]);
+        }
+
+        Lines select(int[] rowIndexes) {
+            if (rowIndexes != lastRowIndexes) {
+                lastSelected = new Lines((RawLines) lines.select(rowIndexes));
+                lastRowIndexes = rowIndexes;
+            }
+            return lastSelected;
+        }
+
+        private int end(int field) {
+            return field + 1 < fieldCount ? starts[field + 1] - 1 : length;
+        }
+
+        private void load(int row) {
+            if (row == cachedRow) return;
+            length = lines.length(row);
+            if (length > line.length) line = new byte[Math.max(length, line.length * 2)];
+            lines.copy(row, line);
+            split();
+            cachedRow = row;
+        }
+
+        // a comma byte is always a comma in UTF-8, never part of a longer character
+        private void split() {
+            fieldCount = 0;
+            if (length == 0) return;
+            int start = 0;
+            while (true) {
+                if (fieldCount == starts.length) starts = Arrays.copyOf(starts, fieldCount * 2);
+                starts[fieldCount++] = start;
+                int comma = start;
+                while (comma < length && line[comma] != ',') comma++;
+                if (comma == length) break;
+                start = comma + 1;
+            }
+        }
+    }
+
+    private final Lines lines;
+    // position in the input line; 0 is the timestamp
+    private final int field;
+
+    public PassThroughColumn(Lines lines, int field) {
+        this.lines = lines;
+        this.field = field;
+    }
+
+    @Override
+    public int size() {
+        return lines.size();
+    }
+
+    @Override
+    public String get(int row) {
+        return lines.field(row, field);
+    }
+
+    /** Writes the row's cell to {@code out} as the input bytes, without decoding it. */
+    public void writeTo(int row, ByteSink out) throws IOException {
+        lines.writeField(row, field, out);
+    }
+
+    @Override
+    public void set(int row, String value) {
+        throw new UnsupportedOperationException("Pass-through columns are read-only.");
+    }
+
+    @Override
+    public void add(String value) {
+        throw new UnsupportedOperationException("Pass-through columns are read-only.");
+    }
+
+    @Override
+    public Column select(int[] rowIndexes) {
+        return new PassThroughColumn(lines.select(rowIndexes), field);
+    }
+}
@@ -0,0 +1,257 @@
+package com.data.imputation.model;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Per-job settings for {@code TimeSeriesInterpolationService}.
+ * Defaults reproduce the plain fill-and-interpolate run.
+ */
+public class ProcessingOptions {
+
+    /** Most decimals {@link #precision} accepts; doubles carry about 15 significant digits. */
+    public static final int MAX_PRECISION = 15;
+
+    private String suffix = "";
+
+    // optional downsampling after interpolation; null keeps the native step
+    private Duration resampleInterval;
+    private final Map<String, Aggregation> aggregations = new HashMap<>();
+
+    // decimals interpolated values are rounded to, by column name; absent keeps full precision
+    private final Map<String, Integer> precisions = new HashMap<>();
+
+    // names or globs of the columns to repair; empty repairs all of them
+    private List<String> columns = List.of();
+    // keep unselected columns as raw text instead of dropping them
+    private boolean passThrough;
+
+    // only repair rows in [windowStart, windowEnd); null repairs the whole input
+    private Instant windowStart;
+    private Instant windowEnd;
+
+    // keep a resumable sidecar next to the output while the job runs
+    private boolean checkpointing;
+
+    // write only added timestamps and imputed cells instead of the full table
+    private boolean delta;
+
+    // keep the table in memory-mapped temp files instead of on the heap
+    private boolean offHeap;
+
+    // keep numeric columns delta/XOR-compressed on the heap
+    private boolean compressed;
+
+    // map the parsed table from a sidecar next to the input, writing it on first use
+    private boolean snapshot;
+
+    public static ProcessingOptions withSuffix(String suffix) {
+        return new ProcessingOptions().suffix(suffix);
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+
+    public ProcessingOptions suffix(String suffix) {
+        this.suffix = suffix == null ? "" : suffix.trim();
+        return this;
+    }
+
+    public Duration getResampleInterval() {
+        return resampleInterval;
+    }
+
+    public ProcessingOptions resampleInterval(Duration interval) {
+        if (interval != null && (interval.isZero() || interval.isNegative())) {
+            throw new IllegalArgumentException("Resample interval must be positive: " + interval);
+        }
+        this.resampleInterval = interval;
+        return this;
+    }
+
+    /**
+     * Aggregation for one column (by header name). Columns without one use
+     * MODE when they hold keywords and MEAN otherwise.
+     */
+    public ProcessingOptions aggregate(String column, Aggregation aggregation) {
+        aggregations.put(column, aggregation);
+        return this;
+    }
+
+    /** Parses {@code column:AGGREGATION[,column:AGGREGATION...]}, as given on the command line. */
+    public ProcessingOptions aggregations(String specs) {
+        for (String spec : specs.split(",")) {
+            int colon = spec.lastIndexOf(':');
+            String column = colon < 0 ? "" : spec.substring(0, colon).trim();
+            if (column.isEmpty()) {
+                throw new IllegalArgumentException("Expected column:AGGREGATION, got " + spec);
+            }
+            aggregate(column, Aggregation.valueOf(spec.substring(colon + 1).trim().toUpperCase()));
+        }
+        return this;
+    }
+
+    public Aggregation getAggregation(String column) {
+        return aggregations.get(column);
+    }
+
+    /** Columns given an explicit aggregation, by header name. */
+    public Set<String> getAggregatedColumns() {
+        return Collections.unmodifiableSet(aggregations.keySet());
+    }
+
+    /** Rounds the values interpolated into {@code column} (by header name) to {@code decimals} places. */
+    public ProcessingOptions precision(String column, int decimals) {
+        if (decimals < 0 || decimals > MAX_PRECISION) {
+            throw new IllegalArgumentException("Precision must be 0-" + MAX_PRECISION + " decimals: " + decimals);
+        }
+        precisions.put(column.trim(), decimals);
+        return this;
+    }
+
+    /** Parses {@code column:DECIMALS[,column:DECIMALS...]}, as given on the command line. */
+    public ProcessingOptions precisions(String specs) {
+        for (String spec : specs.split(",")) {
+            int colon = spec.lastIndexOf(':');
+            String column = colon < 0 ? "" : spec.substring(0, colon).trim();
+            if (column.isEmpty()) {
+                throw new IllegalArgumentException("Expected column:DECIMALS, got " + spec);
+            }
+            try {
+                precision(column, Integer.parseInt(spec.substring(colon + 1).trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Expected column:DECIMALS, got " + spec);
+            }
+        }
+        return this;
+    }
+
+    /** Decimals for {@code column}, or null to keep full precision. */
+    public Integer getPrecision(String column) {
+        return precisions.get(column.trim());
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    /** Parses {@code name|glob[,name|glob...]}, as given on the command line; blank selects all. */
+    public ProcessingOptions columns(String specs) {
+        this.columns = specs == null ? List.of() : Arrays.stream(specs.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toList();
+        return this;
+    }
+
+    public boolean isPassThrough() {
+        return passThrough;
+    }
+
+    public ProcessingOptions passThrough(boolean enabled) {
+        this.passThrough = enabled;
+        return this;
+    }
+
+    public Instant getWindowStart() {
+        return windowStart;
+    }
+
+    public Instant getWindowEnd() {
+        return windowEnd;
+    }
+
+    public boolean hasWindow() {
+        return windowStart != null;
+    }
+
+    /** Restricts the job to rows at or after {@code start} and before {@code end}. */
+    public ProcessingOptions window(Instant start, Instant end) {
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("Window end must be after its start: " + start + "/" + end);
+        }
+        this.windowStart = start;
+        this.windowEnd = end;
+        return this;
+    }
+
+    /** Parses {@code start/end} as ISO instants, as given on the command line. */
+    public ProcessingOptions window(String spec) {
+        int slash = spec.indexOf('/');
+        if (slash <= 0) {
+            throw new IllegalArgumentException("Expected start/end, got " + spec);
+        }
+        return window(Instant.parse(spec.substring(0, slash).trim()), Instant.parse(spec.substring(slash + 1).trim()));
+    }
+
+    public boolean isCheckpointing() {
+        return checkpointing;
+    }
+
+    public ProcessingOptions checkpoint(boolean enabled) {
+        this.checkpointing = enabled;
+        return this;
+    }
+
+    public boolean isDelta() {
+        return delta;
+    }
+
+    public ProcessingOptions delta(boolean enabled) {
+        this.delta = enabled;
+        return this;
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /** Does not change the output, so it is not part of the {@link #fingerprint()}. */
+    public ProcessingOptions offHeap(boolean enabled) {
+        this.offHeap = enabled;
+        return this;
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    /** Does not change the output either; cannot be combined with {@link #offHeap}. */
+    public ProcessingOptions compressed(boolean enabled) {
+        this.compressed = enabled;
+        return this;
+    }
+
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    /** Keeps the table off-heap like {@link #offHeap}; does not change the output either. */
+    public ProcessingOptions snapshot(boolean enabled) {
+        this.snapshot = enabled;
+        return this;
+    }
+
+    /**
+     * Everything that changes the output, as a stable string; a checkpoint is
+     * only reused by a run with the same fingerprint.
+     */
+    public String fingerprint() {
+        return "suffix=" + suffix
+                + ";resample=" + resampleInterval
+                + ";aggregate=" + new TreeMap<>(aggregations)
+                + ";precision=" + new TreeMap<>(precisions)
+                + ";delta=" + delta
+                + ";columns=" + columns
+                + ";passThrough=" + passThrough
+                + ";window=" + windowStart + "/" + windowEnd;
+    }
+}
@@ -0,0 +1,145 @@
+package com.data.imputation.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * The raw input lines behind {@link PassThroughColumn}s, kept as UTF-8 bytes
+ * instead of parsed cells. Lines are appended to pages of {@link #PAGE_BYTES}
+ * (a longer line gets a page of its own), on the heap or, with an
+ * {@link OffHeapStore}, in mapped memory, and found by a start and length per
+ * row. Only {@link #add} writes; {@link #select} views the same pages.
+ */
+public class RawLines extends Column {
+
+    public static final int PAGE_BYTES = 4 << 20;
+
+    private final Pages pages;
+    // stored line of each row, -1 for a blank one; null while the rows are the stored lines
+    private final int[] rows;
+
+    /** Lines on the heap. */
+    public RawLines() {
+        this(new Pages(ByteBuffer::allocate), null);
+    }
+
+    /** Lines in {@code store}'s mapped memory. */
+    public RawLines(OffHeapStore store) {
+        this(new Pages(store::newPage), null);
+    }
+
+    private RawLines(Pages pages, int[] rows) {
+        this.pages = pages;
+        this.rows = rows;
+    }
+
+    @Override
+    public int size() {
+        return rows == null ? pages.count : rows.length;
+    }
+
+    @Override
+    public String get(int row) {
+        int line = line(row);
+        return line < 0 ? "" : pages.line(line);
+    }
+
+    /** Byte length of the row's line; 0 for a blank row. */
+    public int length(int row) {
+        int line = line(row);
+        return line < 0 ? 0 : pages.lengths[line];
+    }
+
+    /** Copies the row's line, as stored, to the start of {@code dest}, which holds at least {@link #length}. */
+    public void copy(int row, byte[] dest) {
+        int line = line(row);
+        if (line >= 0) pages.copy(line, dest);
+    }
+
+    // stored line of a row, -1 for a blank one
+    private int line(int row) {
+        if (rows != null) return rows[row];
+        if (row < 0 || row >= pages.count) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + pages.count);
+        }
+        return row;
+    }
+
+    @Override
+    public void set(int row, String value) {
+        throw new UnsupportedOperationException("Raw lines are read-only.");
+    }
+
+    @Override
+    public void add(String value) {
+        if (rows != null) {
+            throw new UnsupportedOperationException("A selection of raw lines is read-only.");
+        }
+        pages.append(value == null ? "" : value);
+    }
+
+    @Override
+    public Column select(int[] rowIndexes) {
+        int[] selected = new int[rowIndexes.length];
+        for (int i = 0; i < rowIndexes.length; i++) {
+            int r = rowIndexes[i];
+            selected[i] = r < 0 ? -1 : rows == null ? r : rows[r];
+        }
+        return new RawLines(pages, selected);
+    }
+
+    private static final class Pages {
+        private final IntFunction<ByteBuffer> allocator;
+        private final List<ByteBuffer> pages = new ArrayList<>();
+        private ByteBuffer current;
+        private int used;
+
+        // page index in the high int, offset in the low int
+        private long[] starts = new long[1024];
+        private int[] lengths = new int[1024];
+        private int count;
+
+        Pages(IntFunction<ByteBuffer> allocator) {
+            this.allocator = allocator;
+        }
+
+        void append(String line) {
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            if (current == null || current.capacity() - used < bytes.length) {
+                current = allocator.apply(Math.max(PAGE_BYTES, bytes.length));
+                pages.add(current);
+                used = 0;
+            }
+            current.put(used, bytes);
+
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                lengths = Arrays.copyOf(lengths, count * 2);
+            }
+            starts[count] = ((long) (pages.size() - 1) << 32) | used;
+            lengths[count] = bytes.length;
+            count++;
+            used += bytes.length;
+        }
+
+        void copy(int index, byte[] dest) {
+            pages.get((int) (starts[index] >>> 32)).get((int) starts[index], dest, 0, lengths[index]);
+        }
+
+        String line(int index) {
+            ByteBuffer page = pages.get((int) (starts[index] >>> 32));
+            int offset = (int) starts[index];
+            int length = lengths[index];
+            if (page.hasArray()) {
+                return new String(page.array(), page.arrayOffset() + offset, length, StandardCharsets.UTF_8);
+            }
+            byte[] bytes = new byte[length];
+            page.get(offset, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
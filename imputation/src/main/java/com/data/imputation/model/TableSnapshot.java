@@ -0,0 +1,336 @@
+package com.data.imputation.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Parsed table of a CSV input, kept in a sidecar next to it, so a later job over
+ * the same input maps the table instead of parsing the text again.
+ *
+ * The sidecar holds the arrays of an off-heap table as they lie in memory:
+ * timestamp seconds and nanos, and per column either the doubles and tags of a
+ * {@link MappedColumn} or the codes of a {@link DictionaryColumn}, each aligned
+ * to 8 bytes in the platform's byte order. Loading maps the timestamps and mapped
+ * columns copy-on-write, so the job may change cells without touching the file.
+ * Dictionary columns live on the heap like in any table: their codes are copied
+ * from the file into one (a byte per row up to 256 entries), along with the
+ * dictionaries and the odd non-canonical cell text.
+ *
+ * Like the timestamp index it records the input's size and modification time,
+ * plus a CRC32C of 64 sampled blocks of its content (all of it for a small
+ * file), and is ignored once any of them differ.
+ */
+public final class TableSnapshot {
+
+    private static final long MAGIC = 0x494D50534E4150L; // "IMPSNAP"
+    private static final int VERSION = 1;
+
+    private static final byte MAPPED = 0;
+    private static final byte DICTIONARY = 1;
+
+    // hashed: the first and last block and this many evenly spaced ones between
+    private static final int HASH_BLOCK_BYTES = 64 * 1024;
+    private static final int HASH_INNER_BLOCKS = 62;
+
+    private static final int IO_BUFFER_BYTES = 64 * 1024;
+
+    private TableSnapshot() {
+    }
+
+    /** The sidecar used for {@code input}. */
+    public static Path sidecarFor(Path input) {
+        return input.resolveSibling(input.getFileName() + ".snap");
+    }
+
+    /**
+     * The version of {@code input} a snapshot is valid for. Taken before parsing,
+     * so a file that changes during the parse does not get a snapshot of the old text.
+     */
+    public static Key keyOf(Path input) throws IOException {
+        long size = Files.size(input);
+        long mtime = Files.getLastModifiedTime(input).toMillis();
+        return new Key(size, mtime, sampleHash(input, size));
+    }
+
+    /** True if the input's sidecar was written for the input version {@code key}. */
+    public static boolean matches(Path input, Key key) throws IOException {
+        Path sidecar = sidecarFor(input);
+        if (!Files.exists(sidecar)) return false;
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(sidecar), IO_BUFFER_BYTES))) {
+            if (in.readLong() != MAGIC || in.readInt() != VERSION) return false;
+            in.readLong(); // data start
+            in.readLong(); // texts start
+            return in.readLong() == key.size() && in.readLong() == key.mtime() && in.readLong() == key.hash()
+                    && in.readBoolean() == (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN);
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    /** The input's table mapped from its sidecar into {@code store}, or null if there is no matching sidecar. */
+    public static CsvTable map(Path input, Key key, OffHeapStore store) throws IOException {
+        Path sidecar = sidecarFor(input);
+        if (!Files.exists(sidecar)) return null;
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(sidecar), IO_BUFFER_BYTES))) {
+            if (in.readLong() != MAGIC || in.readInt() != VERSION) return null;
+            long dataStart = in.readLong();
+            long textsAt = in.readLong();
+            if (in.readLong() != key.size() || in.readLong() != key.mtime() || in.readLong() != key.hash()
+                    || in.readBoolean() != (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN)) {
+                return null;
+            }
+            int rows = in.readInt();
+            List<String> headers = new ArrayList<>();
+            for (int i = in.readInt(); i > 0; i--) headers.add(readString(in));
+            int columnCount = in.readInt();
+            byte[] kinds = new byte[columnCount];
+            List<List<String>> dictionaries = new ArrayList<>();
+            for (int c = 0; c < columnCount; c++) {
+                kinds[c] = in.readByte();
+                List<String> dictionary = null;
+                if (kinds[c] == DICTIONARY) {
+                    dictionary = new ArrayList<>();
+                    for (int i = in.readInt(); i > 0; i--) dictionary.add(readString(in));
+                }
+                dictionaries.add(dictionary);
+            }
+
+            List<Map<Integer, String>> texts = readTexts(sidecar, textsAt, kinds);
+
+            long at = dataStart;
+            MappedArray seconds = new MappedArray(sidecar, Long.BYTES, at, rows);
+            at += (long) rows * Long.BYTES;
+            MappedArray nanos = new MappedArray(sidecar, Integer.BYTES, at, rows);
+            at = align((long) rows * Integer.BYTES + at);
+            List<Instant> timestamps = new MappedTimeline(store, seconds, nanos, rows);
+
+            List<Column> columns = new ArrayList<>(columnCount);
+            for (int c = 0; c < columnCount; c++) {
+                if (kinds[c] == DICTIONARY) {
+                    MappedArray codes = new MappedArray(sidecar, Integer.BYTES, at, rows);
+                    at = align((long) rows * Integer.BYTES + at);
+                    columns.add(new DictionaryColumn(dictionaries.get(c), codes::getInt, rows));
+                } else {
+                    MappedArray values = new MappedArray(sidecar, Double.BYTES, at, rows);
+                    at += (long) rows * Double.BYTES;
+                    MappedArray tags = new MappedArray(sidecar, 1, at, rows);
+                    at = align(at + rows);
+                    columns.add(new MappedColumn(store, values, tags, texts.get(c), rows));
+                }
+            }
+            return new CsvTable(headers, timestamps, columns);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes {@code table}, read from the input version {@code key}, to the input's
+     * sidecar. The table must be an off-heap one: a {@link MappedTimeline} and
+     * mapped or dictionary columns.
+     */
+    public static void save(Path input, Key key, CsvTable table) throws IOException {
+        if (!(table.getTimestamps() instanceof MappedTimeline timeline)) {
+            throw new IllegalArgumentException("Only an off-heap table can be snapshotted.");
+        }
+        int rows = table.getRowCount();
+        List<Column> columns = table.getColumns();
+
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(headerBytes);
+        header.writeLong(key.size());
+        header.writeLong(key.mtime());
+        header.writeLong(key.hash());
+        header.writeBoolean(ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN);
+        header.writeInt(rows);
+        header.writeInt(table.getHeaders().size());
+        for (String h : table.getHeaders()) writeString(header, h);
+        header.writeInt(columns.size());
+        long dataBytes = align((long) rows * (Long.BYTES + Integer.BYTES));
+        for (Column column : columns) {
+            if (column instanceof DictionaryColumn dictionary) {
+                header.writeByte(DICTIONARY);
+                header.writeInt(dictionary.getDictionary().size());
+                for (String entry : dictionary.getDictionary()) writeString(header, entry);
+                dataBytes += align((long) rows * Integer.BYTES);
+            } else if (column instanceof MappedColumn) {
+                header.writeByte(MAPPED);
+                dataBytes += align((long) rows * (Double.BYTES + 1));
+            } else {
+                throw new IllegalArgumentException("Only an off-heap table can be snapshotted.");
+            }
+        }
+        header.flush();
+        // magic, version and the two section offsets come first
+        long dataStart = align(Long.BYTES + Integer.BYTES + 2 * Long.BYTES + headerBytes.size());
+        long textsAt = dataStart + dataBytes;
+
+        // written aside and moved in, so a crash never leaves half a snapshot
+        Path sidecar = sidecarFor(input);
+        Path temp = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+        try {
+            write(temp, table, rows, timeline, dataStart, textsAt, headerBytes.toByteArray());
+            Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException cleanup) {
+                e.addSuppressed(cleanup);
+            }
+            throw e;
+        }
+    }
+
+    private static void write(Path file, CsvTable table, int rows, MappedTimeline timeline,
+                              long dataStart, long textsAt, byte[] header) throws IOException {
+        List<Column> columns = table.getColumns();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer start = ByteBuffer.allocate((int) dataStart);
+            start.putLong(MAGIC).putInt(VERSION).putLong(dataStart).putLong(textsAt);
+            start.put(header).position(start.capacity()).flip();
+            while (start.hasRemaining()) channel.write(start);
+
+            timeline.seconds().writeTo(channel, rows);
+            timeline.nanos().writeTo(channel, rows);
+            pad(channel);
+            for (Column column : columns) {
+                if (column instanceof DictionaryColumn dictionary) {
+                    writeCodes(channel, dictionary, rows);
+                } else {
+                    MappedColumn mapped = (MappedColumn) column;
+                    mapped.values().writeTo(channel, rows);
+                    mapped.tags().writeTo(channel, rows);
+                }
+                pad(channel);
+            }
+
+            DataOutputStream texts = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), IO_BUFFER_BYTES));
+            for (Column column : columns) {
+                if (!(column instanceof MappedColumn mapped)) continue;
+                texts.writeInt(mapped.texts().size());
+                for (Map.Entry<Integer, String> text : mapped.texts().entrySet()) {
+                    texts.writeInt(text.getKey());
+                    writeString(texts, text.getValue());
+                }
+            }
+            texts.flush();
+        }
+    }
+
+    /** Size, modification time and sampled content hash of one version of an input. */
+    public record Key(long size, long mtime, long hash) {
+    }
+
+    private static List<Map<Integer, String>> readTexts(Path sidecar, long textsAt, byte[] kinds)
+            throws IOException {
+        List<Map<Integer, String>> texts = new ArrayList<>(kinds.length);
+        try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            channel.position(textsAt);
+            DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Channels.newInputStream(channel), IO_BUFFER_BYTES));
+            for (byte kind : kinds) {
+                if (kind != MAPPED) {
+                    texts.add(null);
+                    continue;
+                }
+                int count = in.readInt();
+                Map<Integer, String> byRow = new HashMap<>(Math.max(16, count * 2));
+                for (int i = 0; i < count; i++) {
+                    int row = in.readInt();
+                    byRow.put(row, readString(in));
+                }
+                texts.add(byRow);
+            }
+        }
+        return texts;
+    }
+
+    private static void writeCodes(FileChannel channel, DictionaryColumn column, int rows) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(IO_BUFFER_BYTES).order(ByteOrder.nativeOrder());
+        for (int r = 0; r < rows; r++) {
+            if (!buffer.hasRemaining()) drain(channel, buffer);
+            buffer.putInt(column.code(r));
+        }
+        drain(channel, buffer);
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    private static void pad(FileChannel channel) throws IOException {
+        long position = channel.position();
+        ByteBuffer zeros = ByteBuffer.allocate((int) (align(position) - position));
+        while (zeros.hasRemaining()) channel.write(zeros);
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    private static long sampleHash(Path input, long size) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer block = ByteBuffer.allocate(HASH_BLOCK_BYTES);
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            if (size <= (long) (HASH_INNER_BLOCKS + 2) * HASH_BLOCK_BYTES) {
+                // small enough to hash all of it
+                for (long at = 0; at < size; at += HASH_BLOCK_BYTES) hashBlock(channel, at, block, crc);
+            } else {
+                long last = size - HASH_BLOCK_BYTES;
+                for (int i = 0; i <= HASH_INNER_BLOCKS + 1; i++) {
+                    hashBlock(channel, last / (HASH_INNER_BLOCKS + 1) * i, block, crc);
+                }
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static void hashBlock(FileChannel channel, long at, ByteBuffer block, CRC32C crc) throws IOException {
+        block.clear();
+        while (block.hasRemaining()) {
+            if (channel.read(block, at + block.position()) < 0) break;
+        }
+        block.flip();
+        crc.update(block);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
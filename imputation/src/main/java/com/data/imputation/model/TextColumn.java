@@ -0,0 +1,58 @@
+package com.data.imputation.model;
+
+import java.util.Arrays;
+
+/** Plain column holding one String per cell. */
+public class TextColumn extends Column {
+
+    private String[] cells;
+    private int size;
+
+    public TextColumn() {
+        this(16);
+    }
+
+    public TextColumn(int initialCapacity) {
+        this.cells = new String[Math.max(initialCapacity, 1)];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String get(int row) {
+        checkIndex(row);
+        return cells[row];
+    }
+
+    @Override
+    public void set(int row, String value) {
+        checkIndex(row);
+        cells[row] = value == null ? "" : value;
+    }
+
+    @Override
+    public void add(String value) {
+        if (size == cells.length) {
+            cells = Arrays.copyOf(cells, cells.length * 2);
+        }
+        cells[size++] = value == null ? "" : value;
+    }
+
+    @Override
+    public Column select(int[] rowIndexes) {
+        TextColumn out = new TextColumn(rowIndexes.length);
+        for (int idx : rowIndexes) {
+            out.add(idx < 0 ? "" : get(idx));
+        }
+        return out;
+    }
+
+    private void checkIndex(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + size);
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.data.imputation.server;
+
+import com.data.imputation.model.ProcessingOptions;
+import com.data.imputation.service.S3Service;
+import com.data.imputation.service.TimeSeriesInterpolationService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Optional HTTP mode, started with {@code --server}, so one machine can run
+ * jobs for several users:
+ *
+ * <pre>
+ *   POST   /jobs?name=data.csv[&suffix=][&resample=PT15M][&aggregate=col:MAX,...][&precision=col:2,...][&delta=true]
+ *          [&columns=temp*,pressure[&passThrough=true]][&window=start/end][&upload=true]
+ *          body: the CSV, streamed       -> 202 + job JSON, Location: /jobs/{id}
+ *   GET    /jobs/{id}                    -> job JSON (status, stage, progress, counters)
+ *   GET    /jobs/{id}/result             -> the repaired CSV, streamed
+ *   DELETE /jobs/{id}                    -> drops a finished job and its files
+ * </pre>
+ *
+ * A full queue answers 503 and a file that could not fit the memory budget even
+ * off-heap 413.
+ */
+@Component
+public class ImputationServer {
+
+    public static final String SERVER_FLAG = "--server";
+
+    private static final Logger log = LoggerFactory.getLogger(ImputationServer.class);
+
+    private static final String JOBS_PATH = "/jobs";
+    private static final String DEFAULT_UPLOAD_NAME = "upload.csv";
+
+    private final TimeSeriesInterpolationService interpolationService;
+    private final S3Service s3Service;
+    private final int port;
+    private final int workers;
+    private final int queueCapacity;
+    private final long memoryBudgetBytes;
+    private final Path workRoot;
+
+    private HttpServer httpServer;
+    private ExecutorService httpExecutor;
+    private JobScheduler scheduler;
+
+    public ImputationServer(TimeSeriesInterpolationService interpolationService,
+                            @Lazy S3Service s3Service,
+                            @Value("${app.server.port:8085}") int port,
+                            @Value("${app.server.workers:0}") int workers,
+                            @Value("${app.server.queue-capacity:16}") int queueCapacity,
+                            @Value("${app.server.memory-budget-mb:0}") long memoryBudgetMb,
+                            @Value("${app.server.work-dir:}") String workDir) {
+        this.interpolationService = interpolationService;
+        this.s3Service = s3Service;
+        this.port = port;
+        // jobs are mostly single-threaded but memory-heavy; leave headroom for I/O threads
+        this.workers = workers > 0 ? workers : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.queueCapacity = queueCapacity;
+        this.memoryBudgetBytes = memoryBudgetMb > 0
+                ? memoryBudgetMb << 20
+                : Runtime.getRuntime().maxMemory() / 4 * 3;
+        this.workRoot = workDir.isBlank() ? null : Path.of(workDir);
+    }
+
+    public static boolean isRequested(String... args) {
+        for (String arg : args) {
+            if (SERVER_FLAG.equals(arg)) return true;
+        }
+        return false;
+    }
+
+    /** Binds the port and starts accepting jobs; the HTTP dispatcher keeps the JVM alive. */
+    public synchronized void start() throws IOException {
+        if (httpServer != null) return;
+
+        scheduler = new JobScheduler(interpolationService, s3Service, workers, queueCapacity, memoryBudgetBytes);
+        httpExecutor = Executors.newFixedThreadPool(Math.max(4, workers * 2));
+
+        httpServer = HttpServer.create(new InetSocketAddress(port), 0);
+        httpServer.createContext(JOBS_PATH, this::handle);
+        httpServer.setExecutor(httpExecutor);
+        httpServer.start();
+
+        log.info("Imputation server listening on port {} ({} workers, queue {}, memory budget {} MB)",
+                getPort(), workers, queueCapacity, memoryBudgetBytes >> 20);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (httpServer == null) return;
+        httpServer.stop(0);
+        httpExecutor.shutdownNow();
+        scheduler.close();
+        httpServer = null;
+    }
+
+    /** The bound port; differs from the configured one when that was 0. */
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    // ---------- routing ----------
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try {
+                route(exchange);
+            } catch (RuntimeException e) {
+                sendJson(exchange, 500, error(e.getMessage()));
+            }
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String[] parts = exchange.getRequestURI().getPath()
+                .substring(JOBS_PATH.length()).replaceAll("^/+|/+$", "").split("/");
+
+        if (parts.length == 1 && parts[0].isEmpty() && method.equals("POST")) {
+            submit(exchange);
+        } else if (parts.length == 1 && !parts[0].isEmpty() && method.equals("GET")) {
+            status(exchange, parts[0]);
+        } else if (parts.length == 1 && !parts[0].isEmpty() && method.equals("DELETE")) {
+            delete(exchange, parts[0]);
+        } else if (parts.length == 2 && parts[1].equals("result") && method.equals("GET")) {
+            result(exchange, parts[0]);
+        } else {
+            sendJson(exchange, 404, error("Not found: " + method + " " + exchange.getRequestURI().getPath()));
+        }
+    }
+
+    // ---------- handlers ----------
+
+    private void submit(HttpExchange exchange) throws IOException {
+        // refuse before storing a possibly large body
+        if (scheduler.isSaturated()) {
+            discardBody(exchange);
+            sendJson(exchange, 503, error("Job queue is full, try again later."));
+            return;
+        }
+        String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (contentLength != null) {
+            long length = parseLength(contentLength);
+            if (length < 0) {
+                sendJson(exchange, 400, error("Invalid Content-Length: " + contentLength));
+                return;
+            }
+        }
+
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String name = uploadName(query.get("name"));
+        if (name == null) {
+            discardBody(exchange);
+            sendJson(exchange, 400, error("Invalid file name: " + query.get("name")));
+            return;
+        }
+        ProcessingOptions options;
+        try {
+            options = ProcessingOptions.withSuffix(query.getOrDefault("suffix", "imputed"));
+            if (query.containsKey("resample")) {
+                options.resampleInterval(Duration.parse(query.get("resample")));
+            }
+            if (query.containsKey("aggregate")) {
+                options.aggregations(query.get("aggregate"));
+            }
+            if (query.containsKey("precision")) {
+                options.precisions(query.get("precision"));
+            }
+            options.delta(Boolean.parseBoolean(query.getOrDefault("delta", "false")));
+            options.columns(query.get("columns"));
+            options.passThrough(Boolean.parseBoolean(query.getOrDefault("passThrough", "false")));
+            if (query.containsKey("window")) {
+                options.window(query.get("window"));
+            }
+            if (options.isDelta() && options.getResampleInterval() != null) {
+                throw new IllegalArgumentException("delta cannot be combined with resample");
+            }
+        } catch (RuntimeException e) {
+            discardBody(exchange);
+            sendJson(exchange, 400, error("Invalid options: " + e.getMessage()));
+            return;
+        }
+        boolean upload = Boolean.parseBoolean(query.getOrDefault("upload", "false"));
+
+        Path workDir = workRoot == null
+                ? Files.createTempDirectory("imputation-job-")
+                : Files.createTempDirectory(Files.createDirectories(workRoot), "job-");
+        Path input = workDir.resolve(name);
+
+        ServerJob job;
+        try {
+            try (InputStream body = exchange.getRequestBody()) {
+                Files.copy(body, input, StandardCopyOption.REPLACE_EXISTING);
+            }
+            job = scheduler.submit(workDir, input, options, upload);
+        } catch (RejectedExecutionException e) {
+            JobScheduler.deleteRecursively(workDir);
+            sendJson(exchange, 503, error("Job queue is full, try again later."));
+            return;
+        } catch (JobScheduler.TooLargeException e) {
+            JobScheduler.deleteRecursively(workDir);
+            sendJson(exchange, 413, error(e.getMessage()));
+            return;
+        } catch (IllegalArgumentException e) {
+            JobScheduler.deleteRecursively(workDir);
+            sendJson(exchange, 400, error(e.getMessage()));
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Location", JOBS_PATH + "/" + job.getId());
+        sendJson(exchange, 202, job.toJson());
+    }
+
+    private void status(HttpExchange exchange, String id) throws IOException {
+        ServerJob job = scheduler.get(id);
+        if (job == null) {
+            sendJson(exchange, 404, error("Unknown job " + id));
+            return;
+        }
+        sendJson(exchange, 200, job.toJson());
+    }
+
+    private void result(HttpExchange exchange, String id) throws IOException {
+        ServerJob job = scheduler.get(id);
+        if (job == null) {
+            sendJson(exchange, 404, error("Unknown job " + id));
+            return;
+        }
+        if (job.getStatus() != ServerJob.Status.DONE) {
+            sendJson(exchange, 409, job.toJson());
+            return;
+        }
+
+        Path output = job.getOutput();
+        exchange.getResponseHeaders().set("Content-Type", "text/csv; charset=utf-8");
+        exchange.getResponseHeaders().set("Content-Disposition",
+                "attachment; filename=\"" + output.getFileName() + "\"");
+        exchange.sendResponseHeaders(200, Files.size(output));
+        try (OutputStream out = exchange.getResponseBody()) {
+            Files.copy(output, out);
+        }
+    }
+
+    private void delete(HttpExchange exchange, String id) throws IOException {
+        ServerJob job = scheduler.get(id);
+        if (job == null) {
+            sendJson(exchange, 404, error("Unknown job " + id));
+        } else if (scheduler.remove(id)) {
+            exchange.sendResponseHeaders(204, -1);
+        } else {
+            sendJson(exchange, 409, job.toJson());
+        }
+    }
+
+    // ---------- helpers ----------
+
+    /**
+     * The last segment of {@code requested}, so a client cannot write outside its job
+     * directory; {@value #DEFAULT_UPLOAD_NAME} when none was given, null when it does
+     * not name a file (e.g. "/", "..").
+     */
+    static String uploadName(String requested) {
+        if (requested == null || requested.isBlank()) return DEFAULT_UPLOAD_NAME;
+        Path fileName;
+        try {
+            fileName = Path.of(requested.trim()).getFileName();
+        } catch (InvalidPathException e) {
+            return null;
+        }
+        if (fileName == null) return null;
+        String name = fileName.toString();
+        return name.equals(".") || name.equals("..") ? null : name;
+    }
+
+    /** The header as a byte count, or -1 when it is not one. */
+    private static long parseLength(String contentLength) {
+        try {
+            return Long.parseLong(contentLength.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return query;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    /** Reads and drops the request body so the client gets our response instead of a reset. */
+    private static void discardBody(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            body.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + ServerJob.quote(message) + "}";
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.data.imputation.server;
+
+import com.data.imputation.model.ProcessingOptions;
+import com.data.imputation.service.ColumnSelection;
+import com.data.imputation.service.MemoryAdmission;
+import com.data.imputation.service.S3Service;
+import com.data.imputation.service.TimeSeriesInterpolationService;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Runs server jobs on a fixed pool of workers behind a bounded queue.
+ *
+ * A job is refused up front only when its {@link MemoryAdmission} plan does not
+ * fit the memory budget in any storage, off-heap included. Running jobs share the
+ * heap through the service's own admission, which picks each job's storage and
+ * holds large ones back until others give memory back.
+ * Once every worker is busy and the queue is full, new jobs are rejected.
+ */
+public class JobScheduler implements Closeable {
+
+    private final TimeSeriesInterpolationService interpolationService;
+    private final S3Service s3Service;
+    private final ThreadPoolExecutor executor;
+    private final long memoryBudgetBytes;
+    private final Map<String, ServerJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * @param s3Service         may be null when uploads are not available
+     * @param memoryBudgetBytes most heap a single job may plan for
+     */
+    public JobScheduler(TimeSeriesInterpolationService interpolationService, S3Service s3Service,
+                        int workers, int queueCapacity, long memoryBudgetBytes) {
+        this.interpolationService = interpolationService;
+        this.s3Service = s3Service;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "imputation-job-" + threadIndex.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /** True when every worker is busy and the queue is full, so a new job would be rejected. */
+    public boolean isSaturated() {
+        return executor.getQueue().remainingCapacity() == 0
+                && executor.getActiveCount() >= executor.getMaximumPoolSize();
+    }
+
+    /**
+     * Queues a job for a file already stored in {@code workDir}.
+     *
+     * @throws TooLargeException         if the file can never fit the memory budget
+     * @throws IllegalArgumentException   if the options do not fit the file or uploads are not available
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public ServerJob submit(Path workDir, Path input, ProcessingOptions options, boolean upload) throws IOException {
+        if (upload && s3Service == null) {
+            throw new IllegalArgumentException("S3 upload is not configured.");
+        }
+        // only the selected columns count; a window can only shrink the plan further
+        ColumnSelection selection = options.getColumns().isEmpty()
+                ? null : new ColumnSelection(options.getColumns(), options.isPassThrough());
+        MemoryAdmission.Plan plan = MemoryAdmission.plan(
+                MemoryAdmission.Estimate.of(input, selection), memoryBudgetBytes);
+        if (!plan.fits()) {
+            throw new TooLargeException("File needs about " + (plan.estimatedBytes() >> 20)
+                    + " MB even off-heap, more than the " + (memoryBudgetBytes >> 20) + " MB job budget allows.");
+        }
+
+        String id = UUID.randomUUID().toString();
+        ServerJob job = new ServerJob(id, workDir, input, options, upload,
+                plan.estimatedBytes(), interpolationService.newJobMetrics(input));
+        jobs.put(id, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(id);
+            throw e;
+        }
+        return job;
+    }
+
+    public ServerJob get(String id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * Forgets a finished job and deletes its files.
+     *
+     * @return false if the job is unknown or still queued/running
+     */
+    public boolean remove(String id) throws IOException {
+        ServerJob job = jobs.get(id);
+        if (job == null) return false;
+        ServerJob.Status status = job.getStatus();
+        if (status == ServerJob.Status.QUEUED || status == ServerJob.Status.RUNNING) return false;
+
+        jobs.remove(id);
+        deleteRecursively(job.getWorkDir());
+        return true;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void run(ServerJob job) {
+        try {
+            job.running();
+            Path output = interpolationService.processFile(job.getInput(), job.getOptions(), job.getMetrics());
+            String url = job.isUpload() ? s3Service.uploadFile(output, job.getMetrics()) : null;
+            job.done(output, url);
+        } catch (Exception e) {
+            job.failed(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+    }
+
+    /** A file whose plan does not fit the memory budget even off-heap. */
+    public static class TooLargeException extends IllegalArgumentException {
+
+        private static final long serialVersionUID = 1L;
+
+        TooLargeException(String message) {
+            super(message);
+        }
+    }
+
+    static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+}
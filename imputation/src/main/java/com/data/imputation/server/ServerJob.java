@@ -0,0 +1,159 @@
+package com.data.imputation.server;
+
+import com.data.imputation.metrics.JobMetrics;
+import com.data.imputation.metrics.PipelineStage;
+import com.data.imputation.model.ProcessingOptions;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * One submitted file in server mode. Status fields are written by the worker
+ * thread and read by HTTP threads polling for progress.
+ */
+public class ServerJob {
+
+    public enum Status { QUEUED, RUNNING, DONE, FAILED }
+
+    private final String id;
+    private final Path workDir;
+    private final Path input;
+    private final ProcessingOptions options;
+    private final boolean upload;
+    private final long estimatedBytes;
+    private final JobMetrics metrics;
+
+    private volatile Status status = Status.QUEUED;
+    private volatile Path output;
+    private volatile String s3Url;
+    private volatile String error;
+
+    ServerJob(String id, Path workDir, Path input, ProcessingOptions options,
+              boolean upload, long estimatedBytes, JobMetrics metrics) {
+        this.id = id;
+        this.workDir = workDir;
+        this.input = input;
+        this.options = options;
+        this.upload = upload;
+        this.estimatedBytes = estimatedBytes;
+        this.metrics = metrics;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Path getWorkDir() {
+        return workDir;
+    }
+
+    public Path getInput() {
+        return input;
+    }
+
+    public ProcessingOptions getOptions() {
+        return options;
+    }
+
+    public boolean isUpload() {
+        return upload;
+    }
+
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    public JobMetrics getMetrics() {
+        return metrics;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Path getOutput() {
+        return output;
+    }
+
+    public String getS3Url() {
+        return s3Url;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    void running() {
+        status = Status.RUNNING;
+    }
+
+    void done(Path output, String s3Url) {
+        this.output = output;
+        this.s3Url = s3Url;
+        status = Status.DONE;
+    }
+
+    void failed(String error) {
+        this.error = error;
+        status = Status.FAILED;
+    }
+
+    /**
+     * Rough completion fraction: stages finished out of the stages this job runs.
+     * The pipeline does not report progress within a stage.
+     */
+    public double getProgress() {
+        Status s = status;
+        if (s == Status.DONE) return 1.0;
+        PipelineStage stage = metrics.getCurrentStage();
+        if (s == Status.QUEUED || stage == null) return 0.0;
+
+        // the stats footer is written after the rows, so STATS counts as part of WRITE
+        int done = stage == PipelineStage.STATS ? PipelineStage.WRITE.ordinal() : stage.ordinal();
+        int total = PipelineStage.WRITE.ordinal() + 1 + (upload ? 1 : 0);
+        return Math.min(done, total - 1) / (double) total;
+    }
+
+    public String toJson() {
+        PipelineStage stage = metrics.getCurrentStage();
+        StringBuilder sb = new StringBuilder("{");
+        field(sb, "id", id).append(',');
+        field(sb, "status", status.name()).append(',');
+        field(sb, "stage", stage == null ? null : stage.label()).append(',');
+        sb.append("\"progress\":").append(String.format(Locale.ROOT, "%.2f", getProgress())).append(',');
+        sb.append("\"estimatedBytes\":").append(estimatedBytes).append(',');
+        sb.append("\"rowsIn\":").append(metrics.getRowsIn()).append(',');
+        sb.append("\"rowsOut\":").append(metrics.getRowsOut()).append(',');
+        sb.append("\"cellsImputed\":").append(metrics.getCellsImputed()).append(',');
+        field(sb, "s3Url", s3Url).append(',');
+        field(sb, "error", error);
+        return sb.append('}').toString();
+    }
+
+    private static StringBuilder field(StringBuilder sb, String name, String value) {
+        return sb.append('"').append(name).append("\":").append(quote(value));
+    }
+
+    /** JSON string literal for {@code value}, or {@code null}. */
+    static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
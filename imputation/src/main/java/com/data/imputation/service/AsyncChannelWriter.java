@@ -0,0 +1,196 @@
+package com.data.imputation.service;
+
+import com.data.imputation.model.DoubleFormat;
+import com.data.imputation.model.InstantFormat;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Text writer whose disk writes run on their own thread, so formatting rows and
+ * writing them to the file overlap. Text is encoded as UTF-8 into one of a small
+ * ring of reusable buffers; a full buffer goes to the writer thread, which drains
+ * buffers to the channel in the order they were filled and hands them back. When
+ * the disk falls behind the caller waits for a free buffer, so at most
+ * {@link #BUFFERS} buffers are ever held.
+ *
+ * Not thread-safe; one thread writes. A failed disk write is rethrown to that
+ * thread by the next hand-off or by {@link #close()}.
+ */
+final class AsyncChannelWriter implements Closeable {
+
+    static final int BUFFER_BYTES = 1 << 20;
+    static final int BUFFERS = 4;
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    // tells the writer thread that nothing follows
+    private static final Chunk END = new Chunk(new byte[0], 0);
+
+    private final FileChannel channel;
+    private final BlockingQueue<byte[]> free = new ArrayBlockingQueue<>(BUFFERS);
+    private final BlockingQueue<Chunk> filled = new ArrayBlockingQueue<>(BUFFERS + 1);
+    private final Thread writerThread;
+    private volatile IOException failure;
+
+    private byte[] buffer;
+    private int length;
+    private long position;
+    private boolean closed;
+
+    /** Writes from the channel's current position on. */
+    AsyncChannelWriter(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.position = channel.position();
+        for (int i = 1; i < BUFFERS; i++) free.add(new byte[BUFFER_BYTES]);
+        this.buffer = new byte[BUFFER_BYTES];
+        this.writerThread = new Thread(this::drain, "csv-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /** Channel position the next byte will be written at, counting bytes not yet on disk. */
+    long position() {
+        return position;
+    }
+
+    void write(String s) throws IOException {
+        int n = s.length();
+        if (BUFFER_BYTES - length < n) handOff();
+        if (n > BUFFER_BYTES) {
+            writeBytes(s.getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        byte[] b = buffer;
+        int p = length;
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                // rare non-ASCII cell: encode the rest the slow way
+                length = p;
+                position += i;
+                writeBytes(s.substring(i).getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            b[p++] = (byte) c;
+        }
+        length = p;
+        position += n;
+    }
+
+    /** A number as {@link DoubleFormat} prints it, formatted straight into the buffer. */
+    void write(double v) throws IOException {
+        if (BUFFER_BYTES - length < DoubleFormat.MAX_LENGTH) handOff();
+        int end = DoubleFormat.format(v, buffer, length);
+        position += end - length;
+        length = end;
+    }
+
+    /** An instant as {@code Instant.toString} prints it, formatted straight into the buffer. */
+    void write(long epochSecond, int nano) throws IOException {
+        if (BUFFER_BYTES - length < InstantFormat.MAX_LENGTH) handOff();
+        int end = InstantFormat.format(epochSecond, nano, buffer, length);
+        if (end < 0) {
+            write(InstantFormat.toString(epochSecond, nano));
+            return;
+        }
+        position += end - length;
+        length = end;
+    }
+
+    /** One ASCII character, such as a separator. */
+    void write(char c) throws IOException {
+        if (length == BUFFER_BYTES) handOff();
+        buffer[length++] = (byte) c;
+        position++;
+    }
+
+    void newLine() throws IOException {
+        writeBytes(LINE_SEPARATOR);
+    }
+
+    /** Bytes already encoded as UTF-8, such as a raw input cell. */
+    void write(byte[] bytes, int offset, int count) throws IOException {
+        position += count;
+        int end = offset + count;
+        while (offset < end) {
+            if (length == BUFFER_BYTES) handOff();
+            int n = Math.min(end - offset, BUFFER_BYTES - length);
+            System.arraycopy(bytes, offset, buffer, length, n);
+            length += n;
+            offset += n;
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        write(bytes, 0, bytes.length);
+    }
+
+    /** Queues the current buffer and takes a free one, waiting while the disk catches up. */
+    private void handOff() throws IOException {
+        checkFailure();
+        if (length == 0) return;
+        try {
+            filled.put(new Chunk(buffer, length));
+            buffer = free.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while writing");
+        }
+        length = 0;
+    }
+
+    /** Writes out what is buffered and waits until the writer thread has put it all on the channel. */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            handOff();
+            filled.put(END);
+            writerThread.join();
+        } catch (InterruptedException e) {
+            writerThread.interrupt();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while writing");
+        } finally {
+            if (writerThread.isAlive()) writerThread.interrupt();
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() throws IOException {
+        IOException e = failure;
+        if (e != null) throw new IOException("Output write failed: " + e.getMessage(), e);
+    }
+
+    // writer thread: buffers are written in queue order, then returned to the pool
+    private void drain() {
+        try {
+            while (true) {
+                Chunk next = filled.take();
+                if (next == END) return;
+                if (failure == null) {
+                    try {
+                        ByteBuffer bb = ByteBuffer.wrap(next.data, 0, next.length);
+                        while (bb.hasRemaining()) channel.write(bb);
+                    } catch (IOException e) {
+                        // kept for the writing thread; buffers keep cycling so it never blocks
+                        failure = e;
+                    }
+                }
+                free.put(next.data);
+            }
+        } catch (InterruptedException e) {
+            // abandoned by close
+        }
+    }
+
+    private record Chunk(byte[] data, int length) {
+    }
+}
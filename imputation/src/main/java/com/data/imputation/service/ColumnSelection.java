@@ -0,0 +1,147 @@
+package com.data.imputation.service;
+
+import com.data.imputation.model.Column;
+import com.data.imputation.model.CsvTable;
+import com.data.imputation.model.PassThroughColumn;
+import com.data.imputation.model.RawLines;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Which value columns a job parses and repairs, by header name or glob
+ * ({@code *} and {@code ?}). Unselected columns are dropped from the output, or
+ * with pass-through kept as raw text sliced from the input line when written.
+ */
+public class ColumnSelection {
+
+    private final List<String> patterns;
+    private final boolean passThrough;
+
+    public ColumnSelection(List<String> patterns, boolean passThrough) {
+        if (patterns.isEmpty()) {
+            throw new IllegalArgumentException("Column selection is empty.");
+        }
+        this.patterns = List.copyOf(patterns);
+        this.passThrough = passThrough;
+    }
+
+    public boolean isPassThrough() {
+        return passThrough;
+    }
+
+    /** Applies the selection to a header line; every pattern has to match a column. */
+    Resolved resolve(List<String> headers) {
+        List<Pattern> compiled = patterns.stream().map(ColumnSelection::glob).toList();
+        boolean[] matched = new boolean[compiled.size()];
+        List<Integer> fields = new ArrayList<>();
+
+        for (int f = 1; f < headers.size(); f++) {
+            String header = headers.get(f).trim();
+            boolean selected = false;
+            for (int p = 0; p < compiled.size(); p++) {
+                if (compiled.get(p).matcher(header).matches()) {
+                    matched[p] = true;
+                    selected = true;
+                }
+            }
+            if (selected) fields.add(f);
+        }
+        for (int p = 0; p < matched.length; p++) {
+            if (!matched[p]) {
+                throw new IllegalArgumentException("No column matches " + patterns.get(p) + " in " + headers);
+            }
+        }
+        return new Resolved(headers, fields.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private static Pattern glob(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        for (String part : pattern.trim().split("((?<=[*?])|(?=[*?]))")) {
+            switch (part) {
+                case "*" -> regex.append(".*");
+                case "?" -> regex.append('.');
+                default -> regex.append(Pattern.quote(part));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    /** A selection applied to one input's header. */
+    final class Resolved {
+        private final List<String> headers;
+        // line positions of the selected columns, ascending; 0 is the timestamp
+        private final int[] fields;
+        private final int lastField;
+
+        private Resolved(List<String> headers, int[] fields) {
+            this.headers = headers;
+            this.fields = fields;
+            this.lastField = fields.length == 0 ? 0 : fields[fields.length - 1];
+        }
+
+        /** True if the line position {@code field} is a selected column. */
+        boolean selects(int field) {
+            return Arrays.binarySearch(fields, field) >= 0;
+        }
+
+        /**
+         * Cells handed to the table builder per row: the selected cells, then with
+         * pass-through the raw line, which the builder keeps as {@link RawLines}.
+         */
+        int width() {
+            return fields.length + (passThrough ? 1 : 0);
+        }
+
+        /**
+         * The selected cells of a line, trimmed, without splitting the rest of it;
+         * the timestamp goes to {@code timestamp[0]}.
+         */
+        String[] cells(String line, String[] timestamp) {
+            String[] values = new String[width()];
+            int next = 0;
+            int field = 0;
+            int start = 0;
+            while (field <= lastField) {
+                int comma = line.indexOf(',', start);
+                int end = comma < 0 ? line.length() : comma;
+                if (field == 0) {
+                    timestamp[0] = line.substring(start, end).trim();
+                } else if (next < fields.length && fields[next] == field) {
+                    values[next++] = line.substring(start, end).trim();
+                }
+                if (comma < 0) break;
+                start = comma + 1;
+                field++;
+            }
+            while (next < fields.length) values[next++] = "";
+            if (passThrough) values[fields.length] = line;
+            return values;
+        }
+
+        /** The table as the job sees it, from the columns built from {@link #cells} rows. */
+        CsvTable table(List<Instant> timestamps, List<Column> built) {
+            if (!passThrough) {
+                List<String> selectedHeaders = new ArrayList<>(fields.length + 1);
+                selectedHeaders.add(headers.get(0));
+                for (int f : fields) selectedHeaders.add(headers.get(f));
+                return new CsvTable(selectedHeaders, timestamps, built);
+            }
+
+            PassThroughColumn.Lines lines = new PassThroughColumn.Lines((RawLines) built.get(fields.length));
+            List<Column> columns = new ArrayList<>(headers.size() - 1);
+            int next = 0;
+            for (int f = 1; f < headers.size(); f++) {
+                if (next < fields.length && fields[next] == f) {
+                    columns.add(built.get(next++));
+                } else {
+                    columns.add(new PassThroughColumn(lines, f));
+                }
+            }
+            return new CsvTable(headers, timestamps, columns);
+        }
+    }
+}
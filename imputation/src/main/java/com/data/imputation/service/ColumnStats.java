@@ -0,0 +1,100 @@
+package com.data.imputation.service;
+
+import com.data.imputation.model.Column;
+import com.data.imputation.model.MappedColumn;
+import com.data.imputation.model.MappedDoubles;
+
+import java.util.Arrays;
+import java.util.DoubleSummaryStatistics;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Summary statistics of one column's numeric cells, as written in the stats footer.
+ * Statistics of a column without numeric cells are NaN.
+ */
+class ColumnStats {
+
+    final double average;
+    final double median;
+    final double minimum;
+    final double maximum;
+    final double mode;
+    // a keyword, text or blocked interpolation was seen
+    final boolean nonNumerical;
+
+    ColumnStats(Column column, int rowCount) {
+        if (column instanceof MappedColumn mapped && rowCount == mapped.size()) {
+            // no row-sized arrays on the heap: values are sorted in mapped memory
+            MappedDoubles numbers = mapped.numericValues();
+            this.nonNumerical = mapped.hasNonNumeric();
+            int n = numbers.size();
+            if (n == 0) {
+                average = median = minimum = maximum = mode = Double.NaN;
+                return;
+            }
+
+            DoubleSummaryStatistics summary = new DoubleSummaryStatistics();
+            for (int i = 0; i < n; i++) summary.accept(numbers.get(i));
+            this.average = summary.getAverage();
+            this.minimum = summary.getMin();
+            this.maximum = summary.getMax();
+
+            MappedDoubles sorted = numbers.sorted();
+            this.median = (n % 2 == 1)
+                    ? sorted.get(n / 2)
+                    : (sorted.get(n / 2 - 1) + sorted.get(n / 2)) / 2.0;
+            this.mode = longestRun(sorted::get, n);
+            return;
+        }
+
+        double[] nums = new double[rowCount];
+        int n = 0;
+        boolean nonnum = false;
+
+        for (int r = 0; r < rowCount; r++) {
+            if (column.isBlank(r)) continue;
+
+            double v = column.getDouble(r);
+            if (!Double.isNaN(v) || column.isNumeric(r)) {
+                nums[n++] = v;
+            } else {
+                nonnum = true;
+            }
+        }
+        this.nonNumerical = nonnum;
+
+        if (n == 0) {
+            average = median = minimum = maximum = mode = Double.NaN;
+            return;
+        }
+
+        double[] values = Arrays.copyOf(nums, n);
+        this.average = Arrays.stream(values).average().orElse(Double.NaN);
+        this.minimum = Arrays.stream(values).min().orElse(Double.NaN);
+        this.maximum = Arrays.stream(values).max().orElse(Double.NaN);
+
+        Arrays.sort(values);
+        this.median = (n % 2 == 1)
+                ? values[n / 2]
+                : (values[n / 2 - 1] + values[n / 2]) / 2.0;
+        this.mode = longestRun(i -> values[i], n);
+    }
+
+    /** Most frequent value of a sorted sequence; a tie goes to the smallest value. */
+    private static double longestRun(IntToDoubleFunction sorted, int size) {
+        double best = sorted.applyAsDouble(0);
+        int bestCount = 0;
+        int i = 0;
+        while (i < size) {
+            double v = sorted.applyAsDouble(i);
+            int j = i + 1;
+            while (j < size && Double.compare(sorted.applyAsDouble(j), v) == 0) j++;
+            if (j - i > bestCount) {
+                best = v;
+                bestCount = j - i;
+            }
+            i = j;
+        }
+        return best;
+    }
+}
@@ -0,0 +1,253 @@
+package com.data.imputation.service;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Joins several CSVs that share a timestamp column into one wide row stream.
+ *
+ * Each input keeps one reader open and contributes its next row to a heap ordered
+ * by (timestamp, input); rows with equal timestamps are combined into one wide row,
+ * and inputs without that timestamp leave their cells blank. Column names are
+ * prefixed with the input's file name ({@code device1.temp}) so they cannot collide.
+ * Within one input a later duplicate timestamp wins, as in gap filling.
+ *
+ * {@link #mergeInOrder} needs every input in timestamp order and gives up at the
+ * first row that goes backwards; {@link #addAllTo} and {@link #mergeSorted} do the
+ * same join through an {@link ExternalRowSorter} for inputs that are not.
+ */
+class CsvMerger {
+
+    private final List<Path> paths;
+    private final List<String> headers = new ArrayList<>();
+    private final int[] offsets;      // first wide column of each input
+    private final int[] widths;       // column count of each input
+    private final int columnCount;
+    private final int maxWidth;
+
+    CsvMerger(List<Path> paths) throws IOException {
+        if (paths.size() < 2) {
+            throw new IllegalArgumentException("Merging needs at least 2 inputs, got " + paths.size());
+        }
+        this.paths = List.copyOf(paths);
+        this.offsets = new int[paths.size()];
+        this.widths = new int[paths.size()];
+
+        Set<String> prefixes = new HashSet<>();
+        int total = 0;
+        int widest = 0;
+        for (int i = 0; i < paths.size(); i++) {
+            Path path = paths.get(i);
+            String[] inputHeaders = readHeader(path);
+            if (i == 0) {
+                headers.add(inputHeaders[0]);
+            }
+
+            String prefix = prefixFor(path);
+            if (!prefixes.add(prefix)) {
+                prefix = prefix + "_" + (i + 1);
+                prefixes.add(prefix);
+            }
+            for (int c = 1; c < inputHeaders.length; c++) {
+                headers.add(prefix + "." + inputHeaders[c].trim());
+            }
+
+            offsets[i] = total;
+            widths[i] = inputHeaders.length - 1;
+            total += widths[i];
+            widest = Math.max(widest, widths[i]);
+        }
+        this.columnCount = total;
+        this.maxWidth = widest;
+    }
+
+    /** Timestamp header of the first input, then every input's prefixed columns. */
+    List<String> getHeaders() {
+        return headers;
+    }
+
+    int getColumnCount() {
+        return columnCount;
+    }
+
+    long totalBytes() throws IOException {
+        long bytes = 0;
+        for (Path path : paths) {
+            bytes += Files.size(path);
+        }
+        return bytes;
+    }
+
+    // ---------- streaming merge ----------
+
+    /**
+     * Streams the joined rows in timestamp order. Returns false, after emitting part of
+     * the join, if an input turns out to be out of order.
+     */
+    boolean mergeInOrder(ExternalRowSorter.RowSink sink) throws IOException {
+        List<InputCursor> cursors = new ArrayList<>(paths.size());
+        try {
+            PriorityQueue<InputCursor> heap = new PriorityQueue<>(paths.size(),
+                    Comparator.<InputCursor, Instant>comparing(c -> c.timestamp)
+                            .thenComparingInt(c -> c.input));
+            for (int i = 0; i < paths.size(); i++) {
+                InputCursor cursor = new InputCursor(i, paths.get(i));
+                cursors.add(cursor);
+                if (cursor.advance()) heap.add(cursor);
+            }
+
+            RowCombiner combiner = new RowCombiner(sink);
+            while (!heap.isEmpty()) {
+                InputCursor cursor = heap.poll();
+                combiner.accept(cursor.timestamp, cursor.input, cursor.values);
+                if (cursor.advance()) {
+                    heap.add(cursor);
+                } else if (cursor.outOfOrder) {
+                    return false;
+                }
+            }
+            combiner.finish();
+            return true;
+        } finally {
+            for (InputCursor cursor : cursors) {
+                cursor.close();
+            }
+        }
+    }
+
+    // ---------- through the external sorter ----------
+
+    /** A sorter sized for {@link #addAllTo}: the input index, then the widest input's cells. */
+    ExternalRowSorter newSorter(long memoryBudgetBytes) {
+        return new ExternalRowSorter(maxWidth + 1, memoryBudgetBytes);
+    }
+
+    /** Adds every row of every input, tagged with its input, in file order. */
+    void addAllTo(ExternalRowSorter sorter) throws IOException {
+        for (int i = 0; i < paths.size(); i++) {
+            String tag = Integer.toString(i);
+            try (BufferedReader br = Files.newBufferedReader(paths.get(i))) {
+                br.readLine(); // header
+                String line;
+                while ((line = br.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    String[] parts = line.split(",", -1);
+                    String[] cells = CsvService.cellValues(parts, maxWidth);
+                    String[] values = new String[maxWidth + 1];
+                    values[0] = tag;
+                    System.arraycopy(cells, 0, values, 1, maxWidth);
+                    sorter.add(Instant.parse(parts[0].trim()), values);
+                }
+            }
+        }
+    }
+
+    /** Streams the rows added by {@link #addAllTo} as joined rows in timestamp order. */
+    void mergeSorted(ExternalRowSorter sorter, ExternalRowSorter.RowSink sink) throws IOException {
+        RowCombiner combiner = new RowCombiner(sink);
+        // ties keep insertion order, so a later duplicate within an input still wins
+        sorter.forEachSorted((timestamp, values) -> {
+            int input = Integer.parseInt(values[0]);
+            combiner.accept(timestamp, input, Arrays.copyOfRange(values, 1, 1 + widths[input]));
+        });
+        combiner.finish();
+    }
+
+    // ---------- helpers ----------
+
+    private static String[] readHeader(Path path) throws IOException {
+        try (BufferedReader br = Files.newBufferedReader(path)) {
+            String headerLine = br.readLine();
+            if (headerLine == null) {
+                throw new IllegalArgumentException("CSV file is empty: " + path);
+            }
+            return headerLine.split(",");
+        }
+    }
+
+    private static String prefixFor(Path path) {
+        String fileName = path.getFileName().toString();
+        int dotIndex = fileName.lastIndexOf('.');
+        return dotIndex > 0 ? fileName.substring(0, dotIndex) : fileName;
+    }
+
+    /** Collects consecutive rows with the same timestamp into one wide row. */
+    private class RowCombiner {
+        private final ExternalRowSorter.RowSink sink;
+        private Instant timestamp;
+        private String[] row;
+
+        RowCombiner(ExternalRowSorter.RowSink sink) {
+            this.sink = sink;
+        }
+
+        void accept(Instant rowTimestamp, int input, String[] values) throws IOException {
+            if (row != null && !rowTimestamp.equals(timestamp)) {
+                sink.accept(timestamp, row);
+                row = null;
+            }
+            if (row == null) {
+                row = new String[columnCount];
+                Arrays.fill(row, "");
+                timestamp = rowTimestamp;
+            }
+            System.arraycopy(values, 0, row, offsets[input], widths[input]);
+        }
+
+        void finish() throws IOException {
+            if (row != null) {
+                sink.accept(timestamp, row);
+                row = null;
+            }
+        }
+    }
+
+    /** One input's reader and its current row. */
+    private class InputCursor implements Closeable {
+        final int input;
+        private final BufferedReader reader;
+        Instant timestamp;
+        String[] values;
+        boolean outOfOrder;
+
+        InputCursor(int input, Path path) throws IOException {
+            this.input = input;
+            this.reader = Files.newBufferedReader(path);
+            reader.readLine(); // header
+        }
+
+        /** False at the end of the input, or when the next row goes backwards. */
+        boolean advance() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                String[] parts = line.split(",", -1);
+                Instant next = Instant.parse(parts[0].trim());
+                if (timestamp != null && next.isBefore(timestamp)) {
+                    outOfOrder = true;
+                    return false;
+                }
+                timestamp = next;
+                values = CsvService.cellValues(parts, widths[input]);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -1,177 +1,610 @@
 package com.data.imputation.service;
 
+import com.data.imputation.metrics.JobMetrics;
+import com.data.imputation.metrics.PipelineStage;
+import com.data.imputation.model.Column;
+import com.data.imputation.model.ColumnStorage;
 import com.data.imputation.model.CsvTable;
-import com.data.imputation.model.DataRow;
+import com.data.imputation.model.DictionaryColumn;
+import com.data.imputation.model.DoubleFormat;
+import com.data.imputation.model.EpochTimeline;
+import com.data.imputation.model.OffHeapStore;
+import com.data.imputation.model.PassThroughColumn;
+import com.data.imputation.model.RawLines;
+import com.data.imputation.model.TableSnapshot;
+import com.data.imputation.model.TextColumn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 @Service
 public class CsvService {
 
+    private static final Logger log = LoggerFactory.getLogger(CsvService.class);
+
+    // Columns whose sample is mostly keywords with few distinct values are
+    // dictionary-encoded instead of keeping one String per cell.
+    private static final int DICTIONARY_SAMPLE_ROWS = 1000;
+    private static final int DICTIONARY_MAX_CARDINALITY = 64;
+
+    // Rows buffered before an out-of-order input starts spilling sorted runs to disk.
+    static final long DEFAULT_SORT_MEMORY_BYTES = Runtime.getRuntime().maxMemory() / 4;
+
+    /** Reads the table in file order. */
     public CsvTable readCsv(Path path) throws IOException {
-        List<String> headers;
-        List<DataRow> rows = new ArrayList<>();
+        return read(path, false, 0, untracked(path), null, null, null, null);
+    }
+
+    /** Reads the table in timestamp order, spilling to disk if the input is out of order and large. */
+    public CsvTable readCsvSorted(Path path) throws IOException {
+        return read(path, true, DEFAULT_SORT_MEMORY_BYTES, untracked(path), null, null, null, null);
+    }
+
+    public CsvTable readCsvSorted(Path path, long sortMemoryBytes) throws IOException {
+        return read(path, true, sortMemoryBytes, untracked(path), null, null, null, null);
+    }
+
+    /** As {@link #readCsvSorted(Path)}, recording parse and sort time into {@code metrics}. */
+    public CsvTable readCsvSorted(Path path, JobMetrics metrics) throws IOException {
+        return read(path, true, DEFAULT_SORT_MEMORY_BYTES, metrics, null, null, null, null);
+    }
+
+    /**
+     * As {@link #readCsvSorted(Path, JobMetrics)}, starting after the rows already in
+     * {@code checkpoint} and recording a chunk every {@link JobCheckpoint#CHUNK_ROWS} rows.
+     * Chunks stop once the input turns out to be unsorted.
+     */
+    public CsvTable readCsvSorted(Path path, JobMetrics metrics, JobCheckpoint checkpoint) throws IOException {
+        return read(path, true, DEFAULT_SORT_MEMORY_BYTES, metrics, checkpoint, null, null, null);
+    }
+
+    /**
+     * As {@link #readCsvSorted(Path, JobMetrics, JobCheckpoint)}, keeping timestamps and
+     * mostly-numeric columns in {@code storage} instead of plain heap lists. A table in
+     * an {@link OffHeapStore} is only usable while the store is open.
+     */
+    public CsvTable readCsvSorted(Path path, JobMetrics metrics, JobCheckpoint checkpoint,
+                                  ColumnStorage storage) throws IOException {
+        return read(path, true, DEFAULT_SORT_MEMORY_BYTES, metrics, checkpoint, storage, null, null);
+    }
+
+    /**
+     * As {@link #readCsvSorted(Path, JobMetrics, JobCheckpoint, ColumnStorage)}, parsing
+     * only the columns in {@code selection}; {@code storage} may be null for the heap.
+     */
+    public CsvTable readCsvSorted(Path path, JobMetrics metrics, JobCheckpoint checkpoint,
+                                  ColumnStorage storage, ColumnSelection selection) throws IOException {
+        return read(path, true, DEFAULT_SORT_MEMORY_BYTES, metrics, checkpoint, storage, selection, null);
+    }
+
+    /**
+     * As {@link #readCsvSorted(Path, JobMetrics, JobCheckpoint, ColumnStorage, ColumnSelection)},
+     * keeping only the rows in {@code window}. Reading starts at the window's indexed
+     * offset and, for a sorted input, stops at its end, so the rest of the file is not read.
+     */
+    public CsvTable readCsvSorted(Path path, JobMetrics metrics, JobCheckpoint checkpoint,
+                                  ColumnStorage storage, ColumnSelection selection,
+                                  TimestampIndex.Range window) throws IOException {
+        return read(path, true, DEFAULT_SORT_MEMORY_BYTES, metrics, checkpoint, storage, selection, window);
+    }
 
-        try (BufferedReader br = Files.newBufferedReader(path)) {
-            String headerLine = br.readLine();
+    /**
+     * As {@link #readCsvSorted(Path, JobMetrics, JobCheckpoint, ColumnStorage)} into
+     * {@code store}, but maps the table from the input's {@link TableSnapshot} when one
+     * matches the input as it is now, and writes one after parsing when none does. A
+     * snapshot that cannot be written is logged and skipped.
+     */
+    public CsvTable readCsvSnapshot(Path path, JobMetrics metrics, JobCheckpoint checkpoint,
+                                    OffHeapStore store) throws IOException {
+        TableSnapshot.Key key = TableSnapshot.keyOf(path);
+        CsvTable table = null;
+        if (TableSnapshot.matches(path, key)) {
+            JobMetrics.StageTimer loadTimer = metrics.startStage(PipelineStage.PARSE);
+            table = TableSnapshot.map(path, key, store);
+            // only null for a sidecar cut short after its header
+            loadTimer.stop(table != null ? table.getRowCount() : 0, 0);
+        }
+        if (table == null) {
+            table = read(path, true, DEFAULT_SORT_MEMORY_BYTES, metrics, checkpoint, store, null, null);
+            try {
+                TableSnapshot.save(path, key, table);
+            } catch (IOException | UncheckedIOException e) {
+                log.warn("Cannot write table snapshot {}; continuing without it",
+                        TableSnapshot.sidecarFor(path), e);
+            }
+            return table;
+        }
+        // nothing of the input is read beyond the sampled hash
+        metrics.columns(table.getColumns().size());
+        metrics.rowsIn(table.getRowCount());
+        metrics.bytesRead(0);
+        return table;
+    }
+
+    private CsvTable read(Path path, boolean sort, long sortMemoryBytes, JobMetrics metrics,
+                          JobCheckpoint checkpoint, ColumnStorage storage,
+                          ColumnSelection selection, TimestampIndex.Range window) throws IOException {
+        JobMetrics.StageTimer parseTimer = metrics.startStage(PipelineStage.PARSE);
+        long rowsParsed = 0;
+        long linesConsumed = 0;
+        LineFormat format;
+        TableBuilder builder;
+        ExternalRowSorter sorter = null;
+
+        long bytesRead;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+             BufferedReader br = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8))) {
+            String headerLine;
+            if (window != null) {
+                headerLine = window.headerLine();
+                channel.position(window.offset());
+            } else {
+                headerLine = br.readLine();
+            }
             if (headerLine == null) {
                 throw new IllegalArgumentException("CSV file is empty: " + path);
             }
 
-            headers = new ArrayList<>(Arrays.asList(headerLine.split(",")));
-            if (headers.isEmpty()) {
-                throw new IllegalArgumentException("CSV header is empty: " + path);
+            format = new LineFormat(headerLine, selection, path.toString());
+            int nonTimestampColumns = format.width();
+            builder = format.newBuilder(storage);
+            Instant previous = null;
+
+            // rows since the last checkpoint chunk; null when not checkpointing
+            List<Instant> chunkTimestamps = null;
+            List<String[]> chunkRows = null;
+            if (checkpoint != null) {
+                chunkTimestamps = new ArrayList<>();
+                chunkRows = new ArrayList<>();
+
+                if (checkpoint.getParsedLines() > 0) {
+                    checkpoint.replayParsedRows(nonTimestampColumns, builder::add);
+                    rowsParsed = builder.timestamps.size();
+                    previous = rowsParsed > 0 ? builder.timestamps.get((int) rowsParsed - 1) : null;
+                    for (; linesConsumed < checkpoint.getParsedLines(); linesConsumed++) {
+                        if (br.readLine() == null) {
+                            throw new IOException("Input is shorter than its checkpoint: " + path);
+                        }
+                    }
+                }
             }
 
             String line;
             while ((line = br.readLine()) != null) {
+                linesConsumed++;
                 if (line.isBlank()) continue;
 
-                String[] parts = line.split(",", -1); // keep trailing blanks
-                if (parts.length == 0) continue;
+                String[] values = format.cells(line);
+                if (values == null) continue;
+                Instant timestamp = format.timestamp();
+                if (window != null && !window.contains(timestamp)) {
+                    if (window.isPast(timestamp)) break;
+                    continue;
+                }
+                rowsParsed++;
 
-                Instant timestamp = Instant.parse(parts[0].trim());
+                if (sorter != null) {
+                    sorter.add(timestamp, values);
+                    continue;
+                }
 
-                List<String> values = new ArrayList<>();
-                int nonTimestampColumns = headers.size() - 1;
-                for (int i = 0; i < nonTimestampColumns; i++) {
-                    int idx = i + 1;
-                    String cell = (idx < parts.length) ? parts[idx].trim() : "";
-                    values.add(cell);
+                // sorted input only pays for this comparison; the first row that
+                // goes backwards hands everything read so far to the sorter as a run
+                if (sort && previous != null && timestamp.isBefore(previous)) {
+                    sorter = new ExternalRowSorter(nonTimestampColumns, sortMemoryBytes);
+                    sorter.addSortedRun(builder.timestamps, builder.finishColumns());
+                    builder = format.newBuilder(storage);
+                    sorter.add(timestamp, values);
+                    chunkRows = null; // recorded chunks stay valid as a sorted prefix
+                    continue;
                 }
 
-                rows.add(new DataRow(timestamp, values));
+                builder.add(timestamp, values);
+                previous = timestamp;
+
+                if (chunkRows != null) {
+                    chunkTimestamps.add(timestamp);
+                    chunkRows.add(values);
+                    if (chunkRows.size() == JobCheckpoint.CHUNK_ROWS) {
+                        checkpoint.parsedChunk(linesConsumed, chunkTimestamps, chunkRows);
+                        chunkTimestamps.clear();
+                        chunkRows.clear();
+                    }
+                }
+            }
+
+            if (chunkRows != null) {
+                checkpoint.parsedChunk(linesConsumed, chunkTimestamps, chunkRows);
+            }
+            // a window read stops early; read-ahead makes this a slight overcount
+            bytesRead = window != null ? channel.position() - window.offset() : Files.size(path);
+        }
+
+        if (sorter != null) {
+            // sorting and spilling runs while reading counts as sort time, not parse time
+            long spillNanos = sorter.getSpillNanos();
+            parseTimer.exclude(spillNanos);
+            parseTimer.stop(rowsParsed, bytesRead);
+            metrics.addStageNanos(PipelineStage.SORT, spillNanos);
+
+            JobMetrics.StageTimer mergeTimer = metrics.startStage(PipelineStage.SORT);
+            try (ExternalRowSorter s = sorter) {
+                s.forEachSorted(builder::add);
             }
+            mergeTimer.stop(builder.timestamps.size(), 0);
+        } else {
+            parseTimer.stop(rowsParsed, bytesRead);
         }
 
-        return new CsvTable(headers, rows);
+        CsvTable table = format.table(builder.timestamps, builder.finishColumns());
+        metrics.columns(table.getColumns().size());
+        metrics.rowsIn(table.getRowCount());
+        metrics.bytesRead(bytesRead);
+        return table;
     }
 
-    public void writeCsv(Path path, CsvTable table) throws IOException {
-        try (BufferedWriter bw = Files.newBufferedWriter(path)) {
+    /**
+     * Reads several inputs that share a timestamp column as one wide table, joined
+     * on timestamp by a streaming k-way merge (see {@link CsvMerger}). Nothing joined
+     * is written to disk unless an input is out of order and the sort has to spill.
+     */
+    public CsvTable readCsvMerged(List<Path> paths, JobMetrics metrics) throws IOException {
+        JobMetrics.StageTimer parseTimer = metrics.startStage(PipelineStage.PARSE);
+        CsvMerger merger = new CsvMerger(paths);
+        TableBuilder builder = new TableBuilder(merger.getColumnCount(), null);
 
-            List<String> headers = table.getHeaders();
-            List<DataRow> rows = table.getRows();
-            int colCount = headers.size();         // includes timestamp
-            
-            // --------------------------
-            // 1. WRITE ORIGINAL DATA ROWS
-            // --------------------------
-            bw.write(String.join(",", headers));
-            bw.newLine();
+        if (merger.mergeInOrder(builder::add)) {
+            parseTimer.stop(builder.timestamps.size(), merger.totalBytes());
+        } else {
+            // an input went backwards; join again with every row going through the sorter
+            builder = new TableBuilder(merger.getColumnCount(), null);
+            try (ExternalRowSorter sorter = merger.newSorter(DEFAULT_SORT_MEMORY_BYTES)) {
+                merger.addAllTo(sorter);
+                long spillNanos = sorter.getSpillNanos();
+                parseTimer.exclude(spillNanos);
+                parseTimer.stop(0, merger.totalBytes());
+                metrics.addStageNanos(PipelineStage.SORT, spillNanos);
+
+                JobMetrics.StageTimer mergeTimer = metrics.startStage(PipelineStage.SORT);
+                merger.mergeSorted(sorter, builder::add);
+                mergeTimer.stop(builder.timestamps.size(), 0);
+            }
+        }
 
-            for (DataRow row : rows) {
-                StringBuilder sb = new StringBuilder();
-                sb.append(row.getTimestamp().toString());
+        CsvTable table = new CsvTable(merger.getHeaders(), builder.timestamps, builder.finishColumns());
+        metrics.columns(table.getColumns().size());
+        metrics.rowsIn(table.getRowCount());
+        metrics.bytesRead(merger.totalBytes());
+        return table;
+    }
+
+    /**
+     * A header line and, with a selection, its projection: how each later line of
+     * the same input becomes the timestamp and cells a {@link TableBuilder} takes,
+     * and how the built columns become the table. Shared by file reads and
+     * {@link ImputationEngine}'s CSV input.
+     */
+    static final class LineFormat {
+        private final List<String> headers;
+        // null without a selection
+        private final ColumnSelection.Resolved projection;
+        private final boolean rawLine;
+        private final String[] timestampCell = new String[1];
+
+        /** @param source names the input in errors */
+        LineFormat(String headerLine, ColumnSelection selection, String source) {
+            headers = new ArrayList<>(Arrays.asList(headerLine.split(",")));
+            if (headers.isEmpty()) {
+                throw new IllegalArgumentException("CSV header is empty: " + source);
+            }
+            projection = selection == null ? null : selection.resolve(headers);
+            rawLine = projection != null && selection.isPassThrough();
+        }
+
+        List<String> headers() {
+            return headers;
+        }
+
+        /** Cells per row as the builder sees them: every value column, or the selected ones. */
+        int width() {
+            return projection != null ? projection.width() : headers.size() - 1;
+        }
+
+        TableBuilder newBuilder(ColumnStorage storage) {
+            return new TableBuilder(width(), storage, rawLine);
+        }
+
+        /** The cells of a data line, or null for a line with no cells; see {@link #timestamp}. */
+        String[] cells(String line) {
+            if (projection != null) {
+                // unselected cells are skipped over, not split out and trimmed
+                return projection.cells(line, timestampCell);
+            }
+            String[] parts = line.split(",", -1); // keep trailing blanks
+            if (parts.length == 0) return null;
+            timestampCell[0] = parts[0].trim();
+            return cellValues(parts, width());
+        }
 
-                for (String v : row.getValues()) {
-                    sb.append(",");
-                    sb.append(v == null ? "" : v);
+        /** The timestamp of the line last passed to {@link #cells}. */
+        Instant timestamp() {
+            return Instant.parse(timestampCell[0]);
+        }
+
+        CsvTable table(List<Instant> timestamps, List<Column> columns) {
+            return projection != null
+                    ? projection.table(timestamps, columns)
+                    : new CsvTable(headers, timestamps, columns);
+        }
+    }
+
+    /** Trimmed cells after the timestamp, padded with blanks to {@code columnCount}. */
+    static String[] cellValues(String[] parts, int columnCount) {
+        return cellValues(parts, 1, columnCount);
+    }
+
+    /** Trimmed cells from {@code first} on, padded with blanks to {@code columnCount}. */
+    static String[] cellValues(String[] parts, int first, int columnCount) {
+        String[] values = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            int idx = i + first;
+            values[i] = (idx < parts.length) ? parts[idx].trim() : "";
+        }
+        return values;
+    }
+
+    /**
+     * Collects rows into columns, choosing each column's storage from the first rows seen.
+     * With a storage, timestamps and non-dictionary columns are kept there. With
+     * {@code rawLine} the last cell of each row is the raw input line, kept as
+     * {@link RawLines} (in the store's mapped memory when off-heap) without parsing.
+     */
+    static class TableBuilder {
+        final List<Instant> timestamps;
+        private final int columnCount;
+        private final ColumnStorage storage;
+        private final boolean rawLine;
+        private final List<String[]> sample = new ArrayList<>();
+        private List<Column> columns;
+
+        TableBuilder(int columnCount, ColumnStorage storage) {
+            this(columnCount, storage, false);
+        }
+
+        TableBuilder(int columnCount, ColumnStorage storage, boolean rawLine) {
+            this.columnCount = columnCount;
+            this.storage = storage;
+            this.rawLine = rawLine;
+            this.timestamps = storage != null ? storage.newTimeline() : new ArrayList<>();
+        }
+
+        void add(Instant timestamp, String[] values) {
+            timestamps.add(timestamp);
+            if (columns == null) {
+                sample.add(values);
+                if (sample.size() == DICTIONARY_SAMPLE_ROWS) {
+                    createColumns();
                 }
+            } else {
+                appendRow(values);
+            }
+        }
 
-                bw.write(sb.toString());
-                bw.newLine();
+        List<Column> finishColumns() {
+            if (columns == null) {
+                createColumns();
             }
+            return columns;
+        }
 
-            // ----------------------------------
-            // 2. COLLECT NUMERIC VALUES PER COLUMN
-            // ----------------------------------
-            List<List<Double>> nums = new ArrayList<>();
-            boolean[] nonnum = new boolean[colCount];
+        private void createColumns() {
+            columns = new ArrayList<>(columnCount);
+            for (int c = 0; c < columnCount; c++) {
+                if (rawLine && c == columnCount - 1) {
+                    columns.add(storage instanceof OffHeapStore store ? new RawLines(store) : new RawLines());
+                    continue;
+                }
+                columns.add(isDictionaryCandidate(sample, c)
+                        ? new DictionaryColumn(sample.size())
+                        : storage != null ? storage.newColumn() : new TextColumn(sample.size()));
+            }
+            for (String[] values : sample) {
+                appendRow(values);
+            }
+            sample.clear();
+        }
 
-            for (int c = 0; c < colCount; c++) {
-                nums.add(new ArrayList<>());
-                nonnum[c] = false;
+        private void appendRow(String[] values) {
+            for (int c = 0; c < values.length; c++) {
+                columns.get(c).add(values[c]);
             }
+        }
 
-            // skip timestamp column (c = 0)
-            for (DataRow row : rows) {
-                for (int c = 1; c < colCount; c++) {
-                    String cell = row.getValues().get(c - 1);
+        private static boolean isDictionaryCandidate(List<String[]> sample, int col) {
+            Set<String> distinct = new HashSet<>();
+            int numeric = 0;
+            int keywords = 0;
 
-                    if (cell == null || cell.isBlank()) continue;
+            for (String[] values : sample) {
+                String cell = values[col];
+                if (cell.isEmpty()) continue;
 
-                    try {
-                        nums.get(c).add(Double.parseDouble(cell));
-                    } catch (Exception e) {
-                        // non-numerical (keyword, text, blocked interpolation)
-                        nonnum[c] = true;
-                    }
+                if (distinct.add(cell) && distinct.size() > DICTIONARY_MAX_CARDINALITY) {
+                    return false;
+                }
+                try {
+                    Double.parseDouble(cell);
+                    numeric++;
+                } catch (NumberFormatException e) {
+                    keywords++;
                 }
             }
+            return keywords > numeric;
+        }
+    }
 
-            // ----------------------------------
-            // 3. STATISTIC HELPERS
-            // ----------------------------------
-            java.util.function.Function<List<Double>, Double> avg = list ->
-                    list.stream().mapToDouble(v -> v).average().orElse(Double.NaN);
-
-            java.util.function.Function<List<Double>, Double> minF = list ->
-                    list.stream().mapToDouble(v -> v).min().orElse(Double.NaN);
-
-            java.util.function.Function<List<Double>, Double> maxF = list ->
-                    list.stream().mapToDouble(v -> v).max().orElse(Double.NaN);
-
-            java.util.function.Function<List<Double>, Double> median = list -> {
-                if (list.isEmpty()) return Double.NaN;
-                List<Double> sorted = new ArrayList<>(list);
-                java.util.Collections.sort(sorted);
-                int n = sorted.size();
-                return (n % 2 == 1)
-                        ? sorted.get(n / 2)
-                        : (sorted.get(n / 2 - 1) + sorted.get(n / 2)) / 2.0;
-            };
-
-            java.util.function.Function<List<Double>, Double> mode = list -> {
-                if (list.isEmpty()) return Double.NaN;
-                Map<Double, Integer> freq = new HashMap<>();
-                for (double d : list) freq.put(d, freq.getOrDefault(d, 0) + 1);
-                return java.util.Collections.max(freq.entrySet(), Map.Entry.comparingByValue()).getKey();
-            };
-
-            java.util.function.BiConsumer<String, java.util.function.Function<List<Double>, Double>> statRow =
-                    (label, func) -> {
-                        try {
-                            bw.write(label);
-                            bw.write(",");
-                            for (int c = 1; c < colCount; c++) {
-                                bw.write(Double.toString(func.apply(nums.get(c))));
-                                if (c < colCount - 1) bw.write(",");
-                            }
-                            bw.newLine();
-                        } catch (IOException ex) {
-                            throw new RuntimeException(ex);
-                        }
-                    };
+    public void writeCsv(Path path, CsvTable table) throws IOException {
+        writeCsv(path, table, untracked(path), null);
+    }
+
+    /** Writes rows then the stats footer, recording write and stats time into {@code metrics}. */
+    public void writeCsv(Path path, CsvTable table, JobMetrics metrics) throws IOException {
+        writeCsv(path, table, metrics, null);
+    }
+
+    /**
+     * As {@link #writeCsv(Path, CsvTable, JobMetrics)}. With a checkpoint, an output
+     * left by an earlier run is cut back to the last recorded row and continued,
+     * and progress is recorded every {@link JobCheckpoint#CHUNK_ROWS} rows.
+     */
+    public void writeCsv(Path path, CsvTable table, JobMetrics metrics, JobCheckpoint checkpoint) throws IOException {
+        JobMetrics.StageTimer writeTimer = metrics.startStage(PipelineStage.WRITE);
+        JobMetrics.StageTimer statsTimer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
 
-            // ----------------------------------
-            // 4. WRITE STAT ROWS
-            // ----------------------------------
+            List<String> headers = table.getHeaders();
+            List<Column> columns = table.getColumns();
+            int rowCount = table.getRowCount();
 
-            statRow.accept("Average", avg);
-            statRow.accept("Median", median);
-            statRow.accept("Minimum", minF);
-            statRow.accept("Maximum", maxF);
-            statRow.accept("Mode", mode);
+            int startRow = 0;
+            if (checkpoint != null && checkpoint.getRowsWritten() > 0
+                    && checkpoint.getRowsWritten() <= rowCount
+                    && channel.size() >= checkpoint.getOutputBytes()) {
+                startRow = (int) checkpoint.getRowsWritten();
+                channel.truncate(checkpoint.getOutputBytes());
+                channel.position(checkpoint.getOutputBytes());
+            } else {
+                channel.truncate(0);
+            }
 
-            // NonNumericalDetected
-            bw.write("NonNumericalDetected,");
-            for (int c = 1; c < colCount; c++) {
-                bw.write(nonnum[c] ? "1" : "0");
-                if (c < colCount - 1) bw.write(",");
+            // --------------------------
+            // 1. WRITE ORIGINAL DATA ROWS
+            // --------------------------
+            // rows are formatted here while a writer thread puts the previous
+            // buffers on disk; closing it waits for the last one
+            try (AsyncChannelWriter out = new AsyncChannelWriter(channel)) {
+                if (startRow == 0) {
+                    out.write(String.join(",", headers));
+                    out.newLine();
+                }
+
+                // cells are written straight from the columns; dictionary columns
+                // hand back their shared entry, numeric ones their value, pass-through
+                // ones their input bytes and the timeline its epoch second and nano,
+                // so nothing is built per cell
+                List<Instant> timestamps = table.getTimestamps();
+                PassThroughColumn.ByteSink raw = out::write;
+                for (int r = startRow; r < rowCount; r++) {
+                    out.write(EpochTimeline.epochSecond(timestamps, r), EpochTimeline.nano(timestamps, r));
+
+                    for (Column column : columns) {
+                        out.write(',');
+                        if (column instanceof PassThroughColumn passThrough) {
+                            passThrough.writeTo(r, raw);
+                            continue;
+                        }
+                        double value = column.formattedDouble(r);
+                        if (value == value) {
+                            out.write(value);
+                        } else {
+                            out.write(column.get(r));
+                        }
+                    }
+
+                    out.newLine();
+
+                    // the recorded offset may run ahead of the disk: a resume only
+                    // trusts it when the file has grown at least that far
+                    if (checkpoint != null && (r + 1) % JobCheckpoint.CHUNK_ROWS == 0) {
+                        checkpoint.outputProgress(r + 1, out.position());
+                    }
+                }
             }
-            bw.newLine();
+            if (checkpoint != null) {
+                checkpoint.outputRowsDone(rowCount, channel.position());
+            }
+
+            writeTimer.stop(rowCount - startRow, 0);
+            statsTimer = metrics.startStage(PipelineStage.STATS);
+
+            // --------------------------
+            // 2. STATS FOOTER
+            // --------------------------
+            BufferedWriter bw = new BufferedWriter(
+                    new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8));
+            writeStats(bw, table);
+            bw.flush();
+        }
+
+        // stats time also covers the final flush and close of the file
+        long bytesWritten = Files.size(path);
+        statsTimer.stop(table.getRowCount(), bytesWritten);
+        metrics.rowsOut(table.getRowCount());
+        metrics.bytesWritten(bytesWritten);
+    }
+
+    /** Appends the Average/Median/Minimum/Maximum/Mode/NonNumericalDetected footer. */
+    static void writeStats(BufferedWriter bw, CsvTable table) throws IOException {
+        List<Column> columns = table.getColumns();
+        int rowCount = table.getRowCount();
+
+        // ----------------------------------
+        // 1. SUMMARISE EACH COLUMN (timestamp skipped)
+        // ----------------------------------
+        // pass-through columns were not repaired and get blank stats
+        List<ColumnStats> stats = new ArrayList<>(columns.size());
+        for (Column column : columns) {
+            stats.add(column instanceof PassThroughColumn ? null : new ColumnStats(column, rowCount));
         }
+
+        // ----------------------------------
+        // 2. WRITE STAT ROWS
+        // ----------------------------------
+        writeStatRow(bw, "Average", stats, s -> s.average);
+        writeStatRow(bw, "Median", stats, s -> s.median);
+        writeStatRow(bw, "Minimum", stats, s -> s.minimum);
+        writeStatRow(bw, "Maximum", stats, s -> s.maximum);
+        writeStatRow(bw, "Mode", stats, s -> s.mode);
+
+        // NonNumericalDetected
+        bw.write("NonNumericalDetected,");
+        for (int c = 0; c < stats.size(); c++) {
+            if (stats.get(c) != null) bw.write(stats.get(c).nonNumerical ? "1" : "0");
+            if (c < stats.size() - 1) bw.write(",");
+        }
+        bw.newLine();
+    }
+
+    private static void writeStatRow(BufferedWriter bw, String label, List<ColumnStats> stats,
+                                     java.util.function.ToDoubleFunction<ColumnStats> stat) throws IOException {
+        bw.write(label);
+        bw.write(",");
+        for (int c = 0; c < stats.size(); c++) {
+            if (stats.get(c) != null) bw.write(DoubleFormat.toString(stat.applyAsDouble(stats.get(c))));
+            if (c < stats.size() - 1) bw.write(",");
+        }
+        bw.newLine();
+    }
+
+    private static JobMetrics untracked(Path path) {
+        return new JobMetrics(String.valueOf(path.getFileName()), null);
     }
 }
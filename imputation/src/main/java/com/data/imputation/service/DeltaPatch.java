@@ -0,0 +1,370 @@
+package com.data.imputation.service;
+
+import com.data.imputation.metrics.JobMetrics;
+import com.data.imputation.metrics.PipelineStage;
+import com.data.imputation.model.Column;
+import com.data.imputation.model.CsvTable;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sparse output holding only what the pipeline added to the input, and the
+ * streaming rebuild of the full output from the input plus that patch.
+ *
+ * <pre>
+ *   # imputation-delta v1
+ *   # grid 2025-01-01T00:00:00Z PT1H 120      first timestamp, step, row count
+ *   # header timestamp,temp,pressure          header of the full output
+ *   timestamp,column,value
+ *   2025-01-01T03:00:00Z,,                     a timestamp added by gap filling
+ *   2025-01-01T03:00:00Z,temp,21.5             an imputed cell
+ *   # stats
+ *   Average,...                                the full output's stats footer
+ * </pre>
+ *
+ * Entries are in row order and, within a row, in column order. The grid line is
+ * enough to rebuild the timeline: rows are every step from the first timestamp,
+ * input rows off that grid are dropped and later duplicates win, as in gap filling.
+ */
+public class DeltaPatch {
+
+    public static final String EXTENSION = ".delta";
+
+    private static final String MAGIC = "# imputation-delta v1";
+    private static final String GRID = "# grid ";
+    private static final String HEADER = "# header ";
+    private static final String ENTRIES_HEADER = "timestamp,column,value";
+    private static final String STATS = "# stats";
+
+    // Rows held before an out-of-order input spills sorted runs while applying.
+    private static final long SORT_MEMORY_BYTES = Runtime.getRuntime().maxMemory() / 4;
+
+    /**
+     * Rows filled per column, collected while interpolating; values are read back from the table.
+     * Each column's rows arrive in ascending order.
+     */
+    public static class ImputedCells implements FilledCellSink {
+        private int[][] rows;
+        private int[] counts;
+
+        /** Sized for the table's columns, as the delta writer needs. */
+        public ImputedCells(int columnCount) {
+            this.rows = new int[columnCount][];
+            this.counts = new int[columnCount];
+        }
+
+        /** Grows with the columns that get a filled cell, for a caller that does not know the table yet. */
+        public ImputedCells() {
+            this(0);
+        }
+
+        @Override
+        public void filled(int column, int row, String value) {
+            if (column >= rows.length) {
+                rows = Arrays.copyOf(rows, column + 1);
+                counts = Arrays.copyOf(counts, column + 1);
+            }
+            int[] r = rows[column];
+            if (r == null) {
+                r = rows[column] = new int[16];
+            } else if (counts[column] == r.length) {
+                r = rows[column] = Arrays.copyOf(r, r.length * 2);
+            }
+            r[counts[column]++] = row;
+        }
+
+        /** True if interpolation filled the cell at {@code row} of value column {@code column}. */
+        public boolean isImputed(int column, int row) {
+            if (column < 0 || column >= rows.length || rows[column] == null) return false;
+            return Arrays.binarySearch(rows[column], 0, counts[column], row) >= 0;
+        }
+
+        /** Marks the filled rows of value column {@code column} in {@code into}. */
+        public void markRows(int column, BitSet into) {
+            if (column < 0 || column >= rows.length || rows[column] == null) return;
+            for (int i = 0; i < counts[column]; i++) into.set(rows[column][i]);
+        }
+
+        public long size() {
+            long total = 0;
+            for (int count : counts) total += count;
+            return total;
+        }
+    }
+
+    // ---------- write ----------
+
+    public void write(Path path, CsvTable table, Duration step, BitSet synthesizedRows,
+                      ImputedCells cells, JobMetrics metrics) throws IOException {
+        List<String> headers = table.getHeaders();
+        List<Column> columns = table.getColumns();
+        List<Instant> timestamps = table.getTimestamps();
+        int rowCount = table.getRowCount();
+
+        if (headers.stream().distinct().count() != headers.size()) {
+            throw new IllegalArgumentException("Delta output needs unique column names: " + headers);
+        }
+
+        JobMetrics.StageTimer writeTimer = metrics.startStage(PipelineStage.WRITE);
+        JobMetrics.StageTimer statsTimer;
+        long entries = 0;
+
+        // regroup the per-column rows by row (counting sort), keeping column order within a row
+        int[] rowStart = new int[rowCount + 1];
+        for (int c = 0; c < columns.size(); c++) {
+            for (int i = 0; i < cells.counts[c]; i++) {
+                rowStart[cells.rows[c][i] + 1]++;
+            }
+        }
+        for (int r = 0; r < rowCount; r++) {
+            rowStart[r + 1] += rowStart[r];
+        }
+        int[] cellColumns = new int[rowStart[rowCount]];
+        int[] next = Arrays.copyOf(rowStart, rowCount);
+        for (int c = 0; c < columns.size(); c++) {
+            for (int i = 0; i < cells.counts[c]; i++) {
+                cellColumns[next[cells.rows[c][i]]++] = c;
+            }
+        }
+
+        try (BufferedWriter bw = Files.newBufferedWriter(path)) {
+            bw.write(MAGIC);
+            bw.newLine();
+            bw.write(GRID + (rowCount > 0 ? timestamps.get(0) : Instant.EPOCH) + " " + step + " " + rowCount);
+            bw.newLine();
+            bw.write(HEADER + String.join(",", headers));
+            bw.newLine();
+            bw.write(ENTRIES_HEADER);
+            bw.newLine();
+
+            for (int r = 0; r < rowCount; r++) {
+                boolean synthesized = synthesizedRows.get(r);
+                if (!synthesized && rowStart[r] == rowStart[r + 1]) continue;
+
+                String ts = timestamps.get(r).toString();
+                if (synthesized) {
+                    bw.write(ts);
+                    bw.write(",,");
+                    bw.newLine();
+                    entries++;
+                }
+                for (int k = rowStart[r]; k < rowStart[r + 1]; k++) {
+                    int c = cellColumns[k];
+                    bw.write(ts);
+                    bw.write(',');
+                    bw.write(headers.get(c + 1));
+                    bw.write(',');
+                    bw.write(columns.get(c).get(r));
+                    bw.newLine();
+                    entries++;
+                }
+            }
+
+            writeTimer.stop(entries, 0);
+            statsTimer = metrics.startStage(PipelineStage.STATS);
+
+            bw.write(STATS);
+            bw.newLine();
+            CsvService.writeStats(bw, table);
+        }
+
+        long bytesWritten = Files.size(path);
+        statsTimer.stop(rowCount, bytesWritten);
+        metrics.rowsOut(rowCount);
+        metrics.bytesWritten(bytesWritten);
+    }
+
+    // ---------- apply ----------
+
+    /**
+     * Writes the full output that produced {@code patch} from {@code original}, in one
+     * pass when the original is in timestamp order and through an external sort otherwise.
+     */
+    public void apply(Path original, Path patch, Path output) throws IOException {
+        if (!assemble(original, patch, output, false)) {
+            assemble(original, patch, output, true);
+        }
+    }
+
+    /** False if {@code sort} is off and the original turns out to be out of order. */
+    private boolean assemble(Path original, Path patch, Path output, boolean sort) throws IOException {
+        try (BufferedReader patchIn = Files.newBufferedReader(patch);
+             BufferedReader in = Files.newBufferedReader(original);
+             BufferedWriter out = Files.newBufferedWriter(output)) {
+
+            if (!MAGIC.equals(patchIn.readLine())) {
+                throw new IllegalArgumentException("Not a delta patch: " + patch);
+            }
+            String[] grid = expectLine(patchIn, GRID, patch).split(" ");
+            String outputHeader = expectLine(patchIn, HEADER, patch);
+            if (!ENTRIES_HEADER.equals(patchIn.readLine())) {
+                throw new IllegalArgumentException("Malformed delta patch: " + patch);
+            }
+
+            String headerLine = in.readLine();
+            if (headerLine == null || !String.join(",", headerLine.split(",")).equals(outputHeader)) {
+                throw new IllegalArgumentException("Patch " + patch.getFileName()
+                        + " was not made from " + original.getFileName() + " (header differs).");
+            }
+            String[] headers = outputHeader.split(",");
+            int columnCount = headers.length - 1;
+
+            out.write(outputHeader);
+            out.newLine();
+
+            Assembler assembler = new Assembler(Instant.parse(grid[0]), Duration.parse(grid[1]),
+                    Long.parseLong(grid[2]), headers, patchIn, out);
+
+            if (sort) {
+                try (ExternalRowSorter sorter = new ExternalRowSorter(columnCount, SORT_MEMORY_BYTES)) {
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        if (line.isBlank()) continue;
+                        String[] parts = line.split(",", -1);
+                        sorter.add(Instant.parse(parts[0].trim()), CsvService.cellValues(parts, columnCount));
+                    }
+                    sorter.forEachSorted(assembler::accept);
+                }
+            } else {
+                Instant previous = null;
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    String[] parts = line.split(",", -1);
+                    Instant timestamp = Instant.parse(parts[0].trim());
+                    if (previous != null && timestamp.isBefore(previous)) {
+                        return false;
+                    }
+                    assembler.accept(timestamp, CsvService.cellValues(parts, columnCount));
+                    previous = timestamp;
+                }
+            }
+            assembler.finish();
+        }
+        return true;
+    }
+
+    private static String expectLine(BufferedReader in, String prefix, Path patch) throws IOException {
+        String line = in.readLine();
+        if (line == null || !line.startsWith(prefix)) {
+            throw new IllegalArgumentException("Malformed delta patch: " + patch);
+        }
+        return line.substring(prefix.length());
+    }
+
+    /** Walks the output grid as sorted input rows arrive, merging in the patch entries. */
+    private static class Assembler {
+        private final Duration step;
+        private final long gridRows;
+        private final int columnCount;
+        private final Map<String, Integer> columnIndex = new HashMap<>();
+        private final BufferedReader patchIn;
+        private final BufferedWriter out;
+
+        private long next;
+        private Instant nextTimestamp;
+        private String[] pending; // input row at nextTimestamp; later duplicates replace it
+
+        // current patch entry; column -1 marks an added timestamp
+        private Instant entryTimestamp;
+        private int entryColumn;
+        private String entryValue;
+
+        Assembler(Instant first, Duration step, long gridRows, String[] headers,
+                  BufferedReader patchIn, BufferedWriter out) throws IOException {
+            this.step = step;
+            this.gridRows = gridRows;
+            this.columnCount = headers.length - 1;
+            for (int c = 1; c < headers.length; c++) {
+                columnIndex.put(headers[c], c - 1);
+            }
+            this.patchIn = patchIn;
+            this.out = out;
+            this.nextTimestamp = first;
+            readEntry();
+        }
+
+        void accept(Instant timestamp, String[] values) throws IOException {
+            while (next < gridRows && nextTimestamp.isBefore(timestamp)) {
+                emitNext();
+            }
+            if (next < gridRows && nextTimestamp.equals(timestamp)) {
+                pending = values;
+            }
+            // anything else is off the grid, which gap filling drops as well
+        }
+
+        void finish() throws IOException {
+            while (next < gridRows) {
+                emitNext();
+            }
+            if (entryTimestamp != null) {
+                throw new IOException("Patch entry outside the grid at " + entryTimestamp);
+            }
+            // the stats footer is copied as is
+            String line;
+            while ((line = patchIn.readLine()) != null) {
+                out.write(line);
+                out.newLine();
+            }
+        }
+
+        private void emitNext() throws IOException {
+            String[] values = pending;
+            if (values == null) {
+                values = new String[columnCount];
+                Arrays.fill(values, "");
+            }
+            while (entryTimestamp != null && entryTimestamp.equals(nextTimestamp)) {
+                if (entryColumn >= 0) values[entryColumn] = entryValue;
+                readEntry();
+            }
+            if (entryTimestamp != null && entryTimestamp.isBefore(nextTimestamp)) {
+                throw new IOException("Patch entry outside the grid at " + entryTimestamp);
+            }
+
+            out.write(nextTimestamp.toString());
+            for (String v : values) {
+                out.write(',');
+                out.write(v);
+            }
+            out.newLine();
+
+            pending = null;
+            next++;
+            nextTimestamp = nextTimestamp.plus(step);
+        }
+
+        private void readEntry() throws IOException {
+            String line = patchIn.readLine();
+            if (line == null || line.equals(STATS)) {
+                entryTimestamp = null;
+                return;
+            }
+            String[] parts = line.split(",", 3);
+            if (parts.length != 3) {
+                throw new IOException("Malformed patch entry: " + line);
+            }
+            entryTimestamp = Instant.parse(parts[0]);
+            if (parts[1].isEmpty()) {
+                entryColumn = -1;
+            } else {
+                Integer c = columnIndex.get(parts[1]);
+                if (c == null) throw new IOException("Unknown column in patch entry: " + line);
+                entryColumn = c;
+            }
+            entryValue = parts[2];
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.data.imputation.service;
+
+import com.data.imputation.model.Column;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts rows by timestamp within a memory budget.
+ *
+ * Rows are buffered until the budget is reached, then sorted and spilled to a
+ * temp file as a run. {@link #forEachSorted} k-way merges the runs (plus
+ * whatever is still buffered) back into a single ordered stream. Ties keep
+ * their input order, matching a stable in-memory sort.
+ *
+ * Run file layout, one record per row:
+ * epochSecond (long), nano (int), then each cell as its UTF-8 length (int) and
+ * bytes, so a pass-through line is not held to writeUTF's 64 KB.
+ */
+public class ExternalRowSorter implements Closeable {
+
+    @FunctionalInterface
+    public interface RowSink {
+        void accept(Instant timestamp, String[] values) throws IOException;
+    }
+
+    private static final int ROW_OVERHEAD_BYTES = 64;   // Instant + array + holder
+    private static final int CELL_OVERHEAD_BYTES = 48;  // String + backing array + ref
+    private static final int IO_BUFFER_BYTES = 64 * 1024;
+
+    private final int columnCount;
+    private final long memoryBudgetBytes;
+
+    private final List<Path> runFiles = new ArrayList<>();
+    private final List<BufferedRow> buffer = new ArrayList<>();
+    private long bufferedBytes;
+    private long spillNanos;
+
+    // sorted prefix handed over by the reader, kept in memory until the budget needs it
+    private List<Instant> prefixTimestamps;
+    private List<Column> prefixColumns;
+    private long prefixBytes;
+
+    public ExternalRowSorter(int columnCount, long memoryBudgetBytes) {
+        this.columnCount = columnCount;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+    }
+
+    /**
+     * Registers rows that are already in order (the part of the input read before
+     * the first out-of-order row). They become the first run.
+     */
+    public void addSortedRun(List<Instant> timestamps, List<Column> columns) throws IOException {
+        if (prefixTimestamps != null) {
+            throw new IllegalStateException("Sorted prefix already registered.");
+        }
+        prefixTimestamps = timestamps;
+        prefixColumns = columns;
+        prefixBytes = (long) timestamps.size() * (ROW_OVERHEAD_BYTES + 8L * columnCount);
+        if (prefixBytes > memoryBudgetBytes) {
+            spillPrefix();
+        }
+    }
+
+    public void add(Instant timestamp, String[] values) throws IOException {
+        long rowBytes = ROW_OVERHEAD_BYTES + 4L * values.length;
+        for (String v : values) {
+            rowBytes += CELL_OVERHEAD_BYTES + v.length();
+        }
+
+        buffer.add(new BufferedRow(timestamp, values));
+        bufferedBytes += rowBytes;
+
+        if (bufferedBytes + prefixBytes > memoryBudgetBytes) {
+            spillPrefix();
+            spillBuffer();
+        }
+    }
+
+    public int getSpilledRunCount() {
+        return runFiles.size();
+    }
+
+    /** Time spent sorting and writing runs so far. */
+    public long getSpillNanos() {
+        return spillNanos;
+    }
+
+    /** Streams every added row in timestamp order. */
+    public void forEachSorted(RowSink sink) throws IOException {
+        List<RunCursor> cursors = new ArrayList<>();
+        try {
+            if (prefixTimestamps != null) {
+                cursors.add(new PrefixCursor(cursors.size()));
+            }
+            for (Path run : runFiles) {
+                cursors.add(new FileCursor(cursors.size(), run));
+            }
+            if (!buffer.isEmpty()) {
+                buffer.sort(Comparator.comparing(r -> r.timestamp));
+                cursors.add(new BufferCursor(cursors.size()));
+            }
+
+            PriorityQueue<RunCursor> heap = new PriorityQueue<>(
+                    Math.max(cursors.size(), 1),
+                    Comparator.<RunCursor, Instant>comparing(c -> c.timestamp)
+                            .thenComparingInt(c -> c.runIndex));
+
+            for (RunCursor cursor : cursors) {
+                if (cursor.advance()) heap.add(cursor);
+            }
+
+            while (!heap.isEmpty()) {
+                RunCursor cursor = heap.poll();
+                sink.accept(cursor.timestamp, cursor.values);
+                if (cursor.advance()) heap.add(cursor);
+            }
+        } finally {
+            for (RunCursor cursor : cursors) {
+                cursor.close();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Path run : runFiles) {
+            Files.deleteIfExists(run);
+        }
+        runFiles.clear();
+        buffer.clear();
+        prefixTimestamps = null;
+        prefixColumns = null;
+    }
+
+    // ---------- spilling ----------
+
+    private void spillPrefix() throws IOException {
+        if (prefixTimestamps == null || prefixBytes == 0) return;
+        long start = System.nanoTime();
+
+        // written first so it keeps run index 0 and wins ties like the in-memory path
+        Path run = newRunFile();
+        try (DataOutputStream out = openRun(run)) {
+            String[] values = new String[columnCount];
+            for (int r = 0; r < prefixTimestamps.size(); r++) {
+                for (int c = 0; c < columnCount; c++) {
+                    values[c] = prefixColumns.get(c).get(r);
+                }
+                writeRow(out, prefixTimestamps.get(r), values);
+            }
+        }
+        runFiles.add(0, run);
+        prefixTimestamps = null;
+        prefixColumns = null;
+        prefixBytes = 0;
+        spillNanos += System.nanoTime() - start;
+    }
+
+    private void spillBuffer() throws IOException {
+        if (buffer.isEmpty()) return;
+        long start = System.nanoTime();
+
+        buffer.sort(Comparator.comparing(r -> r.timestamp));
+
+        Path run = newRunFile();
+        try (DataOutputStream out = openRun(run)) {
+            for (BufferedRow row : buffer) {
+                writeRow(out, row.timestamp, row.values);
+            }
+        }
+        runFiles.add(run);
+        buffer.clear();
+        bufferedBytes = 0;
+        spillNanos += System.nanoTime() - start;
+    }
+
+    private Path newRunFile() throws IOException {
+        Path run = Files.createTempFile("imputation-sort-", ".run");
+        run.toFile().deleteOnExit();
+        return run;
+    }
+
+    private DataOutputStream openRun(Path run) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), IO_BUFFER_BYTES));
+    }
+
+    private void writeRow(DataOutputStream out, Instant timestamp, String[] values) throws IOException {
+        out.writeLong(timestamp.getEpochSecond());
+        out.writeInt(timestamp.getNano());
+        for (String v : values) {
+            writeCell(out, v);
+        }
+    }
+
+    /** A cell as its UTF-8 length and bytes; also used by {@link JobCheckpoint}. */
+    static void writeCell(DataOutputStream out, String cell) throws IOException {
+        byte[] bytes = cell.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readCell(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ---------- merge cursors ----------
+
+    private abstract static class RunCursor implements Closeable {
+        final int runIndex;
+        Instant timestamp;
+        String[] values;
+
+        RunCursor(int runIndex) {
+            this.runIndex = runIndex;
+        }
+
+        /** Moves to the next row; false once the run is exhausted. */
+        abstract boolean advance() throws IOException;
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+
+    private class PrefixCursor extends RunCursor {
+        private int next;
+
+        PrefixCursor(int runIndex) {
+            super(runIndex);
+        }
+
+        @Override
+        boolean advance() {
+            if (next >= prefixTimestamps.size()) return false;
+            timestamp = prefixTimestamps.get(next);
+            values = new String[columnCount];
+            for (int c = 0; c < columnCount; c++) {
+                values[c] = prefixColumns.get(c).get(next);
+            }
+            next++;
+            return true;
+        }
+    }
+
+    private class BufferCursor extends RunCursor {
+        private int next;
+
+        BufferCursor(int runIndex) {
+            super(runIndex);
+        }
+
+        @Override
+        boolean advance() {
+            if (next >= buffer.size()) return false;
+            BufferedRow row = buffer.get(next++);
+            timestamp = row.timestamp;
+            values = row.values;
+            return true;
+        }
+    }
+
+    private class FileCursor extends RunCursor {
+        private final DataInputStream in;
+
+        FileCursor(int runIndex, Path run) throws IOException {
+            super(runIndex);
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), IO_BUFFER_BYTES));
+        }
+
+        @Override
+        boolean advance() throws IOException {
+            long seconds;
+            try {
+                seconds = in.readLong();
+            } catch (EOFException e) {
+                return false;
+            }
+            timestamp = Instant.ofEpochSecond(seconds, in.readInt());
+            values = new String[columnCount];
+            for (int c = 0; c < columnCount; c++) {
+                values[c] = readCell(in);
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static class BufferedRow {
+        final Instant timestamp;
+        final String[] values;
+
+        BufferedRow(Instant timestamp, String[] values) {
+            this.timestamp = timestamp;
+            this.values = values;
+        }
+    }
+}
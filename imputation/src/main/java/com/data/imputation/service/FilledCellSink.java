@@ -0,0 +1,20 @@
+package com.data.imputation.service;
+
+import java.io.IOException;
+
+/** Receives each cell that interpolation fills, column by column. */
+@FunctionalInterface
+interface FilledCellSink {
+
+    void filled(int column, int row, String value) throws IOException;
+
+    /** Feeds both sinks; either may be null. */
+    static FilledCellSink both(FilledCellSink first, FilledCellSink second) {
+        if (first == null) return second;
+        if (second == null) return first;
+        return (column, row, value) -> {
+            first.filled(column, row, value);
+            second.filled(column, row, value);
+        };
+    }
+}
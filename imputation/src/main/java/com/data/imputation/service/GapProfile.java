@@ -0,0 +1,238 @@
+package com.data.imputation.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pre-flight numbers for one input, from a {@link TimestampScanner} pass over its
+ * timestamp column: the step a run would detect, the gaps it would fill and the
+ * rows it would write. Intervals are taken in file order, as the step detection
+ * sees a sorted input; for an out-of-order input the gap counts are approximate.
+ */
+public class GapProfile {
+
+    // gap lengths in missing rows: 1, 2, 3-4, 5-8, ...
+    private static final int HISTOGRAM_BUCKETS = 64;
+
+    private long rows;
+    private Instant first;
+    private Instant last;
+    private Duration step;
+    private long gaps;
+    private long missingRows;
+    private final long[] gapHistogram = new long[HISTOGRAM_BUCKETS];
+    private long duplicates;
+    private long outOfOrder;
+    private long irregularIntervals;
+    private long expectedOutputRows;
+    private long scanNanos;
+
+    private GapProfile() {
+    }
+
+    /** Scans {@code input}; nothing but the first cell of each line is decoded. */
+    public static GapProfile of(Path input) throws IOException {
+        long start = System.nanoTime();
+        Scan scan = new Scan();
+        TimestampScanner.scan(input, scan);
+
+        GapProfile profile = scan.finish();
+        profile.scanNanos = System.nanoTime() - start;
+        return profile;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public Instant getFirst() {
+        return first;
+    }
+
+    public Instant getLast() {
+        return last;
+    }
+
+    /** The step a run would detect, or null when there are no two distinct timestamps. */
+    public Duration getStep() {
+        return step;
+    }
+
+    public long getGaps() {
+        return gaps;
+    }
+
+    public long getMissingRows() {
+        return missingRows;
+    }
+
+    /** Gaps by length in missing rows, keyed by labels such as {@code "1"} or {@code "5-8"}, shortest first. */
+    public Map<String, Long> getGapHistogram() {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int b = 0; b < HISTOGRAM_BUCKETS; b++) {
+            if (gapHistogram[b] == 0) continue;
+            long low = b == 0 ? 1 : (1L << (b - 1)) + 1;
+            long high = b == 0 ? 1 : 1L << b;
+            histogram.put(low == high ? Long.toString(low) : low + "-" + high, gapHistogram[b]);
+        }
+        return histogram;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public long getOutOfOrder() {
+        return outOfOrder;
+    }
+
+    /** Intervals that are not a whole number of steps; those rows are dropped from the grid. */
+    public long getIrregularIntervals() {
+        return irregularIntervals;
+    }
+
+    /** Rows a run would write before the stats footer, or -1 without a step. */
+    public long getExpectedOutputRows() {
+        return expectedOutputRows;
+    }
+
+    public long getScanNanos() {
+        return scanNanos;
+    }
+
+    /** One line per figure, as printed by {@code --profile}. */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-15s %d%n", "rows", rows));
+        sb.append(String.format("%-15s %s .. %s%n", "range", first, last));
+        sb.append(String.format("%-15s %s%n", "step", step == null ? "n/a" : step));
+        sb.append(String.format("%-15s %d (%d missing rows)%n", "gaps", gaps, missingRows));
+        if (gaps > 0) {
+            StringBuilder lengths = new StringBuilder();
+            getGapHistogram().forEach((label, count) ->
+                    lengths.append(lengths.isEmpty() ? "" : ", ").append(label).append(": ").append(count));
+            sb.append(String.format("%-15s %s%n", "gap lengths", lengths));
+        }
+        sb.append(String.format("%-15s %d%n", "duplicates", duplicates));
+        sb.append(String.format("%-15s %d%n", "out of order", outOfOrder));
+        sb.append(String.format("%-15s %d%n", "irregular", irregularIntervals));
+        sb.append(String.format("%-15s %s%n", "output rows", expectedOutputRows < 0 ? "n/a" : expectedOutputRows));
+        sb.append(String.format("%-15s %8.1f ms%n", "scan", scanNanos / 1e6));
+        return sb.toString();
+    }
+
+    /** The main figures on a single line, e.g. for a status bar. */
+    public String compactSummary() {
+        return "step " + (step == null ? "n/a" : step)
+                + ", " + gaps + " gaps (" + missingRows + " rows)"
+                + ", " + duplicates + " duplicates"
+                + ", " + outOfOrder + " out of order"
+                + ", " + (expectedOutputRows < 0 ? "n/a" : expectedOutputRows) + " output rows";
+    }
+
+    /** Per-line state of one scan; intervals are counted in runs so a regular file barely touches the map. */
+    private static final class Scan implements TimestampScanner.LineSink {
+        private final GapProfile profile = new GapProfile();
+        private final Map<Long, Long> intervalCounts = new HashMap<>();
+
+        private long minSecond = Long.MAX_VALUE;
+        private int minNano;
+        private long maxSecond = Long.MIN_VALUE;
+        private int maxNano;
+
+        private long previousSecond;
+        private int previousNano;
+
+        private long runMillis = -1;
+        private long runLength;
+
+        @Override
+        public void line(long epochSecond, int nano, long lineOffset) {
+            if (profile.rows++ > 0) {
+                int order = Long.compare(epochSecond, previousSecond);
+                if (order == 0) order = Integer.compare(nano, previousNano);
+                if (order < 0) {
+                    profile.outOfOrder++;
+                } else if (order == 0) {
+                    profile.duplicates++;
+                } else {
+                    // whole milliseconds, as the step detection's Duration.toMillis gives them
+                    long seconds = epochSecond - previousSecond;
+                    int nanos = nano - previousNano;
+                    if (nanos < 0) {
+                        seconds--;
+                        nanos += 1_000_000_000;
+                    }
+                    long millis = seconds * 1000 + nanos / 1_000_000;
+                    if (millis > 0) interval(millis);
+                }
+            }
+            if (epochSecond < minSecond || (epochSecond == minSecond && nano < minNano)) {
+                minSecond = epochSecond;
+                minNano = nano;
+            }
+            if (epochSecond > maxSecond || (epochSecond == maxSecond && nano > maxNano)) {
+                maxSecond = epochSecond;
+                maxNano = nano;
+            }
+            previousSecond = epochSecond;
+            previousNano = nano;
+        }
+
+        private void interval(long millis) {
+            if (millis == runMillis) {
+                runLength++;
+                return;
+            }
+            flushRun();
+            runMillis = millis;
+            runLength = 1;
+        }
+
+        private void flushRun() {
+            if (runLength > 0) intervalCounts.merge(runMillis, runLength, Long::sum);
+            runLength = 0;
+        }
+
+        GapProfile finish() {
+            flushRun();
+            GapProfile p = profile;
+            if (p.rows > 0) {
+                p.first = Instant.ofEpochSecond(minSecond, minNano);
+                p.last = Instant.ofEpochSecond(maxSecond, maxNano);
+            }
+            if (intervalCounts.isEmpty()) {
+                p.expectedOutputRows = -1;
+                return p;
+            }
+
+            // most frequent interval, as TimeSeriesInterpolationService.detectStep picks it
+            long stepMillis = intervalCounts.entrySet().stream()
+                    .max(Map.Entry.comparingByValue())
+                    .get()
+                    .getKey();
+            p.step = Duration.ofMillis(stepMillis);
+
+            for (Map.Entry<Long, Long> e : intervalCounts.entrySet()) {
+                long millis = e.getKey();
+                long count = e.getValue();
+                if (millis % stepMillis != 0) {
+                    p.irregularIntervals += count;
+                } else if (millis > stepMillis) {
+                    long missing = millis / stepMillis - 1;
+                    p.gaps += count;
+                    p.missingRows += missing * count;
+                    int bucket = missing == 1 ? 0 : 64 - Long.numberOfLeadingZeros(missing - 1);
+                    p.gapHistogram[bucket] += count;
+                }
+            }
+            p.expectedOutputRows = Duration.between(p.first, p.last).dividedBy(p.step) + 1;
+            return p;
+        }
+    }
+}
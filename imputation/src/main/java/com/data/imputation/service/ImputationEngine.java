@@ -0,0 +1,524 @@
+package com.data.imputation.service;
+
+import com.data.imputation.metrics.JobMetrics;
+import com.data.imputation.metrics.PipelineStage;
+import com.data.imputation.model.Column;
+import com.data.imputation.model.ColumnStorage;
+import com.data.imputation.model.CsvTable;
+import com.data.imputation.model.DataRow;
+import com.data.imputation.model.ProcessingOptions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The repair pipeline over {@link Flow} streams, for callers that embed it without
+ * Spring and without files: CSV bytes in chunks of any size, or a header and rows,
+ * go in; repaired rows and then one {@link Stats} item come out.
+ *
+ * Demand flows back to the source: rows are requested {@link #REQUEST_BATCH} at a
+ * time and chunks one at a time, each only once the previous ones are taken in.
+ * Gap filling needs the whole series, so rows are held as a table (heap or, with
+ * {@code compressed}, packed) until the source completes; repair then runs on the
+ * engine's executor. Output is read off the repaired table only as the subscriber
+ * requests it, in drain tasks on the same executor that end when demand runs out,
+ * so a slow subscriber never holds a thread and a single-thread executor is enough.
+ *
+ * Each subscription to a returned publisher subscribes to the source once. CSV
+ * input is parsed as a file read parses it, column selection included. Delta
+ * output, windows and off-heap or snapshot storage are file features and are
+ * rejected, as is a column selection over rows that are already split.
+ */
+public class ImputationEngine {
+
+    static final int REQUEST_BATCH = 1024;
+
+    private final TimeSeriesInterpolationService interpolationService;
+    private final Executor executor;
+
+    /** Repairs on the common fork-join pool. */
+    public ImputationEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ImputationEngine(Executor executor) {
+        this.interpolationService = new TimeSeriesInterpolationService(new CsvService());
+        this.executor = executor;
+    }
+
+    /** Repairs CSV text arriving as UTF-8 byte chunks; the first line is the header. */
+    public Flow.Publisher<Output> repairCsv(Flow.Publisher<ByteBuffer> chunks, ProcessingOptions options) {
+        check(options);
+        // validated here rather than on the first chunk
+        ColumnSelection selection = options.getColumns().isEmpty()
+                ? null : new ColumnSelection(options.getColumns(), options.isPassThrough());
+        return subscriber -> {
+            Emitter out = new Emitter(subscriber);
+            subscriber.onSubscribe(out);
+            chunks.subscribe(new ChunkSubscriber(new Job(options, selection, out)));
+        };
+    }
+
+    /**
+     * Repairs rows of a table with {@code headers}, the timestamp column first; a row
+     * with fewer values than value columns is padded with blanks.
+     */
+    public Flow.Publisher<Output> repairRows(List<String> headers, Flow.Publisher<DataRow> rows,
+                                             ProcessingOptions options) {
+        check(options);
+        if (!options.getColumns().isEmpty()) {
+            throw new IllegalArgumentException("Column selection needs CSV input.");
+        }
+        if (headers.isEmpty()) throw new IllegalArgumentException("CSV header is empty.");
+        List<String> header = List.copyOf(headers);
+        return subscriber -> {
+            Emitter out = new Emitter(subscriber);
+            subscriber.onSubscribe(out);
+            Job job = new Job(options, null, out);
+            job.header(header);
+            rows.subscribe(new RowSubscriber(job));
+        };
+    }
+
+    private static void check(ProcessingOptions options) {
+        if (options.isDelta() || options.hasWindow() || options.isOffHeap() || options.isSnapshot()) {
+            throw new IllegalArgumentException("Delta output, windows and off-heap storage need an input file.");
+        }
+    }
+
+    /** An item of repaired output. */
+    public sealed interface Output permits Row, Stats {
+    }
+
+    /** One repaired row, in timestamp order. */
+    public record Row(DataRow row) implements Output {
+    }
+
+    /** The stats footer a file job would write, one summary per value column; the last item. */
+    public record Stats(List<String> headers, List<ColumnSummary> columns) implements Output {
+    }
+
+    /** Statistics of one column's numeric cells; NaN when it has none. */
+    public record ColumnSummary(double average, double median, double minimum, double maximum, double mode,
+                                boolean nonNumerical) {
+    }
+
+    /** One run: collects rows into a sorted table, then repairs it for the {@link Emitter}. */
+    private final class Job {
+        private final ProcessingOptions options;
+        private final ColumnSelection selection;
+        private final Emitter out;
+        private final JobMetrics metrics = new JobMetrics("stream", null);
+        private List<String> headers;
+        // set for CSV input, which is parsed as a file read parses it
+        private CsvService.LineFormat format;
+        private CsvService.TableBuilder builder;
+        private ExternalRowSorter sorter;
+        private Instant previous;
+
+        Job(ProcessingOptions options, ColumnSelection selection, Emitter out) {
+            this.options = options;
+            this.selection = selection;
+            this.out = out;
+        }
+
+        /** False once the subscriber has cancelled, so the source can be cancelled too. */
+        boolean wanted() {
+            return !out.cancelled;
+        }
+
+        void header(List<String> headers) {
+            this.headers = headers;
+            this.builder = newBuilder();
+        }
+
+        boolean hasHeader() {
+            return headers != null;
+        }
+
+        /** Takes a row; the first one that goes backwards hands everything so far to a sorter, as a file read does. */
+        void add(Instant timestamp, String[] values) throws IOException {
+            if (sorter != null) {
+                sorter.add(timestamp, values);
+                return;
+            }
+            if (previous != null && timestamp.isBefore(previous)) {
+                sorter = new ExternalRowSorter(width(), CsvService.DEFAULT_SORT_MEMORY_BYTES);
+                sorter.addSortedRun(builder.timestamps, builder.finishColumns());
+                builder = newBuilder();
+                sorter.add(timestamp, values);
+                return;
+            }
+            builder.add(timestamp, values);
+            previous = timestamp;
+        }
+
+        void add(DataRow row) throws IOException {
+            int columnCount = headers.size() - 1;
+            String[] values = new String[columnCount];
+            List<String> cells = row.getValues();
+            for (int c = 0; c < columnCount; c++) {
+                String cell = c < cells.size() ? cells.get(c) : null;
+                values[c] = cell == null ? "" : cell.trim();
+            }
+            add(row.getTimestamp(), values);
+        }
+
+        void line(String line) throws IOException {
+            if (line.isBlank()) return;
+            if (!hasHeader()) {
+                format = new CsvService.LineFormat(line, selection, "stream");
+                header(format.headers());
+                return;
+            }
+            String[] values = format.cells(line);
+            if (values != null) add(format.timestamp(), values);
+        }
+
+        /**
+         * Source completed: repair off the source's thread, then emit as requested;
+         * skipped once the subscriber has cancelled, as the source would have been.
+         */
+        void complete() {
+            if (!wanted()) {
+                closeSorter();
+                return;
+            }
+            executor.execute(() -> {
+                try {
+                    if (!wanted()) return;
+                    Outputs repaired = repair();
+                    if (wanted()) out.ready(repaired);
+                } catch (Exception e) {
+                    out.fail(e);
+                } finally {
+                    closeSorter();
+                }
+            });
+        }
+
+        void fail(Throwable error) {
+            closeSorter();
+            out.fail(error);
+        }
+
+        private Outputs repair() throws IOException {
+            if (!hasHeader()) throw new IllegalArgumentException("CSV input is empty.");
+            if (sorter != null) {
+                try (ExternalRowSorter s = sorter) {
+                    s.forEachSorted(builder::add);
+                }
+                sorter = null;
+            }
+            CsvTable table = format != null
+                    ? format.table(builder.timestamps, builder.finishColumns())
+                    : new CsvTable(new ArrayList<>(headers), builder.timestamps, builder.finishColumns());
+            return new Outputs(interpolationService.repair(table, options, metrics, null, null, null).table(), metrics);
+        }
+
+        private CsvService.TableBuilder newBuilder() {
+            ColumnStorage storage = options.isCompressed() ? ColumnStorage.COMPRESSED : null;
+            return format != null ? format.newBuilder(storage) : new CsvService.TableBuilder(width(), storage);
+        }
+
+        /** Cells per row as the builder takes them. */
+        private int width() {
+            return format != null ? format.width() : headers.size() - 1;
+        }
+
+        private void closeSorter() {
+            if (sorter == null) return;
+            try {
+                sorter.close();
+            } catch (IOException ignored) {
+                // only spill files are left behind
+            }
+            sorter = null;
+        }
+    }
+
+    /** The repaired table's rows, read one at a time, then its stats. */
+    private static final class Outputs {
+        private final CsvTable table;
+        private final JobMetrics metrics;
+        private int next;
+        private boolean statsTaken;
+
+        Outputs(CsvTable table, JobMetrics metrics) {
+            this.table = table;
+            this.metrics = metrics;
+        }
+
+        boolean hasNext() {
+            return !statsTaken;
+        }
+
+        Output next() {
+            List<Column> columns = table.getColumns();
+            int rowCount = table.getRowCount();
+            if (next < rowCount) {
+                String[] values = new String[columns.size()];
+                for (int c = 0; c < values.length; c++) values[c] = columns.get(c).get(next);
+                return new Row(new DataRow(table.getTimestamps().get(next++), Arrays.asList(values)));
+            }
+
+            statsTaken = true;
+            JobMetrics.StageTimer timer = metrics.startStage(PipelineStage.STATS);
+            List<ColumnSummary> summaries = new ArrayList<>(columns.size());
+            for (Column column : columns) {
+                ColumnStats stats = new ColumnStats(column, rowCount);
+                summaries.add(new ColumnSummary(stats.average, stats.median, stats.minimum, stats.maximum,
+                        stats.mode, stats.nonNumerical));
+            }
+            timer.stop(rowCount, 0);
+            return new Stats(table.getHeaders(), summaries);
+        }
+    }
+
+    /**
+     * The subscription handed to a subscriber. Requests, the repaired output and
+     * failures each schedule a drain on the executor; only one drain runs at a time,
+     * and it returns as soon as demand or output runs out instead of waiting.
+     */
+    private final class Emitter implements Flow.Subscription {
+        private final Flow.Subscriber<? super Output> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger drains = new AtomicInteger();
+        volatile boolean cancelled;
+        private volatile Outputs outputs;
+        private volatile Throwable error;
+        private boolean terminated;
+
+        Emitter(Flow.Subscriber<? super Output> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("Requested " + n + " items; demand must be positive."));
+                return;
+            }
+            requested.accumulateAndGet(n, (current, more) -> current + more < 0 ? Long.MAX_VALUE : current + more);
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        void ready(Outputs repaired) {
+            outputs = repaired;
+            schedule();
+        }
+
+        void fail(Throwable failure) {
+            if (error == null) error = failure;
+            schedule();
+        }
+
+        private void schedule() {
+            if (drains.getAndIncrement() == 0) executor.execute(this::drain);
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                if (!cancelled && !terminated) emit();
+                missed = drains.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emit() {
+            Outputs repaired = outputs;
+            if (error == null && repaired != null) {
+                while (repaired.hasNext() && requested.get() > 0 && !cancelled) {
+                    Output item;
+                    try {
+                        item = repaired.next();
+                    } catch (RuntimeException e) {
+                        error = e;
+                        break;
+                    }
+                    requested.decrementAndGet();
+                    if (!deliver(() -> subscriber.onNext(item))) return;
+                }
+            }
+            if (cancelled) return;
+            if (error != null) {
+                terminated = true;
+                deliver(() -> subscriber.onError(error));
+            } else if (repaired != null && !repaired.hasNext()) {
+                terminated = true;
+                deliver(subscriber::onComplete);
+            }
+        }
+
+        /** False if the subscriber threw, which is taken as a cancel. */
+        private boolean deliver(Runnable signal) {
+            try {
+                signal.run();
+                return true;
+            } catch (RuntimeException e) {
+                cancelled = true;
+                return false;
+            }
+        }
+    }
+
+    /** Pulls rows a batch at a time, asking for the next batch once this one is in. */
+    private static final class RowSubscriber implements Flow.Subscriber<DataRow> {
+        private final Job job;
+        private Flow.Subscription subscription;
+        private int pending;
+        private boolean done;
+
+        RowSubscriber(Job job) {
+            this.job = job;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            pending = REQUEST_BATCH;
+            subscription.request(REQUEST_BATCH);
+        }
+
+        @Override
+        public void onNext(DataRow row) {
+            if (done) return;
+            try {
+                job.add(row);
+            } catch (Exception e) {
+                abort(e);
+                return;
+            }
+            if (!job.wanted()) {
+                done = true;
+                subscription.cancel();
+            } else if (--pending == 0) {
+                pending = REQUEST_BATCH;
+                subscription.request(REQUEST_BATCH);
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            if (done) return;
+            done = true;
+            job.fail(error);
+        }
+
+        @Override
+        public void onComplete() {
+            if (done) return;
+            done = true;
+            job.complete();
+        }
+
+        private void abort(Exception e) {
+            done = true;
+            subscription.cancel();
+            job.fail(e);
+        }
+    }
+
+    /**
+     * Pulls byte chunks one at a time and cuts them into lines; a line split over
+     * chunks is carried to the next one. Lines are split on the newline byte, which
+     * never occurs inside a multi-byte UTF-8 character.
+     */
+    private static final class ChunkSubscriber implements Flow.Subscriber<ByteBuffer> {
+        private final Job job;
+        private byte[] line = new byte[256];
+        private int lineLength;
+        private Flow.Subscription subscription;
+        private boolean done;
+
+        ChunkSubscriber(Job job) {
+            this.job = job;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(ByteBuffer chunk) {
+            if (done) return;
+            try {
+                int limit = chunk.limit();
+                int start = chunk.position();
+                for (int i = start; i < limit; i++) {
+                    if (chunk.get(i) != '\n') continue;
+                    append(chunk, start, i);
+                    job.line(takeLine());
+                    start = i + 1;
+                }
+                append(chunk, start, limit);
+                chunk.position(limit);
+            } catch (Exception e) {
+                done = true;
+                subscription.cancel();
+                job.fail(e);
+                return;
+            }
+            if (!job.wanted()) {
+                done = true;
+                subscription.cancel();
+            } else {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            if (done) return;
+            done = true;
+            job.fail(error);
+        }
+
+        @Override
+        public void onComplete() {
+            if (done) return;
+            done = true;
+            try {
+                // a last line without a newline
+                if (lineLength > 0) job.line(takeLine());
+            } catch (Exception e) {
+                job.fail(e);
+                return;
+            }
+            job.complete();
+        }
+
+        private void append(ByteBuffer chunk, int from, int to) {
+            int n = to - from;
+            if (lineLength + n > line.length) {
+                line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + n));
+            }
+            chunk.get(from, line, lineLength, n);
+            lineLength += n;
+        }
+
+        private String takeLine() {
+            int end = lineLength;
+            if (end > 0 && line[end - 1] == '\r') end--;
+            lineLength = 0;
+            return new String(line, 0, end, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package com.data.imputation.service;
+
+import com.data.imputation.model.Column;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Progress of one job, kept in a sidecar next to the output so a crashed or
+ * cancelled run of the same file and options can pick up where it stopped.
+ *
+ * The sidecar is an append-only log. Its header holds the input's size and
+ * modification time and the options fingerprint; a mismatch discards the old
+ * records. Each record is a type byte, a payload length (written as -1 and
+ * patched once the payload is complete, so a record cut short by a crash is
+ * dropped on the next open) and the payload:
+ *
+ * <ul>
+ *   <li>PARSED_CHUNK: input lines consumed so far, then the chunk's rows
+ *       (epochSecond, nano, cells as UTF-8 length and bytes)</li>
+ *   <li>INTERPOLATED_BATCH: first column of a batch, then every filled cell as
+ *       (column offset, row, value), ended by column offset -1</li>
+ *   <li>OUTPUT_PROGRESS / OUTPUT_ROWS_DONE: rows written and output bytes at
+ *       that point</li>
+ * </ul>
+ *
+ * Records are written to the OS but not forced to disk: this survives the
+ * process dying, not the machine losing power. Once a record has been added on
+ * a thread that was interrupted (e.g. the UI's cancel), the job stops with an
+ * {@link InterruptedIOException} so the next run starts from that point.
+ */
+public class JobCheckpoint implements Closeable {
+
+    /** Rows between parse and write checkpoints. */
+    public static final int CHUNK_ROWS = 65_536;
+
+    private static final long MAGIC = 0x494D50434B505431L; // "IMPCKPT1"
+    private static final int VERSION = 2;
+
+    private static final byte PARSED_CHUNK = 1;
+    private static final byte INTERPOLATED_BATCH = 2;
+    private static final byte OUTPUT_PROGRESS = 3;
+    private static final byte OUTPUT_ROWS_DONE = 4;
+
+    private static final int IO_BUFFER_BYTES = 64 * 1024;
+
+    private final Path sidecar;
+    private final RandomAccessFile file;
+    private final DataOutputStream out;
+
+    // restored state
+    private final List<Long> chunkOffsets = new ArrayList<>();
+    private long parsedLines;
+    private final Map<Integer, Long> batchOffsets = new HashMap<>();
+    private long rowsWritten;
+    private long outputBytes;
+    private boolean rowsDone;
+    private boolean resumed;
+
+    private long recordLengthPos = -1;
+
+    private JobCheckpoint(Path sidecar, RandomAccessFile file) {
+        this.sidecar = sidecar;
+        this.file = file;
+        // shares the file descriptor, so it writes at the RandomAccessFile's position
+        try {
+            this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file.getFD()), IO_BUFFER_BYTES));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** The sidecar used for a job writing {@code outputPath}. */
+    public static Path sidecarFor(Path outputPath) {
+        return outputPath.resolveSibling(outputPath.getFileName() + ".ckpt");
+    }
+
+    /**
+     * Opens the sidecar, keeping its records if they were made for the same input
+     * and options and starting a fresh log otherwise.
+     */
+    public static JobCheckpoint open(Path sidecar, Path input, String optionsFingerprint) throws IOException {
+        long inputSize = Files.size(input);
+        long inputMtime = Files.getLastModifiedTime(input).toMillis();
+
+        RandomAccessFile raf = new RandomAccessFile(sidecar.toFile(), "rw");
+        JobCheckpoint checkpoint = new JobCheckpoint(sidecar, raf);
+        try {
+            if (!checkpoint.load(inputSize, inputMtime, optionsFingerprint)) {
+                checkpoint.reset();
+                raf.setLength(0);
+                raf.seek(0);
+                checkpoint.out.writeLong(MAGIC);
+                checkpoint.out.writeInt(VERSION);
+                checkpoint.out.writeLong(inputSize);
+                checkpoint.out.writeLong(inputMtime);
+                checkpoint.out.writeUTF(optionsFingerprint);
+                checkpoint.out.flush();
+            }
+        } catch (IOException | RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+        return checkpoint;
+    }
+
+    /** True if earlier progress was found. */
+    public boolean isResumed() {
+        return resumed;
+    }
+
+    public Path getSidecar() {
+        return sidecar;
+    }
+
+    // ---------- parse ----------
+
+    /** Input lines after the header that the recorded chunks cover. */
+    public long getParsedLines() {
+        return parsedLines;
+    }
+
+    /** Feeds the recorded rows, in input order, to {@code sink}. */
+    public void replayParsedRows(int columnCount, ExternalRowSorter.RowSink sink) throws IOException {
+        for (long offset : chunkOffsets) {
+            try (DataInputStream in = openAt(offset)) {
+                in.readLong(); // lines consumed
+                int rows = in.readInt();
+                for (int r = 0; r < rows; r++) {
+                    Instant timestamp = Instant.ofEpochSecond(in.readLong(), in.readInt());
+                    String[] values = new String[columnCount];
+                    for (int c = 0; c < columnCount; c++) {
+                        values[c] = ExternalRowSorter.readCell(in);
+                    }
+                    sink.accept(timestamp, values);
+                }
+            }
+        }
+    }
+
+    /** Records rows parsed since the previous chunk; {@code linesConsumed} counts from the header. */
+    public void parsedChunk(long linesConsumed, List<Instant> timestamps, List<String[]> rows) throws IOException {
+        if (rows.isEmpty()) return;
+        long offset = beginRecord(PARSED_CHUNK);
+        out.writeLong(linesConsumed);
+        out.writeInt(rows.size());
+        for (int r = 0; r < rows.size(); r++) {
+            Instant timestamp = timestamps.get(r);
+            out.writeLong(timestamp.getEpochSecond());
+            out.writeInt(timestamp.getNano());
+            for (String v : rows.get(r)) {
+                ExternalRowSorter.writeCell(out, v);
+            }
+        }
+        endRecord();
+        chunkOffsets.add(offset);
+        parsedLines = linesConsumed;
+        stopIfCancelled();
+    }
+
+    // ---------- interpolation ----------
+
+    public boolean isBatchInterpolated(int firstColumn) {
+        return batchOffsets.containsKey(firstColumn);
+    }
+
+    /**
+     * Writes the recorded cells of a batch back into {@code columns}, also passing
+     * them to {@code sink} if given; returns how many.
+     */
+    long restoreBatch(int firstColumn, List<Column> columns, FilledCellSink sink) throws IOException {
+        long restored = 0;
+        try (DataInputStream in = openAt(batchOffsets.get(firstColumn))) {
+            in.readInt(); // first column
+            int c;
+            while ((c = in.readInt()) >= 0) {
+                int row = in.readInt();
+                String value = in.readUTF();
+                columns.get(firstColumn + c).set(row, value);
+                if (sink != null) sink.filled(firstColumn + c, row, value);
+                restored++;
+            }
+        }
+        return restored;
+    }
+
+    /** Collects the cells filled in one column batch; {@link BatchRecorder#finish} adds the record. */
+    public BatchRecorder startBatch(int firstColumn) throws IOException {
+        long offset = beginRecord(INTERPOLATED_BATCH);
+        out.writeInt(firstColumn);
+        return new BatchRecorder(firstColumn, offset);
+    }
+
+    public class BatchRecorder implements FilledCellSink {
+        private final int firstColumn;
+        private final long offset;
+
+        private BatchRecorder(int firstColumn, long offset) {
+            this.firstColumn = firstColumn;
+            this.offset = offset;
+        }
+
+        @Override
+        public void filled(int column, int row, String value) throws IOException {
+            out.writeInt(column - firstColumn);
+            out.writeInt(row);
+            out.writeUTF(value);
+        }
+
+        public void finish() throws IOException {
+            out.writeInt(-1);
+            endRecord();
+            batchOffsets.put(firstColumn, offset);
+            stopIfCancelled();
+        }
+    }
+
+    // ---------- output ----------
+
+    /** Data rows already in the output file, or 0. */
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /** Output size matching {@link #getRowsWritten()}. */
+    public long getOutputBytes() {
+        return outputBytes;
+    }
+
+    /** True once every data row was written; only the stats footer is left. */
+    public boolean isRowsDone() {
+        return rowsDone;
+    }
+
+    public void outputProgress(long rows, long bytes) throws IOException {
+        beginRecord(OUTPUT_PROGRESS);
+        out.writeLong(rows);
+        out.writeLong(bytes);
+        endRecord();
+        rowsWritten = rows;
+        outputBytes = bytes;
+        stopIfCancelled();
+    }
+
+    public void outputRowsDone(long rows, long bytes) throws IOException {
+        beginRecord(OUTPUT_ROWS_DONE);
+        out.writeLong(rows);
+        out.writeLong(bytes);
+        endRecord();
+        rowsWritten = rows;
+        outputBytes = bytes;
+        rowsDone = true;
+        stopIfCancelled();
+    }
+
+    // ---------- lifecycle ----------
+
+    /** The job finished: the sidecar is no longer needed. */
+    public void complete() throws IOException {
+        close();
+        Files.deleteIfExists(sidecar);
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    // ---------- records ----------
+
+    private void reset() {
+        chunkOffsets.clear();
+        parsedLines = 0;
+        batchOffsets.clear();
+        rowsWritten = 0;
+        outputBytes = 0;
+        rowsDone = false;
+        resumed = false;
+    }
+
+    /** Starts a record and returns where its payload begins. */
+    private long beginRecord(byte type) throws IOException {
+        out.flush();
+        long start = file.getFilePointer();
+        out.writeByte(type);
+        out.writeLong(-1);
+        recordLengthPos = start + 1;
+        return recordLengthPos + Long.BYTES;
+    }
+
+    private void endRecord() throws IOException {
+        out.flush();
+        long end = file.getFilePointer();
+        long payloadLength = end - recordLengthPos - Long.BYTES;
+        file.seek(recordLengthPos);
+        file.writeLong(payloadLength);
+        file.seek(end);
+        recordLengthPos = -1;
+    }
+
+    private void stopIfCancelled() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Job cancelled; progress kept in " + sidecar.getFileName());
+        }
+    }
+
+    /** Reads the header and indexes complete records; false if the sidecar is new or stale. */
+    private boolean load(long inputSize, long inputMtime, String optionsFingerprint) throws IOException {
+        long length = file.length();
+        if (length == 0) return false;
+
+        long validEnd;
+        try (DataInputStream in = openAt(0)) {
+            if (in.readLong() != MAGIC || in.readInt() != VERSION
+                    || in.readLong() != inputSize || in.readLong() != inputMtime
+                    || !in.readUTF().equals(optionsFingerprint)) {
+                return false;
+            }
+            validEnd = Long.BYTES + Integer.BYTES + 2L * Long.BYTES + 2 + utfLength(optionsFingerprint);
+
+            while (validEnd + 1 + Long.BYTES <= length) {
+                long recordStart = validEnd;
+                byte type = in.readByte();
+                long payloadLength = in.readLong();
+                long payloadStart = recordStart + 1 + Long.BYTES;
+                if (payloadLength < 0 || payloadStart + payloadLength > length) break;
+
+                switch (type) {
+                    case PARSED_CHUNK -> {
+                        chunkOffsets.add(payloadStart);
+                        parsedLines = in.readLong();
+                        skipFully(in, payloadLength - Long.BYTES);
+                    }
+                    case INTERPOLATED_BATCH -> {
+                        batchOffsets.put(in.readInt(), payloadStart);
+                        skipFully(in, payloadLength - Integer.BYTES);
+                    }
+                    case OUTPUT_PROGRESS, OUTPUT_ROWS_DONE -> {
+                        rowsWritten = in.readLong();
+                        outputBytes = in.readLong();
+                        rowsDone = type == OUTPUT_ROWS_DONE;
+                    }
+                    default -> throw new IOException("Unknown checkpoint record " + type + " in " + sidecar);
+                }
+                validEnd = payloadStart + payloadLength;
+            }
+        } catch (EOFException e) {
+            return false;
+        }
+
+        // drop a record cut short by a crash
+        file.setLength(validEnd);
+        file.seek(validEnd);
+        resumed = !chunkOffsets.isEmpty() || !batchOffsets.isEmpty() || rowsWritten > 0;
+        return true;
+    }
+
+    private DataInputStream openAt(long offset) throws IOException {
+        // separate descriptor so reads don't move the append position; plain
+        // RandomAccessFile reads (unlike channels) still work on an interrupted thread
+        RandomAccessFile reader = new RandomAccessFile(sidecar.toFile(), "r");
+        reader.seek(offset);
+        InputStream raw = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                return reader.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return reader.read(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+        return new DataInputStream(new BufferedInputStream(raw, IO_BUFFER_BYTES));
+    }
+
+    private static void skipFully(DataInputStream in, long n) throws IOException {
+        while (n > 0) {
+            long skipped = in.skip(n);
+            if (skipped <= 0) throw new EOFException();
+            n -= skipped;
+        }
+    }
+
+    private static int utfLength(String s) {
+        int n = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            n += (c >= 0x0001 && c <= 0x007F) ? 1 : (c > 0x07FF ? 3 : 2);
+        }
+        return n;
+    }
+}
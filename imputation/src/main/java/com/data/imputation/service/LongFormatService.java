@@ -0,0 +1,474 @@
+package com.data.imputation.service;
+
+import com.data.imputation.metrics.JobMetrics;
+import com.data.imputation.metrics.PipelineStage;
+import com.data.imputation.model.Column;
+import com.data.imputation.model.CsvTable;
+import com.data.imputation.model.DoubleFormat;
+import com.data.imputation.model.OffHeapStore;
+import com.data.imputation.model.ProcessingOptions;
+import com.data.imputation.model.TextColumn;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.IntStream;
+
+/**
+ * Long-format input, {@code series_id,timestamp,value[,value...]}, with many series
+ * interleaved in one file.
+ *
+ * Rows are grouped by series while reading; a series holds at most
+ * {@link #SERIES_BUFFER_ROWS} rows in memory before they are appended to its own
+ * spill file. Each series is then repaired on its own (step detection, gap filling,
+ * interpolation) on a pool sized to the cores. A worker only loads a series onto the
+ * heap once it holds that many rows' worth of a shared memory budget. A series too
+ * large for the whole budget is streamed into memory-mapped storage instead and holds
+ * only {@link #OFF_HEAP_ROWS} rows' worth, so it neither exhausts the heap nor keeps
+ * the smaller series queued behind it waiting. Output keeps the input layout, one
+ * series after another in order of first appearance, followed by a stats line per
+ * series and value column.
+ */
+@Service
+public class LongFormatService {
+
+    static final int SERIES_BUFFER_ROWS = 65_536;
+
+    // budget share of a series repaired off-heap: what it sorts on the heap at a time
+    static final int OFF_HEAP_ROWS = SERIES_BUFFER_ROWS / 8;
+
+    private static final String STATS_HEADER =
+            "Stats,series_id,column,step,rows,imputed,Average,Median,Minimum,Maximum,Mode,NonNumericalDetected";
+
+    private final TimeSeriesInterpolationService interpolationService;
+    private final int parallelism;
+    private final long memoryBudgetBytes;
+
+    public LongFormatService(TimeSeriesInterpolationService interpolationService) {
+        this(interpolationService, Runtime.getRuntime().availableProcessors(),
+                Runtime.getRuntime().maxMemory() / 2);
+    }
+
+    LongFormatService(TimeSeriesInterpolationService interpolationService, int parallelism, long memoryBudgetBytes) {
+        this.interpolationService = interpolationService;
+        this.parallelism = Math.max(1, parallelism);
+        this.memoryBudgetBytes = memoryBudgetBytes;
+    }
+
+    /** True when the header starts with a series id column ({@code series_id} or {@code series}). */
+    public static boolean isLongFormat(Path path) throws IOException {
+        try (BufferedReader br = Files.newBufferedReader(path)) {
+            String headerLine = br.readLine();
+            if (headerLine == null) return false;
+            String first = headerLine.split(",", 2)[0].trim();
+            return first.equalsIgnoreCase("series_id") || first.equalsIgnoreCase("series");
+        }
+    }
+
+    public Path processFile(Path inputPath, ProcessingOptions options, JobMetrics metrics) throws IOException {
+        if (options.getResampleInterval() != null || options.isDelta() || !options.getColumns().isEmpty()
+                || options.hasWindow()) {
+            throw new IllegalArgumentException(
+                    "Long-format input supports neither resampling, delta output, column selection nor a time window.");
+        }
+        Path outputPath = TimeSeriesInterpolationService.outputPathFor(inputPath, options);
+        Path workDir = Files.createTempDirectory("long-format-");
+        try {
+            return run(inputPath, outputPath, workDir, metrics);
+        } finally {
+            deleteRecursively(workDir);
+        }
+    }
+
+    private Path run(Path inputPath, Path outputPath, Path workDir, JobMetrics metrics) throws IOException {
+        // ---------- group ----------
+        JobMetrics.StageTimer timer = metrics.startStage(PipelineStage.PARSE);
+        String headerLine;
+        int columnCount;
+        Map<String, SeriesBuffer> series = new LinkedHashMap<>();
+        long rowsIn = 0;
+        long buffered = 0;
+        long maxBuffered = 0;
+
+        try (BufferedReader br = Files.newBufferedReader(inputPath)) {
+            headerLine = br.readLine();
+            if (headerLine == null) {
+                throw new IllegalArgumentException("CSV file is empty: " + inputPath);
+            }
+            columnCount = headerLine.split(",").length - 2;
+            if (columnCount < 1) {
+                throw new IllegalArgumentException("Expected series_id,timestamp,value[,...], got " + headerLine);
+            }
+            maxBuffered = Math.max(SERIES_BUFFER_ROWS, memoryBudgetBytes / rowBytes(columnCount));
+
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.isBlank()) continue;
+                String[] parts = line.split(",", -1);
+                if (parts.length < 2) continue;
+
+                String id = parts[0].trim();
+                SeriesBuffer buffer = series.get(id);
+                if (buffer == null) {
+                    buffer = new SeriesBuffer(id, workDir.resolve("series-" + series.size()), columnCount);
+                    series.put(id, buffer);
+                }
+                buffer.add(Instant.parse(parts[1].trim()), CsvService.cellValues(parts, 2, columnCount));
+                rowsIn++;
+                buffered++;
+
+                // a series spills once it fills its own buffer; when all of them together
+                // pass the budget the largest ones spill until half of it is free again
+                if (buffer.bufferedRows() == SERIES_BUFFER_ROWS) {
+                    buffered -= buffer.spill();
+                } else if (buffered > maxBuffered) {
+                    buffered -= spillLargest(series.values(), buffered - maxBuffered / 2);
+                }
+            }
+        }
+        long bytesRead = Files.size(inputPath);
+        timer.stop(rowsIn, bytesRead);
+        metrics.rowsIn(rowsIn);
+        metrics.bytesRead(bytesRead);
+        metrics.columns(columnCount);
+
+        // ---------- repair each series ----------
+        String[] headers = headerLine.split(",");
+        List<String> tableHeaders = new ArrayList<>(Arrays.asList(headers).subList(1, headers.length));
+
+        timer = metrics.startStage(PipelineStage.INTERPOLATE);
+        List<SeriesResult> results = repairAll(new ArrayList<>(series.values()), tableHeaders, workDir);
+        long rowsOut = 0;
+        long imputed = 0;
+        int offHeap = 0;
+        for (SeriesResult result : results) {
+            rowsOut += result.rows;
+            imputed += Arrays.stream(result.imputed).sum();
+            if (result.offHeap) offHeap++;
+        }
+        timer.stop(rowsOut, 0);
+        metrics.cellsImputed(imputed);
+        if (offHeap > 0) {
+            metrics.storage(offHeap + " of " + results.size() + " series off-heap");
+        }
+
+        // ---------- write ----------
+        timer = metrics.startStage(PipelineStage.WRITE);
+        try (OutputStream out = Files.newOutputStream(outputPath)) {
+            out.write((headerLine + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+            for (SeriesResult result : results) {
+                Files.copy(result.output, out);
+                Files.delete(result.output);
+            }
+            BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            bw.write(STATS_HEADER);
+            bw.newLine();
+            for (SeriesResult result : results) {
+                for (String statsLine : result.statsLines) {
+                    bw.write(statsLine);
+                    bw.newLine();
+                }
+            }
+            bw.flush();
+        }
+        long bytesWritten = Files.size(outputPath);
+        timer.stop(rowsOut, bytesWritten);
+        metrics.rowsOut(rowsOut);
+        metrics.bytesWritten(bytesWritten);
+        return outputPath;
+    }
+
+    /** Repairs every series on the pool, returning results in series order. */
+    private List<SeriesResult> repairAll(List<SeriesBuffer> buffers, List<String> headers, Path workDir)
+            throws IOException {
+        int budgetRows = (int) Math.max(SERIES_BUFFER_ROWS,
+                Math.min(Integer.MAX_VALUE, memoryBudgetBytes / rowBytes(headers.size() - 1)));
+        // fair, so a large series first in line is not overtaken forever by small ones
+        Semaphore memory = new Semaphore(budgetRows, true);
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, buffers.size())));
+        try {
+            List<Future<SeriesResult>> futures = new ArrayList<>(buffers.size());
+            for (SeriesBuffer buffer : buffers) {
+                futures.add(pool.submit(() -> {
+                    // the estimate covers the series and its gap-filled copy
+                    boolean offHeap = 2L * buffer.rowCount > budgetRows;
+                    int permits = offHeap ? OFF_HEAP_ROWS : (int) (2L * buffer.rowCount);
+                    memory.acquire(permits);
+                    try {
+                        return repair(buffer, headers, workDir, offHeap);
+                    } finally {
+                        memory.release(permits);
+                    }
+                }));
+            }
+
+            List<SeriesResult> results = new ArrayList<>(futures.size());
+            for (Future<SeriesResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while repairing series");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IOException(cause);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private SeriesResult repair(SeriesBuffer buffer, List<String> headers, Path workDir, boolean offHeap)
+            throws IOException {
+        if (!offHeap) {
+            CsvTable table = buffer.load(headers);
+            buffer.release();
+            return repair(buffer, table, headers, workDir, false);
+        }
+        // the tables built on the store are only valid until it closes
+        try (OffHeapStore store = OffHeapStore.create()) {
+            CsvTable table = buffer.loadOffHeap(headers, store, OFF_HEAP_ROWS * rowBytes(headers.size() - 1));
+            buffer.release();
+            return repair(buffer, table, headers, workDir, true);
+        }
+    }
+
+    private SeriesResult repair(SeriesBuffer buffer, CsvTable table, List<String> headers, Path workDir,
+                                boolean offHeap) throws IOException {
+        long[] imputed = new long[headers.size() - 1];
+        List<Instant> timestamps = table.getTimestamps();
+        String step = "";
+        if (!timestamps.get(0).equals(timestamps.get(timestamps.size() - 1))) {
+            table = interpolationService.repair(table, buffer.id, (column, row, value) -> imputed[column]++);
+            timestamps = table.getTimestamps();
+            step = timestamps.size() > 1 ? Duration.between(timestamps.get(0), timestamps.get(1)).toString() : "";
+        }
+        // a series with a single timestamp has no step and passes through as read
+
+        List<Column> columns = table.getColumns();
+        int rowCount = table.getRowCount();
+        Path output = workDir.resolve("out-" + buffer.file.getFileName());
+        try (BufferedWriter bw = Files.newBufferedWriter(output)) {
+            for (int r = 0; r < rowCount; r++) {
+                bw.write(buffer.id);
+                bw.write(',');
+                bw.write(timestamps.get(r).toString());
+                for (Column column : columns) {
+                    bw.write(',');
+                    bw.write(column.get(r));
+                }
+                bw.newLine();
+            }
+        }
+
+        List<String> statsLines = new ArrayList<>(columns.size());
+        for (int c = 0; c < columns.size(); c++) {
+            ColumnStats stats = new ColumnStats(columns.get(c), rowCount);
+            statsLines.add(String.join(",",
+                    "Stats", buffer.id, headers.get(c + 1), step,
+                    Integer.toString(rowCount), Long.toString(imputed[c]),
+                    DoubleFormat.toString(stats.average), DoubleFormat.toString(stats.median),
+                    DoubleFormat.toString(stats.minimum), DoubleFormat.toString(stats.maximum),
+                    DoubleFormat.toString(stats.mode), stats.nonNumerical ? "1" : "0"));
+        }
+        return new SeriesResult(output, rowCount, imputed, statsLines, offHeap);
+    }
+
+    /** Spills the series holding the most rows until at least {@code rows} rows are freed. */
+    private static long spillLargest(Collection<SeriesBuffer> buffers, long rows) throws IOException {
+        List<SeriesBuffer> bySize = new ArrayList<>(buffers);
+        bySize.sort(Comparator.comparingInt(SeriesBuffer::bufferedRows).reversed());
+        long freed = 0;
+        for (SeriesBuffer buffer : bySize) {
+            if (freed >= rows || buffer.bufferedRows() == 0) break;
+            freed += buffer.spill();
+        }
+        return freed;
+    }
+
+    /** Rough heap cost of one buffered row: timestamp, array and cell strings. */
+    private static long rowBytes(int columnCount) {
+        return 128 + 64L * columnCount;
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (var paths = Files.walk(dir)) {
+            for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    /** One series' rows while grouping: a bounded in-memory tail over an append-only spill file. */
+    private static class SeriesBuffer {
+        final String id;
+        final Path file;
+        private final int columnCount;
+        private List<Instant> timestamps = new ArrayList<>();
+        private List<String[]> rows = new ArrayList<>();
+        private int spilledRows;
+        int rowCount;
+        private boolean sorted = true;
+        private Instant last;
+
+        SeriesBuffer(String id, Path file, int columnCount) {
+            this.id = id;
+            this.file = file;
+            this.columnCount = columnCount;
+        }
+
+        void add(Instant timestamp, String[] values) throws IOException {
+            if (last != null && timestamp.isBefore(last)) sorted = false;
+            last = timestamp;
+            timestamps.add(timestamp);
+            rows.add(values);
+            rowCount++;
+        }
+
+        int bufferedRows() {
+            return rows.size();
+        }
+
+        /** Appends the buffered rows to the spill file and returns how many there were. */
+        int spill() throws IOException {
+            int count = rows.size();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024))) {
+                for (int r = 0; r < rows.size(); r++) {
+                    Instant t = timestamps.get(r);
+                    out.writeLong(t.getEpochSecond());
+                    out.writeInt(t.getNano());
+                    for (String v : rows.get(r)) out.writeUTF(v);
+                }
+            }
+            spilledRows += count;
+            timestamps.clear();
+            rows.clear();
+            return count;
+        }
+
+        /** Every row in input order: the spill file, then the in-memory tail. */
+        void forEachRow(ExternalRowSorter.RowSink sink) throws IOException {
+            if (spilledRows > 0) {
+                try (DataInputStream in = new DataInputStream(
+                        new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+                    for (int r = 0; r < spilledRows; r++) {
+                        Instant timestamp = Instant.ofEpochSecond(in.readLong(), in.readInt());
+                        String[] values = new String[columnCount];
+                        for (int c = 0; c < columnCount; c++) values[c] = in.readUTF();
+                        sink.accept(timestamp, values);
+                    }
+                }
+            }
+            for (int r = 0; r < rows.size(); r++) {
+                sink.accept(timestamps.get(r), rows.get(r));
+            }
+        }
+
+        /**
+         * As {@link #load}, streamed into {@code store} without collecting the rows first;
+         * out-of-order rows go through an external sort within {@code sortBudgetBytes}.
+         */
+        CsvTable loadOffHeap(List<String> headers, OffHeapStore store, long sortBudgetBytes) throws IOException {
+            CsvService.TableBuilder builder = new CsvService.TableBuilder(columnCount, store);
+            if (sorted) {
+                forEachRow(builder::add);
+            } else {
+                // stable like the heap path: later duplicates stay after earlier ones
+                try (ExternalRowSorter sorter = new ExternalRowSorter(columnCount, sortBudgetBytes)) {
+                    forEachRow(sorter::add);
+                    sorter.forEachSorted(builder::add);
+                }
+            }
+            return new CsvTable(headers, builder.timestamps, builder.finishColumns());
+        }
+
+        /** The series in timestamp order; later duplicates stay after earlier ones. */
+        CsvTable load(List<String> headers) throws IOException {
+            List<Instant> allTimestamps = new ArrayList<>(rowCount);
+            List<String[]> allRows = new ArrayList<>(rowCount);
+            if (spilledRows > 0) {
+                try (DataInputStream in = new DataInputStream(
+                        new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+                    for (int r = 0; r < spilledRows; r++) {
+                        allTimestamps.add(Instant.ofEpochSecond(in.readLong(), in.readInt()));
+                        String[] values = new String[columnCount];
+                        for (int c = 0; c < columnCount; c++) values[c] = in.readUTF();
+                        allRows.add(values);
+                    }
+                }
+            }
+            allTimestamps.addAll(timestamps);
+            allRows.addAll(rows);
+
+            int[] order = IntStream.range(0, rowCount).toArray();
+            if (!sorted) {
+                // boxed stable sort keeps duplicates in input order
+                order = IntStream.range(0, rowCount).boxed()
+                        .sorted(Comparator.comparing(allTimestamps::get))
+                        .mapToInt(Integer::intValue).toArray();
+            }
+
+            List<Instant> sortedTimestamps = new ArrayList<>(rowCount);
+            List<Column> columns = new ArrayList<>(columnCount);
+            for (int c = 0; c < columnCount; c++) columns.add(new TextColumn(rowCount));
+            for (int r : order) {
+                sortedTimestamps.add(allTimestamps.get(r));
+                String[] values = allRows.get(r);
+                for (int c = 0; c < columnCount; c++) columns.get(c).add(values[c]);
+            }
+            return new CsvTable(headers, sortedTimestamps, columns);
+        }
+
+        /** Drops the in-memory rows once loaded. */
+        void release() {
+            timestamps = List.of();
+            rows = List.of();
+        }
+    }
+
+    private static class SeriesResult {
+        final Path output;
+        final int rows;
+        final long[] imputed;
+        final List<String> statsLines;
+        final boolean offHeap;
+
+        SeriesResult(Path output, int rows, long[] imputed, List<String> statsLines, boolean offHeap) {
+            this.output = output;
+            this.rows = rows;
+            this.imputed = imputed;
+            this.statsLines = statsLines;
+            this.offHeap = offHeap;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.data.imputation.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admission step in front of a single-file job: estimates the heap the job will
+ * peak at in each storage mode and picks the fastest mode that fits in the heap
+ * still available to it, so a large input degrades to compressed or off-heap
+ * storage instead of failing with an OutOfMemoryError halfway through. What is
+ * available is up to the caller, e.g. the maximum heap less what running jobs were
+ * promised; the heap's current free memory is not used, since it counts garbage
+ * as in use and changes with every collection.
+ *
+ * The estimate reads only the first {@link #SAMPLE_ROWS} rows and the last line:
+ * the sample gives the column count, the mean cell length, which columns hold
+ * keywords and the step; the file size over the sampled bytes per row gives the
+ * row count, and the first and last timestamps over the step give the rows of
+ * the filled grid. A job over some of the columns is estimated for those, plus
+ * the raw lines it keeps with pass-through, and a job over a time window for
+ * its share of the rows.
+ */
+public final class MemoryAdmission {
+
+    /** Where a job keeps its table, fastest first. */
+    public enum Storage {
+        HEAP("heap"),
+        COMPRESSED("compressed"),
+        OFF_HEAP("off-heap");
+
+        private final String label;
+
+        Storage(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    static final int SAMPLE_ROWS = 1000;
+
+    // share of the available heap a plan may take; the rest absorbs estimation error and garbage
+    private static final double HEADROOM = 0.75;
+    // parser, writer buffers and per-column objects, whatever the storage
+    private static final long BASE_BYTES = 16L << 20;
+
+    // an Instant and its reference in a list
+    private static final long HEAP_BYTES_PER_TIMESTAMP = 32;
+    // a String, its byte[] and its reference, before the characters themselves
+    private static final long HEAP_BYTES_PER_CELL = 48;
+    // a filled cell becomes a new String of a printed double
+    private static final long HEAP_BYTES_PER_FILLED_CELL = 56;
+    // block-encoded timestamps and values, with room for blocks that do not pack well
+    private static final long COMPRESSED_BYTES_PER_TIMESTAMP = 2;
+    private static final long COMPRESSED_BYTES_PER_CELL = 8;
+    // dictionary-encoded keyword columns stay on the heap in every mode
+    private static final long DICTIONARY_BYTES_PER_CELL = 2;
+    // start and length of a raw line, kept on the heap even when its bytes are mapped
+    private static final long RAW_LINE_INDEX_BYTES = 12;
+
+    private static final int TAIL_BYTES = 64 * 1024;
+
+    private MemoryAdmission() {
+    }
+
+    /** The plan for {@code input} against {@code availableBytes} of heap. */
+    public static Plan plan(Path input, long availableBytes) throws IOException {
+        return plan(Estimate.of(input), availableBytes);
+    }
+
+    /**
+     * The plan for a job over {@code input} that parses the columns of
+     * {@code selection} (all when null) and keeps {@code rowShare} of the rows.
+     */
+    public static Plan plan(Path input, ColumnSelection selection, double rowShare, long availableBytes)
+            throws IOException {
+        return plan(Estimate.of(input, selection).window(rowShare), availableBytes);
+    }
+
+    /** The fastest storage whose peak fits {@code availableBytes}; off-heap, not fitting, if none does. */
+    public static Plan plan(Estimate estimate, long availableBytes) {
+        long allowed = (long) (availableBytes * HEADROOM);
+        for (Storage storage : Storage.values()) {
+            long peak = estimate.peakBytes(storage);
+            if (peak <= allowed) return new Plan(storage, peak, availableBytes, true);
+        }
+        return new Plan(Storage.OFF_HEAP, estimate.peakBytes(Storage.OFF_HEAP), availableBytes, false);
+    }
+
+    /**
+     * The storage picked for a job and its estimated peak heap. A plan that does not
+     * fit is still off-heap, the mode with the smallest heap, and should wait for
+     * other jobs to free memory first.
+     */
+    public record Plan(Storage storage, long estimatedBytes, long availableBytes, boolean fits) {
+
+        /** E.g. "off-heap (needs ~1200 MB of 900 MB free)", free meaning not promised to other jobs. */
+        public String describe() {
+            return storage.label() + " (needs ~" + (estimatedBytes >> 20) + " MB of "
+                    + (availableBytes >> 20) + " MB free)";
+        }
+    }
+
+    /**
+     * What a sample of an input says about the table a job will build from it;
+     * {@code rawLineBytes} is the mean length of the raw lines kept for pass-through
+     * columns, 0 when there are none.
+     */
+    public record Estimate(long rows, long gridRows, int columns, int keywordColumns, double meanCellBytes,
+                           double rawLineBytes) {
+
+        public Estimate(long rows, long gridRows, int columns, int keywordColumns, double meanCellBytes) {
+            this(rows, gridRows, columns, keywordColumns, meanCellBytes, 0);
+        }
+
+        /** Samples {@code input}; a file too short to show a step is taken to need no filling. */
+        public static Estimate of(Path input) throws IOException {
+            return of(input, null);
+        }
+
+        /** As {@link #of(Path)}, for a job that parses only the columns of {@code selection}, if given. */
+        public static Estimate of(Path input, ColumnSelection selection) throws IOException {
+            long size = Files.size(input);
+            long sampleBytes = 0;
+            int sampleRows = 0;
+            long cellBytes = 0;
+            int columns = 0;
+            int[] keywordCells = null;
+            int[] numericCells = null;
+            boolean[] parsed = null;
+            Instant first = null;
+            Instant previous = null;
+            Map<Long, Integer> intervals = new HashMap<>();
+
+            try (BufferedReader br = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+                String header = br.readLine();
+                if (header == null) return new Estimate(0, 0, 0, 0, 0);
+                List<String> headers = Arrays.asList(header.split(","));
+                columns = headers.size() - 1;
+                keywordCells = new int[Math.max(columns, 0)];
+                numericCells = new int[Math.max(columns, 0)];
+                parsed = new boolean[Math.max(columns, 0)];
+                ColumnSelection.Resolved resolved = selection == null ? null : selection.resolve(headers);
+                for (int c = 0; c < parsed.length; c++) {
+                    parsed[c] = resolved == null || resolved.selects(c + 1);
+                }
+
+                String line;
+                while (sampleRows < SAMPLE_ROWS && (line = br.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    sampleRows++;
+                    sampleBytes += line.length() + 1;
+                    String[] parts = line.split(",", -1);
+                    for (int c = 0; c < columns && c + 1 < parts.length; c++) {
+                        if (!parsed[c]) continue;
+                        String cell = parts[c + 1];
+                        cellBytes += cell.length();
+                        if (cell.isBlank()) continue;
+                        if (isNumber(cell)) {
+                            numericCells[c]++;
+                        } else {
+                            keywordCells[c]++;
+                        }
+                    }
+                    Instant timestamp = parseTimestamp(parts[0]);
+                    if (timestamp == null) continue;
+                    if (first == null) first = timestamp;
+                    if (previous != null && timestamp.isAfter(previous)) {
+                        intervals.merge(timestamp.toEpochMilli() - previous.toEpochMilli(), 1, Integer::sum);
+                    }
+                    previous = timestamp;
+                }
+            }
+            int parsedColumns = 0;
+            int keywordColumns = 0;
+            for (int c = 0; c < columns; c++) {
+                if (!parsed[c]) continue;
+                parsedColumns++;
+                if (keywordCells[c] > numericCells[c]) keywordColumns++;
+            }
+            if (sampleRows == 0) return new Estimate(0, 0, parsedColumns, 0, 0);
+
+            long rows = Math.max(sampleRows, Math.round((double) size / sampleBytes * sampleRows));
+            double meanCellBytes = parsedColumns == 0 ? 0
+                    : (double) cellBytes / ((long) sampleRows * parsedColumns);
+            double rawLineBytes = selection != null && selection.isPassThrough()
+                    ? (double) sampleBytes / sampleRows : 0;
+
+            long gridRows = rows;
+            Instant last = rows > sampleRows ? lastTimestamp(input, size) : previous;
+            long step = intervals.entrySet().stream()
+                    .max(Map.Entry.comparingByValue()).map(Map.Entry::getKey).orElse(0L);
+            if (step > 0 && first != null && last != null && last.isAfter(first)) {
+                long span = last.toEpochMilli() - first.toEpochMilli();
+                gridRows = Math.max(rows, span / step + 1);
+            }
+            return new Estimate(rows, gridRows, parsedColumns, keywordColumns, meanCellBytes, rawLineBytes);
+        }
+
+        /** The estimate for a job that keeps {@code share} of the rows, e.g. those of a time window. */
+        public Estimate window(double share) {
+            if (share >= 1) return this;
+            return new Estimate(Math.round(rows * share), Math.round(gridRows * share),
+                    columns, keywordColumns, meanCellBytes, rawLineBytes);
+        }
+
+        /**
+         * Peak heap of a job in {@code storage}: the table as read and the filled copy
+         * of it on the grid, which both live until interpolation is done.
+         */
+        public long peakBytes(Storage storage) {
+            long numericColumns = columns - keywordColumns;
+            long dictionaryCells = keywordColumns * (rows + gridRows);
+            long numericCells = numericColumns * rows;
+            long gridCells = numericColumns * gridRows;
+            long filledCells = numericColumns * (gridRows - rows);
+
+            long bytes = BASE_BYTES + dictionaryCells * DICTIONARY_BYTES_PER_CELL;
+            if (rawLineBytes > 0) {
+                // raw lines are mapped off the heap, their index and the grid's row map are not
+                bytes += rows * RAW_LINE_INDEX_BYTES + gridRows * Integer.BYTES;
+                if (storage != Storage.OFF_HEAP) bytes += rows * (long) Math.ceil(rawLineBytes);
+            }
+            return switch (storage) {
+                case HEAP -> bytes
+                        + (rows + gridRows) * HEAP_BYTES_PER_TIMESTAMP
+                        + numericCells * (HEAP_BYTES_PER_CELL + (long) meanCellBytes)
+                        // the filled copy shares the read Strings and adds a reference a cell
+                        + gridCells * Long.BYTES
+                        + filledCells * HEAP_BYTES_PER_FILLED_CELL;
+                case COMPRESSED -> bytes
+                        + (rows + gridRows) * COMPRESSED_BYTES_PER_TIMESTAMP
+                        + (numericCells + gridCells) * COMPRESSED_BYTES_PER_CELL;
+                case OFF_HEAP -> bytes;
+            };
+        }
+
+        private static boolean isNumber(String cell) {
+            try {
+                Double.parseDouble(cell);
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        private static Instant parseTimestamp(String cell) {
+            try {
+                return Instant.parse(cell.trim());
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+
+        /** Timestamp of the last data line, read from the end of the file. */
+        private static Instant lastTimestamp(Path input, long size) throws IOException {
+            int length = (int) Math.min(size, TAIL_BYTES);
+            ByteBuffer tail = ByteBuffer.allocate(length);
+            try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+                while (tail.hasRemaining()) {
+                    if (channel.read(tail, size - length + tail.position()) < 0) break;
+                }
+            }
+            String[] lines = new String(tail.array(), 0, tail.position(), StandardCharsets.UTF_8).split("\n");
+            // the first piece may be a partial line, so it is not looked at
+            for (int i = lines.length - 1; i > 0; i--) {
+                if (lines[i].isBlank()) continue;
+                int comma = lines[i].indexOf(',');
+                return parseTimestamp(comma < 0 ? lines[i] : lines[i].substring(0, comma));
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.data.imputation.service;
+
+import com.data.imputation.model.Aggregation;
+import com.data.imputation.model.Column;
+import com.data.imputation.model.CsvTable;
+import com.data.imputation.model.DictionaryColumn;
+import com.data.imputation.model.DoubleFormat;
+import com.data.imputation.model.ProcessingOptions;
+import com.data.imputation.model.TextColumn;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rolls a sorted table up to a coarser interval in one pass.
+ *
+ * Buckets are aligned to multiples of the interval since the epoch and stamped
+ * with their start. MIN, MAX, LAST and MODE pick a source row per bucket, so
+ * the original cell text (and a dictionary column's encoding) is kept; MEAN is
+ * the only aggregation that produces new values.
+ */
+public class Resampler {
+
+    public CsvTable resample(CsvTable table, ProcessingOptions options) {
+        Duration interval = options.getResampleInterval();
+        long intervalMillis = interval.toMillis();
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Resample interval must be at least 1 ms: " + interval);
+        }
+
+        List<Instant> timestamps = table.getTimestamps();
+        List<Column> columns = table.getColumns();
+        int rowCount = table.getRowCount();
+        int colCount = columns.size();
+
+        // a misspelt aggregation would otherwise fall back to the default unnoticed
+        List<String> names = new ArrayList<>(colCount);
+        for (int c = 0; c < colCount; c++) {
+            names.add(table.getHeaders().get(c + 1).trim());
+        }
+        for (String aggregated : options.getAggregatedColumns()) {
+            if (!names.contains(aggregated)) {
+                throw new IllegalArgumentException("No column to aggregate named " + aggregated);
+            }
+        }
+
+        List<Instant> outTimestamps = new ArrayList<>();
+        if (rowCount == 0) {
+            return new CsvTable(table.getHeaders(), outTimestamps, columns);
+        }
+
+        // upper bound on bucket count for a sorted table
+        long firstBucket = Math.floorDiv(timestamps.get(0).toEpochMilli(), intervalMillis);
+        long lastBucket = Math.floorDiv(timestamps.get(rowCount - 1).toEpochMilli(), intervalMillis);
+        int maxBuckets = (int) Math.min(rowCount, lastBucket - firstBucket + 1);
+
+        Accumulator[] acc = new Accumulator[colCount];
+        for (int c = 0; c < colCount; c++) {
+            Column column = columns.get(c);
+            Aggregation agg = options.getAggregation(names.get(c));
+            if (agg == null) {
+                agg = (column instanceof DictionaryColumn) ? Aggregation.MODE : Aggregation.MEAN;
+            }
+            acc[c] = new Accumulator(column, agg, maxBuckets);
+        }
+
+        long bucket = firstBucket;
+        for (int r = 0; r < rowCount; r++) {
+            long b = Math.floorDiv(timestamps.get(r).toEpochMilli(), intervalMillis);
+            if (b != bucket) {
+                outTimestamps.add(Instant.ofEpochMilli(bucket * intervalMillis));
+                for (Accumulator a : acc) a.emit();
+                bucket = b;
+            }
+            for (Accumulator a : acc) a.accept(r);
+        }
+        outTimestamps.add(Instant.ofEpochMilli(bucket * intervalMillis));
+        for (Accumulator a : acc) a.emit();
+
+        List<Column> outColumns = new ArrayList<>(colCount);
+        for (Accumulator a : acc) {
+            outColumns.add(a.result());
+        }
+        return new CsvTable(table.getHeaders(), outTimestamps, outColumns);
+    }
+
+    /** Running state for one column within the current bucket. */
+    private static class Accumulator {
+        private final Column column;
+        private final Aggregation agg;
+
+        // MEAN output, or the chosen source row per bucket for the other aggregations
+        private final TextColumn means;
+        private final int[] pickedRows;
+        private int buckets;
+
+        private double sum;
+        private long count;
+        private double best;
+        private int bestRow = -1;
+
+        // MODE: counts by dictionary code, or by text for plain columns
+        private final int[] codeCounts;
+        private final Map<String, int[]> textCounts;
+        private int bestCount;
+
+        Accumulator(Column column, Aggregation agg, int maxBuckets) {
+            this.column = column;
+            this.agg = agg;
+            this.means = agg == Aggregation.MEAN ? new TextColumn(maxBuckets) : null;
+            this.pickedRows = agg == Aggregation.MEAN ? null : new int[maxBuckets];
+
+            boolean dictionaryMode = agg == Aggregation.MODE && column instanceof DictionaryColumn;
+            this.codeCounts = dictionaryMode
+                    ? new int[((DictionaryColumn) column).getDictionary().size()]
+                    : null;
+            this.textCounts = (agg == Aggregation.MODE && !dictionaryMode) ? new HashMap<>() : null;
+        }
+
+        void accept(int row) {
+            switch (agg) {
+                case MEAN -> {
+                    if (column.isNumeric(row)) {
+                        sum += column.getDouble(row);
+                        count++;
+                    }
+                }
+                case MIN -> {
+                    if (column.isNumeric(row)) {
+                        double v = column.getDouble(row);
+                        if (bestRow < 0 || v < best) {
+                            best = v;
+                            bestRow = row;
+                        }
+                    }
+                }
+                case MAX -> {
+                    if (column.isNumeric(row)) {
+                        double v = column.getDouble(row);
+                        if (bestRow < 0 || v > best) {
+                            best = v;
+                            bestRow = row;
+                        }
+                    }
+                }
+                case LAST -> {
+                    if (!column.isBlank(row)) bestRow = row;
+                }
+                case MODE -> {
+                    if (column.isBlank(row)) return;
+                    int n;
+                    if (codeCounts != null) {
+                        n = ++codeCounts[((DictionaryColumn) column).code(row)];
+                    } else {
+                        n = ++textCounts.computeIfAbsent(column.get(row), k -> new int[1])[0];
+                    }
+                    // ties go to the value that reached the count first
+                    if (n > bestCount) {
+                        bestCount = n;
+                        bestRow = row;
+                    }
+                }
+            }
+        }
+
+        void emit() {
+            if (means != null) {
+                means.add(count > 0 ? DoubleFormat.toString(sum / count) : "");
+            } else {
+                pickedRows[buckets] = bestRow;
+            }
+            buckets++;
+
+            sum = 0;
+            count = 0;
+            bestRow = -1;
+            bestCount = 0;
+            if (codeCounts != null) Arrays.fill(codeCounts, 0);
+            if (textCounts != null) textCounts.clear();
+        }
+
+        Column result() {
+            return means != null ? means : column.select(Arrays.copyOf(pickedRows, buckets));
+        }
+    }
+}
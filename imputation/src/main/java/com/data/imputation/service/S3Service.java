@@ -1,43 +1,85 @@
 package com.data.imputation.service;
 
+import com.data.imputation.jfr.UploadPartEvent;
+import com.data.imputation.metrics.JobMetrics;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
 
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Service
 public class S3Service {
 
-    private final S3Client s3Client;
+    // Larger files are sent as a multipart upload that can resume part by part.
+    private static final long MULTIPART_THRESHOLD_BYTES = 16L << 20;
+    private static final int PART_BYTES = 8 << 20;
+
+    private final ObjectProvider<S3Client> s3Client;
     private final String bucketName;
     private final String region;
     private final String keyPrefix;
+    // an S3-compatible server instead of AWS, without a trailing slash; empty for AWS
+    private final String endpoint;
 
     public S3Service(
-            S3Client s3Client,
+            ObjectProvider<S3Client> s3Client,
             @Value("${app.s3.bucket-name}") String bucketName,
             @Value("${app.s3.region}") String region,
-            @Value("${app.s3.key-prefix:}") String keyPrefix
+            @Value("${app.s3.key-prefix:}") String keyPrefix,
+            @Value("${app.s3.endpoint:}") String endpoint
     ) {
         this.s3Client = s3Client;
         this.bucketName = bucketName;
         this.region = region;
         this.keyPrefix = keyPrefix == null ? "" : keyPrefix.trim();
+        this.endpoint = endpoint == null ? "" : endpoint.trim().replaceAll("/+$", "");
+    }
+
+    /** Builds the S3 client ahead of the first upload; safe to call from any thread. */
+    public void warmUp() {
+        s3Client.getObject();
     }
 
     /**
-     * Uploads the given file to S3 and returns a public-style HTTPS URL.
+     * Uploads the given file to S3 and returns its URL: virtual-hosted on AWS, or
+     * path-style ({@code <endpoint>/<bucket>/<key>}) when {@code app.s3.endpoint} is set.
      *
      * @param filePath local file path
      * @return S3 object URL
      */
     public String uploadFile(Path filePath) throws Exception {
+        return uploadFile(filePath, null);
+    }
+
+    /**
+     * As {@link #uploadFile(Path)}, recording bytes and upload time into {@code metrics}.
+     * Files over {@value #MULTIPART_THRESHOLD_BYTES} bytes go up in parts; if such an
+     * upload is interrupted, calling this again for the unchanged file sends only the
+     * parts that are missing.
+     */
+    public String uploadFile(Path filePath, JobMetrics metrics) throws Exception {
         if (!Files.exists(filePath)) {
             throw new IllegalArgumentException("File does not exist: " + filePath);
         }
@@ -45,20 +87,191 @@ public class S3Service {
         String fileName = filePath.getFileName().toString();
         String key = buildKey(fileName);
 
+        if (Files.size(filePath) > MULTIPART_THRESHOLD_BYTES) {
+            uploadMultipart(filePath, key, metrics);
+        } else {
+            uploadWhole(filePath, key, metrics);
+        }
+
+        String encodedKey = URLEncoder.encode(key, StandardCharsets.UTF_8)
+                .replace("+", "%20"); // spaces as %20
+
+        // the client addresses a custom endpoint path-style, so the URL does too
+        String base = endpoint.isEmpty()
+                ? "https://" + bucketName + ".s3." + region + ".amazonaws.com/"
+                : endpoint + "/" + bucketName + "/";
+        return base + encodedKey;
+    }
+
+    private void uploadWhole(Path filePath, String key, JobMetrics metrics) throws IOException {
         PutObjectRequest putObjectRequest = PutObjectRequest.builder()
                 .bucket(bucketName)
                 .key(key)
                 .contentType("text/csv")
                 .build();
 
-        s3Client.putObject(putObjectRequest, RequestBody.fromFile(filePath));
+        long bytes = Files.size(filePath);
+        UploadPartEvent event = new UploadPartEvent();
+        event.begin();
+        long start = System.nanoTime();
 
-        String encodedKey = URLEncoder.encode(key, StandardCharsets.UTF_8)
-                .replace("+", "%20"); // spaces as %20
+        s3Client.getObject().putObject(putObjectRequest, RequestBody.fromFile(filePath));
 
-        // basic virtual-hosted S3 URL format
-        String base = "https://" + bucketName + ".s3." + region + ".amazonaws.com/";
-        return base + encodedKey;
+        partSent(event, filePath, key, 1, bytes, System.nanoTime() - start, metrics); // single PutObject
+    }
+
+    // ---------- multipart ----------
+
+    private void uploadMultipart(Path filePath, String key, JobMetrics metrics) throws IOException {
+        S3Client client = s3Client.getObject();
+        Path sidecar = filePath.resolveSibling(filePath.getFileName() + ".upload");
+
+        UploadProgress progress = UploadProgress.load(sidecar, bucketName, key, filePath);
+        if (progress == null) {
+            progress = startMultipart(client, sidecar, key, filePath);
+        }
+
+        try {
+            uploadMissingParts(client, filePath, key, progress, metrics);
+        } catch (NoSuchUploadException e) {
+            // the upload expired or was aborted since the last run
+            Files.deleteIfExists(sidecar);
+            progress = startMultipart(client, sidecar, key, filePath);
+            uploadMissingParts(client, filePath, key, progress, metrics);
+        }
+
+        List<CompletedPart> parts = new ArrayList<>();
+        for (Map.Entry<Integer, String> part : progress.etags.entrySet()) {
+            parts.add(CompletedPart.builder().partNumber(part.getKey()).eTag(part.getValue()).build());
+        }
+        client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .uploadId(progress.uploadId)
+                .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                .build());
+        Files.deleteIfExists(sidecar);
+    }
+
+    private UploadProgress startMultipart(S3Client client, Path sidecar, String key, Path filePath) throws IOException {
+        String uploadId = client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType("text/csv")
+                .build()).uploadId();
+        return UploadProgress.start(sidecar, bucketName, key, uploadId, filePath);
+    }
+
+    private void uploadMissingParts(S3Client client, Path filePath, String key,
+                                    UploadProgress progress, JobMetrics metrics) throws IOException {
+        long size = Files.size(filePath);
+        int partCount = (int) ((size + PART_BYTES - 1) / PART_BYTES);
+        byte[] buffer = new byte[PART_BYTES];
+
+        try (RandomAccessFile in = new RandomAccessFile(filePath.toFile(), "r")) {
+            for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+                if (progress.etags.containsKey(partNumber)) continue;
+
+                long offset = (long) (partNumber - 1) * PART_BYTES;
+                int length = (int) Math.min(PART_BYTES, size - offset);
+                in.seek(offset);
+                in.readFully(buffer, 0, length);
+
+                UploadPartEvent event = new UploadPartEvent();
+                event.begin();
+                long start = System.nanoTime();
+
+                String etag = client.uploadPart(UploadPartRequest.builder()
+                                .bucket(bucketName)
+                                .key(key)
+                                .uploadId(progress.uploadId)
+                                .partNumber(partNumber)
+                                .contentLength((long) length)
+                                .build(),
+                        RequestBody.fromBytes(length == PART_BYTES ? buffer : Arrays.copyOf(buffer, length)))
+                        .eTag();
+
+                partSent(event, filePath, key, partNumber, length, System.nanoTime() - start, metrics);
+                progress.partDone(partNumber, etag);
+            }
+        }
+    }
+
+    private static void partSent(UploadPartEvent event, Path filePath, String key, int partNumber,
+                                 long bytes, long nanos, JobMetrics metrics) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.fileName = filePath.getFileName().toString();
+            event.key = key;
+            event.partNumber = partNumber;
+            event.bytes = bytes;
+            event.commit();
+        }
+        if (metrics != null) {
+            metrics.uploaded(bytes, nanos);
+        }
+    }
+
+    /**
+     * Parts already sent for one multipart upload, kept in a text sidecar next to
+     * the file: a header line (bucket, key, upload id, file size and mtime, part
+     * size), then one "partNumber etag" line per finished part. A line without its
+     * newline was cut short and is ignored.
+     */
+    private static class UploadProgress {
+        final Path sidecar;
+        final String uploadId;
+        final Map<Integer, String> etags = new TreeMap<>();
+
+        private UploadProgress(Path sidecar, String uploadId) {
+            this.sidecar = sidecar;
+            this.uploadId = uploadId;
+        }
+
+        static UploadProgress start(Path sidecar, String bucket, String key, String uploadId,
+                                    Path file) throws IOException {
+            Files.writeString(sidecar, header(bucket, key, uploadId, file) + "\n");
+            return new UploadProgress(sidecar, uploadId);
+        }
+
+        /** Progress for the same bucket, key and unchanged file, or null. */
+        static UploadProgress load(Path sidecar, String bucket, String key, Path file) throws IOException {
+            if (!Files.exists(sidecar)) return null;
+
+            String[] lines = Files.readString(sidecar).split("\n", -1);
+            if (lines.length < 2) return null;
+
+            String[] header = lines[0].split(" ");
+            if (header.length != 7) return null;
+            String uploadId = URLDecoder.decode(header[3], StandardCharsets.UTF_8);
+            if (!lines[0].equals(header(bucket, key, uploadId, file))) return null;
+
+            UploadProgress progress = new UploadProgress(sidecar, uploadId);
+            // the last element follows the final newline: empty, or a partial line
+            for (int i = 1; i < lines.length - 1; i++) {
+                int space = lines[i].indexOf(' ');
+                progress.etags.put(Integer.parseInt(lines[i].substring(0, space)), lines[i].substring(space + 1));
+            }
+            return progress;
+        }
+
+        void partDone(int partNumber, String etag) throws IOException {
+            // plain stream append: unlike a channel it still works on an interrupted thread
+            try (FileOutputStream out = new FileOutputStream(sidecar.toFile(), true)) {
+                out.write((partNumber + " " + etag + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            etags.put(partNumber, etag);
+        }
+
+        private static String header(String bucket, String key, String uploadId, Path file) throws IOException {
+            return String.join(" ", "v1",
+                    URLEncoder.encode(bucket, StandardCharsets.UTF_8),
+                    URLEncoder.encode(key, StandardCharsets.UTF_8),
+                    URLEncoder.encode(uploadId, StandardCharsets.UTF_8),
+                    Long.toString(Files.size(file)),
+                    Long.toString(Files.getLastModifiedTime(file).toMillis()),
+                    Integer.toString(PART_BYTES));
+        }
     }
 
     private String buildKey(String fileName) {
@@ -1,74 +1,391 @@
 package com.data.imputation.service;
 
+import com.data.imputation.jfr.ColumnBatchEvent;
+import com.data.imputation.jfr.JobEvent;
+import com.data.imputation.metrics.JobMetrics;
+import com.data.imputation.metrics.PipelineStage;
+import com.data.imputation.model.Column;
+import com.data.imputation.model.ColumnStorage;
+import com.data.imputation.model.CompressedTimeline;
 import com.data.imputation.model.CsvTable;
-import com.data.imputation.model.DataRow;
+import com.data.imputation.model.DoubleFormat;
+import com.data.imputation.model.EpochTimeline;
+import com.data.imputation.model.MappedTimeline;
+import com.data.imputation.model.OffHeapStore;
+import com.data.imputation.model.PassThroughColumn;
+import com.data.imputation.model.ProcessingOptions;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.zip.CRC32C;
 
 @Service
 public class TimeSeriesInterpolationService {
 
     private final CsvService csvService;
+    private final MeterRegistry meterRegistry;
+    private final Resampler resampler = new Resampler();
+    private final DeltaPatch deltaPatch = new DeltaPatch();
+
+    private static final int COLUMN_BATCH_SIZE = 64;
+
+    // heap promised to running single-file jobs, in MB, by their admission plans
+    private static final int HEAP_PERMITS =
+            (int) Math.max(1, (long) (Runtime.getRuntime().maxMemory() * 0.75) >> 20);
+    private final Semaphore heapPermits = new Semaphore(HEAP_PERMITS, true);
 
     public TimeSeriesInterpolationService(CsvService csvService) {
+        this(csvService, null);
+    }
+
+    @Autowired
+    public TimeSeriesInterpolationService(CsvService csvService, MeterRegistry meterRegistry) {
         this.csvService = csvService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /** Metrics holder for one job, feeding the shared registry. */
+    public JobMetrics newJobMetrics(Path inputPath) {
+        return new JobMetrics(inputPath.getFileName().toString(), meterRegistry);
+    }
+
+    /** Metrics holder for a merged job, named after its first input. */
+    public JobMetrics newJobMetrics(List<Path> inputPaths) {
+        if (inputPaths.size() == 1) return newJobMetrics(inputPaths.get(0));
+        return new JobMetrics(inputPaths.get(0).getFileName() + " +" + (inputPaths.size() - 1), meterRegistry);
     }
 
     public Path processFile(Path inputPath, String suffixRaw) throws IOException {
-        CsvTable table = csvService.readCsv(inputPath);
-        List<DataRow> originalRows = new ArrayList<>(table.getRows());
+        return processFile(inputPath, ProcessingOptions.withSuffix(suffixRaw));
+    }
+
+    public Path processFile(Path inputPath, ProcessingOptions options) throws IOException {
+        return processFile(inputPath, options, newJobMetrics(inputPath));
+    }
+
+    public Path processFile(Path inputPath, ProcessingOptions options, JobMetrics metrics) throws IOException {
+        return recorded(metrics, () -> runPipeline(inputPath, options, metrics, null));
+    }
+
+    /**
+     * Joins inputs that share a timestamp column on timestamp (columns prefixed with
+     * each file's name) and runs the joined table through the same pipeline. The
+     * output goes next to the first input as {@code <first>_merged_<hash>[_suffix].csv},
+     * see {@link #mergedPathFor}; merged runs are not checkpointed.
+     */
+    public Path processFiles(List<Path> inputPaths, ProcessingOptions options, JobMetrics metrics) throws IOException {
+        return processFiles(inputPaths, options, metrics, null);
+    }
+
+    /**
+     * As {@link #processFiles(List, ProcessingOptions, JobMetrics)}, also noting every
+     * cell interpolation fills in {@code imputed} (by output row and value column), e.g.
+     * to highlight them in a preview. Not fed when the output is resampled.
+     */
+    public Path processFiles(List<Path> inputPaths, ProcessingOptions options, JobMetrics metrics,
+                             DeltaPatch.ImputedCells imputed) throws IOException {
+        if (inputPaths.size() == 1) {
+            return recorded(metrics, () -> runPipeline(inputPaths.get(0), options, metrics, imputed));
+        }
+        if (options.isDelta()) {
+            // a patch is applied to its input, and the joined input never exists as a file
+            throw new IllegalArgumentException("Delta output needs a single input file.");
+        }
+        if (!options.getColumns().isEmpty() || options.hasWindow()) {
+            throw new IllegalArgumentException("Column selection and time windows need a single input file.");
+        }
+        return recorded(metrics, () -> {
+            Path outputPath = outputPathFor(mergedPathFor(inputPaths), options);
+            CsvTable table = csvService.readCsvMerged(inputPaths, metrics);
+            return process(table, outputPath, options, metrics, null, imputed);
+        });
+    }
+
+    /** One pipeline run, recorded as a JFR job event. */
+    private Path recorded(JobMetrics metrics, PipelineRun run) throws IOException {
+        JobEvent jobEvent = new JobEvent();
+        jobEvent.begin();
+        boolean succeeded = false;
+        try {
+            Path outputPath = run.run();
+            succeeded = true;
+            return outputPath;
+        } finally {
+            jobEvent.end();
+            if (jobEvent.shouldCommit()) {
+                jobEvent.fileName = metrics.getFileName();
+                jobEvent.rowsIn = metrics.getRowsIn();
+                jobEvent.rowsOut = metrics.getRowsOut();
+                jobEvent.columns = metrics.getColumns();
+                jobEvent.bytesRead = metrics.getBytesRead();
+                jobEvent.bytesWritten = metrics.getBytesWritten();
+                jobEvent.succeeded = succeeded;
+                jobEvent.commit();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface PipelineRun {
+        Path run() throws IOException;
+    }
 
-        if (originalRows.size() < 2) {
+    /**
+     * Rebuilds the full output from {@code original} and a patch written in delta mode,
+     * next to the patch under its name without {@code .delta}.
+     */
+    public Path applyDelta(Path original, Path patch) throws IOException {
+        String fileName = patch.getFileName().toString();
+        int deltaIndex = fileName.lastIndexOf(DeltaPatch.EXTENSION);
+        String outputName = deltaIndex > 0
+                ? fileName.substring(0, deltaIndex) + fileName.substring(deltaIndex + DeltaPatch.EXTENSION.length())
+                : fileName + ".csv";
+
+        Path outputPath = patch.toAbsolutePath().getParent().resolve(outputName);
+        deltaPatch.apply(original, patch, outputPath);
+        return outputPath;
+    }
+
+    private Path runPipeline(Path inputPath, ProcessingOptions options, JobMetrics metrics,
+                             DeltaPatch.ImputedCells imputed) throws IOException {
+        if (options.isDelta() && options.getResampleInterval() != null) {
+            // resampled rows no longer line up with the input, so there is nothing to patch
+            throw new IllegalArgumentException("Delta output cannot be combined with resampling.");
+        }
+        if ((options.isOffHeap() || options.isSnapshot()) && options.isCompressed()) {
+            throw new IllegalArgumentException("Off-heap and compressed storage cannot be combined.");
+        }
+        if (options.isSnapshot() && (options.hasWindow() || !options.getColumns().isEmpty())) {
+            // a snapshot holds the whole parsed table
+            throw new IllegalArgumentException("A snapshot cannot be combined with a time window or column selection.");
+        }
+        if (options.isDelta() && options.hasWindow()) {
+            // a patch is applied to the whole input
+            throw new IllegalArgumentException("Delta output cannot be combined with a time window.");
+        }
+        if (!options.getColumns().isEmpty()) {
+            if (options.isDelta() && !options.isPassThrough()) {
+                // a patch rebuilds the full table, so it needs every column
+                throw new IllegalArgumentException("Delta output with a column selection needs pass-through.");
+            }
+            if (options.isPassThrough() && options.getResampleInterval() != null) {
+                throw new IllegalArgumentException("Pass-through columns cannot be resampled; drop them instead.");
+            }
+        }
+        Path outputPath = outputPathFor(inputPath, options);
+
+        if (!options.isCheckpointing()) {
+            return runPipeline(inputPath, outputPath, options, metrics, null, imputed);
+        }
+        // left in place if the job fails or is cancelled, so the next run resumes
+        JobCheckpoint checkpoint = JobCheckpoint.open(
+                JobCheckpoint.sidecarFor(outputPath), inputPath, options.fingerprint());
+        try {
+            runPipeline(inputPath, outputPath, options, metrics, checkpoint, imputed);
+        } finally {
+            checkpoint.close();
+        }
+        checkpoint.complete();
+        return outputPath;
+    }
+
+    private Path runPipeline(Path inputPath, Path outputPath, ProcessingOptions options,
+                             JobMetrics metrics, JobCheckpoint checkpoint,
+                             DeltaPatch.ImputedCells imputed) throws IOException {
+        // rows arrive in timestamp order; out-of-order input is merge-sorted while reading
+        ColumnSelection selection = options.getColumns().isEmpty()
+                ? null : new ColumnSelection(options.getColumns(), options.isPassThrough());
+        // a window seeks through the input's timestamp index, built on first use
+        TimestampIndex.Range window = null;
+        double rowShare = 1;
+        if (options.hasWindow()) {
+            JobMetrics.StageTimer timer = metrics.startStage(PipelineStage.INDEX);
+            TimestampIndex index = TimestampIndex.openOrBuild(inputPath);
+            window = index.range(inputPath, options.getWindowStart(), options.getWindowEnd());
+            rowShare = index.share(options.getWindowStart(), options.getWindowEnd());
+            timer.stop(index.getRowCount(), 0);
+        }
+        if (options.isSnapshot()) {
+            try (OffHeapStore store = OffHeapStore.create()) {
+                CsvTable table = csvService.readCsvSnapshot(inputPath, metrics, checkpoint, store);
+                return process(table, outputPath, options, metrics, checkpoint, imputed);
+            }
+        }
+        if (options.isOffHeap() || options.isCompressed()) {
+            return runPipeline(inputPath, outputPath, options, metrics, checkpoint, imputed, selection, window,
+                    options.isOffHeap() ? MemoryAdmission.Storage.OFF_HEAP : MemoryAdmission.Storage.COMPRESSED);
+        }
+
+        // no storage asked for: take the fastest one the heap allows, less what running
+        // jobs hold; a stable figure, unlike free memory, which counts garbage as used.
+        // Only the window's rows and the selected columns count
+        long promised = (long) (HEAP_PERMITS - heapPermits.availablePermits()) << 20;
+        MemoryAdmission.Plan plan = MemoryAdmission.plan(inputPath, selection, rowShare,
+                Runtime.getRuntime().maxMemory() - promised);
+        metrics.storage(plan.describe());
+        int permits = (int) Math.min(HEAP_PERMITS, Math.max(1, plan.estimatedBytes() >> 20));
+        try {
+            // a plan that does not fit waits here for running jobs to give memory back
+            heapPermits.acquire(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for memory.");
+        }
+        try {
+            return runPipeline(inputPath, outputPath, options, metrics, checkpoint, imputed, selection, window,
+                    plan.storage());
+        } finally {
+            heapPermits.release(permits);
+        }
+    }
+
+    private Path runPipeline(Path inputPath, Path outputPath, ProcessingOptions options,
+                             JobMetrics metrics, JobCheckpoint checkpoint, DeltaPatch.ImputedCells imputed,
+                             ColumnSelection selection, TimestampIndex.Range window,
+                             MemoryAdmission.Storage storage) throws IOException {
+        if (storage != MemoryAdmission.Storage.OFF_HEAP) {
+            ColumnStorage columns = storage == MemoryAdmission.Storage.COMPRESSED ? ColumnStorage.COMPRESSED : null;
+            CsvTable table = csvService.readCsvSorted(inputPath, metrics, checkpoint, columns, selection, window);
+            return process(table, outputPath, options, metrics, checkpoint, imputed);
+        }
+        // the mapped files live until the output is written
+        try (OffHeapStore store = OffHeapStore.create()) {
+            CsvTable table = csvService.readCsvSorted(inputPath, metrics, checkpoint, store, selection, window);
+            return process(table, outputPath, options, metrics, checkpoint, imputed);
+        }
+    }
+
+    private Path process(CsvTable table, Path outputPath, ProcessingOptions options,
+                         JobMetrics metrics, JobCheckpoint checkpoint,
+                         DeltaPatch.ImputedCells observer) throws IOException {
+        BitSet synthesizedRows = options.isDelta() ? new BitSet() : null;
+        DeltaPatch.ImputedCells imputed = options.isDelta()
+                ? new DeltaPatch.ImputedCells(table.getColumns().size()) : null;
+        // resampled rows no longer match the filled ones
+        FilledCellSink sink = FilledCellSink.both(imputed,
+                options.getResampleInterval() == null ? observer : null);
+        Repaired repaired = repair(table, options, metrics, checkpoint, sink, synthesizedRows);
+
+        if (options.isDelta()) {
+            deltaPatch.write(outputPath, repaired.table(), repaired.step(), synthesizedRows, imputed, metrics);
+        } else {
+            // write + stats happen inside CsvService
+            csvService.writeCsv(outputPath, repaired.table(), metrics, checkpoint);
+        }
+
+        // TODO: add S3 upload using outputPath
+        return outputPath;
+    }
+
+    /**
+     * Step detection, gap filling, interpolation and resampling of one table in
+     * timestamp order, timed into {@code metrics}; the repaired table is not written.
+     * Grid rows without a source row are marked in {@code synthesizedRows} when it is given.
+     */
+    Repaired repair(CsvTable table, ProcessingOptions options, JobMetrics metrics, JobCheckpoint checkpoint,
+                    FilledCellSink sink, BitSet synthesizedRows) throws IOException {
+        if (table.getRowCount() < 2) {
             throw new IllegalArgumentException("Need at least 2 data rows to interpolate.");
         }
 
-        originalRows.sort(Comparator.comparing(DataRow::getTimestamp));
+        JobMetrics.StageTimer timer = metrics.startStage(PipelineStage.STEP_DETECTION);
+        Duration step = detectStep(table.getTimestamps());
+        timer.stop(table.getRowCount(), 0);
 
-        Duration step = detectStep(originalRows);
+        timer = metrics.startStage(PipelineStage.GAP_FILL);
+        CsvTable outputTable = fillMissingTimestamps(table, step, synthesizedRows);
+        timer.stop(outputTable.getRowCount(), 0);
 
-        List<DataRow> fullRows =
-                fillMissingTimestamps(originalRows, step, table.getHeaders().size() - 1);
+        timer = metrics.startStage(PipelineStage.INTERPOLATE);
+        metrics.cellsImputed(interpolateColumns(outputTable, step, metrics, checkpoint, sink,
+                precisions(outputTable, options)));
+        timer.stop(outputTable.getRowCount(), 0);
 
-        interpolateColumns(fullRows, step);
+        if (options.getResampleInterval() != null) {
+            timer = metrics.startStage(PipelineStage.RESAMPLE);
+            outputTable = resampler.resample(outputTable, options);
+            timer.stop(outputTable.getRowCount(), 0);
+        }
+        return new Repaired(outputTable, step);
+    }
 
-        CsvTable outputTable = new CsvTable(table.getHeaders(), fullRows);
+    /** A repaired table and the step its grid was built on. */
+    record Repaired(CsvTable table, Duration step) {
+    }
 
+    /**
+     * Step detection, gap filling and interpolation of one table already in timestamp
+     * order, without a job around it; {@code name} labels its JFR column batch events.
+     */
+    CsvTable repair(CsvTable sortedTable, String name, FilledCellSink imputed) throws IOException {
+        Duration step = detectStep(sortedTable.getTimestamps());
+        CsvTable outputTable = fillMissingTimestamps(sortedTable, step, null);
+        interpolateColumns(outputTable, step, new JobMetrics(name, null), null, imputed, null);
+        return outputTable;
+    }
+
+    /**
+     * The joined input a merge is named after: {@code <first>_merged_<hash>.csv} next to
+     * the first input, the hash taken over all input paths in order, so different merges
+     * started from one directory do not share an output.
+     */
+    static Path mergedPathFor(List<Path> inputPaths) {
+        CRC32C crc = new CRC32C();
+        for (Path input : inputPaths) {
+            crc.update(input.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8));
+            crc.update(0);
+        }
+        Path first = inputPaths.get(0).toAbsolutePath();
+        String fileName = first.getFileName().toString();
+        int dotIndex = fileName.lastIndexOf('.');
+        String baseName = dotIndex > 0 ? fileName.substring(0, dotIndex) : fileName;
+        return first.resolveSibling(String.format("%s_merged_%08x.csv", baseName, crc.getValue()));
+    }
+
+    /**
+     * {@code <name>_<suffix><ext>}, or the input itself when the suffix is empty,
+     * unless the output would hold less than the input: a window or a column
+     * selection without pass-through is then tagged {@code _window}/{@code _cols}
+     * rather than overwrite the input (and invalidate its timestamp index).
+     */
+    static Path outputPathFor(Path inputPath, ProcessingOptions options) {
         String fileName = inputPath.getFileName().toString();
         int dotIndex = fileName.lastIndexOf('.');
         String baseName = (dotIndex > 0) ? fileName.substring(0, dotIndex) : fileName;
         String ext = (dotIndex > 0) ? fileName.substring(dotIndex) : ".csv";
 
-        String suffix = (suffixRaw == null) ? "" : suffixRaw.trim();
+        String suffix = options.getSuffix();
 
         String middle;
-        if (suffix.isEmpty()) {
-            middle = "";          // no change
-        } else {
+        if (!suffix.isEmpty()) {
             middle = "_" + suffix;
+        } else {
+            middle = "";          // no change
+            if (options.hasWindow()) middle += "_window";
+            if (!options.getColumns().isEmpty() && !options.isPassThrough()) middle += "_cols";
+        }
+        if (options.isDelta()) {
+            middle += DeltaPatch.EXTENSION;
         }
 
-        Path outputPath = inputPath.getParent()
+        return inputPath.getParent()
                 .resolve(baseName + middle + ext);
-
-        // write + stats happen inside CsvService
-        csvService.writeCsv(outputPath, outputTable);
-
-        // TODO: add S3 upload using outputPath
-        return outputPath;
     }
 
-    private Duration detectStep(List<DataRow> sortedRows) {
+    private Duration detectStep(List<Instant> sortedTimestamps) {
         Map<Long, Integer> counts = new HashMap<>();
 
-        for (int i = 0; i < sortedRows.size() - 1; i++) {
-            Instant t1 = sortedRows.get(i).getTimestamp();
-            Instant t2 = sortedRows.get(i + 1).getTimestamp();
-            long diffMillis = Duration.between(t1, t2).toMillis();
+        for (int i = 0; i < sortedTimestamps.size() - 1; i++) {
+            long diffMillis = millisBetween(sortedTimestamps, i, i + 1);
             if (diffMillis <= 0) continue;
 
             counts.merge(diffMillis, 1, Integer::sum);
@@ -86,53 +403,127 @@ public class TimeSeriesInterpolationService {
         return Duration.ofMillis(bestDiff);
     }
 
-    private List<DataRow> fillMissingTimestamps(List<DataRow> sortedRows,
-                                                Duration step,
-                                                int columnCount) {
-
-        sortedRows.sort(Comparator.comparing(DataRow::getTimestamp));
-
-        Map<Instant, DataRow> byTimestamp = new HashMap<>();
-        for (DataRow row : sortedRows) {
-            byTimestamp.put(row.getTimestamp(), row);
+    /**
+     * Builds the regular timeline from first to last timestamp and gathers each
+     * column onto it in one pass; grid points without a source row come out blank
+     * and are marked in {@code synthesizedRows} when it is given.
+     */
+    private CsvTable fillMissingTimestamps(CsvTable sortedTable, Duration step, BitSet synthesizedRows) {
+
+        List<Instant> timestamps = sortedTable.getTimestamps();
+        Instant start = timestamps.get(0);
+        int last = timestamps.size() - 1;
+
+        // one walk over the sorted rows places each on-grid row at its grid index;
+        // later duplicates win and off-grid rows are dropped, as before
+        // (offsets in nanos: Duration.dividedBy goes through BigDecimal on every row)
+        long stepNanos = step.toNanos();
+        int[] rowIndexes = new int[Math.toIntExact(nanosBetween(timestamps, 0, last) / stepNanos + 1)];
+        Arrays.fill(rowIndexes, -1);
+        for (int i = 0; i < timestamps.size(); i++) {
+            long offset = nanosBetween(timestamps, 0, i);
+            if (offset % stepNanos == 0) {
+                rowIndexes[(int) (offset / stepNanos)] = i;
+            }
         }
 
-        Instant start = sortedRows.get(0).getTimestamp();
-        Instant end = sortedRows.get(sortedRows.size() - 1).getTimestamp();
+        // the grid goes into the same kind of storage as the input timeline
+        List<Instant> fullTimestamps;
+        if (timestamps instanceof MappedTimeline mapped) {
+            fullTimestamps = mapped.newTimeline();
+        } else if (timestamps instanceof CompressedTimeline) {
+            fullTimestamps = new CompressedTimeline();
+        } else {
+            fullTimestamps = new ArrayList<>(rowIndexes.length);
+        }
+        Instant t = start;
+        for (int r = 0; r < rowIndexes.length; r++, t = t.plus(step)) {
+            fullTimestamps.add(t);
+        }
 
-        List<DataRow> full = new ArrayList<>();
-        for (Instant t = start; !t.isAfter(end); t = t.plus(step)) {
-            DataRow existing = byTimestamp.get(t);
-            if (existing != null) {
-                full.add(existing);
-            } else {
-                List<String> values = new ArrayList<>();
-                for (int i = 0; i < columnCount; i++) {
-                    values.add("");
-                }
-                full.add(new DataRow(t, values));
+        if (synthesizedRows != null) {
+            for (int r = 0; r < rowIndexes.length; r++) {
+                if (rowIndexes[r] < 0) synthesizedRows.set(r);
             }
         }
 
-        return full;
-    }
+        List<Column> fullColumns = new ArrayList<>(sortedTable.getColumns().size());
+        for (Column column : sortedTable.getColumns()) {
+            fullColumns.add(column.select(rowIndexes));
+        }
 
-    private void interpolateColumns(List<DataRow> rows, Duration step) {
-        if (rows.isEmpty()) return;
+        return new CsvTable(sortedTable.getHeaders(), fullTimestamps, fullColumns);
+    }
 
-        int columnCount = rows.get(0).getValues().size();
+    /** Decimals per value column from the options, -1 for full precision; null when none is set. */
+    private static int[] precisions(CsvTable table, ProcessingOptions options) {
+        List<String> headers = table.getHeaders();
+        int[] decimals = new int[headers.size() - 1];
+        boolean any = false;
+        for (int c = 0; c < decimals.length; c++) {
+            Integer precision = options.getPrecision(headers.get(c + 1).trim());
+            decimals[c] = precision == null ? -1 : precision;
+            any |= precision != null;
+        }
+        return any ? decimals : null;
+    }
 
-        for (int col = 0; col < columnCount; col++) {
-            interpolateSingleColumn(rows, col);
+    /**
+     * Returns the number of cells filled; batches already in {@code checkpoint} are restored instead.
+     * Every filled cell is also reported to {@code imputed} when it is given. Filled values are
+     * rounded to {@code precisions[c]} decimals where that is not -1.
+     */
+    private long interpolateColumns(CsvTable table, Duration step, JobMetrics metrics,
+                                    JobCheckpoint checkpoint, FilledCellSink imputed,
+                                    int[] precisions) throws IOException {
+        if (table.getRowCount() == 0) return 0;
+
+        List<Column> columns = table.getColumns();
+        long filled = 0;
+
+        // one JFR event per batch keeps wide tables from flooding a recording
+        for (int first = 0; first < columns.size(); first += COLUMN_BATCH_SIZE) {
+            int last = Math.min(first + COLUMN_BATCH_SIZE, columns.size());
+            ColumnBatchEvent event = new ColumnBatchEvent();
+            event.begin();
+
+            long batchFilled = 0;
+            if (checkpoint != null && checkpoint.isBatchInterpolated(first)) {
+                batchFilled = checkpoint.restoreBatch(first, columns, imputed);
+            } else {
+                JobCheckpoint.BatchRecorder recorder = checkpoint != null ? checkpoint.startBatch(first) : null;
+                FilledCellSink sink = FilledCellSink.both(recorder, imputed);
+                for (int c = first; c < last; c++) {
+                    if (columns.get(c) instanceof PassThroughColumn) continue;
+                    batchFilled += interpolateSingleColumn(table.getTimestamps(), columns.get(c), c, sink,
+                            precisions != null ? precisions[c] : -1);
+                }
+                if (recorder != null) recorder.finish();
+            }
+            filled += batchFilled;
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.fileName = metrics.getFileName();
+                event.firstColumn = table.getHeaders().get(first + 1);
+                event.firstColumnIndex = first;
+                event.columns = last - first;
+                event.rows = table.getRowCount();
+                event.cellsImputed = batchFilled;
+                event.commit();
+            }
         }
+        return filled;
     }
 
-    private void interpolateSingleColumn(List<DataRow> rows, int colIndex) {
-        int n = rows.size();
+    private int interpolateSingleColumn(List<Instant> timestamps, Column column, int columnIndex,
+                                        FilledCellSink sink, int decimals) throws IOException {
+        int n = column.size();
         int i = 0;
+        int filled = 0;
 
         while (i < n) {
-            while (i < n && !isNumeric(rows.get(i).getValues().get(colIndex))) {
+            while (i < n && !column.isNumeric(i)) {
                 i++;
             }
             if (i >= n - 1) break;
@@ -140,45 +531,54 @@ public class TimeSeriesInterpolationService {
             int start = i;
             i++;
 
-            while (i < n && !isNumeric(rows.get(i).getValues().get(colIndex))) {
+            while (i < n && !column.isNumeric(i)) {
                 i++;
             }
             if (i >= n) break;
 
             int end = i;
 
-            double vStart = Double.parseDouble(rows.get(start).getValues().get(colIndex));
-            double vEnd = Double.parseDouble(rows.get(end).getValues().get(colIndex));
-            Instant tStart = rows.get(start).getTimestamp();
-            Instant tEnd = rows.get(end).getTimestamp();
-            long totalMillis = java.time.Duration.between(tStart, tEnd).toMillis();
+            double vStart = column.getDouble(start);
+            double vEnd = column.getDouble(end);
+            // offsets come from the timeline's seconds and nanos: a mapped or
+            // compressed timeline would build an Instant for every read
+            long totalMillis = millisBetween(timestamps, start, end);
             if (totalMillis <= 0) {
                 continue;
             }
 
             for (int j = start + 1; j < end; j++) {
-                DataRow row = rows.get(j);
-                String cell = row.getValues().get(colIndex);
-
-                if (cell == null || cell.isBlank()) {
-                    long currentMillis = java.time.Duration.between(tStart, row.getTimestamp()).toMillis();
+                if (column.isBlank(j)) {
+                    long currentMillis = millisBetween(timestamps, start, j);
                     double ratio = (double) currentMillis / (double) totalMillis;
-                    double vCurrent = vStart + (vEnd - vStart) * ratio;
-                    row.getValues().set(colIndex, Double.toString(vCurrent));
+                    double vCurrent = DoubleFormat.round(vStart + (vEnd - vStart) * ratio, decimals);
+                    // numeric columns keep the double; its text is only made when written
+                    column.setDouble(j, vCurrent);
+                    if (sink != null) sink.filled(columnIndex, j, column.get(j));
+                    filled++;
                 }
             }
 
             i = end;
         }
+        return filled;
     }
 
-    private boolean isNumeric(String s) {
-        if (s == null || s.isBlank()) return false;
-        try {
-            Double.parseDouble(s.trim());
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
+    /** {@code Duration.between(from, to).toNanos()} of two rows, without the Duration. */
+    private static long nanosBetween(List<Instant> timestamps, int from, int to) {
+        long seconds = EpochTimeline.epochSecond(timestamps, to) - EpochTimeline.epochSecond(timestamps, from);
+        return Math.addExact(Math.multiplyExact(seconds, 1_000_000_000L),
+                EpochTimeline.nano(timestamps, to) - EpochTimeline.nano(timestamps, from));
+    }
+
+    /** {@code Duration.between(from, to).toMillis()} of two rows, without the Duration. */
+    private static long millisBetween(List<Instant> timestamps, int from, int to) {
+        long seconds = EpochTimeline.epochSecond(timestamps, to) - EpochTimeline.epochSecond(timestamps, from);
+        int nanos = EpochTimeline.nano(timestamps, to) - EpochTimeline.nano(timestamps, from);
+        if (nanos < 0) {
+            seconds--;
+            nanos += 1_000_000_000;
         }
+        return Math.addExact(Math.multiplyExact(seconds, 1000L), nanos / 1_000_000);
     }
 }
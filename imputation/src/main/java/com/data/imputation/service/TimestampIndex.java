@@ -0,0 +1,261 @@
+package com.data.imputation.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Sparse timestamp index of a CSV input, kept in a sidecar next to it, so a job
+ * over one time window can seek to the rows it needs instead of parsing the file.
+ *
+ * Building it reads only the timestamp cell of each line: every
+ * {@link #ROWS_PER_ENTRY}th data row gets an entry with its timestamp and the
+ * byte offset of its line. The sidecar holds the input's size and modification
+ * time like a {@link JobCheckpoint}, and is rebuilt when they no longer match.
+ * An input that is not in timestamp order is indexed as such and read in full.
+ * When the sidecar cannot be written, e.g. next to a read-only input, the job
+ * uses the index it built and the next one builds it again.
+ */
+public class TimestampIndex {
+
+    /** Data rows between index entries. */
+    public static final int ROWS_PER_ENTRY = 4096;
+
+    private static final long MAGIC = 0x494D5054534958L; // "IMPTSIX"
+    private static final int VERSION = 1;
+
+    private static final int IO_BUFFER_BYTES = 64 * 1024;
+
+    private static final Logger log = LoggerFactory.getLogger(TimestampIndex.class);
+
+    private final long dataStart;
+    private final boolean sorted;
+    private final long rowCount;
+    private final long[] entrySeconds;
+    private final int[] entryNanos;
+    private final long[] entryOffsets;
+
+    private TimestampIndex(long dataStart, boolean sorted, long rowCount,
+                           long[] entrySeconds, int[] entryNanos, long[] entryOffsets) {
+        this.dataStart = dataStart;
+        this.sorted = sorted;
+        this.rowCount = rowCount;
+        this.entrySeconds = entrySeconds;
+        this.entryNanos = entryNanos;
+        this.entryOffsets = entryOffsets;
+    }
+
+    /** The sidecar used for {@code input}. */
+    public static Path sidecarFor(Path input) {
+        return input.resolveSibling(input.getFileName() + ".tsidx");
+    }
+
+    /** Loads the sidecar if it was made for the input as it is now, and builds it otherwise. */
+    public static TimestampIndex openOrBuild(Path input) throws IOException {
+        Path sidecar = sidecarFor(input);
+        long inputSize = Files.size(input);
+        long inputMtime = Files.getLastModifiedTime(input).toMillis();
+
+        if (Files.exists(sidecar)) {
+            TimestampIndex index = load(sidecar, inputSize, inputMtime);
+            if (index != null) return index;
+        }
+        TimestampIndex index = build(input);
+        try {
+            index.save(sidecar, inputSize, inputMtime);
+        } catch (IOException e) {
+            log.warn("Cannot write timestamp index {}; continuing without it", sidecar, e);
+        }
+        return index;
+    }
+
+    /** Scans the timestamp column of {@code input}; nothing else on a line is decoded. */
+    static TimestampIndex build(Path input) throws IOException {
+        Builder builder = new Builder();
+        long dataStart = TimestampScanner.scan(input, builder);
+        return new TimestampIndex(dataStart, builder.sorted, builder.rows,
+                Arrays.copyOf(builder.seconds, builder.size),
+                Arrays.copyOf(builder.nanos, builder.size),
+                Arrays.copyOf(builder.offsets, builder.size));
+    }
+
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Where a read of the rows at or after {@code from} and before {@code to} starts:
+     * the last indexed line before {@code from}, or the first data line when the
+     * input is unsorted and every row has to be looked at.
+     */
+    public Range range(Path input, Instant from, Instant to) throws IOException {
+        long offset = dataStart;
+        if (sorted) {
+            // last entry strictly before from; rows equal to from may precede an entry equal to it
+            int lo = 0;
+            int hi = entryOffsets.length - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (entry(mid).isBefore(from)) {
+                    offset = entryOffsets[mid];
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+        }
+        String headerLine;
+        try (BufferedReader br = Files.newBufferedReader(input)) {
+            headerLine = br.readLine();
+        }
+        return new Range(headerLine, offset, from, to, sorted);
+    }
+
+    /**
+     * About what share of the rows falls in {@code from} inclusive to {@code to}
+     * exclusive, from the indexed rows, which sample the input every
+     * {@link #ROWS_PER_ENTRY} rows whether it is sorted or not; at least one
+     * entry's worth, so a window between two entries is not taken as empty.
+     */
+    public double share(Instant from, Instant to) {
+        if (entrySeconds.length == 0) return 1;
+        int inside = 0;
+        for (int i = 0; i < entrySeconds.length; i++) {
+            Instant entry = entry(i);
+            if (!entry.isBefore(from) && entry.isBefore(to)) inside++;
+        }
+        return Math.min(1, (inside + 1) / (double) entrySeconds.length);
+    }
+
+    private Instant entry(int i) {
+        return Instant.ofEpochSecond(entrySeconds[i], entryNanos[i]);
+    }
+
+    /**
+     * A time window of one input, from inclusive to exclusive, and the byte offset
+     * to start reading at. With a sorted input the read stops at the first row at
+     * or after {@code to}.
+     */
+    public record Range(String headerLine, long offset, Instant from, Instant to, boolean sorted) {
+
+        public boolean contains(Instant timestamp) {
+            return !timestamp.isBefore(from) && timestamp.isBefore(to);
+        }
+
+        /** True once no later row of a sorted input can be in the window. */
+        public boolean isPast(Instant timestamp) {
+            return sorted && !timestamp.isBefore(to);
+        }
+    }
+
+    // ---------- sidecar ----------
+
+    private void save(Path sidecar, long inputSize, long inputMtime) throws IOException {
+        // written aside and moved in, so a crash never leaves half an index
+        Path temp = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+        try {
+            write(temp, inputSize, inputMtime);
+            Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException cleanup) {
+                e.addSuppressed(cleanup);
+            }
+            throw e;
+        }
+    }
+
+    private void write(Path file, long inputSize, long inputMtime) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file), IO_BUFFER_BYTES))) {
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(inputSize);
+            out.writeLong(inputMtime);
+            out.writeInt(ROWS_PER_ENTRY);
+            out.writeLong(dataStart);
+            out.writeBoolean(sorted);
+            out.writeLong(rowCount);
+            out.writeInt(entryOffsets.length);
+            for (int i = 0; i < entryOffsets.length; i++) {
+                out.writeLong(entrySeconds[i]);
+                out.writeInt(entryNanos[i]);
+                out.writeLong(entryOffsets[i]);
+            }
+        }
+    }
+
+    /** The index in {@code sidecar}, or null if it is unreadable or for another version of the input. */
+    private static TimestampIndex load(Path sidecar, long inputSize, long inputMtime) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(sidecar), IO_BUFFER_BYTES))) {
+            if (in.readLong() != MAGIC || in.readInt() != VERSION
+                    || in.readLong() != inputSize || in.readLong() != inputMtime
+                    || in.readInt() != ROWS_PER_ENTRY) {
+                return null;
+            }
+            long dataStart = in.readLong();
+            boolean sorted = in.readBoolean();
+            long rowCount = in.readLong();
+            int size = in.readInt();
+            long[] seconds = new long[size];
+            int[] nanos = new int[size];
+            long[] offsets = new long[size];
+            for (int i = 0; i < size; i++) {
+                seconds[i] = in.readLong();
+                nanos[i] = in.readInt();
+                offsets[i] = in.readLong();
+            }
+            return new TimestampIndex(dataStart, sorted, rowCount, seconds, nanos, offsets);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static final class Builder implements TimestampScanner.LineSink {
+        long[] seconds = new long[64];
+        int[] nanos = new int[64];
+        long[] offsets = new long[64];
+        int size;
+        long rows;
+        boolean sorted = true;
+        private long previousSecond = Long.MIN_VALUE;
+        private int previousNano;
+
+        @Override
+        public void line(long epochSecond, int nano, long lineOffset) {
+            if (epochSecond < previousSecond || (epochSecond == previousSecond && nano < previousNano)) {
+                sorted = false;
+            }
+            previousSecond = epochSecond;
+            previousNano = nano;
+            if (rows++ % ROWS_PER_ENTRY != 0) return;
+
+            if (size == offsets.length) {
+                seconds = Arrays.copyOf(seconds, size * 2);
+                nanos = Arrays.copyOf(nanos, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            seconds[size] = epochSecond;
+            nanos[size] = nano;
+            offsets[size++] = lineOffset;
+        }
+    }
+}
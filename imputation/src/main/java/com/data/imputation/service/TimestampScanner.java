@@ -0,0 +1,164 @@
+package com.data.imputation.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Byte-level pass over a CSV input that decodes only the timestamp cell of each
+ * data line; the rest of a line is skipped over looking for its newline. The
+ * usual {@code 2025-01-01T00:00:00[.fff]Z} form is decoded from the bytes
+ * directly, anything else goes through {@link Instant#parse}.
+ */
+final class TimestampScanner {
+
+    /** Receives each non-blank data line in file order. */
+    @FunctionalInterface
+    interface LineSink {
+        void line(long epochSecond, int nano, long lineOffset);
+    }
+
+    private static final int IO_BUFFER_BYTES = 256 * 1024;
+
+    private static final int[] DAYS_IN_MONTH = {31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    // result of the last fast decode
+    private long seconds;
+    private int nanos;
+
+    private TimestampScanner() {
+    }
+
+    /** Feeds every data line to {@code sink} and returns the offset of the first one. */
+    static long scan(Path input, LineSink sink) throws IOException {
+        return new TimestampScanner().run(input, sink);
+    }
+
+    private long run(Path input, LineSink sink) throws IOException {
+        long dataStart = -1;
+        byte[] cell = new byte[64];
+        int cellLength = 0;
+        boolean inCell = true;
+        boolean blank = true;
+        long lineStart = 0;
+        long offset = 0;
+
+        try (InputStream in = Files.newInputStream(input)) {
+            byte[] buffer = new byte[IO_BUFFER_BYTES];
+            while (true) {
+                int n = in.read(buffer);
+                // a last line without a newline is ended by a virtual one
+                boolean eof = n < 0;
+                if (eof) {
+                    if (lineStart == offset) break;
+                    buffer[0] = '\n';
+                    n = 1;
+                }
+                for (int i = 0; i < n; i++, offset++) {
+                    byte b = buffer[i];
+                    if (b == '\n') {
+                        if (dataStart < 0) {
+                            dataStart = offset + 1;
+                        } else if (!blank) {
+                            decode(cell, cellLength);
+                            sink.line(seconds, nanos, lineStart);
+                        }
+                        lineStart = offset + 1;
+                        cellLength = 0;
+                        inCell = true;
+                        blank = true;
+                        continue;
+                    }
+                    if (b != ' ' && b != '\t' && b != '\r') blank = false;
+                    if (!inCell) continue;
+                    if (b == ',') {
+                        inCell = false;
+                    } else {
+                        if (cellLength == cell.length) cell = Arrays.copyOf(cell, cellLength * 2);
+                        cell[cellLength++] = b;
+                    }
+                }
+                if (eof) break;
+            }
+        }
+        if (dataStart < 0) {
+            throw new IllegalArgumentException("CSV file is empty: " + input);
+        }
+        return dataStart;
+    }
+
+    private void decode(byte[] cell, int length) {
+        int from = 0;
+        int to = length;
+        while (from < to && cell[from] <= ' ') from++;
+        while (to > from && cell[to - 1] <= ' ') to--;
+        if (!decodeIso(cell, from, to)) {
+            Instant instant = Instant.parse(new String(cell, from, to - from, StandardCharsets.ISO_8859_1));
+            seconds = instant.getEpochSecond();
+            nanos = instant.getNano();
+        }
+    }
+
+    /** {@code yyyy-MM-ddTHH:mm:ss[.f{1,9}]Z}; false for anything else, including invalid dates. */
+    private boolean decodeIso(byte[] c, int from, int to) {
+        if (to - from < 20 || c[to - 1] != 'Z') return false;
+        int p = from;
+        if (c[p + 4] != '-' || c[p + 7] != '-' || c[p + 10] != 'T' || c[p + 13] != ':' || c[p + 16] != ':') {
+            return false;
+        }
+        int year = digits(c, p, 4);
+        int month = digits(c, p + 5, 2);
+        int day = digits(c, p + 8, 2);
+        int hour = digits(c, p + 11, 2);
+        int minute = digits(c, p + 14, 2);
+        int second = digits(c, p + 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > DAYS_IN_MONTH[month - 1]
+                || hour > 23 || minute > 59 || second > 59) {
+            return false;
+        }
+        if (month == 2 && day == 29 && !isLeap(year)) return false;
+
+        int fraction = 0;
+        int q = p + 19;
+        if (q < to - 1) {
+            int fractionDigits = to - 1 - q - 1;
+            if (c[q] != '.' || fractionDigits < 1 || fractionDigits > 9) return false;
+            fraction = digits(c, q + 1, fractionDigits);
+            if (fraction < 0) return false;
+            for (int i = fractionDigits; i < 9; i++) fraction *= 10;
+        }
+
+        seconds = epochDay(year, month, day) * 86_400L + hour * 3600L + minute * 60L + second;
+        nanos = fraction;
+        return true;
+    }
+
+    /** Decimal value of {@code count} digits, or -1 if one is not a digit. */
+    private static int digits(byte[] c, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int d = c[i] - '0';
+            if (d < 0 || d > 9) return -1;
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    private static boolean isLeap(int year) {
+        return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+    }
+
+    // days since 1970-01-01 of a proleptic Gregorian date
+    private static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+}
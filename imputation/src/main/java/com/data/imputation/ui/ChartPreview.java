@@ -0,0 +1,194 @@
+package com.data.imputation.ui;
+
+import com.data.imputation.service.DeltaPatch;
+
+import javax.swing.*;
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Window charting one value column of a written output, original against
+ * imputed cells, through a {@link SeriesChartPanel}. A column is read from the
+ * file and reduced into its {@link MinMaxPyramid}s on a worker thread when it is
+ * chosen; only that column is held, as floats, so a 10M-row column takes about
+ * 40 MB.
+ */
+final class ChartPreview {
+
+    private ChartPreview() {
+    }
+
+    /** Opens the chart; call on the EDT. {@code imputed} may be null when not known. */
+    static void open(Path output, DeltaPatch.ImputedCells imputed) {
+        Font baseFont = new Font(DesktopUi.BASE_FONT_FAMILY, Font.PLAIN, 12);
+
+        SeriesChartPanel chart = new SeriesChartPanel();
+        JComboBox<String> columnBox = new JComboBox<>();
+        columnBox.setFont(baseFont);
+        columnBox.setEnabled(false);
+
+        JLabel statusLabel = new JLabel(" ");
+        statusLabel.setForeground(DesktopUi.FG_MUTED);
+        statusLabel.setFont(baseFont.deriveFont(11f));
+
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 6));
+        top.setBackground(DesktopUi.BG_MAIN);
+        JLabel columnLabel = new JLabel("Column");
+        columnLabel.setForeground(DesktopUi.FG_PRIMARY);
+        columnLabel.setFont(baseFont);
+        top.add(columnLabel);
+        top.add(columnBox);
+        top.add(statusLabel);
+
+        JFrame frame = new JFrame("Chart - " + output.getFileName());
+        frame.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        frame.getContentPane().setBackground(DesktopUi.BG_MAIN);
+        frame.setLayout(new BorderLayout());
+        frame.add(top, BorderLayout.NORTH);
+        frame.add(chart, BorderLayout.CENTER);
+        frame.setSize(1000, 500);
+        frame.setLocationByPlatform(true);
+
+        Loader loader = new Loader(output, imputed, chart, statusLabel);
+        columnBox.addActionListener(e -> {
+            int selected = columnBox.getSelectedIndex();
+            if (selected >= 0) loader.load(selected);
+        });
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                loader.cancel();
+            }
+        });
+
+        new SwingWorker<String[], Void>() {
+            @Override
+            protected String[] doInBackground() throws IOException {
+                try (BufferedReader br = Files.newBufferedReader(output)) {
+                    String header = br.readLine();
+                    if (header == null) return new String[0];
+                    String[] names = header.split(",", -1);
+                    return Arrays.copyOfRange(names, 1, names.length);
+                }
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    String[] columns = get();
+                    if (columns.length == 0) {
+                        chart.setMessage("No value columns");
+                        return;
+                    }
+                    for (String column : columns) columnBox.addItem(column.strip());
+                    columnBox.setEnabled(true);
+                } catch (Exception ex) {
+                    chart.setMessage("Could not read " + output.getFileName() + ": " + ex.getMessage());
+                }
+            }
+        }.execute();
+
+        frame.setVisible(true);
+    }
+
+    /** Loads one column at a time; choosing another cancels the load still running. */
+    private static final class Loader {
+        private final Path output;
+        private final DeltaPatch.ImputedCells imputed;
+        private final SeriesChartPanel chart;
+        private final JLabel statusLabel;
+        private SwingWorker<MinMaxPyramid[], Void> current;
+
+        Loader(Path output, DeltaPatch.ImputedCells imputed, SeriesChartPanel chart, JLabel statusLabel) {
+            this.output = output;
+            this.imputed = imputed;
+            this.chart = chart;
+            this.statusLabel = statusLabel;
+        }
+
+        void cancel() {
+            if (current != null) current.cancel(true);
+        }
+
+        void load(int column) {
+            cancel();
+            chart.setMessage("Loading...");
+            statusLabel.setText(" ");
+            long start = System.nanoTime();
+            SwingWorker<MinMaxPyramid[], Void> worker = new SwingWorker<>() {
+                @Override
+                protected MinMaxPyramid[] doInBackground() throws IOException {
+                    Values values = readColumn(output, column + 1);
+                    BitSet filled = new BitSet(values.size);
+                    if (imputed != null) imputed.markRows(column, filled);
+                    return new MinMaxPyramid[]{
+                            new MinMaxPyramid(values.data, values.size, filled, false),
+                            new MinMaxPyramid(values.data, values.size, filled, true)
+                    };
+                }
+
+                @Override
+                protected void done() {
+                    if (isCancelled()) return;
+                    try {
+                        MinMaxPyramid[] series = get();
+                        chart.setSeries(series[0], series[1]);
+                        statusLabel.setText(String.format("%,d rows loaded in %.0f ms - wheel to zoom, drag to pan",
+                                series[0].size(), (System.nanoTime() - start) / 1e6));
+                    } catch (Exception ex) {
+                        chart.setMessage("Could not read " + output.getFileName() + ": " + ex.getMessage());
+                    }
+                }
+            };
+            current = worker;
+            worker.execute();
+        }
+    }
+
+    private record Values(float[] data, int size) {
+    }
+
+    /** Cell {@code cell} of every data row, up to the stats footer; blank or unparsable cells are NaN. */
+    private static Values readColumn(Path output, int cell) throws IOException {
+        float[] data = new float[1 << 16];
+        int size = 0;
+        try (BufferedReader br = Files.newBufferedReader(output)) {
+            br.readLine();
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.startsWith("Average,")) break;
+                if ((size & 0xFFFF) == 0 && Thread.currentThread().isInterrupted()) {
+                    throw new IOException("cancelled");
+                }
+                if (size == data.length) data = Arrays.copyOf(data, size * 2);
+                data[size++] = parseCell(line, cell);
+            }
+        }
+        return new Values(data, size);
+    }
+
+    private static float parseCell(String line, int cell) {
+        int from = 0;
+        for (int i = 0; i < cell; i++) {
+            from = line.indexOf(',', from) + 1;
+            if (from == 0) return Float.NaN;
+        }
+        int to = line.indexOf(',', from);
+        if (to < 0) to = line.length();
+        if (to == from) return Float.NaN;
+        try {
+            return Float.parseFloat(line.substring(from, to));
+        } catch (NumberFormatException e) {
+            return Float.NaN;
+        }
+    }
+}
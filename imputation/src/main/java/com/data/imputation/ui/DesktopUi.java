@@ -1,7 +1,16 @@
 package com.data.imputation.ui;
 
+import com.data.imputation.metrics.JobMetrics;
+import com.data.imputation.model.ProcessingOptions;
+import com.data.imputation.service.DeltaPatch;
+import com.data.imputation.service.GapProfile;
+import com.data.imputation.service.LongFormatService;
 import com.data.imputation.service.S3Service;
 import com.data.imputation.service.TimeSeriesInterpolationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
 import javax.swing.*;
@@ -30,17 +39,27 @@ import java.awt.dnd.DropTargetDropEvent;
 import java.awt.geom.RoundRectangle2D;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.File;
+import java.lang.management.ManagementFactory;
 import java.net.URL;
 import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Component
 public class DesktopUi {
 
+    private static final Logger log = LoggerFactory.getLogger(DesktopUi.class);
+
     private final TimeSeriesInterpolationService interpolationService;
+    private final LongFormatService longFormatService;
     private final S3Service s3Service;
+    private final ApplicationEventPublisher events;
 
     private JTextField suffixField;
     private JLabel exampleLabel;
@@ -49,35 +68,44 @@ public class DesktopUi {
     private JPanel statusPanel;
     private JLabel statusLabel;
     private JLabel statusFileLabel;
+    private JLabel statusProfileLabel;
     private JProgressBar statusProgressBar;
     private JLabel cancelLabel;
+    private JLabel timingsLinkLabel;
+    private JLabel previewLinkLabel;
+    private JLabel chartLinkLabel;
+    private ProcessingResult lastResult;
+    private JLabel statusTimingsLabel;
     private SwingWorker<ProcessingResult, Void> currentWorker;
 
     // Neutral dark grey theme
-    private static final Color BG_MAIN      = new Color(12, 12, 14);   // window background
-    private static final Color BG_PANEL     = new Color(22, 22, 24);   // top panel
+    static final Color BG_MAIN      = new Color(12, 12, 14);   // window background
+    static final Color BG_PANEL     = new Color(22, 22, 24);   // top panel
     private static final Color BG_INPUT     = new Color(32, 32, 36);   // text field / surfaces
 
-    private static final Color FG_PRIMARY   = new Color(232, 232, 235); // main text
-    private static final Color FG_MUTED     = new Color(140, 140, 146); // secondary text
+    static final Color FG_PRIMARY   = new Color(232, 232, 235); // main text
+    static final Color FG_MUTED     = new Color(140, 140, 146); // secondary text
 
     // buttons: white, light grey hover, black text
     private static final Color BTN_BG       = new Color(250, 250, 250);
     private static final Color BTN_BG_HOVER = new Color(230, 230, 230);
     private static final Color BTN_TEXT     = Color.BLACK;
 
-    private static final Color BORDER_SOFT  = new Color(54, 54, 60);   // subtle outlines
+    static final Color BORDER_SOFT  = new Color(54, 54, 60);   // subtle outlines
     private static final Color DROP_BORDER  = new Color(70, 70, 78);   // dashed box border
 
-    private static final String BASE_FONT_FAMILY = "SansSerif";
-
-    // simple limit hint for UI
-    private static final int MAX_FILE_MB = 10;
+    static final String BASE_FONT_FAMILY = "SansSerif";
 
-    public DesktopUi(TimeSeriesInterpolationService interpolationService,
-                     S3Service s3Service) {
+    // Services are injected as lazy proxies so the window does not wait for them;
+    // they are built on the first drop, or by the warm-up once the window is open.
+    public DesktopUi(@Lazy TimeSeriesInterpolationService interpolationService,
+                     @Lazy LongFormatService longFormatService,
+                     @Lazy S3Service s3Service,
+                     ApplicationEventPublisher events) {
         this.interpolationService = interpolationService;
+        this.longFormatService = longFormatService;
         this.s3Service = s3Service;
+        this.events = events;
     }
 
     public void show() {
@@ -188,7 +216,8 @@ public class DesktopUi {
             chooseFileButton.setFont(baseFont.deriveFont(Font.BOLD, 12f));
             styleWhiteButton(chooseFileButton);
 
-            JLabel limitLabel = new JLabel("(up to " + MAX_FILE_MB + "MB)");
+            // no size limit: files too large for the heap run compressed or off-heap
+            JLabel limitLabel = new JLabel("(large files switch to compact storage)");
             limitLabel.setFont(baseFont.deriveFont(11f));
             limitLabel.setForeground(FG_MUTED);
 
@@ -217,7 +246,7 @@ public class DesktopUi {
             gbc.gridy = 3;
             dropArea.add(chooseFileButton, gbc);
 
-            // "(up to X MB)"
+            // storage hint
             gbc.gridy = 4;
             dropArea.add(limitLabel, gbc);
 
@@ -237,11 +266,12 @@ public class DesktopUi {
             chooseFileButton.addActionListener(e -> {
                 JFileChooser chooser = new JFileChooser();
                 chooser.setDialogTitle("Choose CSV file");
+                chooser.setMultiSelectionEnabled(true);
                 int result = chooser.showOpenDialog(frame);
                 if (result == JFileChooser.APPROVE_OPTION) {
-                    File selected = chooser.getSelectedFile();
-                    if (selected != null) {
-                        handleFile(selected.toPath());
+                    File[] selected = chooser.getSelectedFiles();
+                    if (selected.length > 0) {
+                        handleFiles(Arrays.stream(selected).map(File::toPath).toList());
                     }
                 }
             });
@@ -259,11 +289,25 @@ public class DesktopUi {
             statusFileLabel.setForeground(FG_MUTED);
             statusFileLabel.setFont(baseFont.deriveFont(11f));
 
+            // pre-flight gap profile, shown while the job runs
+            statusProfileLabel = new JLabel("");
+            statusProfileLabel.setForeground(FG_MUTED);
+            statusProfileLabel.setFont(baseFont.deriveFont(10f));
+            statusProfileLabel.setVisible(false);
+
+            // per-job stage timings, shown on demand via the TIMINGS link
+            statusTimingsLabel = new JLabel("");
+            statusTimingsLabel.setForeground(FG_MUTED);
+            statusTimingsLabel.setFont(baseFont.deriveFont(10f));
+            statusTimingsLabel.setVisible(false);
+
             JPanel labelStack = new JPanel();
             labelStack.setLayout(new BoxLayout(labelStack, BoxLayout.Y_AXIS));
             labelStack.setOpaque(false);
             labelStack.add(statusLabel);
             labelStack.add(statusFileLabel);
+            labelStack.add(statusProfileLabel);
+            labelStack.add(statusTimingsLabel);
 
             statusProgressBar = new JProgressBar();
             statusProgressBar.setIndeterminate(false);
@@ -284,11 +328,62 @@ public class DesktopUi {
                 }
             });
 
+            timingsLinkLabel = new JLabel("TIMINGS");
+            timingsLinkLabel.setForeground(new Color(90, 150, 255));
+            timingsLinkLabel.setFont(baseFont.deriveFont(Font.BOLD, 11f));
+            timingsLinkLabel.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+            timingsLinkLabel.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    statusTimingsLabel.setVisible(!statusTimingsLabel.isVisible());
+                    statusPanel.revalidate();
+                }
+            });
+
+            // pages through the last output, with the imputed cells highlighted
+            previewLinkLabel = new JLabel("PREVIEW");
+            previewLinkLabel.setForeground(new Color(90, 150, 255));
+            previewLinkLabel.setFont(baseFont.deriveFont(Font.BOLD, 11f));
+            previewLinkLabel.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+            previewLinkLabel.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    if (lastResult != null && lastResult.outputPath != null) {
+                        OutputPreview.open(lastResult.outputPath, lastResult.imputed);
+                    }
+                }
+            });
+
+            // charts a column of the last output, original against imputed
+            chartLinkLabel = new JLabel("CHART");
+            chartLinkLabel.setForeground(new Color(90, 150, 255));
+            chartLinkLabel.setFont(baseFont.deriveFont(Font.BOLD, 11f));
+            chartLinkLabel.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+            chartLinkLabel.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    if (lastResult != null && lastResult.outputPath != null) {
+                        ChartPreview.open(lastResult.outputPath, lastResult.imputed);
+                    }
+                }
+            });
+
+            JPanel actionStack = new JPanel();
+            actionStack.setLayout(new BoxLayout(actionStack, BoxLayout.Y_AXIS));
+            actionStack.setOpaque(false);
+            actionStack.add(cancelLabel);
+            actionStack.add(timingsLinkLabel);
+            actionStack.add(previewLinkLabel);
+            actionStack.add(chartLinkLabel);
+
             statusPanel.add(labelStack, BorderLayout.WEST);
             statusPanel.add(statusProgressBar, BorderLayout.CENTER);
-            statusPanel.add(cancelLabel, BorderLayout.EAST);
+            statusPanel.add(actionStack, BorderLayout.EAST);
             statusPanel.setVisible(false);
             cancelLabel.setVisible(false);   // start hidden
+            timingsLinkLabel.setVisible(false);
+            previewLinkLabel.setVisible(false);
+            chartLinkLabel.setVisible(false);
 
             // wrap bottom area: drop area + status panel
             JPanel dropWrapper = new JPanel(new BorderLayout());
@@ -301,10 +396,35 @@ public class DesktopUi {
             frame.getContentPane().add(separator, BorderLayout.CENTER);
             frame.getContentPane().add(dropWrapper, BorderLayout.SOUTH);
 
+            frame.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowOpened(WindowEvent e) {
+                    onFirstWindowShown();
+                }
+            });
+
             frame.setVisible(true);
         });
     }
 
+    private void onFirstWindowShown() {
+        events.publishEvent(new FirstWindowShownEvent(this, ManagementFactory.getRuntimeMXBean().getUptime()));
+
+        Thread warmUp = new Thread(() -> {
+            try {
+                // touching the lazy proxies builds the services (and metrics registry) off the EDT
+                interpolationService.newJobMetrics(Path.of("warm-up"));
+                s3Service.warmUp();
+            } catch (Exception e) {
+                // missing credentials etc. surface again on the first upload
+                log.warn("Service warm-up failed", e);
+            }
+        }, "service-warm-up");
+        warmUp.setDaemon(true);
+        warmUp.setPriority(Thread.MIN_PRIORITY);
+        warmUp.start();
+    }
+
     // ---------- styling helpers ----------
 
     private void installBaseLookAndFeel() {
@@ -418,7 +538,8 @@ public class DesktopUi {
 
     // ---------- processing + status ----------
 
-    private void handleFile(Path inputPath) {
+    /** One file is repaired on its own; several are joined on timestamp first. */
+    private void handleFiles(List<Path> inputPaths) {
         if (currentWorker != null && !currentWorker.isDone()) {
             // already processing; ignore additional requests
             return;
@@ -428,12 +549,19 @@ public class DesktopUi {
 
         statusPanel.setVisible(true);
         statusLabel.setText("Processing file and uploading to S3...");
-        statusFileLabel.setText(inputPath.getFileName().toString());
+        statusFileLabel.setText(inputPaths.stream()
+                .map(p -> p.getFileName().toString())
+                .collect(Collectors.joining(", ")));
         statusProgressBar.setIndeterminate(true);
         statusProgressBar.setVisible(true);
         cancelLabel.setEnabled(true);
         cancelLabel.setForeground(new Color(90, 150, 255));
         cancelLabel.setVisible(true);
+        timingsLinkLabel.setVisible(false);
+        statusTimingsLabel.setVisible(false);
+        statusProfileLabel.setVisible(false);
+        previewLinkLabel.setVisible(false);
+        chartLinkLabel.setVisible(false);
 
         SwingWorker<ProcessingResult, Void> worker = new SwingWorker<>() {
             @Override
@@ -441,25 +569,43 @@ public class DesktopUi {
                 Path outputPath = null;
                 String s3Url = null;
                 Exception uploadError = null;
+                JobMetrics metrics = interpolationService.newJobMetrics(inputPaths);
+                DeltaPatch.ImputedCells imputed = null;
 
                 try {
-                    // 1) Clean + interpolate
-                    outputPath = interpolationService.processFile(inputPath, suffix);
+                    // 1) Clean + interpolate; a cancelled or crashed run of the
+                    //    same file resumes from its checkpoint. A long-format file
+                    //    (series_id,timestamp,value) is repaired series by series.
+                    if (inputPaths.size() == 1 && LongFormatService.isLongFormat(inputPaths.get(0))) {
+                        outputPath = longFormatService.processFile(
+                                inputPaths.get(0), ProcessingOptions.withSuffix(suffix), metrics);
+                    } else {
+                        // a timestamp-only scan, so the gaps are known before the full run
+                        List<GapProfile> profiles = new ArrayList<>(inputPaths.size());
+                        for (Path input : inputPaths) {
+                            profiles.add(GapProfile.of(input));
+                        }
+                        SwingUtilities.invokeLater(() -> showProfiles(inputPaths, profiles));
+
+                        imputed = new DeltaPatch.ImputedCells();
+                        outputPath = interpolationService.processFiles(
+                                inputPaths, ProcessingOptions.withSuffix(suffix).checkpoint(true), metrics, imputed);
+                    }
 
                     // 2) Upload to S3
-                    s3Url = s3Service.uploadFile(outputPath);
+                    s3Url = s3Service.uploadFile(outputPath, metrics);
                 } catch (Exception e) {
                     uploadError = e;
                 }
 
-                return new ProcessingResult(outputPath, s3Url, uploadError);
+                return new ProcessingResult(outputPath, s3Url, uploadError, metrics, imputed);
             }
 
             @Override
             protected void done() {
                 try {
                     if (isCancelled()) {
-                        statusLabel.setText("Cancelled.");
+                        statusLabel.setText("Cancelled. Drop the same file again to resume.");
                         statusProgressBar.setVisible(false);
                         cancelLabel.setEnabled(false);
                         cancelLabel.setForeground(FG_MUTED);
@@ -475,12 +621,17 @@ public class DesktopUi {
                     cancelLabel.setEnabled(false);
                     cancelLabel.setForeground(FG_MUTED);
                     cancelLabel.setVisible(false);
+                    showTimings(result.metrics);
 
                     if (result.outputPath == null) {
                         statusLabel.setText("Error: no output file produced.");
                         statusFileLabel.setText("");
                         return;
                     }
+                    // long-format output has no per-cell positions to highlight, so no preview
+                    lastResult = result;
+                    previewLinkLabel.setVisible(result.imputed != null);
+                    chartLinkLabel.setVisible(result.imputed != null);
 
                     if (result.uploadError == null && result.s3Url != null) {
                         statusLabel.setText("File clean complete. Upload complete.");
@@ -514,6 +665,31 @@ public class DesktopUi {
         worker.execute();
     }
 
+    private void showProfiles(List<Path> inputPaths, List<GapProfile> profiles) {
+        StringBuilder compact = new StringBuilder();
+        StringBuilder full = new StringBuilder();
+        for (int i = 0; i < profiles.size(); i++) {
+            String name = inputPaths.get(i).getFileName().toString();
+            if (profiles.size() > 1) {
+                compact.append(i > 0 ? " | " : "").append(name).append(": ");
+                full.append(name).append('\n');
+            }
+            compact.append(profiles.get(i).compactSummary());
+            full.append(profiles.get(i).summary());
+        }
+        statusProfileLabel.setText(compact.toString());
+        statusProfileLabel.setToolTipText("<html><pre>" + escapeHtml(full.toString()) + "</pre></html>");
+        statusProfileLabel.setVisible(true);
+        statusPanel.revalidate();
+    }
+
+    private void showTimings(JobMetrics metrics) {
+        if (metrics == null) return;
+        statusTimingsLabel.setText(metrics.compactSummary());
+        statusTimingsLabel.setToolTipText("<html><pre>" + escapeHtml(metrics.summary()) + "</pre></html>");
+        timingsLinkLabel.setVisible(true);
+    }
+
     private void cancelCurrentWorker() {
         if (currentWorker != null && !currentWorker.isDone()) {
             currentWorker.cancel(true);
@@ -532,8 +708,7 @@ public class DesktopUi {
                         .getTransferData(DataFlavor.javaFileListFlavor);
 
                 if (droppedFiles.isEmpty()) return;
-                File file = droppedFiles.get(0);
-                handleFile(file.toPath());
+                handleFiles(droppedFiles.stream().map(File::toPath).toList());
             } catch (Exception e) {
                 e.printStackTrace();
                 statusPanel.setVisible(true);
@@ -549,11 +724,16 @@ public class DesktopUi {
         final Path outputPath;
         final String s3Url;
         final Exception uploadError;
+        final JobMetrics metrics;
+        final DeltaPatch.ImputedCells imputed;
 
-        ProcessingResult(Path outputPath, String s3Url, Exception uploadError) {
+        ProcessingResult(Path outputPath, String s3Url, Exception uploadError, JobMetrics metrics,
+                         DeltaPatch.ImputedCells imputed) {
             this.outputPath = outputPath;
             this.s3Url = s3Url;
             this.uploadError = uploadError;
+            this.metrics = metrics;
+            this.imputed = imputed;
         }
     }
 
@@ -0,0 +1,21 @@
+package com.data.imputation.ui;
+
+import org.springframework.context.ApplicationEvent;
+
+/** Published once the main window is first on screen, e.g. for startup measurements. */
+public class FirstWindowShownEvent extends ApplicationEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long uptimeMillis;
+
+    public FirstWindowShownEvent(Object source, long uptimeMillis) {
+        super(source);
+        this.uptimeMillis = uptimeMillis;
+    }
+
+    /** JVM start to window shown. */
+    public long getUptimeMillis() {
+        return uptimeMillis;
+    }
+}
@@ -0,0 +1,132 @@
+package com.data.imputation.ui;
+
+import java.util.BitSet;
+
+/**
+ * Min/max reductions of one series at every zoom level, so it can be drawn at
+ * any range with one bucket per pixel column. Level {@code k} holds the min and
+ * max of each block of {@code BASE_BLOCK << k} points; a pixel bucket combines
+ * at most a few blocks of the level just below its size, and buckets smaller
+ * than a base block are taken from the values directly. Bucket edges snap
+ * outwards to block edges, which does not show at one bucket per pixel.
+ *
+ * Only the points whose bit in {@code mask} equals {@code selected} take part
+ * (e.g. the imputed or the original cells of a column); blocks and buckets
+ * without such a point come out as NaN, as do NaN values.
+ */
+final class MinMaxPyramid {
+
+    static final int BASE_BLOCK = 64;
+
+    private final float[] values;
+    private final int size;
+    private final BitSet mask;
+    private final boolean selected;
+    private final float[][] mins;
+    private final float[][] maxs;
+
+    MinMaxPyramid(float[] values, int size, BitSet mask, boolean selected) {
+        this.values = values;
+        this.size = size;
+        this.mask = mask;
+        this.selected = selected;
+
+        int levels = 1;
+        for (long block = BASE_BLOCK; block < size; block <<= 1) levels++;
+        mins = new float[levels][];
+        maxs = new float[levels][];
+
+        int blocks = (size + BASE_BLOCK - 1) / BASE_BLOCK;
+        mins[0] = new float[blocks];
+        maxs[0] = new float[blocks];
+        for (int b = 0; b < blocks; b++) {
+            float min = Float.NaN;
+            float max = Float.NaN;
+            int end = Math.min(size, (b + 1) * BASE_BLOCK);
+            for (int i = b * BASE_BLOCK; i < end; i++) {
+                float v = value(i);
+                if (v != v) continue;
+                if (!(v >= min)) min = v;
+                if (!(v <= max)) max = v;
+            }
+            mins[0][b] = min;
+            maxs[0][b] = max;
+        }
+        for (int level = 1; level < levels; level++) {
+            float[] lowerMin = mins[level - 1];
+            float[] lowerMax = maxs[level - 1];
+            int count = (lowerMin.length + 1) / 2;
+            mins[level] = new float[count];
+            maxs[level] = new float[count];
+            for (int b = 0; b < count; b++) {
+                int second = Math.min(2 * b + 1, lowerMin.length - 1);
+                mins[level][b] = min(lowerMin[2 * b], lowerMin[second]);
+                maxs[level][b] = max(lowerMax[2 * b], lowerMax[second]);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** The point at {@code index}, or NaN when it is not part of this series. */
+    float value(int index) {
+        return mask.get(index) == selected ? values[index] : Float.NaN;
+    }
+
+    /** Splits {@code [from, to)} into {@code min.length} buckets and writes each one's min and max. */
+    void reduce(double from, double to, float[] min, float[] max) {
+        int buckets = min.length;
+        double span = (to - from) / buckets;
+        for (int x = 0; x < buckets; x++) {
+            int start = (int) Math.max(0, Math.floor(from + span * x));
+            int end = (int) Math.min(size, Math.ceil(from + span * (x + 1)));
+            if (end <= start) {
+                min[x] = Float.NaN;
+                max[x] = Float.NaN;
+            } else if (end - start < BASE_BLOCK) {
+                reduceValues(start, end, min, max, x);
+            } else {
+                reduceBlocks(start, end, min, max, x);
+            }
+        }
+    }
+
+    private void reduceValues(int start, int end, float[] min, float[] max, int x) {
+        float lo = Float.NaN;
+        float hi = Float.NaN;
+        for (int i = start; i < end; i++) {
+            float v = value(i);
+            if (v != v) continue;
+            if (!(v >= lo)) lo = v;
+            if (!(v <= hi)) hi = v;
+        }
+        min[x] = lo;
+        max[x] = hi;
+    }
+
+    private void reduceBlocks(int start, int end, float[] min, float[] max, int x) {
+        // largest level whose blocks still fit in the bucket: two to four blocks per bucket
+        int level = 31 - Integer.numberOfLeadingZeros((end - start) / BASE_BLOCK);
+        level = Math.min(level, mins.length - 1);
+        int block = BASE_BLOCK << level;
+        float lo = Float.NaN;
+        float hi = Float.NaN;
+        for (int b = start / block; b <= (end - 1) / block; b++) {
+            lo = min(lo, mins[level][b]);
+            hi = max(hi, maxs[level][b]);
+        }
+        min[x] = lo;
+        max[x] = hi;
+    }
+
+    // NaN-skipping min and max
+    private static float min(float a, float b) {
+        return a != a ? b : (b != b || a <= b) ? a : b;
+    }
+
+    private static float max(float a, float b) {
+        return a != a ? b : (b != b || a >= b) ? a : b;
+    }
+}
@@ -0,0 +1,111 @@
+package com.data.imputation.ui;
+
+import com.data.imputation.service.DeltaPatch;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableColumn;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Font;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.nio.file.Path;
+
+/**
+ * Window that pages through a written output without loading it, through a
+ * {@link PagedCsvTableModel}; cells filled by interpolation are highlighted.
+ */
+final class OutputPreview {
+
+    private static final Color IMPUTED_BG = new Color(70, 58, 18);
+    private static final Color IMPUTED_FG = new Color(255, 214, 102);
+    private static final int TIMESTAMP_WIDTH = 180;
+
+    private OutputPreview() {
+    }
+
+    /** Opens the preview; call on the EDT. {@code imputed} may be null when not known. */
+    static void open(Path output, DeltaPatch.ImputedCells imputed) {
+        Font baseFont = new Font(DesktopUi.BASE_FONT_FAMILY, Font.PLAIN, 12);
+
+        PagedCsvTableModel model = new PagedCsvTableModel(output);
+        JTable table = new JTable(model);
+        table.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+        table.setFillsViewportHeight(true);
+        table.setFont(baseFont);
+        table.setRowHeight(20);
+        table.setBackground(DesktopUi.BG_PANEL);
+        table.setForeground(DesktopUi.FG_PRIMARY);
+        table.setGridColor(DesktopUi.BORDER_SOFT);
+        table.getTableHeader().setReorderingAllowed(false);
+        table.setDefaultRenderer(Object.class, new ImputedCellRenderer(imputed));
+
+        JLabel statusLabel = new JLabel(" ");
+        statusLabel.setForeground(DesktopUi.FG_MUTED);
+        statusLabel.setFont(baseFont.deriveFont(11f));
+        statusLabel.setBorder(BorderFactory.createEmptyBorder(4, 8, 6, 8));
+        long imputedCount = imputed != null ? imputed.size() : 0;
+        model.setScanListener(() -> {
+            statusLabel.setText(String.format("%,d rows%s%s",
+                    model.getRowCount(),
+                    model.isScanning() ? " (reading...)" : "",
+                    imputed != null ? String.format(", %,d imputed cells highlighted", imputedCount) : ""));
+            // the header arrives with the first rows; JTable has rebuilt its columns by now
+            if (table.getColumnCount() > 0) {
+                TableColumn timestamp = table.getColumnModel().getColumn(0);
+                if (timestamp.getPreferredWidth() < TIMESTAMP_WIDTH) timestamp.setPreferredWidth(TIMESTAMP_WIDTH);
+            }
+        });
+
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.getViewport().setBackground(DesktopUi.BG_PANEL);
+        scrollPane.setBorder(BorderFactory.createLineBorder(DesktopUi.BORDER_SOFT));
+
+        JFrame frame = new JFrame("Preview - " + output.getFileName());
+        frame.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        frame.getContentPane().setBackground(DesktopUi.BG_MAIN);
+        frame.setLayout(new BorderLayout());
+        frame.add(scrollPane, BorderLayout.CENTER);
+        frame.add(statusLabel, BorderLayout.SOUTH);
+        frame.setSize(900, 600);
+        frame.setLocationByPlatform(true);
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                model.close();
+            }
+        });
+
+        model.start();
+        frame.setVisible(true);
+    }
+
+    private static class ImputedCellRenderer extends DefaultTableCellRenderer {
+        private static final long serialVersionUID = 1L;
+
+        private final DeltaPatch.ImputedCells imputed;
+
+        ImputedCellRenderer(DeltaPatch.ImputedCells imputed) {
+            this.imputed = imputed;
+        }
+
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                       boolean hasFocus, int row, int column) {
+            super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+            // column 0 is the timestamp; the value columns follow in table order
+            int valueColumn = table.convertColumnIndexToModel(column) - 1;
+            boolean filled = imputed != null && imputed.isImputed(valueColumn, row);
+            if (isSelected) {
+                setBackground(table.getSelectionBackground());
+                setForeground(table.getSelectionForeground());
+            } else {
+                setBackground(filled ? IMPUTED_BG : table.getBackground());
+                setForeground(filled ? IMPUTED_FG : table.getForeground());
+            }
+            return this;
+        }
+    }
+}
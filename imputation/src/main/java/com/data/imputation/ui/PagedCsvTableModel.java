@@ -0,0 +1,260 @@
+package com.data.imputation.ui;
+
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingDeque;
+
+/**
+ * Table model over a written output CSV that holds only a few pages of rows.
+ *
+ * A scan thread reads the file once, keeping the byte offset of every
+ * {@link #PAGE_ROWS}th data row, and stops at the stats footer; rows show up in
+ * the table as it goes. Pages are read from those offsets on a loader thread
+ * when a cell of them is first painted, newest request first, and only the last
+ * {@link #CACHED_PAGES} are kept. A cell whose page is still loading reads as
+ * blank. Model state is only touched on the EDT, so painting never waits on I/O.
+ */
+class PagedCsvTableModel extends AbstractTableModel implements Closeable {
+
+    private static final long serialVersionUID = 1L;
+
+    static final int PAGE_ROWS = 256;
+    private static final int CACHED_PAGES = 32;
+
+    private static final int IO_BUFFER_BYTES = 256 * 1024;
+    // how often the scan hands newly found rows to the table
+    private static final long PUBLISH_NANOS = 100_000_000L;
+
+    private final Path file;
+
+    // EDT only
+    private String[] headers = new String[0];
+    private int rowCount;
+    private boolean scanning = true;
+    private final Map<Integer, String[][]> pages = new LinkedHashMap<>(CACHED_PAGES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, String[][]> eldest) {
+            return size() > CACHED_PAGES;
+        }
+    };
+    private final Set<Integer> requested = new HashSet<>();
+    private Runnable scanListener;
+
+    // written by the scan thread, read by the loader
+    private final Object offsetsLock = new Object();
+    private long[] pageOffsets = new long[1024];
+    private int pageCount;
+
+    private final LinkedBlockingDeque<Integer> loadQueue = new LinkedBlockingDeque<>();
+    private final Thread scanThread;
+    private final Thread loadThread;
+
+    PagedCsvTableModel(Path file) {
+        this.file = file;
+        this.scanThread = new Thread(this::scan, "preview-scan");
+        this.loadThread = new Thread(this::loadPages, "preview-load");
+        scanThread.setDaemon(true);
+        loadThread.setDaemon(true);
+    }
+
+    void start() {
+        scanThread.start();
+        loadThread.start();
+    }
+
+    /** Runs on the EDT whenever the scan publishes rows, and once more when it ends. */
+    void setScanListener(Runnable listener) {
+        this.scanListener = listener;
+    }
+
+    boolean isScanning() {
+        return scanning;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return headers.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return headers[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int page = row / PAGE_ROWS;
+        String[][] rows = pages.get(page);
+        if (rows == null) {
+            request(page);
+            return "";
+        }
+        int r = row - page * PAGE_ROWS;
+        if (r >= rows.length) return "";
+        String[] cells = rows[r];
+        return column < cells.length ? cells[column] : "";
+    }
+
+    @Override
+    public void close() {
+        scanThread.interrupt();
+        loadThread.interrupt();
+    }
+
+    // ---------- paging ----------
+
+    private void request(int page) {
+        if (!requested.add(page)) return;
+        loadQueue.offerFirst(page);
+        // pages scrolled past before their turn are dropped
+        while (loadQueue.size() > CACHED_PAGES) {
+            Integer stale = loadQueue.pollLast();
+            if (stale == null) break;
+            requested.remove(stale);
+        }
+    }
+
+    private void loadPages() {
+        try {
+            while (true) {
+                int page = loadQueue.takeFirst();
+                String[][] rows = readPage(page);
+                SwingUtilities.invokeLater(() -> {
+                    requested.remove(page);
+                    pages.put(page, rows);
+                    int first = page * PAGE_ROWS;
+                    int last = Math.min(first + rows.length, rowCount) - 1;
+                    if (last >= first) fireTableRowsUpdated(first, last);
+                });
+            }
+        } catch (InterruptedException e) {
+            // preview closed
+        }
+    }
+
+    private String[][] readPage(int page) {
+        long offset;
+        synchronized (offsetsLock) {
+            offset = pageOffsets[page];
+        }
+        String[][] rows = new String[PAGE_ROWS][];
+        int n = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(offset);
+            BufferedReader br = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+            String line;
+            while (n < PAGE_ROWS && (line = br.readLine()) != null && !isFooter(line)) {
+                rows[n++] = line.split(",", -1);
+            }
+        } catch (IOException e) {
+            // shown as an empty page; the scan reports unreadable files
+        }
+        return Arrays.copyOf(rows, n);
+    }
+
+    // ---------- scan ----------
+
+    private void scan() {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[IO_BUFFER_BYTES];
+            ByteArrayOutputStream header = new ByteArrayOutputStream();
+            boolean inHeader = true;
+            boolean atLineStart = false;
+            long offset = 0;
+            long rows = 0;
+            long lastPublish = System.nanoTime();
+            int n;
+
+            scan:
+            while ((n = in.read(buffer)) > 0) {
+                for (int i = 0; i < n; i++, offset++) {
+                    byte b = buffer[i];
+                    if (inHeader) {
+                        if (b == '\n') {
+                            publishHeader(header.toString(StandardCharsets.UTF_8).strip());
+                            inHeader = false;
+                            atLineStart = true;
+                        } else {
+                            header.write(b);
+                        }
+                        continue;
+                    }
+                    if (atLineStart) {
+                        atLineStart = false;
+                        // data rows start with their timestamp; the footer with "Average,"
+                        if (b == 'A') break scan;
+                        if (rows % PAGE_ROWS == 0) addPageOffset(offset);
+                        rows++;
+                    }
+                    if (b == '\n') atLineStart = true;
+                }
+                if (Thread.currentThread().isInterrupted()) return;
+                if (System.nanoTime() - lastPublish > PUBLISH_NANOS) {
+                    publishRows(rows, false);
+                    lastPublish = System.nanoTime();
+                }
+            }
+            publishRows(rows, true);
+        } catch (IOException e) {
+            SwingUtilities.invokeLater(() -> {
+                scanning = false;
+                if (scanListener != null) scanListener.run();
+            });
+        }
+    }
+
+    private void addPageOffset(long offset) {
+        synchronized (offsetsLock) {
+            if (pageCount == pageOffsets.length) {
+                pageOffsets = Arrays.copyOf(pageOffsets, pageCount * 2);
+            }
+            pageOffsets[pageCount++] = offset;
+        }
+    }
+
+    private void publishHeader(String line) {
+        String[] names = line.split(",", -1);
+        SwingUtilities.invokeLater(() -> {
+            headers = names;
+            fireTableStructureChanged();
+        });
+    }
+
+    private void publishRows(long rows, boolean done) {
+        int count = (int) Math.min(rows, Integer.MAX_VALUE);
+        SwingUtilities.invokeLater(() -> {
+            int old = rowCount;
+            if (count > old) {
+                rowCount = count;
+                fireTableRowsInserted(old, count - 1);
+            }
+            if (done) scanning = false;
+            if (scanListener != null) scanListener.run();
+        });
+    }
+
+    private static boolean isFooter(String line) {
+        return line.startsWith("Average,");
+    }
+}
@@ -0,0 +1,295 @@
+package com.data.imputation.ui;
+
+import javax.swing.JComponent;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+
+/**
+ * Line chart of one column, original cells in blue and imputed cells in amber,
+ * with wheel zoom around the cursor, drag to pan and double-click to reset.
+ *
+ * Each repaint reduces the visible rows to one min/max bucket per pixel column
+ * through a {@link MinMaxPyramid} per series, which costs the same at any zoom;
+ * the pyramids are built off the EDT by the caller. Once the view holds fewer
+ * rows than pixels the points are drawn as they are.
+ */
+final class SeriesChartPanel extends JComponent {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Color ORIGINAL = new Color(90, 150, 255);
+    private static final Color IMPUTED = new Color(255, 214, 102);
+    private static final Color GRID = new Color(60, 64, 72);
+
+    private static final int PAD_LEFT = 72;
+    private static final int PAD_RIGHT = 12;
+    private static final int PAD_TOP = 12;
+    private static final int PAD_BOTTOM = 24;
+    private static final double ZOOM_STEP = 1.25;
+    private static final int MIN_SPAN = 16;
+
+    private MinMaxPyramid original;
+    private MinMaxPyramid imputed;
+    private String message = "Loading...";
+
+    // visible rows, [viewFrom, viewTo)
+    private double viewFrom;
+    private double viewTo;
+
+    // the last reduction, reused while neither the view nor the width changes
+    private float[] originalMin = new float[0];
+    private float[] originalMax = new float[0];
+    private float[] imputedMin = new float[0];
+    private float[] imputedMax = new float[0];
+    private double reducedFrom = Double.NaN;
+    private double reducedTo = Double.NaN;
+    private long reduceNanos;
+
+    private int dragX;
+    private double dragFrom;
+
+    SeriesChartPanel() {
+        setOpaque(true);
+        setBackground(DesktopUi.BG_PANEL);
+        setFont(new Font(DesktopUi.BASE_FONT_FAMILY, Font.PLAIN, 11));
+
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                zoom(Math.pow(ZOOM_STEP, e.getPreciseWheelRotation()), e.getX());
+            }
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                dragX = e.getX();
+                dragFrom = viewFrom;
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                int width = plotWidth();
+                if (width <= 0) return;
+                double span = viewTo - viewFrom;
+                show(dragFrom - (e.getX() - dragX) * span / width, span);
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2 && original != null) show(0, original.size());
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+        addMouseWheelListener(mouse);
+    }
+
+    /** Shows a newly loaded column in full. */
+    void setSeries(MinMaxPyramid original, MinMaxPyramid imputed) {
+        this.original = original;
+        this.imputed = imputed;
+        this.message = original.size() == 0 ? "No rows" : null;
+        reducedFrom = Double.NaN;
+        show(0, original.size());
+    }
+
+    /** Replaces the chart with a line of text, e.g. while the next column loads. */
+    void setMessage(String message) {
+        this.original = null;
+        this.imputed = null;
+        this.message = message;
+        repaint();
+    }
+
+    private void zoom(double factor, int mouseX) {
+        if (original == null) return;
+        int width = plotWidth();
+        if (width <= 0) return;
+        double span = viewTo - viewFrom;
+        double newSpan = Math.max(MIN_SPAN, Math.min(original.size(), span * factor));
+        // keep the row under the cursor where it is
+        double anchor = Math.max(0, Math.min(1, (mouseX - PAD_LEFT) / (double) width));
+        show(viewFrom + (span - newSpan) * anchor, newSpan);
+    }
+
+    private void show(double from, double span) {
+        int size = original != null ? original.size() : 0;
+        span = Math.min(span, size);
+        viewFrom = Math.max(0, Math.min(from, size - span));
+        viewTo = viewFrom + span;
+        repaint();
+    }
+
+    private int plotWidth() {
+        return getWidth() - PAD_LEFT - PAD_RIGHT;
+    }
+
+    @Override
+    protected void paintComponent(Graphics graphics) {
+        Graphics2D g = (Graphics2D) graphics.create();
+        try {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, getWidth(), getHeight());
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setFont(getFont());
+
+            int width = plotWidth();
+            int height = getHeight() - PAD_TOP - PAD_BOTTOM;
+            if (message != null || original == null || width <= 0 || height <= 0) {
+                g.setColor(DesktopUi.FG_MUTED);
+                g.drawString(message != null ? message : "", PAD_LEFT, PAD_TOP + 16);
+                return;
+            }
+
+            reduce(width);
+            float lo = Float.NaN;
+            float hi = Float.NaN;
+            for (int x = 0; x < width; x++) {
+                lo = nanMin(lo, nanMin(originalMin[x], imputedMin[x]));
+                hi = nanMax(hi, nanMax(originalMax[x], imputedMax[x]));
+            }
+            if (lo != lo) {
+                g.setColor(DesktopUi.FG_MUTED);
+                g.drawString("No values in view", PAD_LEFT, PAD_TOP + 16);
+                return;
+            }
+            if (hi - lo < 1e-9f) {
+                lo -= 0.5f;
+                hi += 0.5f;
+            }
+            Scale y = new Scale(lo, hi, PAD_TOP, height);
+
+            drawAxes(g, width, height, lo, hi);
+            g.clipRect(PAD_LEFT, PAD_TOP, width, height);
+            if (viewTo - viewFrom <= width) {
+                g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                drawPoints(g, width, y);
+            } else {
+                drawBuckets(g, originalMin, originalMax, ORIGINAL, width, y);
+                drawBuckets(g, imputedMin, imputedMax, IMPUTED, width, y);
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private void reduce(int width) {
+        if (originalMin.length == width && reducedFrom == viewFrom && reducedTo == viewTo) return;
+        long start = System.nanoTime();
+        if (originalMin.length != width) {
+            originalMin = new float[width];
+            originalMax = new float[width];
+            imputedMin = new float[width];
+            imputedMax = new float[width];
+        }
+        original.reduce(viewFrom, viewTo, originalMin, originalMax);
+        imputed.reduce(viewFrom, viewTo, imputedMin, imputedMax);
+        reducedFrom = viewFrom;
+        reducedTo = viewTo;
+        reduceNanos = System.nanoTime() - start;
+    }
+
+    // one vertical stroke per pixel column, stretched to meet the previous one so the line stays connected
+    private static void drawBuckets(Graphics2D g, float[] min, float[] max, Color color, int width, Scale y) {
+        g.setColor(color);
+        float previousMin = Float.NaN;
+        float previousMax = Float.NaN;
+        for (int x = 0; x < width; x++) {
+            float lo = min[x];
+            float hi = max[x];
+            if (lo != lo) {
+                previousMin = previousMax = Float.NaN;
+                continue;
+            }
+            float from = previousMax == previousMax ? Math.min(lo, previousMax) : lo;
+            float to = previousMin == previousMin ? Math.max(hi, previousMin) : hi;
+            g.drawLine(PAD_LEFT + x, y.pixel(to), PAD_LEFT + x, y.pixel(from));
+            previousMin = lo;
+            previousMax = hi;
+        }
+    }
+
+    // segments touching an imputed point are amber; gaps with no value at all stay open
+    private void drawPoints(Graphics2D g, int width, Scale y) {
+        g.setStroke(new BasicStroke(1.2f));
+        double span = viewTo - viewFrom;
+        int first = (int) Math.floor(viewFrom);
+        int last = (int) Math.min(original.size() - 1, Math.ceil(viewTo));
+        boolean dots = span * 4 <= width;
+
+        int previousX = 0;
+        int previousY = 0;
+        boolean previousImputed = false;
+        boolean hasPrevious = false;
+        for (int i = first; i <= last; i++) {
+            float o = original.value(i);
+            float v = o == o ? o : imputed.value(i);
+            if (v != v) {
+                hasPrevious = false;
+                continue;
+            }
+            boolean isImputed = o != o;
+            int px = PAD_LEFT + (int) Math.round((i + 0.5 - viewFrom) * width / span);
+            int py = y.pixel(v);
+            if (hasPrevious) {
+                g.setColor(isImputed || previousImputed ? IMPUTED : ORIGINAL);
+                g.drawLine(previousX, previousY, px, py);
+            }
+            if (dots) {
+                g.setColor(isImputed ? IMPUTED : ORIGINAL);
+                g.fillOval(px - 2, py - 2, 5, 5);
+            }
+            previousX = px;
+            previousY = py;
+            previousImputed = isImputed;
+            hasPrevious = true;
+        }
+    }
+
+    private void drawAxes(Graphics2D g, int width, int height, float lo, float hi) {
+        g.setColor(GRID);
+        g.drawRect(PAD_LEFT, PAD_TOP, width, height);
+        g.drawLine(PAD_LEFT, PAD_TOP + height / 2, PAD_LEFT + width, PAD_TOP + height / 2);
+
+        g.setColor(DesktopUi.FG_MUTED);
+        int ascent = g.getFontMetrics().getAscent();
+        drawRight(g, label(hi), PAD_LEFT - 6, PAD_TOP + ascent);
+        drawRight(g, label((lo + hi) / 2), PAD_LEFT - 6, PAD_TOP + height / 2 + ascent / 2);
+        drawRight(g, label(lo), PAD_LEFT - 6, PAD_TOP + height);
+
+        int baseline = PAD_TOP + height + ascent + 4;
+        g.drawString(String.format("row %,d", (long) viewFrom), PAD_LEFT, baseline);
+        String right = String.format("row %,d of %,d   %.1f ms", (long) Math.ceil(viewTo) - 1, original.size(),
+                reduceNanos / 1e6);
+        drawRight(g, right, PAD_LEFT + width, baseline);
+    }
+
+    private static void drawRight(Graphics2D g, String text, int right, int baseline) {
+        g.drawString(text, right - g.getFontMetrics().stringWidth(text), baseline);
+    }
+
+    private static String label(float value) {
+        return String.format("%.4g", value);
+    }
+
+    private static float nanMin(float a, float b) {
+        return a != a ? b : (b != b || a <= b) ? a : b;
+    }
+
+    private static float nanMax(float a, float b) {
+        return a != a ? b : (b != b || a >= b) ? a : b;
+    }
+
+    /** Maps values to pixel rows, larger values up. */
+    private record Scale(float lo, float hi, int top, int height) {
+        int pixel(float value) {
+            return top + (int) Math.round((hi - value) / (double) (hi - lo) * (height - 1));
+        }
+    }
+}
@@ -3,7 +3,9 @@ package com.data.imputation;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// S3 settings normally come from .env; no upload happens while the context loads
+@SpringBootTest(properties = {"app.s3.bucket-name=test-bucket", "app.s3.key-prefix=test",
+		"app.s3.endpoint=http://127.0.0.1:9"})
 class ImputationApplicationTests {
 
 	@Test
@@ -0,0 +1,83 @@
+package com.data.imputation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.awt.GraphicsEnvironment;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * Measures JVM start to first visible window in a fresh process, started
+ * through {@link StartupProbe}.
+ *
+ * Opt-in, and needs a display:
+ *   mvn test -Dtest=StartupBenchmarkTest -Dbenchmark.startup=true
+ * Optional: -Dbenchmark.startup.budget-ms=4000
+ *           -Dbenchmark.startup.jvm-args="-XX:SharedArchiveFile=target/application/application.jsa"
+ */
+@EnabledIfSystemProperty(named = "benchmark.startup", matches = "true")
+class StartupBenchmarkTest {
+
+    private static final int RUNS = 5;
+
+    @Test
+    void first_window_is_shown_within_budget() throws Exception {
+        assumeFalse(GraphicsEnvironment.isHeadless(), "needs a display");
+
+        long budgetMs = Long.getLong("benchmark.startup.budget-ms", 6000);
+
+        long[] samples = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            samples[i] = launchAndMeasure();
+        }
+        Arrays.sort(samples);
+        long median = samples[RUNS / 2];
+
+        System.out.println("first window (ms): median=" + median + " runs=" + Arrays.toString(samples));
+        assertThat(median).isLessThanOrEqualTo(budgetMs);
+    }
+
+    private long launchAndMeasure() throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        String extraArgs = System.getProperty("benchmark.startup.jvm-args", "").trim();
+        if (!extraArgs.isEmpty()) {
+            command.addAll(Arrays.asList(extraArgs.split("\\s+")));
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(StartupProbe.class.getName());
+
+        ProcessBuilder pb = new ProcessBuilder(command).redirectErrorStream(true);
+        pb.environment().putIfAbsent("APP_S3_BUCKET_NAME", "startup-benchmark");
+        pb.environment().putIfAbsent("APP_S3_KEY_PREFIX", "startup-benchmark");
+        Process process = pb.start();
+
+        Long firstWindowMs = null;
+        try (BufferedReader out = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                if (line.startsWith(StartupProbe.PREFIX)) {
+                    firstWindowMs = Long.parseLong(line.substring(StartupProbe.PREFIX.length()).trim());
+                }
+            }
+        }
+
+        boolean exited = process.waitFor(60, TimeUnit.SECONDS);
+        if (!exited) process.destroyForcibly();
+
+        assertThat(firstWindowMs).as("app reported first-window time").isNotNull();
+        return firstWindowMs;
+    }
+}
@@ -0,0 +1,30 @@
+package com.data.imputation;
+
+import com.data.imputation.ui.FirstWindowShownEvent;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+
+/**
+ * Starts the desktop app as {@link ImputationApplication#main} does, prints
+ * {@code first-window-ms=<uptime>} when the window is shown and exits.
+ * Launched in a fresh JVM by {@link StartupBenchmarkTest}.
+ */
+public class StartupProbe {
+
+    static final String PREFIX = "first-window-ms=";
+
+    public static void main(String[] args) {
+        ApplicationListener<ApplicationEvent> onFirstWindow = event -> {
+            if (event instanceof FirstWindowShownEvent shown) {
+                System.out.println(PREFIX + shown.getUptimeMillis());
+                System.out.flush();
+                System.exit(0);
+            }
+        };
+        new SpringApplicationBuilder(ImputationApplication.class)
+                .headless(false)
+                .listeners(onFirstWindow)
+                .run(args);
+    }
+}
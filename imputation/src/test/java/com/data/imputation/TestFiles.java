@@ -0,0 +1,25 @@
+package com.data.imputation;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/** Test fixtures from {@code src/test/resources}. */
+public final class TestFiles {
+
+    private TestFiles() {
+    }
+
+    /** Copies a classpath resource into {@code dir} under its own file name. */
+    public static Path copyResourceToTemp(String resourceName, Path dir) throws Exception {
+        try (InputStream in = TestFiles.class.getClassLoader().getResourceAsStream(resourceName)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing resource: " + resourceName);
+            }
+            Path out = dir.resolve(Path.of(resourceName).getFileName());
+            Files.copy(in, out, StandardCopyOption.REPLACE_EXISTING);
+            return out;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.data.imputation.cli;
+
+import com.data.imputation.model.Aggregation;
+import com.data.imputation.model.ProcessingOptions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HeadlessRunnerTest {
+
+    @Test
+    void no_flags_keep_the_defaults() {
+        HeadlessRunner.Arguments parsed = HeadlessRunner.Arguments.parse("--headless");
+
+        assertThat(parsed.inputs).isEmpty();
+        assertThat(parsed.patch).isNull();
+        assertThat(parsed.upload).isFalse();
+        assertThat(parsed.timings).isFalse();
+        assertThat(parsed.profile).isFalse();
+        assertThat(parsed.options.fingerprint()).isEqualTo(new ProcessingOptions().fingerprint());
+        assertThat(parsed.options.isCheckpointing()).isFalse();
+        assertThat(parsed.options.isOffHeap()).isFalse();
+        assertThat(parsed.options.isCompressed()).isFalse();
+        assertThat(parsed.options.isSnapshot()).isFalse();
+    }
+
+    @Test
+    void input_is_absolute_and_repeats() {
+        HeadlessRunner.Arguments parsed = HeadlessRunner.Arguments.parse("--input=a.csv", "--input= dir/b.csv ");
+
+        assertThat(parsed.inputs).containsExactly(Path.of("a.csv").toAbsolutePath(),
+                Path.of("dir/b.csv").toAbsolutePath());
+    }
+
+    @Test
+    void suffix() {
+        assertThat(options("--suffix= tag ").getSuffix()).isEqualTo("tag");
+    }
+
+    @Test
+    void resample() {
+        assertThat(options("--resample=PT15M").getResampleInterval()).isEqualTo(Duration.ofMinutes(15));
+        assertThatThrownBy(() -> options("--resample=15m")).isInstanceOf(RuntimeException.class);
+        assertThatThrownBy(() -> options("--resample=PT0S")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void aggregate() {
+        ProcessingOptions options = options("--aggregate=temp:max, state:MODE");
+
+        assertThat(options.getAggregation("temp")).isEqualTo(Aggregation.MAX);
+        assertThat(options.getAggregation("state")).isEqualTo(Aggregation.MODE);
+        assertThatThrownBy(() -> options("--aggregate=temp")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> options("--aggregate= :MAX")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void precision() {
+        ProcessingOptions options = options("--precision=temp:2, pressure:0");
+
+        assertThat(options.getPrecision("temp")).isEqualTo(2);
+        assertThat(options.getPrecision("pressure")).isEqualTo(0);
+        assertThat(options.getPrecision("other")).isNull();
+        assertThatThrownBy(() -> options("--precision=temp:x")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> options("--precision=temp:16")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void apply() {
+        assertThat(HeadlessRunner.Arguments.parse("--apply=data_tag.delta.csv").patch)
+                .isEqualTo(Path.of("data_tag.delta.csv").toAbsolutePath());
+    }
+
+    @Test
+    void delta() {
+        assertThat(options("--delta").isDelta()).isTrue();
+    }
+
+    @Test
+    void columns_and_pass_through() {
+        ProcessingOptions options = options("--columns=temp*, pressure,,", "--pass-through");
+
+        assertThat(options.getColumns()).containsExactly("temp*", "pressure");
+        assertThat(options.isPassThrough()).isTrue();
+        assertThat(options("--columns=temp").isPassThrough()).isFalse();
+    }
+
+    @Test
+    void window() {
+        ProcessingOptions options = options("--window=2025-01-01T00:00:00Z/2025-01-01T06:00:00Z");
+
+        assertThat(options.getWindowStart()).isEqualTo(Instant.parse("2025-01-01T00:00:00Z"));
+        assertThat(options.getWindowEnd()).isEqualTo(Instant.parse("2025-01-01T06:00:00Z"));
+        assertThatThrownBy(() -> options("--window=2025-01-01T00:00:00Z"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> options("--window=2025-01-01T06:00:00Z/2025-01-01T00:00:00Z"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void storage_flags() {
+        assertThat(options("--off-heap").isOffHeap()).isTrue();
+        assertThat(options("--compressed").isCompressed()).isTrue();
+        assertThat(options("--snapshot").isSnapshot()).isTrue();
+    }
+
+    @Test
+    void checkpoint() {
+        assertThat(options("--checkpoint").isCheckpointing()).isTrue();
+    }
+
+    @Test
+    void upload_timings_and_profile() {
+        HeadlessRunner.Arguments parsed = HeadlessRunner.Arguments.parse("--upload", "--timings", "--profile");
+
+        assertThat(parsed.upload).isTrue();
+        assertThat(parsed.timings).isTrue();
+        assertThat(parsed.profile).isTrue();
+    }
+
+    @Test
+    void unknown_flags_are_ignored() {
+        HeadlessRunner.Arguments parsed = HeadlessRunner.Arguments.parse("--verbose", "--input=a.csv", "extra");
+
+        assertThat(parsed.inputs).hasSize(1);
+        assertThat(parsed.options.fingerprint()).isEqualTo(new ProcessingOptions().fingerprint());
+    }
+
+    @Test
+    void bad_arguments_exit_with_2_before_any_work() {
+        HeadlessRunner runner = new HeadlessRunner(null, null, null);
+
+        assertThat(exitCode(runner, "--headless")).isEqualTo(2);
+        assertThat(exitCode(runner, "--headless", "--input=a.csv", "--resample=soon")).isEqualTo(2);
+        assertThat(exitCode(runner, "--headless", "--input=a.csv", "--input=b.csv", "--apply=p.csv")).isEqualTo(2);
+    }
+
+    @Test
+    void profile_prints_the_gap_profile_without_the_services() throws Exception {
+        Path input = Files.createTempFile("runner-profile", ".csv");
+        Files.writeString(input, "timestamp,v\n"
+                + "2025-01-01T00:00:00Z,1\n2025-01-01T00:01:00Z,2\n2025-01-01T00:04:00Z,3\n");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        int exit = new HeadlessRunner(null, null, null).run(new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(new ByteArrayOutputStream()), "--headless", "--input=" + input, "--profile");
+
+        assertThat(exit).isEqualTo(0);
+        assertThat(out.toString(StandardCharsets.UTF_8))
+                .contains("rows            3")
+                .contains("gaps            1 (2 missing rows)");
+    }
+
+    private static ProcessingOptions options(String... args) {
+        return HeadlessRunner.Arguments.parse(args).options;
+    }
+
+    private static int exitCode(HeadlessRunner runner, String... args) {
+        return runner.run(new PrintStream(new ByteArrayOutputStream()), new PrintStream(new ByteArrayOutputStream()), args);
+    }
+}
@@ -0,0 +1,99 @@
+package com.data.imputation.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobMetricsTest {
+
+    @Test
+    void stage_timer_records_wall_time_minus_excluded_time() throws Exception {
+        // the first timer loads the JFR event class; keep that out of the measured one
+        new JobMetrics("warmup.csv", null).startStage(PipelineStage.PARSE).stop();
+        JobMetrics metrics = new JobMetrics("input.csv", null);
+        assertThat(metrics.getCurrentStage()).isNull();
+
+        long wallStart = System.nanoTime();
+        JobMetrics.StageTimer parse = metrics.startStage(PipelineStage.PARSE);
+        assertThat(metrics.getCurrentStage()).isEqualTo(PipelineStage.PARSE);
+        Thread.sleep(50);
+        parse.exclude(TimeUnit.MILLISECONDS.toNanos(30));
+        parse.stop(10, 100);
+        long wallNanos = System.nanoTime() - wallStart;
+
+        long parseNanos = metrics.getStageNanos(PipelineStage.PARSE);
+        assertThat(parseNanos).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+        assertThat(parseNanos).isLessThanOrEqualTo(wallNanos - TimeUnit.MILLISECONDS.toNanos(30));
+
+        // a second timer for the same stage adds to it
+        JobMetrics.StageTimer again = metrics.startStage(PipelineStage.PARSE);
+        Thread.sleep(5);
+        again.stop();
+        assertThat(metrics.getStageNanos(PipelineStage.PARSE)).isGreaterThan(parseNanos);
+        assertThat(metrics.getStageNanos(PipelineStage.WRITE)).isEqualTo(0L);
+    }
+
+    @Test
+    void summary_lists_stages_that_ran_in_pipeline_order_and_the_counters() {
+        JobMetrics metrics = new JobMetrics("input.csv", null);
+        metrics.addStageNanos(PipelineStage.WRITE, 3_000_000);
+        metrics.addStageNanos(PipelineStage.PARSE, 12_500_000);
+        metrics.rowsIn(90);
+        metrics.rowsIn(10);
+        metrics.rowsOut(120);
+        metrics.cellsImputed(40);
+        metrics.bytesRead(2_000);
+        metrics.bytesWritten(2_500);
+        metrics.storage("compressed");
+
+        String summary = metrics.summary();
+
+        assertThat(summary).isEqualTo(String.format(
+                "parse               12.5 ms%n"
+                        + "write                3.0 ms%n"
+                        + "total               15.5 ms%n"
+                        + "rows in/out     100 / 120%n"
+                        + "cells imputed   40%n"
+                        + "bytes in/out    2000 / 2500%n"
+                        + "storage         compressed%n"));
+        assertThat(metrics.compactSummary()).isEqualTo("parse 12 ms, write 3 ms, total 15 ms, compressed");
+    }
+
+    @Test
+    void upload_adds_its_stage_and_throughput_to_the_summary() {
+        JobMetrics metrics = new JobMetrics("input.csv", null);
+        metrics.uploaded(4_000_000, 2_000_000_000L);
+
+        assertThat(metrics.getStageNanos(PipelineStage.UPLOAD)).isEqualTo(2_000_000_000L);
+        assertThat(metrics.summary()).contains("upload            2000.0 ms", "upload          2.0 MB/s");
+    }
+
+    @Test
+    void registry_receives_stage_timers_and_counters() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        JobMetrics metrics = new JobMetrics("input.csv", registry);
+
+        metrics.addStageNanos(PipelineStage.GAP_FILL, 7_000_000);
+        metrics.addStageNanos(PipelineStage.GAP_FILL, 3_000_000);
+        metrics.rowsIn(5);
+        metrics.rowsOut(8);
+        metrics.cellsImputed(3);
+        metrics.bytesRead(100);
+        metrics.bytesWritten(150);
+        metrics.uploaded(1_000, 1_000_000);
+
+        assertThat(registry.get("imputation.stage").tag("stage", "gap-fill").timer().count()).isEqualTo(2L);
+        assertThat(registry.get("imputation.stage").tag("stage", "gap-fill").timer()
+                .totalTime(TimeUnit.MILLISECONDS)).isEqualTo(10.0);
+        assertThat(registry.get("imputation.rows.in").counter().count()).isEqualTo(5.0);
+        assertThat(registry.get("imputation.rows.out").counter().count()).isEqualTo(8.0);
+        assertThat(registry.get("imputation.cells.imputed").counter().count()).isEqualTo(3.0);
+        assertThat(registry.get("imputation.bytes.read").counter().count()).isEqualTo(100.0);
+        assertThat(registry.get("imputation.bytes.written").counter().count()).isEqualTo(150.0);
+        assertThat(registry.get("imputation.upload.bytes").counter().count()).isEqualTo(1_000.0);
+        assertThat(registry.get("imputation.upload.throughput").summary().totalAmount()).isEqualTo(1e6);
+    }
+}
@@ -0,0 +1,208 @@
+package com.data.imputation.server;
+
+import com.data.imputation.service.CsvService;
+import com.data.imputation.service.TimeSeriesInterpolationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.data.imputation.TestFiles.copyResourceToTemp;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImputationServerTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private ImputationServer server;
+
+    @AfterEach
+    void stopServer() {
+        if (server != null) server.stop();
+    }
+
+    @Test
+    void submitted_file_is_processed_and_result_matches_direct_run() throws Exception {
+        Path tempDir = Files.createTempDirectory("server-test");
+        Path input = copyResourceToTemp("test_files/test_irregular_gaps.csv", tempDir);
+
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+        server = new ImputationServer(service, null, 0, 1, 4, 64, tempDir.resolve("jobs").toString());
+        server.start();
+
+        HttpResponse<String> submitted = client.send(
+                HttpRequest.newBuilder(uri("/jobs?name=test_irregular_gaps.csv&suffix=srv"))
+                        .POST(HttpRequest.BodyPublishers.ofFile(input))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(submitted.statusCode()).isEqualTo(202);
+        String location = submitted.headers().firstValue("Location").orElseThrow();
+
+        String status = awaitFinished(location);
+        assertThat(status).contains("\"status\":\"DONE\"").contains("\"progress\":1.00");
+
+        HttpResponse<String> result = client.send(
+                HttpRequest.newBuilder(uri(location + "/result")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(result.statusCode()).isEqualTo(200);
+
+        Path expected = service.processFile(input, "direct");
+        assertThat(result.body()).isEqualTo(Files.readString(expected));
+
+        HttpResponse<String> deleted = client.send(
+                HttpRequest.newBuilder(uri(location)).DELETE().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(deleted.statusCode()).isEqualTo(204);
+    }
+
+    @Test
+    void file_larger_than_the_memory_budget_is_rejected_up_front() throws Exception {
+        Path tempDir = Files.createTempDirectory("server-test");
+        Path input = tempDir.resolve("big.csv");
+        Files.write(input, new byte[1 << 20]);
+
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+        server = new ImputationServer(service, null, 0, 1, 4, 16, tempDir.resolve("jobs").toString());
+        server.start();
+
+        HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(uri("/jobs?name=big.csv"))
+                        .POST(HttpRequest.BodyPublishers.ofFile(input))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(413);
+    }
+
+    @Test
+    void file_that_fits_the_budget_in_a_leaner_storage_runs() throws Exception {
+        Path tempDir = Files.createTempDirectory("server-test");
+        Path input = tempDir.resolve("long.csv");
+        // ~6 MB, past what a flat 12x charge admits under 64 MB
+        StringBuilder csv = new StringBuilder("timestamp,value\n");
+        Instant t = Instant.parse("2024-01-01T00:00:00Z");
+        for (int i = 0; i < 240_000; i++) {
+            csv.append(t.plusSeconds(60L * (i + i / 6))).append(',').append(i % 100).append('\n');
+        }
+        Files.writeString(input, csv);
+        assertThat(Files.size(input)).isGreaterThan((64L << 20) / 12);
+
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+        server = new ImputationServer(service, null, 0, 1, 4, 64, tempDir.resolve("jobs").toString());
+        server.start();
+
+        HttpResponse<String> submitted = client.send(
+                HttpRequest.newBuilder(uri("/jobs?name=long.csv"))
+                        .POST(HttpRequest.BodyPublishers.ofFile(input))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(submitted.statusCode()).isEqualTo(202);
+
+        String status = awaitFinished(submitted.headers().firstValue("Location").orElseThrow());
+        assertThat(status).contains("\"status\":\"DONE\"");
+    }
+
+    @Test
+    void upload_name_keeps_only_a_file_name() {
+        assertThat(ImputationServer.uploadName("data.csv")).isEqualTo("data.csv");
+        assertThat(ImputationServer.uploadName("../../etc/data.csv")).isEqualTo("data.csv");
+        assertThat(ImputationServer.uploadName(null)).isEqualTo("upload.csv");
+        assertThat(ImputationServer.uploadName(" ")).isEqualTo("upload.csv");
+        assertThat(ImputationServer.uploadName("/")).isNull();
+        assertThat(ImputationServer.uploadName("..")).isNull();
+        assertThat(ImputationServer.uploadName("dir/..")).isNull();
+        assertThat(ImputationServer.uploadName(".")).isNull();
+        assertThat(ImputationServer.uploadName("a\0b.csv")).isNull();
+    }
+
+    @Test
+    void names_that_are_not_a_file_are_bad_requests_and_an_empty_name_falls_back() throws Exception {
+        Path tempDir = Files.createTempDirectory("server-test");
+        Path input = copyResourceToTemp("test_files/test_irregular_gaps.csv", tempDir);
+
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+        server = new ImputationServer(service, null, 0, 1, 4, 64, tempDir.resolve("jobs").toString());
+        server.start();
+
+        for (String name : new String[]{"%2F", "..", "dir%2F.."}) {
+            HttpResponse<String> response = client.send(
+                    HttpRequest.newBuilder(uri("/jobs?name=" + name)).POST(HttpRequest.BodyPublishers.ofFile(input)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertThat(response.statusCode()).as("name=%s", name).isEqualTo(400);
+            assertThat(response.body()).contains("Invalid file name");
+        }
+
+        HttpResponse<String> unnamed = client.send(
+                HttpRequest.newBuilder(uri("/jobs?name=")).POST(HttpRequest.BodyPublishers.ofFile(input)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(unnamed.statusCode()).isEqualTo(202);
+        String status = awaitFinished(unnamed.headers().firstValue("Location").orElseThrow());
+        assertThat(status).contains("\"status\":\"DONE\"");
+    }
+
+    @Test
+    void malformed_content_length_is_a_bad_request() throws Exception {
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+        server = new ImputationServer(service, null, 0, 1, 4, 64, "");
+        server.start();
+
+        for (String contentLength : new String[]{"abc", "-5"}) {
+            // HttpClient sets Content-Length itself, so write the request by hand
+            try (Socket socket = new Socket("localhost", server.getPort())) {
+                socket.setSoTimeout(5_000);
+                socket.getOutputStream().write(("POST /jobs?name=a.csv HTTP/1.1\r\nHost: localhost\r\n"
+                        + "Content-Length: " + contentLength + "\r\n\r\ntimestamp,v\n")
+                        .getBytes(StandardCharsets.US_ASCII));
+                String statusLine = new BufferedReader(new InputStreamReader(
+                        socket.getInputStream(), StandardCharsets.US_ASCII)).readLine();
+                assertThat(statusLine).as("Content-Length: %s", contentLength).contains(" 400 ");
+            }
+        }
+    }
+
+    @Test
+    void unknown_job_is_not_found() throws Exception {
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+        server = new ImputationServer(service, null, 0, 1, 4, 64, "");
+        server.start();
+
+        HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(uri("/jobs/nope")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(404);
+    }
+
+    // ---------- helpers ----------
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+
+    private String awaitFinished(String location) throws Exception {
+        Pattern statusPattern = Pattern.compile("\"status\":\"(\\w+)\"");
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            String body = client.send(HttpRequest.newBuilder(uri(location)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString()).body();
+            Matcher m = statusPattern.matcher(body);
+            if (m.find() && (m.group(1).equals("DONE") || m.group(1).equals("FAILED"))) {
+                return body;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Job did not finish: " + body);
+            }
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.data.imputation.service;
+
+import com.data.imputation.metrics.JobMetrics;
+import com.data.imputation.model.Column;
+import com.data.imputation.model.ColumnStorage;
+import com.data.imputation.model.CsvTable;
+import com.data.imputation.model.OffHeapStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.BufferedWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Allocation budgets for the hot paths: the bytes each stage allocates on the test
+ * thread, measured for two generated inputs and held per cell, as the difference
+ * between them over the difference in cells. Fixed costs such as buffers and
+ * per-column objects cancel out, so a change that brings back an object per cell
+ * (a boxed value, a String, an Instant or Duration, at 16 bytes or more each) goes
+ * over its budget; on the paths meant to allocate nothing per cell the budget is
+ * below one object header.
+ *
+ * Only the calling thread is counted, so the write stage covers formatting but not
+ * the writer thread that puts buffers on disk.
+ */
+class AllocationBudgetTest {
+
+    // grid rows of the two inputs; every 10th source row is missing and is filled
+    private static final int SMALL_ROWS = 20_000;
+    private static final int LARGE_ROWS = 100_000;
+    private static final int NUMERIC_COLUMNS = 8;
+    // columns of the pass-through input, one of them selected
+    private static final int WIDE_COLUMNS = 400;
+
+    private enum Stage { READ, INTERPOLATE, STATS, WRITE }
+
+    // bytes a stage may allocate per additional cell, about 1.5 times what it takes
+    // today. Reading splits each line into Strings before a column takes the cell in
+    // every storage, heap columns keep those Strings and parse them on each use, and
+    // compressed columns re-encode a block whenever one is written. Off the heap,
+    // repair, stats and write build no object per cell: their budgets stay below one
+    // 16-byte object header, left for the sorted copy the stats take of each column
+    private static double budget(MemoryAdmission.Storage storage, Stage stage) {
+        return switch (storage) {
+            case HEAP -> switch (stage) {
+                case READ -> 384;
+                case INTERPOLATE -> 272;
+                case STATS -> 96;
+                case WRITE -> 104;
+            };
+            case COMPRESSED -> switch (stage) {
+                case READ -> 528;
+                case INTERPOLATE -> 64;
+                case STATS -> 24;
+                case WRITE -> 32;
+            };
+            case OFF_HEAP -> switch (stage) {
+                case READ -> 512;
+                case INTERPOLATE -> 10;
+                case STATS -> 12;
+                case WRITE -> 15;
+            };
+        };
+    }
+
+    @ParameterizedTest
+    @EnumSource(MemoryAdmission.Storage.class)
+    void hot_paths_stay_within_their_allocation_budget(MemoryAdmission.Storage storage) throws Exception {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        Path dir = Files.createTempDirectory("alloc-test");
+        // a small run first, so class loading and one-off setup are not counted
+        run(storage, generate(dir.resolve("warmup.csv"), 2_000), dir.resolve("warmup_out.csv"), null);
+
+        long[] small = new long[Stage.values().length];
+        CsvTable[] smallTables = run(storage, generate(dir.resolve("small.csv"), SMALL_ROWS),
+                dir.resolve("small_out.csv"), small);
+        long[] large = new long[Stage.values().length];
+        CsvTable[] largeTables = run(storage, generate(dir.resolve("large.csv"), LARGE_ROWS),
+                dir.resolve("large_out.csv"), large);
+
+        assertThat(smallTables[1].getRowCount()).isEqualTo(SMALL_ROWS);
+        assertThat(largeTables[1].getRowCount()).isEqualTo(LARGE_ROWS);
+        int cellsPerRow = NUMERIC_COLUMNS + 2;
+        for (Stage stage : Stage.values()) {
+            int table = stage == Stage.READ ? 0 : 1;
+            long cells = (long) (largeTables[table].getRowCount() - smallTables[table].getRowCount()) * cellsPerRow;
+            double perCell = (double) (large[stage.ordinal()] - small[stage.ordinal()]) / cells;
+            assertThat(perCell)
+                    .as("%s %s allocated %.1f bytes per cell", storage, stage, perCell)
+                    .isLessThanOrEqualTo(budget(storage, stage));
+        }
+    }
+
+    @Test
+    void wide_pass_through_rows_are_written_without_decoding_their_lines() throws Exception {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        Path dir = Files.createTempDirectory("alloc-test");
+        ColumnSelection one = new ColumnSelection(List.of("c1"), true);
+        writePassThrough(generateWide(dir.resolve("warmup.csv"), 200), one, dir.resolve("warmup_out.csv"));
+
+        long small = writePassThrough(generateWide(dir.resolve("small.csv"), 1_000), one, dir.resolve("small_out.csv"));
+        long large = writePassThrough(generateWide(dir.resolve("large.csv"), 5_000), one, dir.resolve("large_out.csv"));
+
+        // each unselected cell goes out as its input bytes; a String per cell would be
+        // at least 40 bytes, a decoded line per cell several kilobytes
+        double perCell = (double) (large - small) / (4_000L * (WIDE_COLUMNS + 1));
+        assertThat(perCell)
+                .as("pass-through write allocated %.1f bytes per cell", perCell)
+                .isLessThanOrEqualTo(2);
+        assertThat(Files.readAllLines(dir.resolve("large_out.csv")).subList(0, 5_001))
+                .isEqualTo(Files.readAllLines(dir.resolve("large.csv")));
+    }
+
+    /** Bytes the write of {@code input}, read with {@code selection}, allocates on this thread. */
+    private static long writePassThrough(Path input, ColumnSelection selection, Path output) throws Exception {
+        CsvService csvService = new CsvService();
+        JobMetrics metrics = new JobMetrics(input.getFileName().toString(), null);
+        CsvTable table = csvService.readCsvSorted(input, metrics, null, null, selection);
+        long before = allocatedBytes();
+        csvService.writeCsv(output, table, metrics);
+        return allocatedBytes() - before;
+    }
+
+    /** A minute series of {@link #WIDE_COLUMNS} text cells a row. */
+    private static Path generateWide(Path file, int rows) throws Exception {
+        Instant start = Instant.parse("2025-01-01T00:00:00Z");
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            out.write("timestamp");
+            for (int c = 0; c < WIDE_COLUMNS; c++) out.write(",c" + c);
+            out.newLine();
+            for (int r = 0; r < rows; r++) {
+                out.write(start.plusSeconds(60L * r).toString());
+                for (int c = 0; c < WIDE_COLUMNS; c++) {
+                    out.write(c == 1 ? "," + r : ",v" + (r + c) % 97);
+                }
+                out.newLine();
+            }
+        }
+        return file;
+    }
+
+    /** Read, repair, stats and write of one input, each stage's allocation put in {@code allocated}. */
+    private static CsvTable[] run(MemoryAdmission.Storage storage, Path input, Path output, long[] allocated)
+            throws Exception {
+        CsvService csvService = new CsvService();
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(csvService);
+        try (OffHeapStore store = storage == MemoryAdmission.Storage.OFF_HEAP ? OffHeapStore.create() : null) {
+            ColumnStorage columns = store != null ? store
+                    : storage == MemoryAdmission.Storage.COMPRESSED ? ColumnStorage.COMPRESSED : null;
+            JobMetrics metrics = new JobMetrics(input.getFileName().toString(), null);
+
+            long before = allocatedBytes();
+            CsvTable table = csvService.readCsvSorted(input, metrics, null, columns);
+            record(allocated, Stage.READ, before);
+
+            before = allocatedBytes();
+            CsvTable repaired = service.repair(table, "alloc", null);
+            record(allocated, Stage.INTERPOLATE, before);
+
+            before = allocatedBytes();
+            for (Column column : repaired.getColumns()) {
+                new ColumnStats(column, repaired.getRowCount());
+            }
+            record(allocated, Stage.STATS, before);
+
+            // the footer's stats are part of the write
+            before = allocatedBytes();
+            csvService.writeCsv(output, repaired, metrics);
+            record(allocated, Stage.WRITE, before);
+
+            return new CsvTable[]{table, repaired};
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void record(long[] allocated, Stage stage, long before) {
+        if (allocated != null) allocated[stage.ordinal()] = allocatedBytes() - before;
+    }
+
+    /** A minute series with numeric columns, a few blank cells and a keyword column; every 10th row missing. */
+    private static Path generate(Path file, int rows) throws Exception {
+        Instant start = Instant.parse("2025-01-01T00:00:00Z");
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            out.write("timestamp");
+            for (int c = 0; c < NUMERIC_COLUMNS; c++) out.write(",sensor" + c);
+            out.write(",state\n");
+            for (int r = 0; r < rows; r++) {
+                // first and last rows stay, so the grid spans all of them
+                if (r % 10 == 5 && r != rows - 1) continue;
+                out.write(start.plusSeconds(60L * r).toString());
+                for (int c = 0; c < NUMERIC_COLUMNS; c++) {
+                    out.write(',');
+                    if ((r + c) % 7 != 3) out.write(Double.toString((r * 31 + c) % 1000 / 8.0));
+                }
+                out.write(r % 3 == 0 ? ",ON\n" : ",OFF\n");
+            }
+        }
+        return file;
+    }
+}
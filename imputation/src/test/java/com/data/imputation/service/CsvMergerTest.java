@@ -0,0 +1,148 @@
+package com.data.imputation.service;
+
+import com.data.imputation.metrics.JobMetrics;
+import com.data.imputation.model.CsvTable;
+import com.data.imputation.model.ProcessingOptions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvMergerTest {
+
+    private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+    // ---------- join ----------
+
+    @Test
+    void inputs_are_joined_on_timestamp_with_prefixed_columns() throws Exception {
+        Path tempDir = Files.createTempDirectory("merge-test");
+        Path a = write(tempDir, "device1.csv",
+                "timestamp,temp",
+                "2025-01-01T00:00:00Z,10",
+                "2025-01-01T01:00:00Z,11",
+                "2025-01-01T03:00:00Z,13");
+        Path b = write(tempDir, "device2.csv",
+                "timestamp,temp,status",
+                "2025-01-01T01:00:00Z,21,OK",
+                "2025-01-01T02:00:00Z,22,MAINT");
+
+        CsvTable table = new CsvService().readCsvMerged(List.of(a, b), metrics());
+
+        assertThat(table.getHeaders())
+                .containsExactly("timestamp", "device1.temp", "device2.temp", "device2.status");
+        assertThat(table.getTimestamps()).containsExactly(
+                START, START.plusSeconds(3600), START.plusSeconds(7200), START.plusSeconds(10800));
+        assertThat(row(table, 0)).containsExactly("10", "", "");
+        assertThat(row(table, 1)).containsExactly("11", "21", "OK");
+        assertThat(row(table, 2)).containsExactly("", "22", "MAINT");
+        assertThat(row(table, 3)).containsExactly("13", "", "");
+    }
+
+    @Test
+    void out_of_order_input_gives_the_same_join_through_the_sorter() throws Exception {
+        Path tempDir = Files.createTempDirectory("merge-test");
+        Path a = write(tempDir.resolve("x"), "sensor.csv",
+                "timestamp,v",
+                "2025-01-01T00:00:00Z,1",
+                "2025-01-01T01:00:00Z,2",
+                "2025-01-01T01:00:00Z,3");          // later duplicate wins
+        Path sortedB = write(tempDir.resolve("y"), "sensor.csv",
+                "timestamp,v",
+                "2025-01-01T00:00:00Z,5",
+                "2025-01-01T01:00:00Z,6",
+                "2025-01-01T02:00:00Z,7");
+        Path unsortedB = write(tempDir.resolve("z"), "sensor.csv",
+                "timestamp,v",
+                "2025-01-01T02:00:00Z,7",
+                "2025-01-01T00:00:00Z,5",
+                "2025-01-01T01:00:00Z,6");
+
+        CsvService csvService = new CsvService();
+        CsvTable sorted = csvService.readCsvMerged(List.of(a, sortedB), metrics());
+        CsvTable unsorted = csvService.readCsvMerged(List.of(a, unsortedB), metrics());
+
+        // same file name twice gets a numbered prefix
+        assertThat(sorted.getHeaders()).containsExactly("timestamp", "sensor.v", "sensor_2.v");
+        assertThat(unsorted.getHeaders()).isEqualTo(sorted.getHeaders());
+        assertThat(unsorted.getTimestamps()).isEqualTo(sorted.getTimestamps());
+        for (int r = 0; r < sorted.getRowCount(); r++) {
+            assertThat(row(unsorted, r)).isEqualTo(row(sorted, r));
+        }
+        assertThat(row(sorted, 1)).containsExactly("3", "6");
+        assertThat(row(sorted, 2)).containsExactly("", "7");
+    }
+
+    // ---------- pipeline ----------
+
+    @Test
+    void merged_run_matches_a_run_over_the_joined_file() throws Exception {
+        Path tempDir = Files.createTempDirectory("merge-test");
+        Path a = write(tempDir, "a.csv",
+                "timestamp,temp",
+                "2025-01-01T00:00:00Z,10",
+                "2025-01-01T02:00:00Z,12",
+                "2025-01-01T05:00:00Z,15");
+        Path b = write(tempDir, "b.csv",
+                "timestamp,load,status",
+                "2025-01-01T00:00:00Z,1,OK",
+                "2025-01-01T04:00:00Z,,BLOCK",
+                "2025-01-01T05:00:00Z,6,OK");
+        Path joined = write(tempDir, "joined.csv",
+                "timestamp,a.temp,b.load,b.status",
+                "2025-01-01T00:00:00Z,10,1,OK",
+                "2025-01-01T02:00:00Z,12,,",
+                "2025-01-01T04:00:00Z,,,BLOCK",
+                "2025-01-01T05:00:00Z,15,6,OK");
+
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+        Path merged = service.processFiles(List.of(a, b), ProcessingOptions.withSuffix("clean"),
+                service.newJobMetrics(List.of(a, b)));
+        Path expected = service.processFile(joined, ProcessingOptions.withSuffix("clean"));
+
+        assertThat(merged.getFileName().toString()).matches("a_merged_[0-9a-f]{8}_clean\\.csv");
+        assertThat(Files.readString(merged)).isEqualTo(Files.readString(expected));
+    }
+
+    @Test
+    void merges_of_different_inputs_from_one_directory_get_their_own_output() throws Exception {
+        Path tempDir = Files.createTempDirectory("merge-test");
+        Path a = write(tempDir, "a.csv", "timestamp,temp", "2025-01-01T00:00:00Z,10", "2025-01-01T02:00:00Z,12");
+        Path b = write(tempDir, "b.csv", "timestamp,load", "2025-01-01T00:00:00Z,1", "2025-01-01T02:00:00Z,3");
+        Path c = write(tempDir, "c.csv", "timestamp,rain", "2025-01-01T00:00:00Z,0", "2025-01-01T02:00:00Z,4");
+
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+        Path ab = service.processFiles(List.of(a, b), ProcessingOptions.withSuffix("x"), service.newJobMetrics(List.of(a, b)));
+        Path ac = service.processFiles(List.of(a, c), ProcessingOptions.withSuffix("x"), service.newJobMetrics(List.of(a, c)));
+
+        assertThat(ab).isNotEqualTo(ac);
+        assertThat(Files.readString(ab)).contains("b.load").doesNotContain("c.rain");
+        assertThat(Files.readString(ac)).contains("c.rain").doesNotContain("b.load");
+        // the same inputs in the same order land on the same output again
+        assertThat(TimeSeriesInterpolationService.mergedPathFor(List.of(a, b)))
+                .isEqualTo(TimeSeriesInterpolationService.mergedPathFor(List.of(a, tempDir.resolve("./b.csv"))));
+        assertThat(TimeSeriesInterpolationService.mergedPathFor(List.of(b, a)).getFileName().toString())
+                .startsWith("b_merged_");
+    }
+
+    // ---------- helpers ----------
+
+    private Path write(Path dir, String name, String... lines) throws Exception {
+        Files.createDirectories(dir);
+        Path file = dir.resolve(name);
+        Files.write(file, List.of(lines));
+        return file;
+    }
+
+    private static List<String> row(CsvTable table, int r) {
+        return table.getColumns().stream().map(c -> c.get(r)).toList();
+    }
+
+    private static JobMetrics metrics() {
+        return new JobMetrics("test", null);
+    }
+}
@@ -0,0 +1,346 @@
+package com.data.imputation.service;
+
+import com.data.imputation.metrics.JobMetrics;
+import com.data.imputation.model.Column;
+import com.data.imputation.model.CompressedColumn;
+import com.data.imputation.model.CompressedTimeline;
+import com.data.imputation.model.CsvTable;
+import com.data.imputation.model.DictionaryColumn;
+import com.data.imputation.model.DoubleFormat;
+import com.data.imputation.model.InstantFormat;
+import com.data.imputation.model.MappedColumn;
+import com.data.imputation.model.MappedTimeline;
+import com.data.imputation.model.OffHeapStore;
+import com.data.imputation.model.RawLines;
+import com.data.imputation.model.TextColumn;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.data.imputation.TestFiles.copyResourceToTemp;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvServiceTest {
+
+    // ---------- dictionary encoding ----------
+
+    @Test
+    void keyword_column_is_dictionary_encoded_and_numeric_column_is_not() throws Exception {
+        Path tempDir = Files.createTempDirectory("csv-test");
+        Path input = copyResourceToTemp("test_files/test_keyword_column.csv", tempDir);
+
+        CsvTable table = new CsvService().readCsv(input);
+        List<Column> columns = table.getColumns();
+
+        assertThat(columns.get(0)).isInstanceOf(TextColumn.class);   // value
+        assertThat(columns.get(1)).isInstanceOf(DictionaryColumn.class); // status
+
+        DictionaryColumn status = (DictionaryColumn) columns.get(1);
+        assertThat(status.getDictionary()).containsExactly("", "OK", "MAINT", "BLOCK", "SKIP");
+        assertThat(status.get(2)).isEqualTo("MAINT");
+        assertThat(status.isNumeric(2)).isFalse();
+    }
+
+    @Test
+    void dictionary_column_widens_past_256_entries() {
+        DictionaryColumn column = new DictionaryColumn();
+        for (int i = 0; i < 300; i++) {
+            column.add("K" + i);
+        }
+        column.set(0, "K299");
+
+        assertThat(column.size()).isEqualTo(300);
+        assertThat(column.get(0)).isEqualTo("K299");
+        assertThat(column.get(299)).isEqualTo("K299");
+        assertThat(column.get(150)).isEqualTo("K150");
+    }
+
+    @Test
+    void write_then_read_round_trips_dictionary_cells() throws Exception {
+        Path tempDir = Files.createTempDirectory("csv-test");
+        Path input = copyResourceToTemp("test_files/test_keyword_column.csv", tempDir);
+
+        CsvService csvService = new CsvService();
+        CsvTable table = csvService.readCsv(input);
+
+        Path output = tempDir.resolve("out.csv");
+        csvService.writeCsv(output, table);
+
+        List<String> lines = Files.readAllLines(output);
+        assertThat(lines.get(1)).isEqualTo("2025-01-01T00:00:00Z,10,OK");
+        assertThat(lines.get(4)).isEqualTo("2025-01-01T03:00:00Z,,BLOCK");
+        assertThat(lines.get(lines.size() - 1)).isEqualTo("NonNumericalDetected,0,1");
+    }
+
+    // ---------- external sort ----------
+
+    @Test
+    void out_of_order_input_is_merge_sorted_through_spilled_runs() throws Exception {
+        Path tempDir = Files.createTempDirectory("csv-test");
+        Path input = tempDir.resolve("shuffled.csv");
+
+        List<String> lines = new ArrayList<>();
+        lines.add("timestamp,value,status");
+        for (int i = 0; i < 500; i++) {
+            int hour = (i * 7919) % 500; // permutation of 0..499
+            lines.add(Instant.parse("2025-01-01T00:00:00Z").plusSeconds(3600L * hour) + "," + hour + ",OK");
+        }
+        // duplicate timestamp: file order must be kept for ties
+        lines.add("2025-01-01T00:00:00Z,dup,OK");
+        Files.write(input, lines);
+
+        CsvService csvService = new CsvService();
+        CsvTable table = csvService.readCsvSorted(input, 4 * 1024); // forces several runs
+
+        assertThat(table.getRowCount()).isEqualTo(501);
+        for (int r = 1; r < table.getRowCount(); r++) {
+            assertThat(table.getTimestamps().get(r)).isAfterOrEqualTo(table.getTimestamps().get(r - 1));
+        }
+        assertThat(table.getColumns().get(0).get(0)).isEqualTo("0");
+        assertThat(table.getColumns().get(0).get(1)).isEqualTo("dup");
+        assertThat(table.getColumns().get(0).get(500)).isEqualTo("499");
+    }
+
+    @Test
+    void sorted_input_reads_the_same_with_and_without_sorting() throws Exception {
+        Path tempDir = Files.createTempDirectory("csv-test");
+        Path input = copyResourceToTemp("test_files/test_keyword_column.csv", tempDir);
+
+        CsvService csvService = new CsvService();
+        CsvTable plain = csvService.readCsv(input);
+        CsvTable sorted = csvService.readCsvSorted(input, 1);
+
+        assertThat(sorted.getTimestamps()).isEqualTo(plain.getTimestamps());
+        assertThat(sorted.getColumns().get(1)).isInstanceOf(DictionaryColumn.class);
+    }
+
+    @Test
+    void cells_longer_than_64_kb_survive_a_spilled_sort() throws Exception {
+        Path tempDir = Files.createTempDirectory("csv-test");
+        Path input = tempDir.resolve("long.csv");
+        String longCell = "é".repeat(50_000);
+        Files.write(input, List.of(
+                "timestamp,value,note",
+                "2025-01-01T02:00:00Z,2," + longCell,
+                "2025-01-01T00:00:00Z,0,short",
+                "2025-01-01T01:00:00Z,1," + longCell + "!"));
+
+        CsvTable table = new CsvService().readCsvSorted(input, 1); // every row spills
+
+        assertThat(table.getColumns().get(0).get(0)).isEqualTo("0");
+        assertThat(table.getColumns().get(1).get(0)).isEqualTo("short");
+        assertThat(table.getColumns().get(1).get(1)).isEqualTo(longCell + "!");
+        assertThat(table.getColumns().get(1).get(2)).isEqualTo(longCell);
+    }
+
+    // ---------- off-heap ----------
+
+    @Test
+    void mapped_column_gives_back_the_text_it_was_given() throws Exception {
+        try (OffHeapStore store = OffHeapStore.create()) {
+            MappedColumn column = store.newColumn();
+            List<String> cells = List.of("10", "-3", "2.4000000000000004", "1.50", "1e3", "0",
+                    "-0", "007", "BLOCK", "", "NaN", "12.5");
+            cells.forEach(column::add);
+
+            for (int r = 0; r < cells.size(); r++) {
+                assertThat(column.get(r)).isEqualTo(cells.get(r));
+            }
+            assertThat(column.isBlank(9)).isTrue();
+            assertThat(column.isNumeric(8)).isFalse();
+            assertThat(column.getDouble(3)).isEqualTo(1.5);
+            assertThat(column.hasNonNumeric()).isTrue();
+
+            column.set(8, "4");
+            Column selected = column.select(new int[]{8, -1, 3});
+            assertThat(selected.get(0)).isEqualTo("4");
+            assertThat(selected.get(1)).isEmpty();
+            assertThat(selected.get(2)).isEqualTo("1.50");
+        }
+    }
+
+    @Test
+    void raw_lines_give_back_each_line_on_the_heap_and_off_heap() throws Exception {
+        List<String> lines = List.of("2025-01-01T00:00:00Z,1,a", "", "ünïcödé,€",
+                "x".repeat(RawLines.PAGE_BYTES + 1), "after a page of its own");
+        try (OffHeapStore store = OffHeapStore.create()) {
+            for (RawLines column : List.of(new RawLines(), new RawLines(store))) {
+                lines.forEach(column::add);
+
+                assertThat(column.size()).isEqualTo(lines.size());
+                for (int r = 0; r < lines.size(); r++) {
+                    assertThat(column.get(r)).isEqualTo(lines.get(r));
+                }
+                Column selected = column.select(new int[]{4, -1, 2}).select(new int[]{2, 0, 1});
+                assertThat(selected.get(0)).isEqualTo("ünïcödé,€");
+                assertThat(selected.get(1)).isEqualTo("after a page of its own");
+                assertThat(selected.get(2)).isEmpty();
+            }
+        }
+    }
+
+    @Test
+    void off_heap_read_matches_heap_read() throws Exception {
+        Path tempDir = Files.createTempDirectory("csv-test");
+        Path input = copyResourceToTemp("test_files/test_mixed_keywords.csv", tempDir);
+
+        CsvService csvService = new CsvService();
+        CsvTable heap = csvService.readCsvSorted(input);
+        try (OffHeapStore store = OffHeapStore.create()) {
+            CsvTable mapped = csvService.readCsvSorted(input, new JobMetrics(input.getFileName().toString(), null),
+                    null, store);
+
+            assertThat(mapped.getTimestamps()).isInstanceOf(MappedTimeline.class)
+                    .isEqualTo(heap.getTimestamps());
+            for (int c = 0; c < heap.getColumns().size(); c++) {
+                Column expected = heap.getColumns().get(c);
+                Column actual = mapped.getColumns().get(c);
+                for (int r = 0; r < expected.size(); r++) {
+                    assertThat(actual.get(r)).isEqualTo(expected.get(r));
+                }
+            }
+        }
+    }
+
+    // ---------- compressed ----------
+
+    @Test
+    void compressed_column_round_trips_across_blocks_and_rewrites() {
+        CompressedColumn column = new CompressedColumn();
+        List<String> cells = new ArrayList<>();
+        for (int r = 0; r < 3000; r++) {
+            String cell = switch (r % 7) {
+                case 0 -> "";
+                case 1 -> "BLOCK";
+                case 2 -> "1.50";
+                case 3 -> Integer.toString(r);
+                default -> Double.toString(20 + r * 0.1);
+            };
+            cells.add(cell);
+            column.add(cell);
+        }
+        // rewrite cells in earlier blocks after later ones were encoded
+        for (int r = 0; r < 3000; r += 700) {
+            column.set(r, "42.5");
+            cells.set(r, "42.5");
+        }
+
+        for (int r = 0; r < cells.size(); r++) {
+            assertThat(column.get(r)).isEqualTo(cells.get(r));
+        }
+        assertThat(column.isNumeric(1)).isFalse();
+        assertThat(column.getDouble(2)).isEqualTo(1.5);
+        assertThat(column.select(new int[]{2, -1, 2999}).get(2)).isEqualTo(cells.get(2999));
+    }
+
+    @Test
+    void compressed_timeline_round_trips_regular_and_irregular_instants() {
+        CompressedTimeline timeline = new CompressedTimeline();
+        List<Instant> expected = new ArrayList<>();
+        Instant t = Instant.parse("2025-01-01T00:00:00Z");
+        for (int r = 0; r < 2500; r++) {
+            // regular, then jittered by milliseconds, then a jump
+            t = r < 1000 ? t.plusSeconds(900) : r < 2000 ? t.plusMillis(900_000 + r % 13) : t.plusSeconds(86_400L * r);
+            expected.add(t);
+            timeline.add(t);
+        }
+        timeline.add(Instant.parse("2400-01-01T00:00:00.5Z")); // beyond epoch nanos
+        expected.add(Instant.parse("2400-01-01T00:00:00.5Z"));
+
+        assertThat(timeline).isEqualTo(expected);
+    }
+
+    @Test
+    void slowly_changing_series_compresses_well() {
+        CompressedColumn column = new CompressedColumn();
+        for (int r = 0; r < 10_000; r++) {
+            column.add(r % 10 == 0 ? Double.toString(20 + (r / 100) * 0.5) : "");
+        }
+        // a double and a reference per cell would be 12 bytes a row
+        assertThat(column.compressedBytes()).isLessThan(10_000 / 2);
+    }
+
+    // ---------- pipelined write ----------
+
+    @Test
+    void output_spanning_many_write_buffers_keeps_row_order_and_utf8_cells() throws Exception {
+        Path tempDir = Files.createTempDirectory("csv-test");
+        Path input = tempDir.resolve("large.csv");
+
+        List<String> lines = new ArrayList<>();
+        lines.add("timestamp,value,site");
+        Instant start = Instant.parse("2025-01-01T00:00:00Z");
+        for (int i = 0; i < 150_000; i++) {
+            lines.add(start.plusSeconds(i) + "," + i + "," + (i % 3 == 0 ? "Zürich-" + i : "site-" + i));
+        }
+        Files.write(input, lines);
+
+        CsvService csvService = new CsvService();
+        Path output = tempDir.resolve("out.csv");
+        csvService.writeCsv(output, csvService.readCsv(input));
+
+        assertThat(Files.size(output)).isGreaterThan(AsyncChannelWriter.BUFFERS * (long) AsyncChannelWriter.BUFFER_BYTES);
+        List<String> written = Files.readAllLines(output);
+        assertThat(written.subList(0, lines.size())).isEqualTo(lines);
+        assertThat(written.get(lines.size())).startsWith("Average,");
+    }
+
+    // ---------- number formatting ----------
+
+    @Test
+    void double_format_round_trips_in_the_double_to_string_layout() {
+        assertThat(DoubleFormat.toString(12.5)).isEqualTo("12.5");
+        assertThat(DoubleFormat.toString(100)).isEqualTo("100.0");
+        assertThat(DoubleFormat.toString(-0.0)).isEqualTo("-0.0");
+        assertThat(DoubleFormat.toString(1e7)).isEqualTo("1.0E7");
+        assertThat(DoubleFormat.toString(0.001)).isEqualTo("0.001");
+        assertThat(DoubleFormat.toString(2e-4)).isEqualTo("2.0E-4");
+        assertThat(DoubleFormat.toString(2e-3)).isEqualTo("0.002");
+        assertThat(DoubleFormat.toString(2e23)).isEqualTo("2.0E23");
+        assertThat(DoubleFormat.toString(Double.MIN_VALUE)).isEqualTo("4.9E-324");
+        assertThat(DoubleFormat.toString(Double.NaN)).isEqualTo("NaN");
+        assertThat(DoubleFormat.toString(Double.NEGATIVE_INFINITY)).isEqualTo("-Infinity");
+
+        Random random = new Random(11);
+        byte[] buffer = new byte[DoubleFormat.MAX_LENGTH + 3];
+        for (int i = 0; i < 100_000; i++) {
+            double v = Double.longBitsToDouble(random.nextLong());
+            if (Double.isNaN(v)) continue;
+            int end = DoubleFormat.format(v, buffer, 3);
+            String text = new String(buffer, 3, end - 3, StandardCharsets.US_ASCII);
+            assertThat(Double.parseDouble(text)).isEqualTo(v);
+            // never longer than what the JDK prints
+            assertThat(text.length()).isLessThanOrEqualTo(Double.toString(v).length());
+        }
+    }
+
+    @Test
+    void instant_format_prints_what_instant_to_string_prints() {
+        assertThat(InstantFormat.toString(0, 0)).isEqualTo("1970-01-01T00:00:00Z");
+        assertThat(InstantFormat.toString(1_735_689_660L, 250_000_000)).isEqualTo("2025-01-01T00:01:00.250Z");
+        assertThat(InstantFormat.toString(-1, 999_999_000)).isEqualTo("1969-12-31T23:59:59.999999Z");
+        assertThat(InstantFormat.toString(951_782_400L, 1)).isEqualTo("2000-02-29T00:00:00.000000001Z");
+        // outside the years 0000 to 9999 the JDK adds a sign; that text comes from the Instant
+        assertThat(InstantFormat.toString(253_402_300_800L, 0)).isEqualTo("+10000-01-01T00:00:00Z");
+
+        Random random = new Random(13);
+        byte[] buffer = new byte[InstantFormat.MAX_LENGTH + 3];
+        for (int i = 0; i < 100_000; i++) {
+            long seconds = -62_167_219_200L + Math.floorMod(random.nextLong(), 315_569_520_000L);
+            int nano = switch (i % 4) {
+                case 0 -> 0;
+                case 1 -> random.nextInt(1000) * 1_000_000;
+                case 2 -> random.nextInt(1_000_000) * 1000;
+                default -> random.nextInt(1_000_000_000);
+            };
+            int end = InstantFormat.format(seconds, nano, buffer, 3);
+            assertThat(new String(buffer, 3, end - 3, StandardCharsets.US_ASCII))
+                    .isEqualTo(Instant.ofEpochSecond(seconds, nano).toString());
+        }
+    }
+}
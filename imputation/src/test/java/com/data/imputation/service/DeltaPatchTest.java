@@ -0,0 +1,111 @@
+package com.data.imputation.service;
+
+import com.data.imputation.model.ProcessingOptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.file.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.data.imputation.TestFiles.copyResourceToTemp;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeltaPatchTest {
+
+    // ---------- round trip ----------
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "test_files/test_irregular_gaps.csv",
+            "test_files/test_keyword_column.csv",
+            "test_files/test_sparse_columns.csv",
+            "test_files/test_all_empty_middle.csv",
+            "test_files/test_800_columns.csv"
+    })
+    void applying_the_delta_rebuilds_the_full_output(String resource) throws Exception {
+        Path tempDir = Files.createTempDirectory("delta-test");
+        Path input = copyResourceToTemp(resource, tempDir);
+
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+        Path full = service.processFile(input, ProcessingOptions.withSuffix("full"));
+        Path delta = service.processFile(input, ProcessingOptions.withSuffix("clean").delta(true));
+
+        assertThat(delta.getFileName().toString()).endsWith("_clean.delta.csv");
+
+        Path rebuilt = service.applyDelta(input, delta);
+        assertThat(rebuilt.getFileName().toString()).endsWith("_clean.csv");
+        assertThat(Files.readString(rebuilt)).isEqualTo(Files.readString(full));
+    }
+
+    @Test
+    void unsorted_input_with_duplicates_and_off_grid_rows_is_rebuilt() throws Exception {
+        Path tempDir = Files.createTempDirectory("delta-test");
+        Path input = tempDir.resolve("messy.csv");
+        Files.write(input, List.of(
+                "timestamp,temp,status",
+                "2025-01-01T03:00:00Z,13,OK",
+                "2025-01-01T00:00:00Z,10,OK",
+                "2025-01-01T01:00:00Z,,MAINT",
+                "2025-01-01T06:00:00Z,16,OK",
+                "2025-01-01T00:00:00Z,99,OK",      // later duplicate wins
+                "2025-01-01T03:30:00Z,1,OK",       // off the hourly grid
+                "2025-01-01T02:00:00Z,12,OK"));
+
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+        Path full = service.processFile(input, ProcessingOptions.withSuffix("full"));
+        Path delta = service.processFile(input, ProcessingOptions.withSuffix("clean").delta(true));
+
+        List<String> entries = Files.readAllLines(delta);
+        assertThat(entries).contains(
+                "2025-01-01T04:00:00Z,,",
+                "2025-01-01T04:00:00Z,temp,14.0",
+                "2025-01-01T01:00:00Z,temp,55.5");
+
+        Path rebuilt = service.applyDelta(input, delta);
+        assertThat(Files.readString(rebuilt)).isEqualTo(Files.readString(full));
+    }
+
+    @Test
+    void delta_of_a_mostly_complete_table_is_a_small_fraction_of_the_output() throws Exception {
+        Path tempDir = Files.createTempDirectory("delta-test");
+        Path input = tempDir.resolve("wide.csv");
+        List<String> lines = new ArrayList<>();
+        StringBuilder header = new StringBuilder("timestamp");
+        for (int c = 0; c < 20; c++) header.append(",c").append(c);
+        lines.add(header.toString());
+        Instant start = Instant.parse("2025-01-01T00:00:00Z");
+        for (int i = 0; i < 2_000; i++) {
+            if (i % 100 == 50) continue;    // a missing timestamp now and then
+            StringBuilder row = new StringBuilder(start.plusSeconds(60L * i).toString());
+            for (int c = 0; c < 20; c++) {
+                row.append(',').append(i % 97 == c ? "" : Integer.toString(i + c));
+            }
+            lines.add(row.toString());
+        }
+        Files.write(input, lines);
+
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+        Path full = service.processFile(input, ProcessingOptions.withSuffix("full"));
+        Path delta = service.processFile(input, ProcessingOptions.withSuffix("clean").delta(true));
+
+        assertThat(Files.size(delta)).isLessThan(Files.size(full) / 5);
+        assertThat(Files.readString(service.applyDelta(input, delta))).isEqualTo(Files.readString(full));
+    }
+
+    @Test
+    void delta_cannot_be_combined_with_resampling() throws Exception {
+        Path tempDir = Files.createTempDirectory("delta-test");
+        Path input = copyResourceToTemp("test_files/test_irregular_gaps.csv", tempDir);
+
+        ProcessingOptions options = ProcessingOptions.withSuffix("clean").delta(true)
+                .resampleInterval(Duration.ofHours(2));
+
+        assertThatThrownBy(() -> new TimeSeriesInterpolationService(new CsvService()).processFile(input, options))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,74 @@
+package com.data.imputation.service;
+
+import com.data.imputation.model.ProcessingOptions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class GapProfileTest {
+
+    @Test
+    void profile_predicts_the_step_gaps_and_output_rows_of_a_run() throws Exception {
+        Path tempDir = Files.createTempDirectory("profile-test");
+        Path input = tempDir.resolve("hourly.csv");
+        Files.write(input, List.of(
+                "timestamp,value",
+                "2025-01-01T00:00:00Z,0",
+                "2025-01-01T01:00:00Z,1",
+                // one hour missing
+                "2025-01-01T03:00:00Z,3",
+                "2025-01-01T03:00:00Z,3",
+                "2025-01-01T04:00:00Z,4",
+                "",
+                // three hours missing, last line without a newline
+                "2025-01-01T08:00:00Z,8"));
+        Files.writeString(input, Files.readString(input).stripTrailing());
+
+        GapProfile profile = GapProfile.of(input);
+
+        assertThat(profile.getRows()).isEqualTo(6);
+        assertThat(profile.getFirst()).isEqualTo(Instant.parse("2025-01-01T00:00:00Z"));
+        assertThat(profile.getLast()).isEqualTo(Instant.parse("2025-01-01T08:00:00Z"));
+        assertThat(profile.getStep()).isEqualTo(Duration.ofHours(1));
+        assertThat(profile.getGaps()).isEqualTo(2);
+        assertThat(profile.getMissingRows()).isEqualTo(4);
+        assertThat(profile.getGapHistogram()).containsExactly(
+                entry("1", 1L),
+                entry("3-4", 1L));
+        assertThat(profile.getDuplicates()).isEqualTo(1);
+        assertThat(profile.getOutOfOrder()).isZero();
+        assertThat(profile.getExpectedOutputRows()).isEqualTo(9);
+
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+        List<String> out = Files.readAllLines(service.processFile(input, ProcessingOptions.withSuffix("p")));
+        long dataRows = out.stream().skip(1).takeWhile(l -> !l.startsWith("Average,")).count();
+        assertThat(dataRows).isEqualTo(profile.getExpectedOutputRows());
+    }
+
+    @Test
+    void out_of_order_rows_and_other_timestamp_forms_are_counted() throws Exception {
+        Path tempDir = Files.createTempDirectory("profile-test");
+        Path input = tempDir.resolve("mixed.csv");
+        Files.write(input, List.of(
+                "timestamp,value",
+                " 2025-01-01T00:00:00.500Z ,a",
+                "2025-01-01T00:00:01.5Z,b",
+                "2025-01-01T00:00:00.250Z,c",
+                "2025-01-01T01:00:02.5+01:00,d",
+                "2025-01-01T00:00:03.500000000Z,e"));
+
+        GapProfile profile = GapProfile.of(input);
+
+        assertThat(profile.getRows()).isEqualTo(5);
+        assertThat(profile.getFirst()).isEqualTo(Instant.parse("2025-01-01T00:00:00.250Z"));
+        assertThat(profile.getLast()).isEqualTo(Instant.parse("2025-01-01T00:00:03.500Z"));
+        assertThat(profile.getOutOfOrder()).isEqualTo(1);
+        assertThat(profile.getStep()).isEqualTo(Duration.ofMillis(1000));
+    }
+}
@@ -0,0 +1,206 @@
+package com.data.imputation.service;
+
+import com.data.imputation.model.DataRow;
+import com.data.imputation.model.ProcessingOptions;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImputationEngineTest {
+
+    @Test
+    void chunked_csv_repairs_to_the_rows_of_a_file_job() throws Exception {
+        Path input = Files.createTempDirectory("engine-test").resolve("test_sparse_columns.csv");
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("test_files/test_sparse_columns.csv")) {
+            Files.copy(in, input, StandardCopyOption.REPLACE_EXISTING);
+        }
+        List<String> file = Files.readAllLines(
+                new TimeSeriesInterpolationService(new CsvService()).processFile(input, ProcessingOptions.withSuffix("file")));
+
+        SubmissionPublisher<ByteBuffer> chunks = new SubmissionPublisher<>();
+        Collector collector = new Collector(Long.MAX_VALUE);
+        new ImputationEngine().repairCsv(chunks, ProcessingOptions.withSuffix("stream")).subscribe(collector);
+        // chunk edges fall inside lines
+        byte[] bytes = Files.readAllBytes(input);
+        for (int i = 0; i < bytes.length; i += 37) {
+            chunks.submit(ByteBuffer.wrap(bytes, i, Math.min(37, bytes.length - i)).slice());
+        }
+        chunks.close();
+        collector.done.get(30, TimeUnit.SECONDS);
+
+        int fileRows = (int) file.stream().takeWhile(line -> !line.startsWith("Average,")).count() - 1;
+        assertThat(fileRows).isGreaterThan(0);
+        assertThat(collector.rows).isEqualTo(file.subList(1, fileRows + 1));
+        assertThat(collector.stats.headers()).isEqualTo(List.of(file.get(0).split(",")));
+        assertThat(file.get(fileRows + 1))
+                .startsWith("Average," + collector.stats.columns().get(0).average());
+    }
+
+    @Test
+    void rows_out_of_order_are_sorted_and_filled_for_a_slow_subscriber() throws Exception {
+        SubmissionPublisher<DataRow> rows = new SubmissionPublisher<>();
+        Collector collector = new Collector(1);
+        new ImputationEngine().repairRows(List.of("timestamp", "value"), rows, ProcessingOptions.withSuffix("stream"))
+                .subscribe(collector);
+        Instant start = Instant.parse("2025-01-01T00:00:00Z");
+        rows.submit(new DataRow(start.plusSeconds(3600), List.of("20")));
+        rows.submit(new DataRow(start, List.of("10")));
+        rows.submit(new DataRow(start.plusSeconds(2 * 3600), List.of("30")));
+        rows.submit(new DataRow(start.plusSeconds(3 * 3600), List.of("40")));
+        rows.submit(new DataRow(start.plusSeconds(6 * 3600), List.of("70")));
+        rows.close();
+        collector.done.get(30, TimeUnit.SECONDS);
+
+        assertThat(collector.rows).containsExactly(
+                "2025-01-01T00:00:00Z,10",
+                "2025-01-01T01:00:00Z,20",
+                "2025-01-01T02:00:00Z,30",
+                "2025-01-01T03:00:00Z,40",
+                "2025-01-01T04:00:00Z,50.0",
+                "2025-01-01T05:00:00Z,60.0",
+                "2025-01-01T06:00:00Z,70");
+        assertThat(collector.stats.columns().get(0).maximum()).isEqualTo(70.0);
+    }
+
+    @Test
+    void a_single_thread_executor_serves_more_rows_than_fit_in_a_request_to_a_slow_subscriber() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            SubmissionPublisher<DataRow> rows = new SubmissionPublisher<>();
+            Collector collector = new Collector(7);
+            new ImputationEngine(executor).repairRows(List.of("timestamp", "value"), rows,
+                    ProcessingOptions.withSuffix("stream")).subscribe(collector);
+            // every fifth minute missing, so the repaired table has 5000 rows
+            Instant start = Instant.parse("2025-01-01T00:00:00Z");
+            for (int minute = 0; minute < 5000; minute++) {
+                if (minute % 5 != 2) rows.submit(new DataRow(start.plusSeconds(60L * minute), List.of("" + minute)));
+            }
+            rows.close();
+            collector.done.get(30, TimeUnit.SECONDS);
+
+            assertThat(collector.rows).hasSize(5000);
+            assertThat(collector.rows.get(2)).isEqualTo("2025-01-01T00:02:00Z,2.0");
+            assertThat(collector.stats.columns().get(0).maximum()).isEqualTo(4999.0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void column_selection_over_csv_matches_a_file_job() throws Exception {
+        Path input = Files.createTempDirectory("engine-test").resolve("spaced.csv");
+        Files.write(input, List.of(
+                "timestamp, temp , pressure",
+                "2025-01-01T00:00:00Z,10,1000",
+                "2025-01-01T02:00:00Z,30,",
+                "2025-01-01T03:00:00Z,,1003"));
+        List<String> file = Files.readAllLines(new TimeSeriesInterpolationService(new CsvService())
+                .processFile(input, ProcessingOptions.withSuffix("file").columns("temp")));
+
+        SubmissionPublisher<ByteBuffer> chunks = new SubmissionPublisher<>();
+        Collector collector = new Collector(Long.MAX_VALUE);
+        new ImputationEngine().repairCsv(chunks, ProcessingOptions.withSuffix("stream").columns("temp"))
+                .subscribe(collector);
+        chunks.submit(ByteBuffer.wrap(Files.readAllBytes(input)));
+        chunks.close();
+        collector.done.get(30, TimeUnit.SECONDS);
+
+        assertThat(collector.stats.headers()).containsExactly("timestamp", " temp ");
+        assertThat(collector.rows).isEqualTo(file.subList(1, collector.rows.size() + 1));
+        assertThat(collector.rows).hasSize(4);
+    }
+
+    @Test
+    void cancel_after_the_source_completes_skips_the_repair() {
+        List<Runnable> tasks = new ArrayList<>();
+        Collector collector = new Collector(1);
+        Instant start = Instant.parse("2025-01-01T00:00:00Z");
+        Flow.Publisher<DataRow> rows = subscriber -> {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onNext(new DataRow(start, List.of("10")));
+            subscriber.onNext(new DataRow(start.plusSeconds(7200), List.of("30")));
+            subscriber.onComplete();
+        };
+        new ImputationEngine(tasks::add).repairRows(List.of("timestamp", "value"), rows,
+                ProcessingOptions.withSuffix("stream")).subscribe(collector);
+        collector.subscription.cancel();
+
+        // the first request's drain and the repair; a repair that ran would queue a drain of its output
+        int run = 0;
+        while (run < tasks.size()) tasks.get(run++).run();
+        assertThat(run).isEqualTo(2);
+        assertThat(collector.rows).isEmpty();
+        assertThat(collector.done.isDone()).isFalse();
+    }
+
+    @Test
+    void file_only_options_are_rejected() {
+        ImputationEngine engine = new ImputationEngine();
+        assertThatThrownBy(() -> engine.repairCsv(new SubmissionPublisher<>(),
+                ProcessingOptions.withSuffix("x").delta(true)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /** Takes {@code batch} items per request and keeps rows as CSV lines. */
+    private static final class Collector implements Flow.Subscriber<ImputationEngine.Output> {
+        final long batch;
+        final List<String> rows = new ArrayList<>();
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        ImputationEngine.Stats stats;
+        Flow.Subscription subscription;
+
+        Collector(long batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(batch);
+        }
+
+        @Override
+        public void onNext(ImputationEngine.Output item) {
+            if (item instanceof ImputationEngine.Row row) {
+                rows.add(row.row().getTimestamp() + "," + String.join(",", row.row().getValues()));
+            } else {
+                stats = (ImputationEngine.Stats) item;
+            }
+            if (batch != Long.MAX_VALUE) subscription.request(batch);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            done.completeExceptionally(error);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(null);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.data.imputation.service;
+
+import com.data.imputation.metrics.JobMetrics;
+import com.data.imputation.model.ProcessingOptions;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JfrEventsTest {
+
+    private LocalS3Server server;
+    private S3Client client;
+
+    @AfterEach
+    void stopServer() {
+        if (client != null) client.close();
+        if (server != null) server.close();
+    }
+
+    @Test
+    void job_records_one_job_event_its_stages_and_one_event_per_column_batch() throws Exception {
+        // 70 numeric columns make two batches of 64 and 6; one missing minute in each
+        Path input = Files.createTempDirectory("jfr-test").resolve("wide.csv");
+        StringBuilder csv = new StringBuilder("timestamp");
+        for (int c = 0; c < 70; c++) csv.append(",c").append(c);
+        csv.append('\n');
+        for (int minute : new int[]{0, 1, 3, 4}) {
+            csv.append(String.format("2025-01-01T00:%02d:00Z", minute));
+            for (int c = 0; c < 70; c++) csv.append(',').append(minute + c);
+            csv.append('\n');
+        }
+        Files.writeString(input, csv);
+
+        List<RecordedEvent> events = record(() ->
+                new TimeSeriesInterpolationService(new CsvService()).processFile(input, "jfr"));
+
+        List<RecordedEvent> jobs = named(events, "com.data.imputation.Job");
+        assertThat(jobs).hasSize(1);
+        RecordedEvent job = jobs.get(0);
+        assertThat(job.getString("fileName")).isEqualTo("wide.csv");
+        assertThat(job.getLong("rowsIn")).isEqualTo(4L);
+        assertThat(job.getLong("rowsOut")).isEqualTo(5L);
+        assertThat(job.getInt("columns")).isEqualTo(70);
+        assertThat(job.getLong("bytesRead")).isEqualTo(Files.size(input));
+        assertThat(job.getLong("bytesWritten")).isPositive();
+        assertThat(job.getBoolean("succeeded")).isTrue();
+
+        List<String> stages = named(events, "com.data.imputation.Stage").stream()
+                .map(event -> event.getString("stage"))
+                .toList();
+        assertThat(stages).contains("parse", "gap-fill", "interpolate", "write");
+
+        List<RecordedEvent> batches = named(events, "com.data.imputation.ColumnBatch");
+        assertThat(batches).hasSize(2);
+        assertThat(batches.get(0).getInt("firstColumnIndex")).isEqualTo(0);
+        assertThat(batches.get(0).getInt("columns")).isEqualTo(64);
+        assertThat(batches.get(1).getInt("firstColumnIndex")).isEqualTo(64);
+        assertThat(batches.get(1).getInt("columns")).isEqualTo(6);
+        // one blank row of 70 numeric cells, split over the batches
+        assertThat(batches.get(0).getLong("cellsImputed") + batches.get(1).getLong("cellsImputed"))
+                .isEqualTo(70L);
+    }
+
+    @Test
+    void snapshot_job_records_one_parse_stage_whether_it_parses_or_maps() throws Exception {
+        Path input = Files.createTempDirectory("jfr-test").resolve("hourly.csv");
+        Files.write(input, List.of(
+                "timestamp,temp",
+                "2025-01-01T00:00:00Z,10",
+                "2025-01-01T01:00:00Z,",
+                "2025-01-01T02:00:00Z,12"));
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+
+        for (String run : List.of("parsed", "mapped")) {
+            List<RecordedEvent> parses = named(record(() ->
+                    service.processFile(input, ProcessingOptions.withSuffix(run).snapshot(true))),
+                    "com.data.imputation.Stage").stream()
+                    .filter(event -> event.getString("stage").equals("parse"))
+                    .toList();
+            assertThat(parses).hasSize(1);
+            assertThat(parses.get(0).getLong("rows")).isEqualTo(3L);
+        }
+    }
+
+    @Test
+    void multipart_upload_records_one_event_per_part() throws Exception {
+        server = LocalS3Server.start();
+        Path file = Files.createTempDirectory("jfr-test").resolve("large.csv");
+        byte[] content = new byte[20 << 20];
+        new Random(3).nextBytes(content);
+        Files.write(file, content);
+
+        S3Service service = new S3ServiceTest().service(server);
+        List<RecordedEvent> events = record(() -> service.uploadFile(file, new JobMetrics("large.csv", null)));
+
+        List<RecordedEvent> parts = named(events, "com.data.imputation.UploadPart");
+        assertThat(parts.stream().map(event -> event.getInt("partNumber")).toList()).containsExactly(1, 2, 3);
+        assertThat(parts.stream().map(event -> event.getLong("bytes")).toList())
+                .containsExactly(8L << 20, 8L << 20, 4L << 20);
+        assertThat(parts.get(0).getString("key")).isEqualTo("out/large.csv");
+        assertThat(parts.get(0).getString("fileName")).isEqualTo("large.csv");
+    }
+
+    @FunctionalInterface
+    private interface Work {
+        Object run() throws Exception;
+    }
+
+    /** The app's events recorded while {@code work} runs, in commit order. */
+    private static List<RecordedEvent> record(Work work) throws Exception {
+        Path dump = Files.createTempFile("jfr-test", ".jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : List.of("Job", "Stage", "ColumnBatch", "UploadPart")) {
+                recording.enable("com.data.imputation." + name).withoutThreshold();
+            }
+            recording.start();
+            work.run();
+            recording.stop();
+            recording.dump(dump);
+        }
+        return RecordingFile.readAllEvents(dump).stream()
+                .sorted((a, b) -> a.getEndTime().compareTo(b.getEndTime()))
+                .toList();
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name)).toList();
+    }
+}
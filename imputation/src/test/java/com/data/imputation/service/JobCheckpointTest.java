@@ -0,0 +1,132 @@
+package com.data.imputation.service;
+
+import com.data.imputation.metrics.JobMetrics;
+import com.data.imputation.model.CsvTable;
+import com.data.imputation.model.ProcessingOptions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobCheckpointTest {
+
+    private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+    // ---------- parse ----------
+
+    @Test
+    void recorded_rows_are_replayed_and_parsing_continues_after_them() throws Exception {
+        Path tempDir = Files.createTempDirectory("ckpt-test");
+        Path input = writeHourlyInput(tempDir, 10);
+        Path sidecar = tempDir.resolve("hourly.csv.ckpt");
+
+        // a previous run got through the first two lines; "zero" proves the row comes from the sidecar
+        try (JobCheckpoint checkpoint = JobCheckpoint.open(sidecar, input, "fp")) {
+            checkpoint.parsedChunk(2,
+                    List.of(START, START.plusSeconds(3600)),
+                    List.of(new String[]{"zero"}, new String[]{"1"}));
+        }
+        // and died while writing the next record
+        Files.write(sidecar, new byte[]{1, -1, -1, -1, -1, -1, -1, -1, -1, 0, 0}, StandardOpenOption.APPEND);
+
+        CsvTable table;
+        try (JobCheckpoint checkpoint = JobCheckpoint.open(sidecar, input, "fp")) {
+            assertThat(checkpoint.isResumed()).isTrue();
+            assertThat(checkpoint.getParsedLines()).isEqualTo(2);
+            table = new CsvService().readCsvSorted(input, metrics(), checkpoint);
+        }
+
+        assertThat(table.getRowCount()).isEqualTo(10);
+        assertThat(table.getColumns().get(0).get(0)).isEqualTo("zero");
+        assertThat(table.getColumns().get(0).get(3)).isEqualTo("3");
+        assertThat(table.getTimestamps().get(9)).isEqualTo(START.plusSeconds(9 * 3600));
+    }
+
+    @Test
+    void checkpoint_for_a_changed_input_is_discarded() throws Exception {
+        Path tempDir = Files.createTempDirectory("ckpt-test");
+        Path input = writeHourlyInput(tempDir, 10);
+        Path sidecar = tempDir.resolve("hourly.csv.ckpt");
+
+        try (JobCheckpoint checkpoint = JobCheckpoint.open(sidecar, input, "fp")) {
+            checkpoint.parsedChunk(2, List.of(START, START.plusSeconds(3600)),
+                    List.of(new String[]{"zero"}, new String[]{"1"}));
+        }
+        Files.setLastModifiedTime(input, FileTime.from(Instant.now().plusSeconds(60)));
+
+        try (JobCheckpoint checkpoint = JobCheckpoint.open(sidecar, input, "fp")) {
+            assertThat(checkpoint.isResumed()).isFalse();
+            assertThat(checkpoint.getParsedLines()).isZero();
+        }
+    }
+
+    // ---------- write ----------
+
+    @Test
+    void output_is_cut_back_to_the_last_recorded_row_and_continued() throws Exception {
+        Path tempDir = Files.createTempDirectory("ckpt-test");
+        Path input = writeHourlyInput(tempDir, 10);
+        CsvService csvService = new CsvService();
+        CsvTable table = csvService.readCsv(input);
+
+        Path output = tempDir.resolve("out.csv");
+        csvService.writeCsv(output, table);
+        String expected = Files.readString(output);
+
+        // header + 4 rows were written before the crash, then half a row
+        List<String> lines = Files.readAllLines(output);
+        int offset = 0;
+        for (int i = 0; i <= 4; i++) offset += lines.get(i).length() + System.lineSeparator().length();
+        String written = expected.substring(0, offset).replace(",0" + System.lineSeparator(), ",#" + System.lineSeparator());
+        Files.writeString(output, written + "2025-01-01T04:00");
+
+        Path sidecar = JobCheckpoint.sidecarFor(output);
+        try (JobCheckpoint checkpoint = JobCheckpoint.open(sidecar, input, "fp")) {
+            checkpoint.outputProgress(4, offset);
+        }
+        try (JobCheckpoint checkpoint = JobCheckpoint.open(sidecar, input, "fp")) {
+            csvService.writeCsv(output, table, metrics(), checkpoint);
+        }
+
+        // rows before the checkpoint were kept as they were, the rest rewritten
+        assertThat(Files.readString(output)).isEqualTo(written + expected.substring(offset));
+    }
+
+    // ---------- pipeline ----------
+
+    @Test
+    void checkpointed_run_matches_a_plain_run_and_removes_its_sidecar() throws Exception {
+        Path tempDir = Files.createTempDirectory("ckpt-test");
+        Path input = writeHourlyInput(tempDir, 70_000);
+
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+        Path plain = service.processFile(input, ProcessingOptions.withSuffix("plain"));
+        Path checkpointed = service.processFile(input, ProcessingOptions.withSuffix("ckpt").checkpoint(true));
+
+        assertThat(Files.readString(checkpointed)).isEqualTo(Files.readString(plain));
+        assertThat(JobCheckpoint.sidecarFor(checkpointed)).doesNotExist();
+    }
+
+    // ---------- helpers ----------
+
+    /** Hourly rows with every third value blank. */
+    private Path writeHourlyInput(Path dir, int rows) throws Exception {
+        List<String> lines = new ArrayList<>(rows + 1);
+        lines.add("timestamp,value");
+        for (int i = 0; i < rows; i++) {
+            lines.add(START.plusSeconds(3600L * i) + "," + (i % 3 == 2 ? "" : Integer.toString(i)));
+        }
+        Path input = dir.resolve("hourly.csv");
+        Files.write(input, lines);
+        return input;
+    }
+
+    private static JobMetrics metrics() {
+        return new JobMetrics("test", null);
+    }
+}
@@ -0,0 +1,442 @@
+package com.data.imputation.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-in for the parts of S3 the app uses, so uploads can be tested
+ * and measured without a network: PutObject, multipart uploads (create, upload
+ * part, complete, abort), HeadObject and GetObject with a byte range, path-style
+ * ({@code /bucket/key}), objects kept in memory. Credentials and signatures are
+ * not checked.
+ *
+ * Every request waits {@code latencyMillis} before it is answered, and request and
+ * response bodies share one link of {@code bytesPerSecond} (0 for unthrottled), as
+ * all uploads from one machine share its uplink.
+ */
+class LocalS3Server implements AutoCloseable {
+
+    private static final String XMLNS = "http://s3.amazonaws.com/doc/2006-03-01/";
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+    private static final Pattern PART = Pattern.compile("<Part>(.*?)</Part>", Pattern.DOTALL);
+    private static final Pattern PART_NUMBER = Pattern.compile("<PartNumber>(\\d+)</PartNumber>");
+    private static final Pattern PART_ETAG = Pattern.compile("<ETag>([^<]*)</ETag>");
+    private static final int IO_BUFFER_BYTES = 64 * 1024;
+
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<String, Upload> uploads = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final HttpServer httpServer;
+    private final ExecutorService executor;
+    private volatile long latencyMillis;
+    private volatile long bytesPerSecond;
+    // when the throttled link is next free, in System.nanoTime() terms
+    private long linkFreeAt;
+
+    private LocalS3Server(HttpServer httpServer, ExecutorService executor) {
+        this.httpServer = httpServer;
+        this.executor = executor;
+    }
+
+    /** Starts a server on a free local port. */
+    static LocalS3Server start() throws IOException {
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        ExecutorService executor = Executors.newCachedThreadPool();
+        LocalS3Server server = new LocalS3Server(httpServer, executor);
+        httpServer.createContext("/", server::handle);
+        httpServer.setExecutor(executor);
+        httpServer.start();
+        return server;
+    }
+
+    /** Time to first byte of every response. */
+    LocalS3Server latencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+        return this;
+    }
+
+    /** Bandwidth of the link all bodies share; 0 for unthrottled. */
+    LocalS3Server bytesPerSecond(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    URI endpoint() {
+        return URI.create("http://127.0.0.1:" + httpServer.getAddress().getPort());
+    }
+
+    /** A client for this server with fixed credentials and path-style addressing. */
+    S3Client client() {
+        return S3Client.builder()
+                .endpointOverride(endpoint())
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("local", "local")))
+                .forcePathStyle(true)
+                .build();
+    }
+
+    /** The stored object, or null. */
+    byte[] object(String bucket, String key) {
+        return objects.get(bucket + "/" + key);
+    }
+
+    long requestCount() {
+        return requests.get();
+    }
+
+    /** Object and part bytes received, without any transfer encoding. */
+    long bytesReceived() {
+        return bytesReceived.get();
+    }
+
+    @Override
+    public void close() {
+        httpServer.stop(0);
+        executor.shutdownNow();
+    }
+
+    // ---------- routing ----------
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            try {
+                if (latencyMillis > 0) Thread.sleep(latencyMillis);
+                route(exchange);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                sendError(exchange, 500, "InternalError", String.valueOf(e.getMessage()));
+            }
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getRawPath();
+        int slash = path.indexOf('/', 1);
+        if (slash < 0 || slash == path.length() - 1) {
+            sendError(exchange, 400, "InvalidRequest", "Expected /bucket/key: " + path);
+            return;
+        }
+        String bucket = URLDecoder.decode(path.substring(1, slash), StandardCharsets.UTF_8);
+        String key = URLDecoder.decode(path.substring(slash + 1).replace("+", "%2B"), StandardCharsets.UTF_8);
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+        if (method.equals("POST") && query.containsKey("uploads")) {
+            createUpload(exchange, bucket, key);
+        } else if (method.equals("PUT") && query.containsKey("uploadId")) {
+            uploadPart(exchange, query.get("uploadId"), query.get("partNumber"));
+        } else if (method.equals("POST") && query.containsKey("uploadId")) {
+            completeUpload(exchange, bucket, key, query.get("uploadId"));
+        } else if (method.equals("DELETE") && query.containsKey("uploadId")) {
+            discardBody(exchange);
+            uploads.remove(query.get("uploadId"));
+            exchange.sendResponseHeaders(204, -1);
+        } else if (method.equals("PUT")) {
+            byte[] body = readBody(exchange);
+            bytesReceived.addAndGet(body.length);
+            objects.put(bucket + "/" + key, body);
+            exchange.getResponseHeaders().set("ETag", etag(body));
+            exchange.sendResponseHeaders(200, -1);
+        } else if (method.equals("HEAD")) {
+            head(exchange, objects.get(bucket + "/" + key));
+        } else if (method.equals("GET")) {
+            get(exchange, objects.get(bucket + "/" + key));
+        } else {
+            discardBody(exchange);
+            sendError(exchange, 405, "MethodNotAllowed", method + " " + path);
+        }
+    }
+
+    // ---------- multipart ----------
+
+    /** One upload in progress: its parts by number. */
+    private record Upload(String bucket, String key, Map<Integer, byte[]> parts) {
+    }
+
+    private void createUpload(HttpExchange exchange, String bucket, String key) throws IOException {
+        discardBody(exchange);
+        String uploadId = UUID.randomUUID().toString();
+        uploads.put(uploadId, new Upload(bucket, key, new ConcurrentSkipListMap<>()));
+        sendXml(exchange, 200, "<InitiateMultipartUploadResult xmlns=\"" + XMLNS + "\">"
+                + "<Bucket>" + escape(bucket) + "</Bucket><Key>" + escape(key) + "</Key>"
+                + "<UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>");
+    }
+
+    private void uploadPart(HttpExchange exchange, String uploadId, String partNumber) throws IOException {
+        Upload upload = uploads.get(uploadId);
+        if (upload == null) {
+            discardBody(exchange);
+            sendError(exchange, 404, "NoSuchUpload", "The specified upload does not exist.");
+            return;
+        }
+        byte[] body = readBody(exchange);
+        bytesReceived.addAndGet(body.length);
+        upload.parts().put(Integer.parseInt(partNumber), body);
+        exchange.getResponseHeaders().set("ETag", etag(body));
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    private void completeUpload(HttpExchange exchange, String bucket, String key, String uploadId)
+            throws IOException {
+        String request = new String(readBody(exchange), StandardCharsets.UTF_8);
+        Upload upload = uploads.get(uploadId);
+        if (upload == null) {
+            sendError(exchange, 404, "NoSuchUpload", "The specified upload does not exist.");
+            return;
+        }
+
+        // the object is the listed parts in order; each must match what was sent
+        ByteArrayOutputStream object = new ByteArrayOutputStream();
+        MessageDigest digests = md5();
+        int count = 0;
+        Matcher m = PART.matcher(request);
+        while (m.find()) {
+            // fields of a part may come in any order
+            Matcher number = PART_NUMBER.matcher(m.group(1));
+            Matcher expected = PART_ETAG.matcher(m.group(1));
+            if (!number.find() || !expected.find()) {
+                sendError(exchange, 400, "MalformedXML", "A part needs a PartNumber and an ETag.");
+                return;
+            }
+            byte[] part = upload.parts().get(Integer.parseInt(number.group(1)));
+            if (part == null || !etag(part).equals(unescape(expected.group(1)))) {
+                sendError(exchange, 400, "InvalidPart", "Part " + number.group(1) + " was not uploaded as listed.");
+                return;
+            }
+            object.write(part);
+            digests.update(md5().digest(part));
+            count++;
+        }
+        if (count == 0) {
+            sendError(exchange, 400, "MalformedXML", "No parts listed.");
+            return;
+        }
+        uploads.remove(uploadId);
+        objects.put(bucket + "/" + key, object.toByteArray());
+
+        String etag = "\"" + HexFormat.of().formatHex(digests.digest()) + "-" + count + "\"";
+        sendXml(exchange, 200, "<CompleteMultipartUploadResult xmlns=\"" + XMLNS + "\">"
+                + "<Location>" + endpoint() + "/" + escape(bucket) + "/" + escape(key) + "</Location>"
+                + "<Bucket>" + escape(bucket) + "</Bucket><Key>" + escape(key) + "</Key>"
+                + "<ETag>" + escape(etag) + "</ETag></CompleteMultipartUploadResult>");
+    }
+
+    // ---------- reads ----------
+
+    private void head(HttpExchange exchange, byte[] object) throws IOException {
+        if (object == null) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        // a HEAD response states its length by hand
+        exchange.getResponseHeaders().set("Content-Length", Long.toString(object.length));
+        exchange.getResponseHeaders().set("ETag", etag(object));
+        exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    private void get(HttpExchange exchange, byte[] object) throws IOException {
+        if (object == null) {
+            sendError(exchange, 404, "NoSuchKey", "The specified key does not exist.");
+            return;
+        }
+        exchange.getResponseHeaders().set("ETag", etag(object));
+        exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range == null) {
+            exchange.sendResponseHeaders(200, object.length == 0 ? -1 : object.length);
+            writeThrottled(exchange.getResponseBody(), object, 0, object.length);
+            return;
+        }
+
+        Matcher m = RANGE.matcher(range.trim());
+        long first;
+        long last;
+        if (!m.matches() || (m.group(1).isEmpty() && m.group(2).isEmpty())) {
+            sendError(exchange, 400, "InvalidArgument", "Unsupported range: " + range);
+            return;
+        } else if (m.group(1).isEmpty()) {
+            // the last n bytes
+            first = Math.max(0, object.length - Long.parseLong(m.group(2)));
+            last = object.length - 1;
+        } else {
+            first = Long.parseLong(m.group(1));
+            last = m.group(2).isEmpty() ? object.length - 1 : Math.min(Long.parseLong(m.group(2)), object.length - 1);
+        }
+        if (first >= object.length || last < first) {
+            exchange.getResponseHeaders().set("Content-Range", "bytes */" + object.length);
+            sendError(exchange, 416, "InvalidRange", "The requested range is not satisfiable.");
+            return;
+        }
+        int length = (int) (last - first + 1);
+        exchange.getResponseHeaders().set("Content-Range", "bytes " + first + "-" + last + "/" + object.length);
+        exchange.sendResponseHeaders(206, length);
+        writeThrottled(exchange.getResponseBody(), object, (int) first, length);
+    }
+
+    // ---------- bodies ----------
+
+    /**
+     * The request's object bytes. A body in {@code aws-chunked} encoding, which the SDK
+     * uses to send a checksum after the data, is decoded: chunks of
+     * {@code <hex length>[;chunk-signature=...]\r\n<data>\r\n}, a zero-length chunk,
+     * then trailer lines up to a blank one.
+     */
+    private byte[] readBody(HttpExchange exchange) throws IOException {
+        String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        String sha256 = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+        boolean chunked = (encoding != null && encoding.contains("aws-chunked"))
+                || (sha256 != null && sha256.startsWith("STREAMING-"));
+
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[IO_BUFFER_BYTES];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                throttle(n);
+                raw.write(buffer, 0, n);
+            }
+        }
+        return chunked ? decodeAwsChunked(raw.toByteArray()) : raw.toByteArray();
+    }
+
+    private static byte[] decodeAwsChunked(byte[] encoded) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(encoded.length);
+        int at = 0;
+        while (at < encoded.length) {
+            int lineEnd = indexOfCrLf(encoded, at);
+            if (lineEnd < 0) throw new IOException("Truncated aws-chunked body.");
+            String header = new String(encoded, at, lineEnd - at, StandardCharsets.US_ASCII);
+            int semicolon = header.indexOf(';');
+            int length = Integer.parseInt((semicolon < 0 ? header : header.substring(0, semicolon)).trim(), 16);
+            at = lineEnd + 2;
+            // the zero-length chunk is followed only by trailers
+            if (length == 0) break;
+            if (at + length > encoded.length) throw new IOException("Truncated aws-chunked body.");
+            out.write(encoded, at, length);
+            at += length + 2;
+        }
+        return out.toByteArray();
+    }
+
+    private static int indexOfCrLf(byte[] bytes, int from) {
+        for (int i = from; i + 1 < bytes.length; i++) {
+            if (bytes[i] == '\r' && bytes[i + 1] == '\n') return i;
+        }
+        return -1;
+    }
+
+    private void writeThrottled(OutputStream out, byte[] bytes, int offset, int length) throws IOException {
+        try (out) {
+            for (int at = offset; at < offset + length; at += IO_BUFFER_BYTES) {
+                int n = Math.min(IO_BUFFER_BYTES, offset + length - at);
+                throttle(n);
+                out.write(bytes, at, n);
+            }
+        }
+    }
+
+    /** Holds the caller until {@code bytes} more have crossed the shared link. */
+    private void throttle(int bytes) throws IOException {
+        long rate = bytesPerSecond;
+        if (rate <= 0) return;
+        long until;
+        synchronized (this) {
+            long now = System.nanoTime();
+            linkFreeAt = Math.max(linkFreeAt, now) + bytes * 1_000_000_000L / rate;
+            until = linkFreeAt;
+        }
+        long wait = until - System.nanoTime();
+        if (wait <= 0) return;
+        try {
+            Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while throttled.", e);
+        }
+    }
+
+    private static void discardBody(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            body.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    // ---------- responses ----------
+
+    private static void sendXml(HttpExchange exchange, int status, String xml) throws IOException {
+        byte[] bytes = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + xml).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String code, String message) throws IOException {
+        sendXml(exchange, status, "<Error><Code>" + code + "</Code><Message>" + escape(message) + "</Message>"
+                + "<RequestId>local</RequestId></Error>");
+    }
+
+    private static String etag(byte[] bytes) {
+        return "\"" + HexFormat.of().formatHex(md5().digest(bytes)) + "\"";
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return query;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    private static String unescape(String text) {
+        return text.replace("&quot;", "\"").replace("&lt;", "<").replace("&gt;", ">").replace("&amp;", "&");
+    }
+}
@@ -0,0 +1,151 @@
+package com.data.imputation.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalS3ServerTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private LocalS3Server server;
+
+    @AfterEach
+    void stopServer() {
+        if (server != null) server.close();
+    }
+
+    @Test
+    void put_object_is_read_back_whole_by_range_and_by_head() throws Exception {
+        server = LocalS3Server.start();
+        byte[] object = randomBytes(300_000);
+
+        HttpResponse<String> put = client.send(HttpRequest.newBuilder(uri("/bucket/dir/file.csv"))
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(object)).build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(put.statusCode()).isEqualTo(200);
+        assertThat(put.headers().firstValue("ETag")).isPresent();
+
+        HttpResponse<Void> head = client.send(HttpRequest.newBuilder(uri("/bucket/dir/file.csv"))
+                .method("HEAD", HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.discarding());
+        assertThat(head.statusCode()).isEqualTo(200);
+        assertThat(head.headers().firstValue("Content-Length")).hasValue("300000");
+
+        assertThat(get("/bucket/dir/file.csv", null).body()).isEqualTo(object);
+
+        HttpResponse<byte[]> middle = get("/bucket/dir/file.csv", "bytes=1000-1999");
+        assertThat(middle.statusCode()).isEqualTo(206);
+        assertThat(middle.headers().firstValue("Content-Range")).hasValue("bytes 1000-1999/300000");
+        assertThat(middle.body()).isEqualTo(Arrays.copyOfRange(object, 1000, 2000));
+        assertThat(get("/bucket/dir/file.csv", "bytes=-10").body())
+                .isEqualTo(Arrays.copyOfRange(object, 299_990, 300_000));
+        assertThat(get("/bucket/dir/file.csv", "bytes=299000-").body())
+                .isEqualTo(Arrays.copyOfRange(object, 299_000, 300_000));
+
+        assertThat(get("/bucket/dir/file.csv", "bytes=400000-").statusCode()).isEqualTo(416);
+        assertThat(get("/bucket/missing.csv", null).statusCode()).isEqualTo(404);
+    }
+
+    @Test
+    void multipart_parts_in_aws_chunked_encoding_complete_into_one_object() throws Exception {
+        server = LocalS3Server.start();
+        byte[] first = randomBytes(70_000);
+        byte[] second = randomBytes(20_000);
+
+        HttpResponse<String> created = client.send(HttpRequest.newBuilder(uri("/bucket/big.csv?uploads"))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+        Matcher uploadId = Pattern.compile("<UploadId>([^<]+)</UploadId>").matcher(created.body());
+        assertThat(uploadId.find()).isTrue();
+
+        String firstTag = uploadPart(uploadId.group(1), 1, awsChunked(first, 32_768));
+        String secondTag = uploadPart(uploadId.group(1), 2, awsChunked(second, 32_768));
+
+        HttpResponse<String> wrongTag = complete(uploadId.group(1), firstTag, "\"0\"");
+        assertThat(wrongTag.statusCode()).isEqualTo(400);
+        assertThat(wrongTag.body()).contains("InvalidPart");
+
+        HttpResponse<String> completed = complete(uploadId.group(1), firstTag, secondTag);
+        assertThat(completed.statusCode()).isEqualTo(200);
+        assertThat(completed.body()).contains("-2&quot;</ETag>");
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(first);
+        expected.write(second);
+        assertThat(server.object("bucket", "big.csv")).isEqualTo(expected.toByteArray());
+        assertThat(server.bytesReceived()).isEqualTo(90_000);
+    }
+
+    @Test
+    void latency_and_bandwidth_slow_requests_down() throws Exception {
+        server = LocalS3Server.start().latencyMillis(100).bytesPerSecond(4 << 20);
+
+        long start = System.nanoTime();
+        HttpResponse<String> put = client.send(HttpRequest.newBuilder(uri("/bucket/slow.csv"))
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(new byte[2 << 20])).build(),
+                HttpResponse.BodyHandlers.ofString());
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(put.statusCode()).isEqualTo(200);
+        // 2 MB over a 4 MB/s link, after 100 ms
+        assertThat(millis).isGreaterThanOrEqualTo(550);
+    }
+
+    private String uploadPart(String uploadId, int partNumber, byte[] body) throws Exception {
+        HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(uri("/bucket/big.csv?partNumber=" + partNumber + "&uploadId=" + uploadId))
+                        .header("Content-Encoding", "aws-chunked")
+                        .header("x-amz-content-sha256", "STREAMING-UNSIGNED-PAYLOAD-TRAILER")
+                        .PUT(HttpRequest.BodyPublishers.ofByteArray(body)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(200);
+        return response.headers().firstValue("ETag").orElseThrow();
+    }
+
+    private HttpResponse<String> complete(String uploadId, String firstTag, String secondTag) throws Exception {
+        String xml = "<CompleteMultipartUpload>"
+                + "<Part><ETag>" + firstTag.replace("\"", "&quot;") + "</ETag><PartNumber>1</PartNumber></Part>"
+                + "<Part><ETag>" + secondTag.replace("\"", "&quot;") + "</ETag><PartNumber>2</PartNumber></Part>"
+                + "</CompleteMultipartUpload>";
+        return client.send(HttpRequest.newBuilder(uri("/bucket/big.csv?uploadId=" + uploadId))
+                .POST(HttpRequest.BodyPublishers.ofString(xml)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<byte[]> get(String path, String range) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path)).GET();
+        if (range != null) request.header("Range", range);
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /** {@code data} as the SDK sends it with a trailing checksum. */
+    private static byte[] awsChunked(byte[] data, int chunkBytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int at = 0; at < data.length; at += chunkBytes) {
+            int n = Math.min(chunkBytes, data.length - at);
+            out.writeBytes((Integer.toHexString(n) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(data, at, n);
+            out.writeBytes("\r\n".getBytes(StandardCharsets.US_ASCII));
+        }
+        out.writeBytes("0\r\nx-amz-checksum-crc32:AAAAAA==\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+        return out.toByteArray();
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    private URI uri(String path) {
+        return server.endpoint().resolve(path);
+    }
+}
@@ -0,0 +1,139 @@
+package com.data.imputation.service;
+
+import com.data.imputation.metrics.JobMetrics;
+import com.data.imputation.model.ProcessingOptions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongFormatServiceTest {
+
+    private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+    // ---------- per series ----------
+
+    @Test
+    void each_series_is_repaired_like_a_wide_file_of_its_own() throws Exception {
+        Path tempDir = Files.createTempDirectory("long-test");
+        Path input = write(tempDir, "historian.csv",
+                "series_id,timestamp,value",
+                "pump,2025-01-01T00:00:00Z,10",
+                "fan,2025-01-01T00:00:00Z,1",
+                "fan,2025-01-01T00:15:00Z,",
+                "pump,2025-01-01T03:00:00Z,40",      // hourly, two hours missing
+                "fan,2025-01-01T00:30:00Z,3",
+                "fan,2025-01-01T01:15:00Z,6",         // 15-minute step, two timestamps missing
+                "pump,2025-01-01T01:00:00Z,",          // out of order within its series
+                "valve,2025-01-01T00:00:00Z,OPEN");    // a single timestamp passes through
+
+        TimeSeriesInterpolationService interpolation = new TimeSeriesInterpolationService(new CsvService());
+        LongFormatService service = new LongFormatService(interpolation, 4, 64L << 20);
+        Path output = service.processFile(input, ProcessingOptions.withSuffix("clean"), metrics());
+
+        assertThat(output.getFileName().toString()).isEqualTo("historian_clean.csv");
+        List<String> lines = Files.readAllLines(output);
+        assertThat(lines.subList(0, 12)).containsExactly(
+                "series_id,timestamp,value",
+                "pump,2025-01-01T00:00:00Z,10",
+                "pump,2025-01-01T01:00:00Z,20.0",
+                "pump,2025-01-01T02:00:00Z,30.0",
+                "pump,2025-01-01T03:00:00Z,40",
+                "fan,2025-01-01T00:00:00Z,1",
+                "fan,2025-01-01T00:15:00Z,2.0",
+                "fan,2025-01-01T00:30:00Z,3",
+                "fan,2025-01-01T00:45:00Z,4.0",
+                "fan,2025-01-01T01:00:00Z,5.0",
+                "fan,2025-01-01T01:15:00Z,6",
+                "valve,2025-01-01T00:00:00Z,OPEN");
+        assertThat(lines.subList(12, lines.size())).containsExactly(
+                "Stats,series_id,column,step,rows,imputed,Average,Median,Minimum,Maximum,Mode,NonNumericalDetected",
+                "Stats,pump,value,PT1H,4,2,25.0,25.0,10.0,40.0,10.0,0",
+                "Stats,fan,value,PT15M,6,3,3.5,3.5,1.0,6.0,1.0,0",
+                "Stats,valve,value,,1,0,NaN,NaN,NaN,NaN,NaN,1");
+    }
+
+    // ---------- bounded memory ----------
+
+    @Test
+    void a_series_larger_than_its_buffer_is_spilled_and_still_repaired() throws Exception {
+        Path tempDir = Files.createTempDirectory("long-test");
+        int bigRows = LongFormatService.SERIES_BUFFER_ROWS + 5_000;
+
+        // the big series interleaved with small ones, every tenth value blank
+        List<String> lines = new ArrayList<>();
+        lines.add("series_id,timestamp,value");
+        for (int i = 0; i < bigRows; i++) {
+            lines.add("big," + START.plusSeconds(60L * i) + "," + (i % 10 == 5 ? "" : Integer.toString(i)));
+            if (i % 1000 == 0) {
+                lines.add("small" + (i / 1000 % 3) + "," + START.plusSeconds(3600L * (i / 3000)) + "," + i);
+            }
+        }
+        Path input = write(tempDir, "mixed.csv", lines.toArray(String[]::new));
+
+        // a budget far below the big series, so it runs on its own
+        LongFormatService service = new LongFormatService(
+                new TimeSeriesInterpolationService(new CsvService()), 4, 1L << 20);
+        JobMetrics metrics = metrics();
+        Path output = service.processFile(input, ProcessingOptions.withSuffix("clean"), metrics);
+
+        List<String> big = Files.readAllLines(output).stream().filter(l -> l.startsWith("big,")).toList();
+        assertThat(big).hasSize(bigRows);
+        assertThat(big.get(5)).isEqualTo("big," + START.plusSeconds(300) + ",5.0");
+        assertThat(big.get(bigRows - 11)).isEqualTo("big," + START.plusSeconds(60L * (bigRows - 11)) + ","
+                + (double) (bigRows - 11));
+        assertThat(metrics.getCellsImputed()).isGreaterThanOrEqualTo(bigRows / 10);
+    }
+
+    @Test
+    void a_series_larger_than_the_whole_budget_is_repaired_off_heap_like_on_the_heap() throws Exception {
+        Path tempDir = Files.createTempDirectory("long-test");
+        int bigRows = 2 * LongFormatService.SERIES_BUFFER_ROWS;
+
+        // the big series written in two interleaved halves so it also needs sorting,
+        // with small series in between; every seventh value blank
+        List<String> lines = new ArrayList<>();
+        lines.add("series_id,timestamp,value");
+        for (int n = 0; n < bigRows; n++) {
+            int i = n < bigRows / 2 ? 2 * n : 2 * (n - bigRows / 2) + 1;
+            lines.add("big," + START.plusSeconds(60L * i) + "," + (i % 7 == 3 ? "" : Integer.toString(i)));
+            if (n % 2000 == 0) {
+                lines.add("small" + (n / 2000 % 3) + "," + START.plusSeconds(3600L * (n / 6000)) + ","
+                        + (n % 3 == 0 ? "" : Integer.toString(n)));
+            }
+        }
+        Path input = write(tempDir, "unsorted.csv", lines.toArray(String[]::new));
+
+        TimeSeriesInterpolationService interpolation = new TimeSeriesInterpolationService(new CsvService());
+        JobMetrics onHeapMetrics = metrics();
+        Path onHeap = new LongFormatService(interpolation, 4, 1L << 30)
+                .processFile(input, ProcessingOptions.withSuffix("heap"), onHeapMetrics);
+        JobMetrics offHeapMetrics = metrics();
+        Path offHeap = new LongFormatService(interpolation, 4, 1L << 20)
+                .processFile(input, ProcessingOptions.withSuffix("mapped"), offHeapMetrics);
+
+        assertThat(onHeapMetrics.getStorage()).isNull();
+        assertThat(offHeapMetrics.getStorage()).isEqualTo("1 of 4 series off-heap");
+        assertThat(Files.readAllLines(offHeap)).isEqualTo(Files.readAllLines(onHeap));
+        assertThat(offHeapMetrics.getCellsImputed()).isEqualTo(onHeapMetrics.getCellsImputed());
+        assertThat(Files.readAllLines(offHeap).stream().filter(l -> l.startsWith("big,")).count())
+                .isEqualTo((long) bigRows);
+    }
+
+    // ---------- helpers ----------
+
+    private Path write(Path dir, String name, String... lines) throws Exception {
+        Path file = dir.resolve(name);
+        Files.write(file, List.of(lines));
+        return file;
+    }
+
+    private static JobMetrics metrics() {
+        return new JobMetrics("test", null);
+    }
+}
@@ -0,0 +1,93 @@
+package com.data.imputation.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class MemoryAdmissionTest {
+
+    @Test
+    void estimate_projects_rows_and_grid_from_a_sample_and_the_last_line() throws Exception {
+        Path input = Files.createTempFile("admission", ".csv");
+        Instant start = Instant.parse("2025-01-01T00:00:00Z");
+        try (BufferedWriter out = Files.newBufferedWriter(input)) {
+            out.write("timestamp,temp,state\n");
+            // a minute grid with 10,000 minutes missing in the middle
+            for (int i = 0; i < 20_000; i++) {
+                long minute = i < 10_000 ? i : i + 10_000;
+                out.write(start.plusSeconds(60 * minute) + "," + (i % 50) + ".5," + (i % 3 == 0 ? "ON" : "OFF") + "\n");
+            }
+        }
+
+        MemoryAdmission.Estimate estimate = MemoryAdmission.Estimate.of(input);
+
+        assertThat(estimate.columns()).isEqualTo(2);
+        assertThat(estimate.keywordColumns()).isEqualTo(1);
+        assertThat((double) estimate.rows()).isCloseTo(20_000, within(1_000.0));
+        assertThat(estimate.gridRows()).isEqualTo(30_000);
+    }
+
+    @Test
+    void plan_degrades_to_smaller_storage_as_free_heap_shrinks() {
+        MemoryAdmission.Estimate estimate = new MemoryAdmission.Estimate(10_000_000, 12_000_000, 8, 1, 6);
+        long heap = estimate.peakBytes(MemoryAdmission.Storage.HEAP);
+        long compressed = estimate.peakBytes(MemoryAdmission.Storage.COMPRESSED);
+        long offHeap = estimate.peakBytes(MemoryAdmission.Storage.OFF_HEAP);
+        assertThat(heap).isGreaterThan(compressed);
+        assertThat(compressed).isGreaterThan(offHeap);
+
+        assertThat(MemoryAdmission.plan(estimate, heap * 2).storage()).isEqualTo(MemoryAdmission.Storage.HEAP);
+        assertThat(MemoryAdmission.plan(estimate, compressed * 2).storage())
+                .isEqualTo(MemoryAdmission.Storage.COMPRESSED);
+        assertThat(MemoryAdmission.plan(estimate, offHeap * 2).storage()).isEqualTo(MemoryAdmission.Storage.OFF_HEAP);
+
+        MemoryAdmission.Plan tooLarge = MemoryAdmission.plan(estimate, offHeap / 2);
+        assertThat(tooLarge.storage()).isEqualTo(MemoryAdmission.Storage.OFF_HEAP);
+        assertThat(tooLarge.fits()).isFalse();
+    }
+
+    @Test
+    void estimate_covers_only_the_selected_columns_and_the_window_share() throws Exception {
+        Path input = Files.createTempFile("admission", ".csv");
+        Instant start = Instant.parse("2025-01-01T00:00:00Z");
+        try (BufferedWriter out = Files.newBufferedWriter(input)) {
+            out.write("timestamp");
+            for (int c = 0; c < 50; c++) out.write(",c" + c);
+            out.write("\n");
+            for (int i = 0; i < 20_000; i++) {
+                out.write(start.plusSeconds(60L * i).toString());
+                for (int c = 0; c < 50; c++) out.write("," + (i + c) % 100 + ".25");
+                out.write("\n");
+            }
+        }
+        MemoryAdmission.Estimate all = MemoryAdmission.Estimate.of(input);
+        MemoryAdmission.Estimate two = MemoryAdmission.Estimate.of(input,
+                new ColumnSelection(List.of("c1", "c2"), false));
+        MemoryAdmission.Estimate kept = MemoryAdmission.Estimate.of(input,
+                new ColumnSelection(List.of("c1", "c2"), true));
+
+        assertThat(all.columns()).isEqualTo(50);
+        assertThat(two.columns()).isEqualTo(2);
+        assertThat(two.rawLineBytes()).isEqualTo(0.0);
+        assertThat(kept.rawLineBytes()).isGreaterThan(200.0);
+        assertThat(two.peakBytes(MemoryAdmission.Storage.HEAP))
+                .isLessThan(all.peakBytes(MemoryAdmission.Storage.HEAP) / 3);
+        // the raw lines are on the heap unless mapped
+        assertThat(kept.peakBytes(MemoryAdmission.Storage.HEAP))
+                .isGreaterThan(two.peakBytes(MemoryAdmission.Storage.HEAP) + 20_000L * 200);
+        assertThat(kept.peakBytes(MemoryAdmission.Storage.OFF_HEAP))
+                .isLessThan(kept.peakBytes(MemoryAdmission.Storage.COMPRESSED));
+
+        MemoryAdmission.Estimate window = all.window(0.1);
+        assertThat((double) window.rows()).isCloseTo(all.rows() / 10.0, within(1.0));
+        assertThat((double) window.gridRows()).isCloseTo(all.gridRows() / 10.0, within(1.0));
+        assertThat(all.window(1)).isEqualTo(all);
+    }
+}
@@ -0,0 +1,74 @@
+package com.data.imputation.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class S3ServiceTest {
+
+    private LocalS3Server server;
+    private S3Client client;
+
+    @AfterEach
+    void stopServer() {
+        if (client != null) client.close();
+        if (server != null) server.close();
+    }
+
+    @Test
+    void small_file_goes_up_as_one_object() throws Exception {
+        server = LocalS3Server.start();
+        Path file = Files.createTempDirectory("s3-test").resolve("report.csv");
+        Files.writeString(file, "timestamp,value\n2025-01-01T00:00:00Z,1.5\n");
+
+        String url = service(server).uploadFile(file);
+
+        assertThat(url).isEqualTo(server.endpoint() + "/bucket/out%2Freport.csv");
+        assertThat(server.object("bucket", "out/report.csv")).isEqualTo(Files.readAllBytes(file));
+        assertThat(server.requestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void without_an_endpoint_the_url_is_the_aws_virtual_hosted_one() throws Exception {
+        server = LocalS3Server.start();
+        Path file = Files.createTempDirectory("s3-test").resolve("report.csv");
+        Files.writeString(file, "timestamp,value\n");
+        client = server.client();
+        StaticListableBeanFactory beans = new StaticListableBeanFactory(Map.<String, Object>of("s3Client", client));
+        S3Service aws = new S3Service(beans.getBeanProvider(S3Client.class), "bucket", "us-east-1", "out", "");
+
+        assertThat(aws.uploadFile(file)).isEqualTo("https://bucket.s3.us-east-1.amazonaws.com/out%2Freport.csv");
+    }
+
+    @Test
+    void large_file_goes_up_in_parts_and_leaves_no_progress_sidecar() throws Exception {
+        server = LocalS3Server.start();
+        Path file = Files.createTempDirectory("s3-test").resolve("large.csv");
+        byte[] content = new byte[20 << 20];
+        new Random(7).nextBytes(content);
+        Files.write(file, content);
+
+        service(server).uploadFile(file);
+
+        assertThat(server.object("bucket", "out/large.csv")).isEqualTo(content);
+        // create, three 8 MB parts, complete
+        assertThat(server.requestCount()).isEqualTo(5);
+        assertThat(Files.exists(file.resolveSibling("large.csv.upload"))).isFalse();
+    }
+
+    /** An S3Service uploading to {@code bucket} under {@code out/} on {@code server}. */
+    S3Service service(LocalS3Server server) {
+        client = server.client();
+        StaticListableBeanFactory beans = new StaticListableBeanFactory(Map.<String, Object>of("s3Client", client));
+        return new S3Service(beans.getBeanProvider(S3Client.class), "bucket", "us-east-1", "out",
+                server.endpoint().toString());
+    }
+}
@@ -1,16 +1,25 @@
 package com.data.imputation.service;
 
+import com.data.imputation.metrics.JobMetrics;
+import com.data.imputation.model.Aggregation;
 import com.data.imputation.model.CsvTable;
 import com.data.imputation.model.DataRow;
+import com.data.imputation.model.ProcessingOptions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
-import java.io.InputStream;
 import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+import static com.data.imputation.TestFiles.copyResourceToTemp;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class TimeSeriesInterpolationServiceTest {
 
@@ -178,19 +187,353 @@ class TimeSeriesInterpolationServiceTest {
         }
     }
 
-    // ---------- helpers ----------
+    // ---------- resampling ----------
 
-    private Path copyResourceToTemp(String resourceName, Path dir) throws Exception {
-        try (InputStream in = getClass().getClassLoader().getResourceAsStream(resourceName)) {
-            if (in == null) {
-                throw new IllegalStateException("Missing resource: " + resourceName);
-            }
-            Path out = dir.resolve(Paths.get(resourceName).getFileName());
-            Files.copy(in, out, StandardCopyOption.REPLACE_EXISTING);
-            return out;
+    @Test
+    void resample_rolls_hourly_series_up_to_six_hour_buckets() throws Exception {
+        Path tempDir = Files.createTempDirectory("tsi-test");
+        Path input = copyResourceToTemp("test_files/test_120hrs_of_rows.csv", tempDir);
+
+        CsvService csvService = new CsvService();
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(csvService);
+
+        ProcessingOptions options = ProcessingOptions.withSuffix("6h")
+                .resampleInterval(Duration.ofHours(6))
+                .aggregate("pressure", Aggregation.MAX);
+
+        Path output = service.processFile(input, options);
+        CsvTable table = readDataSectionIgnoringStats(output, csvService);
+        List<DataRow> rows = table.getRows();
+
+        assertThat(rows).hasSize(20);
+        assertThat(rows.get(1).getTimestamp().toString()).isEqualTo("2025-01-01T06:00:00Z");
+
+        // temp 20.0 .. 22.5 in half-degree steps -> mean 21.25
+        assertThat(Double.parseDouble(rows.get(0).getValues().get(0))).isEqualTo(21.25);
+        // MAX keeps the original cell text
+        assertThat(rows.get(0).getValues().get(1)).isEqualTo("1005");
+    }
+
+    @Test
+    void aggregations_are_matched_by_trimmed_name_and_unknown_names_are_rejected() throws Exception {
+        Path tempDir = Files.createTempDirectory("tsi-test");
+        Path input = copyResourceToTemp("test_files/test_120hrs_of_rows.csv", tempDir);
+
+        CsvService csvService = new CsvService();
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(csvService);
+
+        ProcessingOptions options = ProcessingOptions.withSuffix("6h")
+                .resampleInterval(Duration.ofHours(6))
+                .aggregations("temp:MEAN, pressure:MAX");
+        CsvTable table = readDataSectionIgnoringStats(service.processFile(input, options), csvService);
+        assertThat(table.getRows().get(0).getValues().get(1)).isEqualTo("1005");
+
+        ProcessingOptions misspelt = ProcessingOptions.withSuffix("6h")
+                .resampleInterval(Duration.ofHours(6))
+                .aggregations("presure:MAX");
+        assertThatThrownBy(() -> service.processFile(input, misspelt))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("presure");
+    }
+
+    // ---------- off-heap ----------
+
+    @ParameterizedTest
+    @ValueSource(strings = {"test_all_empty_middle.csv", "test_sparse_columns.csv",
+            "test_mixed_keywords.csv", "test_irregular_gaps.csv", "test_800_columns.csv"})
+    void off_heap_run_matches_heap_run(String fixture) throws Exception {
+        Path tempDir = Files.createTempDirectory("tsi-test");
+        Path input = copyResourceToTemp("test_files/" + fixture, tempDir);
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+
+        List<String> heap = Files.readAllLines(service.processFile(input, ProcessingOptions.withSuffix("heap")));
+        List<String> offHeap = Files.readAllLines(
+                service.processFile(input, ProcessingOptions.withSuffix("mapped").offHeap(true)));
+
+        assertThat(offHeap).isEqualTo(heap);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"test_all_empty_middle.csv", "test_sparse_columns.csv",
+            "test_mixed_keywords.csv", "test_irregular_gaps.csv", "test_800_columns.csv"})
+    void compressed_run_matches_heap_run(String fixture) throws Exception {
+        Path tempDir = Files.createTempDirectory("tsi-test");
+        Path input = copyResourceToTemp("test_files/" + fixture, tempDir);
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+
+        Path heap = service.processFile(input, ProcessingOptions.withSuffix("heap"));
+        Path compressed = service.processFile(input, ProcessingOptions.withSuffix("packed").compressed(true));
+
+        assertThat(Files.readAllLines(compressed)).isEqualTo(Files.readAllLines(heap));
+    }
+
+    // ---------- admission ----------
+
+    @Test
+    void storage_plan_does_not_change_with_garbage_on_the_heap() throws Exception {
+        Path tempDir = Files.createTempDirectory("tsi-test");
+        Path input = copyResourceToTemp("test_files/test_mixed_keywords.csv", tempDir);
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+
+        JobMetrics before = service.newJobMetrics(input);
+        service.processFile(input, ProcessingOptions.withSuffix("a"), before);
+        // unreachable but not yet collected
+        List<byte[]> garbage = new ArrayList<>();
+        for (int i = 0; i < 64; i++) garbage.add(new byte[1 << 20]);
+        garbage = null;
+        JobMetrics after = service.newJobMetrics(input);
+        service.processFile(input, ProcessingOptions.withSuffix("b"), after);
+
+        assertThat(after.getStorage()).startsWith("heap").isEqualTo(before.getStorage());
+    }
+
+    // ---------- snapshot ----------
+
+    @ParameterizedTest
+    @ValueSource(strings = {"test_all_empty_middle.csv", "test_sparse_columns.csv",
+            "test_mixed_keywords.csv", "test_irregular_gaps.csv", "test_800_columns.csv"})
+    void run_from_a_snapshot_matches_the_run_that_wrote_it(String fixture) throws Exception {
+        Path tempDir = Files.createTempDirectory("tsi-test");
+        Path input = copyResourceToTemp("test_files/" + fixture, tempDir);
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+
+        List<String> parsed = Files.readAllLines(
+                service.processFile(input, ProcessingOptions.withSuffix("parsed").snapshot(true)));
+        Path sidecar = input.resolveSibling(input.getFileName() + ".snap");
+        byte[] written = Files.readAllBytes(sidecar);
+        List<String> mapped = Files.readAllLines(
+                service.processFile(input, ProcessingOptions.withSuffix("mapped").snapshot(true)));
+
+        assertThat(mapped).isEqualTo(parsed);
+        // cells interpolated into the mapped table never reach the sidecar
+        assertThat(Files.readAllBytes(sidecar)).isEqualTo(written);
+    }
+
+    @Test
+    void snapshot_of_a_changed_input_is_rewritten() throws Exception {
+        Path tempDir = Files.createTempDirectory("tsi-test");
+        Path input = tempDir.resolve("hourly.csv");
+        Files.write(input, List.of(
+                "timestamp,temp",
+                "2025-01-01T00:00:00Z,10",
+                "2025-01-01T01:00:00Z,",
+                "2025-01-01T02:00:00Z,12"));
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+        service.processFile(input, ProcessingOptions.withSuffix("s").snapshot(true));
+
+        // same size and modification time, different content
+        FileTime mtime = Files.getLastModifiedTime(input);
+        Files.write(input, List.of(
+                "timestamp,temp",
+                "2025-01-01T00:00:00Z,20",
+                "2025-01-01T01:00:00Z,",
+                "2025-01-01T02:00:00Z,22"));
+        Files.setLastModifiedTime(input, mtime);
+
+        List<String> lines = Files.readAllLines(
+                service.processFile(input, ProcessingOptions.withSuffix("s").snapshot(true)));
+        assertThat(lines.get(2)).isEqualTo("2025-01-01T01:00:00Z,21.0");
+    }
+
+    @Test
+    void job_runs_without_a_snapshot_that_cannot_be_written() throws Exception {
+        Path tempDir = Files.createTempDirectory("tsi-test");
+        Path input = copyResourceToTemp("test_files/test_mixed_keywords.csv", tempDir);
+        Path sidecar = input.resolveSibling(input.getFileName() + ".snap");
+        // a directory where the snapshot is written aside fails the write even for root
+        Files.createDirectories(sidecar.resolveSibling(sidecar.getFileName() + ".tmp").resolve("x"));
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+
+        List<String> plain = Files.readAllLines(service.processFile(input, ProcessingOptions.withSuffix("plain")));
+        List<String> snapshot = Files.readAllLines(
+                service.processFile(input, ProcessingOptions.withSuffix("snap").snapshot(true)));
+
+        assertThat(snapshot).isEqualTo(plain);
+        assertThat(sidecar).doesNotExist();
+    }
+
+    // ---------- column selection ----------
+
+    @Test
+    void selected_columns_are_repaired_as_in_a_full_run_and_the_rest_dropped() throws Exception {
+        Path tempDir = Files.createTempDirectory("tsi-test");
+        Path input = copyResourceToTemp("test_files/test_800_columns.csv", tempDir);
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+
+        List<String> full = Files.readAllLines(service.processFile(input, ProcessingOptions.withSuffix("full")));
+        List<String> narrow = Files.readAllLines(
+                service.processFile(input, ProcessingOptions.withSuffix("narrow").columns("c1, c7?")));
+
+        List<String> header = List.of(full.get(0).split(","));
+        int[] kept = {0, header.indexOf("c1"), header.indexOf("c70"), header.indexOf("c79")};
+        assertThat(narrow.get(0).split(",")).hasSize(12).startsWith("timestamp", "c1", "c70");
+        assertThat(narrow).hasSameSizeAs(full);
+        for (int line = 0; line < full.size(); line++) {
+            String[] expected = full.get(line).split(",", -1);
+            String[] actual = narrow.get(line).split(",", -1);
+            assertThat(actual[0]).isEqualTo(expected[kept[0]]);
+            assertThat(actual[1]).isEqualTo(expected[kept[1]]);
+            assertThat(actual[2]).isEqualTo(expected[kept[2]]);
+            assertThat(actual[11]).isEqualTo(expected[kept[3]]);
         }
     }
 
+    @Test
+    void pass_through_columns_keep_their_raw_cells_and_get_no_stats() throws Exception {
+        Path tempDir = Files.createTempDirectory("tsi-test");
+        Path input = copyResourceToTemp("test_files/test_mixed_keywords.csv", tempDir);
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+
+        List<String> full = Files.readAllLines(service.processFile(input, ProcessingOptions.withSuffix("full")));
+        List<String> passed = Files.readAllLines(service.processFile(input,
+                ProcessingOptions.withSuffix("passed").columns("sensor_a").passThrough(true)));
+        List<String> original = Files.readAllLines(input);
+
+        assertThat(passed.get(0)).isEqualTo(original.get(0));
+        assertThat(passed).hasSameSizeAs(full);
+        for (int line = 1; line < original.size(); line++) {
+            String[] raw = original.get(line).split(",", -1);
+            String[] out = passed.get(line).split(",", -1);
+            assertThat(out[1]).isEqualTo(full.get(line).split(",", -1)[1]);
+            // untouched, not even trimmed
+            assertThat(Arrays.copyOfRange(out, 2, out.length)).containsExactly(Arrays.copyOfRange(raw, 2, raw.length));
+        }
+
+        String average = passed.stream().filter(l -> l.startsWith("Average,")).findFirst().orElseThrow();
+        assertThat(average.split(",", -1)).hasSize(6).endsWith("", "", "", "");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"off-heap", "compressed"})
+    void pass_through_lines_are_kept_raw_whatever_the_storage(String storage) throws Exception {
+        Path tempDir = Files.createTempDirectory("tsi-test");
+        Path input = tempDir.resolve("notes.csv");
+        String longNote = "note ".repeat(20_000);
+        Files.write(input, List.of(
+                "timestamp,temp,note,code",
+                "2025-01-01T00:00:00Z,10, " + longNote + ",7",
+                "2025-01-01T02:00:00Z,30,12.50 ,x",
+                "2025-01-01T01:00:00Z,,,",          // out of order
+                "2025-01-01T04:00:00Z,50,ok,1e3"));
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+
+        ProcessingOptions heap = ProcessingOptions.withSuffix("heap").columns("temp").passThrough(true);
+        ProcessingOptions other = ProcessingOptions.withSuffix(storage).columns("temp").passThrough(true);
+        if (storage.equals("off-heap")) other.offHeap(true);
+        else other.compressed(true);
+        List<String> expected = Files.readAllLines(service.processFile(input, heap));
+        List<String> actual = Files.readAllLines(service.processFile(input, other));
+
+        assertThat(actual).isEqualTo(expected);
+        assertThat(actual.subList(1, 6)).containsExactly(
+                "2025-01-01T00:00:00Z,10, " + longNote + ",7",
+                "2025-01-01T01:00:00Z,20.0,,",
+                "2025-01-01T02:00:00Z,30,12.50 ,x",
+                "2025-01-01T03:00:00Z,40.0,,",
+                "2025-01-01T04:00:00Z,50,ok,1e3");
+    }
+
+    @Test
+    void column_selection_must_match_a_column() throws Exception {
+        Path tempDir = Files.createTempDirectory("tsi-test");
+        Path input = copyResourceToTemp("test_files/test_mixed_keywords.csv", tempDir);
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+
+        assertThatThrownBy(() -> service.processFile(input, ProcessingOptions.withSuffix("x").columns("pressure*")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("pressure*");
+    }
+
+    @Test
+    void partial_output_without_a_suffix_does_not_overwrite_the_input() throws Exception {
+        Path tempDir = Files.createTempDirectory("tsi-test");
+        Path input = copyResourceToTemp("test_files/test_mixed_keywords.csv", tempDir);
+        List<String> original = Files.readAllLines(input);
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+
+        Path selected = service.processFile(input, ProcessingOptions.withSuffix("").columns("sensor_a"));
+
+        assertThat(selected.getFileName().toString()).isEqualTo("test_mixed_keywords_cols.csv");
+        assertThat(Files.readAllLines(input)).isEqualTo(original);
+        assertThat(TimeSeriesInterpolationService.outputPathFor(input,
+                ProcessingOptions.withSuffix("").window("2025-01-01T00:00:00Z/2025-01-02T00:00:00Z")))
+                .isEqualTo(tempDir.resolve("test_mixed_keywords_window.csv"));
+        // pass-through and full runs keep every column, so they still repair in place
+        assertThat(TimeSeriesInterpolationService.outputPathFor(input,
+                ProcessingOptions.withSuffix("").columns("sensor_a").passThrough(true)))
+                .isEqualTo(input);
+    }
+
+    // ---------- imputed cells ----------
+
+    @Test
+    void imputed_cells_are_reported_by_output_row_and_column() throws Exception {
+        Path tempDir = Files.createTempDirectory("tsi-test");
+        Path input = tempDir.resolve("hourly.csv");
+        Files.write(input, List.of(
+                "timestamp,temp,status",
+                "2025-01-01T00:00:00Z,10,OK",
+                "2025-01-01T01:00:00Z,,OK",
+                // 02:00 is missing entirely
+                "2025-01-01T03:00:00Z,40,",
+                "2025-01-01T04:00:00Z,,OK"));
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+
+        DeltaPatch.ImputedCells imputed = new DeltaPatch.ImputedCells();
+        service.processFiles(List.of(input), ProcessingOptions.withSuffix("x"),
+                service.newJobMetrics(input), imputed);
+
+        assertThat(imputed.size()).isEqualTo(2);
+        assertThat(imputed.isImputed(0, 1)).isTrue();
+        assertThat(imputed.isImputed(0, 2)).isTrue();
+        // trailing blank has no right anchor; keyword columns are never filled
+        assertThat(imputed.isImputed(0, 4)).isFalse();
+        assertThat(imputed.isImputed(1, 3)).isFalse();
+    }
+
+    // ---------- precision ----------
+
+    @Test
+    void precision_rounds_interpolated_cells_and_keeps_original_ones() throws Exception {
+        Path tempDir = Files.createTempDirectory("tsi-test");
+        Path input = tempDir.resolve("hourly.csv");
+        Files.write(input, List.of(
+                "timestamp,temp,humidity",
+                "2025-01-01T00:00:00Z,10.12345,1",
+                "2025-01-01T01:00:00Z,,",
+                "2025-01-01T02:00:00Z,,",
+                "2025-01-01T03:00:00Z,11,2"));
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+
+        List<String> lines = Files.readAllLines(
+                service.processFile(input, ProcessingOptions.withSuffix("p").precisions("temp:2")));
+
+        assertThat(lines.get(1)).isEqualTo("2025-01-01T00:00:00Z,10.12345,1");
+        assertThat(lines.get(2)).isEqualTo("2025-01-01T01:00:00Z,10.42,1.3333333333333333");
+        assertThat(lines.get(3)).isEqualTo("2025-01-01T02:00:00Z,10.71,1.6666666666666665");
+    }
+
+    @Test
+    void precision_spec_with_spaces_rounds_every_named_column() throws Exception {
+        Path tempDir = Files.createTempDirectory("tsi-test");
+        Path input = tempDir.resolve("hourly.csv");
+        Files.write(input, List.of(
+                "timestamp,temp,humidity",
+                "2025-01-01T00:00:00Z,10.12345,1",
+                "2025-01-01T01:00:00Z,,",
+                "2025-01-01T02:00:00Z,,",
+                "2025-01-01T03:00:00Z,11,2"));
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+
+        List<String> lines = Files.readAllLines(
+                service.processFile(input, ProcessingOptions.withSuffix("p").precisions("temp:2, humidity:1")));
+
+        assertThat(lines.get(2)).isEqualTo("2025-01-01T01:00:00Z,10.42,1.3");
+        assertThat(lines.get(3)).isEqualTo("2025-01-01T02:00:00Z,10.71,1.7");
+    }
+
+    // ---------- helpers ----------
+
     /** Reads only header + data rows, stopping before "Average,..." stats start. */
     private CsvTable readDataSectionIgnoringStats(Path csvPath, CsvService csvService) throws Exception {
         List<String> all = Files.readAllLines(csvPath);
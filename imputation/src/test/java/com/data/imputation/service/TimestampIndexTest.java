@@ -0,0 +1,151 @@
+package com.data.imputation.service;
+
+import com.data.imputation.metrics.JobMetrics;
+import com.data.imputation.model.ProcessingOptions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TimestampIndexTest {
+
+    private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Test
+    void window_job_matches_a_run_over_just_the_window_rows() throws Exception {
+        Path tempDir = Files.createTempDirectory("tsidx-test");
+        Path input = writeMinuteInput(tempDir, "minutes.csv", 20_000);
+        Instant from = START.plusSeconds(12_000 * 60);
+        Instant to = START.plusSeconds(12_360 * 60);
+
+        // the same rows cut out by hand
+        List<String> lines = Files.readAllLines(input);
+        List<String> cut = new ArrayList<>();
+        cut.add(lines.get(0));
+        cut.addAll(lines.subList(12_001, 12_361));
+        Path cutInput = tempDir.resolve("cut.csv");
+        Files.write(cutInput, cut);
+
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+        JobMetrics metrics = service.newJobMetrics(input);
+        Path windowed = service.processFile(input, ProcessingOptions.withSuffix("w").window(from, to), metrics);
+        Path expected = service.processFile(cutInput, ProcessingOptions.withSuffix("w"));
+
+        assertThat(Files.readAllLines(windowed)).isEqualTo(Files.readAllLines(expected));
+        assertThat(metrics.getRowsIn()).isEqualTo(360);
+        // read from the entry before the window to just past it, not the whole file
+        assertThat(metrics.getBytesRead()).isLessThan(Files.size(input) / 2);
+        assertThat(TimestampIndex.sidecarFor(input)).exists();
+    }
+
+    @Test
+    void range_starts_at_the_last_entry_before_the_window() throws Exception {
+        Path tempDir = Files.createTempDirectory("tsidx-test");
+        Path input = writeMinuteInput(tempDir, "minutes.csv", 10_000);
+        TimestampIndex index = TimestampIndex.openOrBuild(input);
+
+        assertThat(index.isSorted()).isTrue();
+        assertThat(index.getRowCount()).isEqualTo(10_000);
+
+        Instant from = START.plusSeconds(5_000 * 60);
+        TimestampIndex.Range range = index.range(input, from, from.plusSeconds(3600));
+        List<String> lines = Files.readAllLines(input);
+        long offset = 0;
+        for (int i = 0; i < 1 + TimestampIndex.ROWS_PER_ENTRY; i++) {
+            offset += lines.get(i).length() + 1;
+        }
+        assertThat(range.offset()).isEqualTo(offset);
+        assertThat(range.headerLine()).isEqualTo(lines.get(0));
+
+        // a window before the first row starts at the first data line
+        assertThat(index.range(input, START.minusSeconds(60), START).offset())
+                .isEqualTo(lines.get(0).length() + 1);
+    }
+
+    @Test
+    void share_of_a_window_follows_the_indexed_rows() throws Exception {
+        Path tempDir = Files.createTempDirectory("tsidx-test");
+        Path input = writeMinuteInput(tempDir, "minutes.csv", 100 * TimestampIndex.ROWS_PER_ENTRY);
+        TimestampIndex index = TimestampIndex.openOrBuild(input);
+
+        Instant quarter = START.plusSeconds(25L * TimestampIndex.ROWS_PER_ENTRY * 60);
+        assertThat(index.share(quarter, quarter.plusSeconds(25L * TimestampIndex.ROWS_PER_ENTRY * 60)))
+                .isCloseTo(0.26, within(0.001));
+        // a window between two entries still counts one entry's worth of rows
+        assertThat(index.share(quarter.plusSeconds(60), quarter.plusSeconds(120))).isCloseTo(0.01, within(0.001));
+        assertThat(index.share(START, START.plusSeconds(1L << 40))).isEqualTo(1.0);
+    }
+
+    @Test
+    void index_is_rebuilt_when_the_input_changes() throws Exception {
+        Path tempDir = Files.createTempDirectory("tsidx-test");
+        Path input = writeMinuteInput(tempDir, "minutes.csv", 5_000);
+        assertThat(TimestampIndex.openOrBuild(input).getRowCount()).isEqualTo(5_000);
+
+        writeMinuteInput(tempDir, "minutes.csv", 6_000);
+        Files.setLastModifiedTime(input, FileTime.from(Instant.now().plusSeconds(60)));
+
+        assertThat(TimestampIndex.openOrBuild(input).getRowCount()).isEqualTo(6_000);
+    }
+
+    @Test
+    void window_job_runs_without_the_sidecar_when_it_cannot_be_written() throws Exception {
+        Path tempDir = Files.createTempDirectory("tsidx-test");
+        Path input = writeMinuteInput(tempDir, "minutes.csv", 10_000);
+        // a directory where the sidecar is written aside fails the write even for root
+        Path blocked = Files.createDirectories(
+                tempDir.resolve(TimestampIndex.sidecarFor(input).getFileName() + ".tmp").resolve("x"));
+        Instant from = START.plusSeconds(5_000 * 60);
+
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+        JobMetrics metrics = service.newJobMetrics(input);
+        service.processFile(input, ProcessingOptions.withSuffix("w").window(from, from.plusSeconds(3600)), metrics);
+
+        assertThat(metrics.getRowsIn()).isEqualTo(60);
+        assertThat(TimestampIndex.sidecarFor(input)).doesNotExist();
+        assertThat(blocked).exists();
+    }
+
+    @Test
+    void unsorted_input_is_read_in_full_and_filtered() throws Exception {
+        Path tempDir = Files.createTempDirectory("tsidx-test");
+        Path input = tempDir.resolve("unsorted.csv");
+        Files.write(input, List.of(
+                "timestamp,value",
+                "2025-01-01T05:00:00Z,5",
+                "2025-01-01T01:00:00Z,1",
+                "2025-01-01T03:00:00Z,",
+                "2025-01-01T02:00:00Z,2",
+                "2025-01-01T00:00:00Z,0",
+                "2025-01-01T04:00:00Z,4"));
+
+        assertThat(TimestampIndex.openOrBuild(input).isSorted()).isFalse();
+
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+        List<String> out = Files.readAllLines(service.processFile(input, ProcessingOptions.withSuffix("w")
+                .window(Instant.parse("2025-01-01T01:00:00Z"), Instant.parse("2025-01-01T05:00:00Z"))));
+
+        assertThat(out.subList(0, 5)).containsExactly(
+                "timestamp,value",
+                "2025-01-01T01:00:00Z,1",
+                "2025-01-01T02:00:00Z,2",
+                "2025-01-01T03:00:00Z,3.0",
+                "2025-01-01T04:00:00Z,4");
+    }
+
+    private static Path writeMinuteInput(Path dir, String name, int rows) throws Exception {
+        List<String> lines = new ArrayList<>(rows + 1);
+        lines.add("timestamp,value");
+        for (int i = 0; i < rows; i++) {
+            // every seventh value missing, so the window has something to fill
+            lines.add(START.plusSeconds(i * 60L) + "," + (i % 7 == 3 ? "" : Integer.toString(i % 100)));
+        }
+        return Files.write(dir.resolve(name), lines);
+    }
+}
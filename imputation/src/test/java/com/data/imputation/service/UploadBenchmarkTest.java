@@ -0,0 +1,131 @@
+package com.data.imputation.service;
+
+import com.data.imputation.model.ProcessingOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures uploads through {@link S3Service} against a {@link LocalS3Server} with a
+ * throttled link, so upload changes can be compared on a machine without a network.
+ *
+ * Opt-in:
+ *   mvn test -Dtest=UploadBenchmarkTest -Dbenchmark.upload=true
+ * Optional: -Dbenchmark.upload.link-mb-per-s=100   (0 for unthrottled)
+ *           -Dbenchmark.upload.latency-ms=20
+ *           -Dbenchmark.upload.min-link-share=0.5   (throughput floor, share of the link)
+ *           -Dbenchmark.upload.rows=300000 -Dbenchmark.upload.budget-ms=20000
+ */
+@EnabledIfSystemProperty(named = "benchmark.upload", matches = "true")
+class UploadBenchmarkTest {
+
+    private static final int RUNS = 5;
+
+    private final long linkBytesPerSecond = Long.getLong("benchmark.upload.link-mb-per-s", 100) << 20;
+    private LocalS3Server server;
+    private S3Client client;
+
+    @AfterEach
+    void stopServer() {
+        if (client != null) client.close();
+        if (server != null) server.close();
+    }
+
+    @Test
+    void upload_throughput_is_close_to_the_link_speed() throws Exception {
+        S3Service s3Service = startService();
+        Path dir = Files.createTempDirectory("upload-benchmark");
+        double minShare = Double.parseDouble(System.getProperty("benchmark.upload.min-link-share", "0.5"));
+
+        // one PutObject, then a multipart upload of six parts
+        for (int megabytes : new int[]{4, 48}) {
+            Path file = dir.resolve("upload-" + megabytes + "mb.csv");
+            byte[] content = new byte[megabytes << 20];
+            new Random(megabytes).nextBytes(content);
+            Files.write(file, content);
+            s3Service.uploadFile(file); // warm-up
+
+            double[] mbPerSecond = new double[RUNS];
+            for (int i = 0; i < RUNS; i++) {
+                long start = System.nanoTime();
+                s3Service.uploadFile(file);
+                mbPerSecond[i] = megabytes / ((System.nanoTime() - start) / 1e9);
+            }
+            Arrays.sort(mbPerSecond);
+            double median = mbPerSecond[RUNS / 2];
+
+            System.out.printf("upload %d MB: median=%.1f MB/s runs=%s%n", megabytes, median, Arrays.toString(mbPerSecond));
+            assertThat(server.object("bucket", "benchmark/" + file.getFileName())).isEqualTo(content);
+            if (linkBytesPerSecond > 0) {
+                assertThat(median).isGreaterThanOrEqualTo(minShare * (linkBytesPerSecond >> 20));
+            }
+        }
+    }
+
+    @Test
+    void processing_plus_upload_finishes_within_budget() throws Exception {
+        S3Service s3Service = startService();
+        TimeSeriesInterpolationService service = new TimeSeriesInterpolationService(new CsvService());
+        Path input = generate(Files.createTempDirectory("upload-benchmark").resolve("series.csv"),
+                Integer.getInteger("benchmark.upload.rows", 300_000));
+        long budgetMs = Long.getLong("benchmark.upload.budget-ms", 20_000);
+        s3Service.uploadFile(service.processFile(input, ProcessingOptions.withSuffix("warmup"))); // warm-up
+
+        long[] totalMs = new long[RUNS];
+        long[] uploadMs = new long[RUNS];
+        long outputBytes = 0;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            Path output = service.processFile(input, ProcessingOptions.withSuffix("bench"));
+            long processed = System.nanoTime();
+            s3Service.uploadFile(output);
+            long end = System.nanoTime();
+            totalMs[i] = (end - start) / 1_000_000;
+            uploadMs[i] = (end - processed) / 1_000_000;
+            outputBytes = Files.size(output);
+        }
+        Arrays.sort(totalMs);
+        Arrays.sort(uploadMs);
+        long median = totalMs[RUNS / 2];
+
+        System.out.println("process+upload of " + (outputBytes >> 20) + " MB (ms): median=" + median
+                + " upload median=" + uploadMs[RUNS / 2] + " runs=" + Arrays.toString(totalMs));
+        assertThat(median).isLessThanOrEqualTo(budgetMs);
+    }
+
+    private S3Service startService() throws Exception {
+        server = LocalS3Server.start()
+                .latencyMillis(Long.getLong("benchmark.upload.latency-ms", 20))
+                .bytesPerSecond(linkBytesPerSecond);
+        client = server.client();
+        StaticListableBeanFactory beans = new StaticListableBeanFactory(Map.<String, Object>of("s3Client", client));
+        return new S3Service(beans.getBeanProvider(S3Client.class), "bucket", "us-east-1", "benchmark",
+                server.endpoint().toString());
+    }
+
+    /** A minute series of four sensors with every 10th row missing. */
+    private static Path generate(Path file, int rows) throws Exception {
+        Instant start = Instant.parse("2025-01-01T00:00:00Z");
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            out.write("timestamp,temp,humidity,pressure,flow\n");
+            for (int r = 0; r < rows; r++) {
+                if (r % 10 == 5) continue;
+                out.write(start.plusSeconds(60L * r) + "," + (20 + r % 50 / 10.0) + "," + (40 + r % 30) + ","
+                        + (1000 + r % 17 / 4.0) + "," + (r % 7 * 1.25) + "\n");
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,58 @@
+package com.data.imputation.ui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MinMaxPyramidTest {
+
+    @Test
+    void buckets_cover_the_min_and_max_of_their_rows_at_any_zoom() {
+        int size = 100_000;
+        float[] values = new float[size];
+        BitSet imputed = new BitSet(size);
+        Random random = new Random(7);
+        for (int i = 0; i < size; i++) {
+            values[i] = (float) random.nextGaussian();
+            if (random.nextInt(10) == 0) imputed.set(i);
+        }
+        MinMaxPyramid original = new MinMaxPyramid(values, size, imputed, false);
+
+        for (double span : new double[]{300, 5_000, 100_000}) {
+            double from = (size - span) / 3;
+            float[] min = new float[200];
+            float[] max = new float[200];
+            original.reduce(from, from + span, min, max);
+
+            for (int x = 0; x < min.length; x++) {
+                int start = (int) Math.floor(from + span / min.length * x);
+                int end = (int) Math.ceil(from + span / min.length * (x + 1));
+                for (int i = start; i < end; i++) {
+                    if (imputed.get(i)) continue;
+                    assertThat(min[x]).isLessThanOrEqualTo(values[i]);
+                    assertThat(max[x]).isGreaterThanOrEqualTo(values[i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    void buckets_without_points_of_the_series_are_nan() {
+        float[] values = {1, 2, 3, 4, 5, 6, 7, 8};
+        BitSet imputed = new BitSet();
+        imputed.set(2, 4);
+        MinMaxPyramid filled = new MinMaxPyramid(values, values.length, imputed, true);
+
+        float[] min = new float[4];
+        float[] max = new float[4];
+        filled.reduce(0, 8, min, max);
+
+        assertThat(min).containsExactly(Float.NaN, 3f, Float.NaN, Float.NaN);
+        assertThat(max).containsExactly(Float.NaN, 4f, Float.NaN, Float.NaN);
+        assertThat(filled.value(2)).isEqualTo(3f);
+        assertThat(filled.value(0)).isNaN();
+    }
+}